@@ -0,0 +1,60 @@
+// Copyright 2025 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.base;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/** Parsing a command line file of realistic size and querying the resulting switches. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommandLineBenchmark {
+    private static final int SWITCH_COUNT = 100;
+
+    private char[] mBuffer;
+    private String[] mArgs;
+
+    @Setup
+    public void setUp() {
+        StringBuilder buffer = new StringBuilder("_");
+        for (int i = 0; i < SWITCH_COUNT; i++) {
+            buffer.append(" --switch-").append(i).append("=\"value ").append(i).append('"');
+        }
+        mBuffer = buffer.toString().toCharArray();
+        mArgs = CommandLine.tokenizeQuotedArguments(mBuffer);
+    }
+
+    @TearDown
+    public void tearDown() {
+        CommandLine.reset();
+    }
+
+    @Benchmark
+    public String[] tokenizeQuotedArguments() {
+        return CommandLine.tokenizeQuotedArguments(mBuffer);
+    }
+
+    @Benchmark
+    public String initAndQuery() {
+        CommandLine.init(mArgs);
+        CommandLine commandLine = CommandLine.getInstance();
+        return commandLine.hasSwitch("switch-99") ? commandLine.getSwitchValue("switch-50") : null;
+    }
+}
@@ -0,0 +1,80 @@
+// Copyright 2025 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.base;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deleting a freshly created tree of small files, sequentially the way {@link FileUtils} used to
+ * and with {@link ParallelFileDeleter}. Results depend heavily on the file system of the host.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FileDeletionBenchmark {
+    private static final int FILES_PER_DIRECTORY = 100;
+
+    @Param({"10000", "100000"})
+    public int fileCount;
+
+    private File mRoot;
+
+    @Setup(Level.Invocation)
+    public void createTree() throws IOException {
+        mRoot = Files.createTempDirectory("deletion_benchmark").toFile();
+        for (int i = 0; i < fileCount; i++) {
+            File directory = new File(mRoot, "dir" + (i / FILES_PER_DIRECTORY));
+            if (i % FILES_PER_DIRECTORY == 0 && !directory.mkdir()) {
+                throw new IOException("Failed to create " + directory);
+            }
+            Files.write(new File(directory, "file" + i).toPath(), new byte[] {1});
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void checkDeleted() {
+        if (mRoot.exists()) throw new IllegalStateException(mRoot + " was not deleted");
+    }
+
+    @Benchmark
+    public boolean sequential() {
+        return deleteRecursively(mRoot);
+    }
+
+    @Benchmark
+    public boolean parallel() {
+        return ParallelFileDeleter.delete(mRoot, null, null);
+    }
+
+    private static boolean deleteRecursively(File file) {
+        if (file.isDirectory()) {
+            File[] children = file.listFiles();
+            if (children != null) {
+                for (File child : children) deleteRecursively(child);
+            }
+        }
+        return file.delete();
+    }
+}
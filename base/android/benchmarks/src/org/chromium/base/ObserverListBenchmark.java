@@ -0,0 +1,93 @@
+// Copyright 2025 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.base;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of notifying every observer once, through each way of iterating {@link ObserverList} and
+ * {@link CopyOnWriteObserverList}. Allocations per notification show up as gc.alloc.rate.norm.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ObserverListBenchmark {
+    private static class Observer {
+        int mEvents;
+
+        void onEvent() {
+            mEvents++;
+        }
+    }
+
+    @Param({"1", "10", "100"})
+    public int observerCount;
+
+    private final ObserverList<Observer> mObserverList = new ObserverList<>();
+    private final CopyOnWriteObserverList<Observer> mCopyOnWriteList =
+            new CopyOnWriteObserverList<>();
+    private ObserverList.RewindableIterator<Observer> mRewindableIterator;
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < observerCount; i++) {
+            Observer observer = new Observer();
+            mObserverList.addObserver(observer);
+            mCopyOnWriteList.addObserver(observer);
+        }
+        mRewindableIterator = mObserverList.rewindableIterator();
+    }
+
+    @Benchmark
+    public void iterator() {
+        for (Observer observer : mObserverList) observer.onEvent();
+    }
+
+    @Benchmark
+    public void rewindableIterator() {
+        mRewindableIterator.rewind();
+        while (mRewindableIterator.hasNext()) mRewindableIterator.next().onEvent();
+    }
+
+    @Benchmark
+    public void indexed() {
+        int end = mObserverList.beginIteration();
+        try {
+            for (int i = 0; i < end; i++) {
+                Observer observer = mObserverList.getObserverAt(i);
+                if (observer != null) observer.onEvent();
+            }
+        } finally {
+            mObserverList.endIteration();
+        }
+    }
+
+    @Benchmark
+    public void forEachObserver() {
+        mObserverList.forEachObserver(Observer::onEvent);
+    }
+
+    @Benchmark
+    public void copyOnWriteSnapshot() {
+        List<Observer> observers = mCopyOnWriteList.snapshot();
+        for (int i = 0; i < observers.size(); i++) observers.get(i).onEvent();
+    }
+}
@@ -0,0 +1,63 @@
+// Copyright 2025 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.base;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Eliding 1MB of log-like text, with the per-kind {@link PiiElider} passes and with the single
+ * pass {@link SinglePassPiiElider}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PiiEliderBenchmark {
+    private static final int INPUT_SIZE = 1024 * 1024;
+    private static final String[] WORDS = {"chromium", "tab", "loaded", "in", "the", "renderer",
+            "user@example.com", "https://www.example.com/path?query=1", "192.168.0.1",
+            "12:34:56:78:9a:bc", "failed", "with", "status", "200", "0x7f00"};
+
+    private String mInput;
+
+    @Setup
+    public void setUp() {
+        // Seeded, so every run elides the same text.
+        Random random = new Random(42);
+        StringBuilder input = new StringBuilder(INPUT_SIZE);
+        while (input.length() < INPUT_SIZE) {
+            input.append(WORDS[random.nextInt(WORDS.length)]);
+            input.append(random.nextInt(10) == 0 ? '\n' : ' ');
+        }
+        mInput = input.toString();
+    }
+
+    @Benchmark
+    public String piiElider() {
+        String elided = PiiElider.elideEmail(mInput);
+        elided = PiiElider.elideUrl(elided);
+        elided = PiiElider.elideIp(elided);
+        return PiiElider.elideMac(elided);
+    }
+
+    @Benchmark
+    public String singlePassPiiElider() {
+        return SinglePassPiiElider.elide(mInput);
+    }
+}
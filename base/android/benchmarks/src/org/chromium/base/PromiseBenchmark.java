@@ -0,0 +1,167 @@
+// Copyright 2025 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.base;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of resolving {@link Promise}s, including running their callbacks on the (stubbed) Looper.
+ * Each combinator is paired with a hand-written callback doing the same job, the difference being
+ * the latency the combinator adds.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PromiseBenchmark {
+    private static final int CHAIN_LENGTH = 10;
+    private static final int FAN_OUT = 4;
+    private static final long TIMEOUT_MS = 60 * 1000;
+
+    private final Executor mDirectExecutor = Runnable::run;
+    private final Handler mHandler = new Handler();
+    private final List<Promise<Integer>> mInputs = new ArrayList<>();
+    private int mRemaining;
+    private boolean mSettled;
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < FAN_OUT; i++) mInputs.add(null);
+    }
+
+    private void createInputs() {
+        for (int i = 0; i < FAN_OUT; i++) mInputs.set(i, new Promise<>());
+    }
+
+    private void fulfillInputs() {
+        for (int i = 0; i < FAN_OUT; i++) mInputs.get(i).fulfill(i);
+        Looper.runUntilIdle();
+    }
+
+    @Benchmark
+    public void fulfillThenCallback(Blackhole blackhole) {
+        Promise<Integer> promise = new Promise<>();
+        promise.then(blackhole::consume);
+        promise.fulfill(1);
+        Looper.runUntilIdle();
+    }
+
+    @Benchmark
+    public void thenOnFulfilled(Blackhole blackhole) {
+        Promise.fulfilled(1).then(blackhole::consume);
+        Looper.runUntilIdle();
+    }
+
+    @Benchmark
+    public void chainedFunctions(Blackhole blackhole) {
+        Promise<Integer> first = new Promise<>();
+        Promise<Integer> last = first;
+        for (int i = 0; i < CHAIN_LENGTH; i++) last = last.then((Integer value) -> value + 1);
+        last.then(blackhole::consume);
+        first.fulfill(0);
+        Looper.runUntilIdle();
+    }
+
+    @Benchmark
+    public void all(Blackhole blackhole) {
+        createInputs();
+        Promise.all(mInputs).then(blackhole::consume);
+        fulfillInputs();
+    }
+
+    @Benchmark
+    public void allByHand(Blackhole blackhole) {
+        createInputs();
+        Integer[] results = new Integer[FAN_OUT];
+        mRemaining = FAN_OUT;
+        for (int i = 0; i < FAN_OUT; i++) {
+            int index = i;
+            mInputs.get(i).then(result -> {
+                results[index] = result;
+                if (--mRemaining == 0) blackhole.consume(results);
+            });
+        }
+        fulfillInputs();
+    }
+
+    @Benchmark
+    public void any(Blackhole blackhole) {
+        createInputs();
+        Promise.any(mInputs).then(blackhole::consume);
+        fulfillInputs();
+    }
+
+    @Benchmark
+    public void race(Blackhole blackhole) {
+        createInputs();
+        Promise.race(mInputs).then(blackhole::consume);
+        fulfillInputs();
+    }
+
+    /** First fulfillment wins, the baseline of both {@link #any} and {@link #race}. */
+    @Benchmark
+    public void firstByHand(Blackhole blackhole) {
+        createInputs();
+        mSettled = false;
+        for (Promise<Integer> input : mInputs) {
+            input.then(result -> {
+                if (mSettled) return;
+                mSettled = true;
+                blackhole.consume(result);
+            });
+        }
+        fulfillInputs();
+    }
+
+    @Benchmark
+    public void withTimeout(Blackhole blackhole) {
+        Promise<Integer> promise = new Promise<>();
+        promise.withTimeout(TIMEOUT_MS).then(blackhole::consume);
+        promise.fulfill(1);
+        Looper.runUntilIdle();
+    }
+
+    @Benchmark
+    public void thenOnExecutor(Blackhole blackhole) {
+        Promise<Integer> promise = new Promise<>();
+        promise.thenOn(mDirectExecutor, (Integer value) -> value + 1).then(blackhole::consume);
+        promise.fulfill(1);
+        Looper.runUntilIdle();
+    }
+
+    /** Runs on the executor and posts the result back, as {@link Promise#thenOn} does. */
+    @Benchmark
+    public void executorByHand(Blackhole blackhole) {
+        Promise<Integer> promise = new Promise<>();
+        promise.then(value -> {
+            mDirectExecutor.execute(() -> {
+                int result = value + 1;
+                mHandler.post(() -> blackhole.consume(result));
+            });
+        });
+        promise.fulfill(1);
+        Looper.runUntilIdle();
+    }
+}
@@ -0,0 +1,103 @@
+// Copyright 2025 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.base;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookups on a {@link UserDataHost} holding as many objects as a typical tab, by {@link
+ * UserDataHost.Key} and by {@link Class}, against the HashMap the host used to be backed by. The
+ * populate benchmarks show the footprint of a host through gc.alloc.rate.norm.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserDataHostBenchmark {
+    private static class Data0 implements UserData {}
+    private static class Data1 implements UserData {}
+    private static class Data2 implements UserData {}
+    private static class Data3 implements UserData {}
+    private static class Data4 implements UserData {}
+    private static class Data5 implements UserData {}
+    private static class Data6 implements UserData {}
+    private static class Data7 implements UserData {}
+
+    private static final UserDataHost.Key<Data0> KEY_0 = UserDataHost.Key.of(Data0.class);
+    private static final UserDataHost.Key<Data1> KEY_1 = UserDataHost.Key.of(Data1.class);
+    private static final UserDataHost.Key<Data2> KEY_2 = UserDataHost.Key.of(Data2.class);
+    private static final UserDataHost.Key<Data3> KEY_3 = UserDataHost.Key.of(Data3.class);
+    private static final UserDataHost.Key<Data4> KEY_4 = UserDataHost.Key.of(Data4.class);
+    private static final UserDataHost.Key<Data5> KEY_5 = UserDataHost.Key.of(Data5.class);
+    private static final UserDataHost.Key<Data6> KEY_6 = UserDataHost.Key.of(Data6.class);
+    private static final UserDataHost.Key<Data7> KEY_7 = UserDataHost.Key.of(Data7.class);
+
+    private UserDataHost mHost;
+    private Map<Class<? extends UserData>, UserData> mMap;
+
+    @Setup
+    public void setUp() {
+        mHost = populateHost();
+        mMap = populateMap();
+    }
+
+    @Benchmark
+    public Object getByKey() {
+        return mHost.getUserData(KEY_5);
+    }
+
+    @Benchmark
+    public Object getByClass() {
+        return mHost.getUserData(Data5.class);
+    }
+
+    @Benchmark
+    public Object getFromHashMap() {
+        return mMap.get(Data5.class);
+    }
+
+    @Benchmark
+    public UserDataHost populateHost() {
+        UserDataHost host = new UserDataHost();
+        host.setUserData(KEY_0, new Data0());
+        host.setUserData(KEY_1, new Data1());
+        host.setUserData(KEY_2, new Data2());
+        host.setUserData(KEY_3, new Data3());
+        host.setUserData(KEY_4, new Data4());
+        host.setUserData(KEY_5, new Data5());
+        host.setUserData(KEY_6, new Data6());
+        host.setUserData(KEY_7, new Data7());
+        return host;
+    }
+
+    @Benchmark
+    public Map<Class<? extends UserData>, UserData> populateMap() {
+        Map<Class<? extends UserData>, UserData> map = new HashMap<>();
+        map.put(Data0.class, new Data0());
+        map.put(Data1.class, new Data1());
+        map.put(Data2.class, new Data2());
+        map.put(Data3.class, new Data3());
+        map.put(Data4.class, new Data4());
+        map.put(Data5.class, new Data5());
+        map.put(Data6.class, new Data6());
+        map.put(Data7.class, new Data7());
+        return map;
+    }
+}
@@ -0,0 +1,68 @@
+// Copyright 2025 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.base;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Array conversions of {@link CollectionUtil} and the small helpers of {@link MathUtils}. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UtilsBenchmark {
+    private static final int LIST_SIZE = 1000;
+
+    private final List<Integer> mIntegers = new ArrayList<>();
+    private final List<Long> mLongs = new ArrayList<>();
+    private int mValue;
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < LIST_SIZE; i++) {
+            mIntegers.add(i);
+            mLongs.add((long) i);
+        }
+    }
+
+    @Benchmark
+    public int[] integerListToIntArray() {
+        return CollectionUtil.integerListToIntArray(mIntegers);
+    }
+
+    @Benchmark
+    public long[] longListToLongArray() {
+        return CollectionUtil.longListToLongArray(mLongs);
+    }
+
+    @Benchmark
+    public int clamp() {
+        return MathUtils.clamp(mValue++, -100, 100);
+    }
+
+    @Benchmark
+    public int positiveModulo() {
+        return MathUtils.positiveModulo(mValue--, 7);
+    }
+
+    @Benchmark
+    public float smoothstep() {
+        return MathUtils.smoothstep((mValue++ & 0xff) / 255f);
+    }
+}
@@ -0,0 +1,12 @@
+// Copyright 2025 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package android.content;
+
+/** Host-side stand-in for the Android Context, only offering what benchmarked code uses. */
+public class Context {
+    public ClassLoader getClassLoader() {
+        return Context.class.getClassLoader();
+    }
+}
@@ -0,0 +1,36 @@
+// Copyright 2025 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package android.os;
+
+/** Host-side stand-in for the Android Handler, posting to the current thread's {@link Looper}. */
+public class Handler {
+    private final Looper mLooper;
+
+    public Handler() {
+        this(Looper.myLooper());
+    }
+
+    public Handler(Looper looper) {
+        mLooper = looper;
+    }
+
+    public final boolean post(Runnable r) {
+        mLooper.enqueue(r);
+        return true;
+    }
+
+    public final boolean postDelayed(Runnable r, long delayMillis) {
+        mLooper.enqueueDelayed(r, delayMillis);
+        return true;
+    }
+
+    public final void removeCallbacks(Runnable r) {
+        mLooper.remove(r);
+    }
+
+    public final Looper getLooper() {
+        return mLooper;
+    }
+}
@@ -0,0 +1,82 @@
+// Copyright 2025 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package android.os;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Host-side stand-in for the Android Looper. Every thread implicitly has one; posted tasks, and
+ * delayed tasks that are due, run when the owning thread calls {@link #runUntilIdle()}.
+ */
+public final class Looper {
+    private static final ThreadLocal<Looper> sLoopers = ThreadLocal.withInitial(Looper::new);
+    private static final Looper sMainLooper = new Looper();
+
+    private final Thread mThread = Thread.currentThread();
+    private final ArrayDeque<Runnable> mQueue = new ArrayDeque<>();
+    private final List<DelayedTask> mDelayedTasks = new ArrayList<>();
+
+    private static class DelayedTask {
+        final Runnable mTask;
+        final long mDueNanos;
+
+        DelayedTask(Runnable task, long dueNanos) {
+            mTask = task;
+            mDueNanos = dueNanos;
+        }
+    }
+
+    private Looper() {}
+
+    public static Looper myLooper() {
+        return sLoopers.get();
+    }
+
+    public static Looper getMainLooper() {
+        return sMainLooper;
+    }
+
+    public Thread getThread() {
+        return mThread;
+    }
+
+    /** Runs posted tasks, including ones they post, until the queue is empty. */
+    public static void runUntilIdle() {
+        Looper looper = myLooper();
+        while (true) {
+            looper.enqueueDueTasks();
+            Runnable task = looper.mQueue.poll();
+            if (task == null) return;
+            task.run();
+        }
+    }
+
+    void enqueue(Runnable r) {
+        mQueue.add(r);
+    }
+
+    void enqueueDelayed(Runnable r, long delayMillis) {
+        mDelayedTasks.add(new DelayedTask(r, System.nanoTime() + delayMillis * 1000000));
+    }
+
+    void remove(Runnable r) {
+        mQueue.removeIf(task -> task == r);
+        mDelayedTasks.removeIf(task -> task.mTask == r);
+    }
+
+    private void enqueueDueTasks() {
+        if (mDelayedTasks.isEmpty()) return;
+        long now = System.nanoTime();
+        for (Iterator<DelayedTask> it = mDelayedTasks.iterator(); it.hasNext();) {
+            DelayedTask task = it.next();
+            if (task.mDueNanos - now > 0) continue;
+            mQueue.add(task.mTask);
+            it.remove();
+        }
+    }
+}
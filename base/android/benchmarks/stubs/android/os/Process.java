@@ -0,0 +1,16 @@
+// Copyright 2025 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package android.os;
+
+/** Host-side stand-in for android.os.Process. */
+public class Process {
+    public static int myTid() {
+        return (int) Thread.currentThread().getId();
+    }
+
+    public static int myPid() {
+        return 1;
+    }
+}
@@ -0,0 +1,25 @@
+// Copyright 2025 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package android.util;
+
+import java.util.regex.Pattern;
+
+/** Host-side stand-in for android.util.Patterns, with the same expressions as the framework. */
+public class Patterns {
+    public static final Pattern IP_ADDRESS = Pattern.compile(
+            "((25[0-5]|2[0-4][0-9]|[0-1][0-9]{2}|[1-9][0-9]|[1-9])\\.(25[0-5]|2[0-4]"
+            + "[0-9]|[0-1][0-9]{2}|[1-9][0-9]|[1-9]|0)\\.(25[0-5]|2[0-4][0-9]|[0-1]"
+            + "[0-9]{2}|[1-9][0-9]|[1-9]|0)\\.(25[0-5]|2[0-4][0-9]|[0-1][0-9]{2}"
+            + "|[1-9][0-9]|[0-9]))");
+
+    public static final Pattern EMAIL_ADDRESS = Pattern.compile(
+            "[a-zA-Z0-9\\+\\.\\_\\%\\-\\+]{1,256}"
+            + "\\@"
+            + "[a-zA-Z0-9][a-zA-Z0-9\\-]{0,64}"
+            + "("
+            + "\\."
+            + "[a-zA-Z0-9][a-zA-Z0-9\\-]{0,25}"
+            + ")+");
+}
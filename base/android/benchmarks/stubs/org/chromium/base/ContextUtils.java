@@ -0,0 +1,19 @@
+// Copyright 2025 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.base;
+
+import android.content.Context;
+
+/**
+ * Host-side replacement for {@link ContextUtils}. The real class pulls in most of the Android
+ * framework, while benchmarked code only needs an application Context.
+ */
+public class ContextUtils {
+    private static final Context sApplicationContext = new Context();
+
+    public static Context getApplicationContext() {
+        return sApplicationContext;
+    }
+}
@@ -0,0 +1,29 @@
+// Copyright 2025 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.base;
+
+/**
+ * Host-side replacement for {@link ThreadUtils}. The real class depends on TraceEvent and the
+ * native library; benchmarked code only needs thread assertions, which are kept as in production.
+ */
+public class ThreadUtils {
+    /** Same as the production ThreadChecker. */
+    public static class ThreadChecker {
+        private final long mThreadId = android.os.Process.myTid();
+
+        public void assertOnValidThread() {
+            assert mThreadId == android.os.Process.myTid()
+                : "Must only be used on a single thread.";
+        }
+    }
+
+    public static void assertOnUiThread() {}
+
+    public static void assertOnBackgroundThread() {}
+
+    public static boolean runningOnUiThread() {
+        return true;
+    }
+}
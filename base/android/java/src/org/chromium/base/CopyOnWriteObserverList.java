@@ -0,0 +1,117 @@
+// Copyright 2025 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.base;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * An observer list for observers that are notified far more often than they are added or removed.
+ * <p/>
+ * Every mutation copies the observers into a new immutable snapshot. Notifying observers reads the
+ * current snapshot and costs no allocation and no bookkeeping:
+ * <pre>
+ *   List<Observer> observers = list.snapshot();
+ *   for (int i = 0; i < observers.size(); i++) observers.get(i).onFoo();
+ * </pre>
+ * Unlike {@link ObserverList}, an observer removed while a snapshot is being iterated is still
+ * notified by that iteration, so observers must tolerate a call right after being removed.
+ * <p/>
+ * This class is not threadsafe. Observers MUST be added, removed and will be notified on the same
+ * thread this is created.
+ *
+ * @param <E> The type of observers that this list should hold.
+ */
+@NotThreadSafe
+public class CopyOnWriteObserverList<E> implements Iterable<E> {
+    private final ThreadUtils.ThreadChecker mThreadChecker = new ThreadUtils.ThreadChecker();
+    private Object[] mObservers = new Object[0];
+    private List<E> mSnapshot = Collections.emptyList();
+
+    /**
+     * Add an observer to the list. An observer should not be added to the same list more than
+     * once. Snapshots taken before this call do not contain it.
+     *
+     * @return true if the observer list changed as a result of the call.
+     */
+    public boolean addObserver(E obs) {
+        mThreadChecker.assertOnValidThread();
+        if (obs == null || indexOf(obs) != -1) return false;
+
+        Object[] observers = Arrays.copyOf(mObservers, mObservers.length + 1);
+        observers[mObservers.length] = obs;
+        setObservers(observers);
+        return true;
+    }
+
+    /**
+     * Remove an observer from the list if it is in the list. Snapshots taken before this call
+     * still contain it.
+     *
+     * @return true if an element was removed as a result of this call.
+     */
+    public boolean removeObserver(E obs) {
+        mThreadChecker.assertOnValidThread();
+        int index = obs == null ? -1 : indexOf(obs);
+        if (index == -1) return false;
+
+        Object[] observers = new Object[mObservers.length - 1];
+        System.arraycopy(mObservers, 0, observers, 0, index);
+        System.arraycopy(mObservers, index + 1, observers, index, observers.length - index);
+        setObservers(observers);
+        return true;
+    }
+
+    public boolean hasObserver(E obs) {
+        mThreadChecker.assertOnValidThread();
+        return indexOf(obs) != -1;
+    }
+
+    public void clear() {
+        mThreadChecker.assertOnValidThread();
+        setObservers(new Object[0]);
+    }
+
+    /**
+     * @return An immutable, indexable view of the observers registered right now. The same
+     *         instance is returned until the list is next modified.
+     */
+    public List<E> snapshot() {
+        mThreadChecker.assertOnValidThread();
+        return mSnapshot;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return snapshot().iterator();
+    }
+
+    public int size() {
+        mThreadChecker.assertOnValidThread();
+        return mObservers.length;
+    }
+
+    public boolean isEmpty() {
+        mThreadChecker.assertOnValidThread();
+        return mObservers.length == 0;
+    }
+
+    private int indexOf(Object obs) {
+        for (int i = 0; i < mObservers.length; i++) {
+            if (mObservers[i].equals(obs)) return i;
+        }
+        return -1;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void setObservers(Object[] observers) {
+        mObservers = observers;
+        mSnapshot = Collections.unmodifiableList((List<E>) Arrays.asList(observers));
+    }
+}
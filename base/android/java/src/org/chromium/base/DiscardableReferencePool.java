@@ -4,9 +4,19 @@
 
 package org.chromium.base;
 
+import android.graphics.Bitmap;
+
+import androidx.annotation.IntDef;
 import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import org.chromium.base.metrics.RecordHistogram;
 
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 import java.util.WeakHashMap;
 
@@ -16,6 +26,12 @@ import java.util.WeakHashMap;
  * java.lang.ref.WeakReference}s, which drop their referents when they get garbage collected, a
  * reference pool gives more precise control over when exactly it is drained.
  *
+ * <p>References can carry an estimated size in bytes and a {@link Priority}. On moderate memory
+ * pressure the pool only discards as many references as it takes to get under its byte budget,
+ * lowest priority first and least recently used first within a priority. References added without
+ * a size are measured when the pool is trimmed if their payload is a {@link Bitmap}, and counted as
+ * {@link #UNKNOWN_SIZE_ESTIMATE_BYTES} otherwise. Critical pressure still drains the whole pool.
+ *
  * <p>Internally it uses a {@link WeakHashMap} with the reference itself as a key to allow the
  * payloads to be garbage collected regularly when the last reference goes away before the pool is
  * drained.
@@ -24,15 +40,47 @@ import java.util.WeakHashMap;
  * multiple threads.
  */
 public class DiscardableReferencePool {
+    /** Eviction order of references under moderate memory pressure; LOW goes first. */
+    @IntDef({Priority.LOW, Priority.NORMAL, Priority.HIGH})
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface Priority {
+        int LOW = 0;
+        int NORMAL = 1;
+        int HIGH = 2;
+    }
+
+    /** Byte budget kept on moderate memory pressure by pools created with the default budget. */
+    public static final long DEFAULT_MODERATE_PRESSURE_BUDGET_BYTES = 8 * 1024 * 1024;
+
+    /** Size assumed for payloads added without an estimate that cannot be measured. */
+    public static final long UNKNOWN_SIZE_ESTIMATE_BYTES = 64 * 1024;
+
+    /** Marks references whose size is estimated from their payload. */
+    private static final long UNKNOWN_SIZE = -1;
+
     /**
      * The underlying data storage. The wildcard type parameter allows using a single pool for
      * references of any type.
      */
     private final Set<DiscardableReference<?>> mPool;
 
+    private final long mModeratePressureBudgetBytes;
+
+    /** Bumped on every access, orders references from least to most recently used. */
+    private long mAccessCount;
+
     public DiscardableReferencePool() {
+        this(DEFAULT_MODERATE_PRESSURE_BUDGET_BYTES);
+    }
+
+    /**
+     * @param moderatePressureBudgetBytes How many estimated bytes the pool may keep on moderate
+     *         memory pressure.
+     */
+    public DiscardableReferencePool(long moderatePressureBudgetBytes) {
         WeakHashMap<DiscardableReference<?>, Boolean> map = new WeakHashMap<>();
         mPool = Collections.newSetFromMap(map);
+        mModeratePressureBudgetBytes = moderatePressureBudgetBytes;
     }
 
     /**
@@ -40,12 +88,22 @@ public class DiscardableReferencePool {
      * @param <T> The type of the object.
      */
     public static class DiscardableReference<T> {
+        private final DiscardableReferencePool mOwner;
+        private final long mEstimatedBytes;
+        private final @Priority int mPriority;
+        private long mLastAccess;
+
         @Nullable
         private T mPayload;
 
-        private DiscardableReference(T payload) {
+        private DiscardableReference(DiscardableReferencePool owner, T payload,
+                long estimatedBytes, @Priority int priority) {
             assert payload != null;
+            mOwner = owner;
             mPayload = payload;
+            mEstimatedBytes = estimatedBytes;
+            mPriority = priority;
+            mLastAccess = ++owner.mAccessCount;
         }
 
         /**
@@ -53,9 +111,22 @@ public class DiscardableReferencePool {
          */
         @Nullable
         public T get() {
+            if (mPayload != null) mLastAccess = ++mOwner.mAccessCount;
             return mPayload;
         }
 
+        /** @return How much memory discarding the payload is expected to free. */
+        private long getEstimatedBytes() {
+            if (mPayload == null) return 0;
+            if (mEstimatedBytes != UNKNOWN_SIZE) return mEstimatedBytes;
+            // Measured every time, as bitmaps can be reconfigured or recycled.
+            if (mPayload instanceof Bitmap) {
+                Bitmap bitmap = (Bitmap) mPayload;
+                return bitmap.isRecycled() ? 0 : bitmap.getAllocationByteCount();
+            }
+            return UNKNOWN_SIZE_ESTIMATE_BYTES;
+        }
+
         /**
          * Clear the referent.
          */
@@ -66,13 +137,30 @@ public class DiscardableReferencePool {
     }
 
     /**
+     * Adds a payload of unknown size with {@link Priority#NORMAL}. Bitmaps are counted with their
+     * allocation size against the budget, other payloads as {@link #UNKNOWN_SIZE_ESTIMATE_BYTES}.
+     *
      * @param <T> The type of the object.
      * @param payload The payload to add to the pool.
      * @return A new reference to the {@code payload}.
      */
     public <T> DiscardableReference<T> put(T payload) {
+        return put(payload, UNKNOWN_SIZE, Priority.NORMAL);
+    }
+
+    /**
+     * @param <T> The type of the object.
+     * @param payload The payload to add to the pool.
+     * @param estimatedBytes How much memory discarding the payload is expected to free.
+     * @param priority How long the payload should be kept under memory pressure.
+     * @return A new reference to the {@code payload}.
+     */
+    public <T> DiscardableReference<T> put(
+            T payload, long estimatedBytes, @Priority int priority) {
         assert payload != null;
-        DiscardableReference<T> reference = new DiscardableReference<>(payload);
+        assert estimatedBytes >= 0 || estimatedBytes == UNKNOWN_SIZE;
+        DiscardableReference<T> reference =
+                new DiscardableReference<>(this, payload, estimatedBytes, priority);
         mPool.add(reference);
         return reference;
     }
@@ -85,7 +173,7 @@ public class DiscardableReferencePool {
     public void remove(DiscardableReference<?> ref) {
         assert ref != null;
         if (!mPool.contains(ref)) return;
-        assert ref.get() != null;
+        assert ref.mPayload != null;
 
         ref.discard();
         mPool.remove(ref);
@@ -101,4 +189,60 @@ public class DiscardableReferencePool {
         }
         mPool.clear();
     }
+
+    /**
+     * Discards references, lowest priority and least recently used first, until the estimated size
+     * of the remaining ones is at most {@code budgetBytes}.
+     *
+     * @return The estimated number of bytes discarded.
+     */
+    public long trimToSize(long budgetBytes) {
+        // Only read the live set here; sizes of references that were garbage collected since are
+        // already gone from it, so there is no running total to keep in sync.
+        List<DiscardableReference<?>> refs = new ArrayList<>(mPool);
+        long retainedBytes = 0;
+        for (DiscardableReference<?> ref : refs) retainedBytes += ref.getEstimatedBytes();
+        if (retainedBytes <= budgetBytes) return 0;
+
+        Collections.sort(refs, (a, b) -> {
+            if (a.mPriority != b.mPriority) return Integer.compare(a.mPriority, b.mPriority);
+            return Long.compare(a.mLastAccess, b.mLastAccess);
+        });
+        long evictedBytes = 0;
+        for (DiscardableReference<?> ref : refs) {
+            if (retainedBytes - evictedBytes <= budgetBytes) break;
+            evictedBytes += ref.getEstimatedBytes();
+            ref.discard();
+            mPool.remove(ref);
+        }
+        return evictedBytes;
+    }
+
+    /**
+     * Reacts to a memory pressure signal: moderate pressure trims the pool to its budget, critical
+     * pressure drains it. Suitable as a {@link MemoryPressureListener} callback.
+     */
+    public void onMemoryPressure(@MemoryPressureLevel int pressure) {
+        if (pressure == MemoryPressureLevel.NONE) return;
+        long retainedBytes = getEstimatedSize();
+        long evictedBytes;
+        if (pressure == MemoryPressureLevel.CRITICAL) {
+            evictedBytes = retainedBytes;
+            drain();
+        } else {
+            evictedBytes = trimToSize(mModeratePressureBudgetBytes);
+        }
+        RecordHistogram.recordMemoryKBHistogram(
+                "Android.DiscardableReferencePool.EvictedKB", (int) (evictedBytes / 1024));
+        RecordHistogram.recordMemoryKBHistogram("Android.DiscardableReferencePool.RetainedKB",
+                (int) ((retainedBytes - evictedBytes) / 1024));
+    }
+
+    /** @return The estimated size of all payloads still in the pool. */
+    @VisibleForTesting
+    public long getEstimatedSize() {
+        long bytes = 0;
+        for (DiscardableReference<?> ref : mPool) bytes += ref.getEstimatedBytes();
+        return bytes;
+    }
 }
@@ -33,6 +33,8 @@ import javax.annotation.concurrent.GuardedBy;
  * Locking: This class is threadsafe. It is enabled when general tracing is, and then disabled when
  *          tracing is enabled from the native side. At this point, buffered events are flushed to
  *          the native side and then early tracing is permanently disabled after dumping the events.
+ *          Events are recorded into preallocated per-thread buffers without locking, so that
+ *          startup tracing perturbs the startup it measures as little as possible.
  *
  * Like the TraceEvent, the event name of the trace events must be a string literal or a |static
  * final String| class member. Otherwise NoDynamicStringsInTraceEventCheck error will be thrown.
@@ -50,28 +52,95 @@ public class EarlyTraceEvent {
         final long mTimeNanos;
         final long mThreadTimeMillis;
 
-        Event(String name, boolean isStart, boolean isToplevel) {
+        Event(String name, boolean isStart, boolean isToplevel, int threadId, long timeNanos,
+                long threadTimeMillis) {
             mIsStart = isStart;
             mIsToplevel = isToplevel;
             mName = name;
-            mThreadId = Process.myTid();
-            mTimeNanos = System.nanoTime(); // Same timebase as TimeTicks::Now().
-            mThreadTimeMillis = SystemClock.currentThreadTimeMillis();
+            mThreadId = threadId;
+            mTimeNanos = timeNanos;
+            mThreadTimeMillis = threadTimeMillis;
         }
     }
 
+    // Event types stored in a ThreadBuffer.
+    private static final byte TYPE_BEGIN = 0;
+    private static final byte TYPE_END = 1;
+    private static final byte TYPE_TOPLEVEL_BEGIN = 2;
+    private static final byte TYPE_TOPLEVEL_END = 3;
+    private static final byte TYPE_ASYNC_BEGIN = 4;
+    private static final byte TYPE_ASYNC_END = 5;
+
+    /** Number of events each thread can buffer. Further events are dropped. */
     @VisibleForTesting
-    static final class AsyncEvent {
-        final boolean mIsStart;
-        final String mName;
-        final long mId;
-        final long mTimeNanos;
+    static final int THREAD_BUFFER_CAPACITY = 4096;
+
+    /** Preallocated storage for the events of one thread, released once they are dumped. */
+    private static final class Events {
+        final byte[] mTypes = new byte[THREAD_BUFFER_CAPACITY];
+        final String[] mNames = new String[THREAD_BUFFER_CAPACITY];
+        final long[] mTimeNanos = new long[THREAD_BUFFER_CAPACITY];
+        /** Thread time in milliseconds for begin/end events, the id for async ones. */
+        final long[] mValues = new long[THREAD_BUFFER_CAPACITY];
+    }
 
-        AsyncEvent(String name, long id, boolean isStart) {
-            mName = name;
-            mId = id;
-            mIsStart = isStart;
-            mTimeNanos = System.nanoTime(); // Same timebase as TimeTicks::Now().
+    /**
+     * The events recorded on one thread. Only the owning thread writes to it, so recording takes no
+     * lock and allocates nothing. Event names are kept by reference: they are string literals or
+     * constants, so this is as cheap as storing interned ids.
+     *
+     * Once full, the newest events are dropped, so that the start of startup stays in the trace.
+     * A begin event is only kept if there is room left for its end and the ends of all begin events
+     * still open on the thread, so that every kept begin event is matched.
+     */
+    private static final class ThreadBuffer {
+        final int mGeneration;
+        final int mThreadId = Process.myTid();
+        /** Null once the events were dumped or discarded. */
+        Events mEvents = new Events();
+        /** Number of events written. Published after the event, so readers see it in full. */
+        volatile int mCount;
+        /** Number of kept begin events whose end has not been recorded yet. */
+        int mOpenBegins;
+        /** Number of dropped begin events whose end has not been seen yet. */
+        int mDroppedBegins;
+
+        ThreadBuffer(int generation) {
+            mGeneration = generation;
+        }
+
+        void add(byte type, String name, long value) {
+            // Read once: tracing may be disabled concurrently, and writing to storage that was
+            // already released is harmless.
+            Events events = mEvents;
+            if (events == null) return;
+            int count = mCount;
+            if (type == TYPE_BEGIN || type == TYPE_TOPLEVEL_BEGIN) {
+                if (count + mOpenBegins + 2 > THREAD_BUFFER_CAPACITY) {
+                    mDroppedBegins++;
+                    return;
+                }
+                mOpenBegins++;
+            } else if (type == TYPE_END || type == TYPE_TOPLEVEL_END) {
+                // Events nest, and no begin is kept after one was dropped, so the innermost open
+                // begins are the dropped ones.
+                if (mDroppedBegins > 0) {
+                    mDroppedBegins--;
+                    return;
+                }
+                // An end without a kept begin, e.g. one that began before tracing, still fits
+                // unless the buffer is full.
+                if (count == THREAD_BUFFER_CAPACITY) return;
+                if (mOpenBegins > 0) mOpenBegins--;
+            } else if (count + mOpenBegins >= THREAD_BUFFER_CAPACITY) {
+                // Async events leave the room taken by the ends of open begin events.
+                return;
+            }
+            events.mTypes[count] = type;
+            events.mNames[count] = name;
+            events.mTimeNanos[count] = System.nanoTime(); // Same timebase as TimeTicks::Now().
+            events.mValues[count] = value;
+            mCount = count + 1;
         }
     }
 
@@ -109,17 +178,18 @@ public class EarlyTraceEvent {
     // ChildProcessLauncherHelperImpl.
     public static final String TRACE_EARLY_JAVA_IN_CHILD_SWITCH = "trace-early-java-in-child";
 
-    // Protects the fields below.
+    // Protects the fields below. Only taken for state changes and the first event of each thread.
     @VisibleForTesting
     static final Object sLock = new Object();
 
-    // Not final because in many configurations these objects are not used.
+    // Not final because in many configurations this list is not used.
     @GuardedBy("sLock")
-    @VisibleForTesting
-    static List<Event> sEvents;
-    @GuardedBy("sLock")
-    @VisibleForTesting
-    static List<AsyncEvent> sAsyncEvents;
+    private static List<ThreadBuffer> sBuffers;
+
+    /** Bumped every time tracing is enabled, so buffers of an earlier session are not reused. */
+    private static volatile int sGeneration;
+
+    private static final ThreadLocal<ThreadBuffer> sThreadBuffer = new ThreadLocal<>();
 
     /** @see TraceEvent#maybeEnableEarlyTracing(long, boolean) */
     static void maybeEnableInBrowserProcess() {
@@ -191,8 +261,8 @@ public class EarlyTraceEvent {
     static void enable() {
         synchronized (sLock) {
             if (sState != STATE_DISABLED) return;
-            sEvents = new ArrayList<Event>();
-            sAsyncEvents = new ArrayList<AsyncEvent>();
+            sBuffers = new ArrayList<ThreadBuffer>();
+            sGeneration++;
             sState = STATE_ENABLED;
         }
     }
@@ -206,18 +276,10 @@ public class EarlyTraceEvent {
         synchronized (sLock) {
             if (!enabled()) return;
 
-            if (!sEvents.isEmpty()) {
-                dumpEvents(sEvents);
-                sEvents.clear();
-            }
-            if (!sAsyncEvents.isEmpty()) {
-                dumpAsyncEvents(sAsyncEvents);
-                sAsyncEvents.clear();
-            }
-
+            // Stop recording before draining, so the buffers no longer move under us.
             sState = STATE_FINISHED;
-            sEvents = null;
-            sAsyncEvents = null;
+            for (ThreadBuffer buffer : sBuffers) dumpEvents(buffer);
+            releaseBuffers();
         }
     }
 
@@ -228,11 +290,20 @@ public class EarlyTraceEvent {
     static void reset() {
         synchronized (sLock) {
             sState = STATE_DISABLED;
-            sEvents = null;
-            sAsyncEvents = null;
+            if (sBuffers != null) releaseBuffers();
         }
     }
 
+    /**
+     * Drops the storage of all buffers. The thread-local references to the buffers outlive this,
+     * so it is what frees the memory of threads that never record another event.
+     */
+    @GuardedBy("sLock")
+    private static void releaseBuffers() {
+        for (ThreadBuffer buffer : sBuffers) buffer.mEvents = null;
+        sBuffers = null;
+    }
+
     static boolean enabled() {
         return sState == STATE_ENABLED;
     }
@@ -261,87 +332,114 @@ public class EarlyTraceEvent {
 
     /** @see TraceEvent#begin */
     public static void begin(String name, boolean isToplevel) {
-        // begin() and end() are going to be called once per TraceEvent, this avoids entering a
-        // synchronized block at each and every call.
         if (!enabled()) return;
-        Event event = new Event(name, true /*isStart*/, isToplevel);
-        synchronized (sLock) {
-            if (!enabled()) return;
-            sEvents.add(event);
-        }
+        ThreadBuffer buffer = getThreadBuffer();
+        if (buffer == null) return;
+        buffer.add(isToplevel ? TYPE_TOPLEVEL_BEGIN : TYPE_BEGIN, name,
+                SystemClock.currentThreadTimeMillis());
     }
 
     /** @see TraceEvent#end */
     public static void end(String name, boolean isToplevel) {
         if (!enabled()) return;
-        Event event = new Event(name, false /*isStart*/, isToplevel);
-        synchronized (sLock) {
-            if (!enabled()) return;
-            sEvents.add(event);
-        }
+        ThreadBuffer buffer = getThreadBuffer();
+        if (buffer == null) return;
+        buffer.add(isToplevel ? TYPE_TOPLEVEL_END : TYPE_END, name,
+                SystemClock.currentThreadTimeMillis());
     }
 
     /** @see TraceEvent#startAsync */
     public static void startAsync(String name, long id) {
         if (!enabled()) return;
-        AsyncEvent event = new AsyncEvent(name, id, true /*isStart*/);
-        synchronized (sLock) {
-            if (!enabled()) return;
-            sAsyncEvents.add(event);
-        }
+        ThreadBuffer buffer = getThreadBuffer();
+        if (buffer == null) return;
+        buffer.add(TYPE_ASYNC_BEGIN, name, id);
     }
 
     /** @see TraceEvent#finishAsync */
     public static void finishAsync(String name, long id) {
         if (!enabled()) return;
-        AsyncEvent event = new AsyncEvent(name, id, false /*isStart*/);
+        ThreadBuffer buffer = getThreadBuffer();
+        if (buffer == null) return;
+        buffer.add(TYPE_ASYNC_END, name, id);
+    }
+
+    /**
+     * Returns the buffer of the current thread, registering a new one on the first event of the
+     * thread in this tracing session.
+     * @return The buffer, or null if tracing was disabled in the meantime.
+     */
+    private static ThreadBuffer getThreadBuffer() {
+        ThreadBuffer buffer = sThreadBuffer.get();
+        int generation = sGeneration;
+        if (buffer != null && buffer.mGeneration == generation) return buffer;
         synchronized (sLock) {
-            if (!enabled()) return;
-            sAsyncEvents.add(event);
+            if (!enabled()) return null;
+            buffer = new ThreadBuffer(sGeneration);
+            sBuffers.add(buffer);
         }
+        sThreadBuffer.set(buffer);
+        return buffer;
     }
 
     @VisibleForTesting
     static List<Event> getMatchingCompletedEventsForTesting(String eventName) {
         synchronized (sLock) {
             List<Event> matchingEvents = new ArrayList<Event>();
-            for (Event evt : EarlyTraceEvent.sEvents) {
-                if (evt.mName.equals(eventName)) {
-                    matchingEvents.add(evt);
+            for (ThreadBuffer buffer : sBuffers) {
+                Events events = buffer.mEvents;
+                int count = buffer.mCount;
+                for (int i = 0; i < count; i++) {
+                    byte type = events.mTypes[i];
+                    if (type == TYPE_ASYNC_BEGIN || type == TYPE_ASYNC_END) continue;
+                    if (!events.mNames[i].equals(eventName)) continue;
+                    matchingEvents.add(new Event(events.mNames[i],
+                            type == TYPE_BEGIN || type == TYPE_TOPLEVEL_BEGIN,
+                            type == TYPE_TOPLEVEL_BEGIN || type == TYPE_TOPLEVEL_END,
+                            buffer.mThreadId, events.mTimeNanos[i], events.mValues[i]));
                 }
             }
             return matchingEvents;
         }
     }
 
-    private static void dumpEvents(List<Event> events) {
-        for (Event e : events) {
-            if (e.mIsStart) {
-                if (e.mIsToplevel) {
-                    EarlyTraceEventJni.get().recordEarlyToplevelBeginEvent(
-                            e.mName, e.mTimeNanos, e.mThreadId, e.mThreadTimeMillis);
-                } else {
-                    EarlyTraceEventJni.get().recordEarlyBeginEvent(
-                            e.mName, e.mTimeNanos, e.mThreadId, e.mThreadTimeMillis);
-                }
-            } else {
-                if (e.mIsToplevel) {
-                    EarlyTraceEventJni.get().recordEarlyToplevelEndEvent(
-                            e.mName, e.mTimeNanos, e.mThreadId, e.mThreadTimeMillis);
-                } else {
-                    EarlyTraceEventJni.get().recordEarlyEndEvent(
-                            e.mName, e.mTimeNanos, e.mThreadId, e.mThreadTimeMillis);
-                }
-            }
-        }
+    /** @return Whether the current thread holds on to storage for its events. */
+    @VisibleForTesting
+    static boolean hasThreadBufferStorageForTesting() {
+        ThreadBuffer buffer = sThreadBuffer.get();
+        return buffer != null && buffer.mEvents != null;
     }
 
-    private static void dumpAsyncEvents(List<AsyncEvent> events) {
-        for (AsyncEvent e : events) {
-            if (e.mIsStart) {
-                EarlyTraceEventJni.get().recordEarlyAsyncBeginEvent(e.mName, e.mId, e.mTimeNanos);
-            } else {
-                EarlyTraceEventJni.get().recordEarlyAsyncEndEvent(e.mName, e.mId, e.mTimeNanos);
+    private static void dumpEvents(ThreadBuffer buffer) {
+        Natives natives = EarlyTraceEventJni.get();
+        Events events = buffer.mEvents;
+        int threadId = buffer.mThreadId;
+        int count = buffer.mCount;
+        for (int i = 0; i < count; i++) {
+            String name = events.mNames[i];
+            long timeNanos = events.mTimeNanos[i];
+            long value = events.mValues[i];
+            switch (events.mTypes[i]) {
+                case TYPE_BEGIN:
+                    natives.recordEarlyBeginEvent(name, timeNanos, threadId, value);
+                    break;
+                case TYPE_END:
+                    natives.recordEarlyEndEvent(name, timeNanos, threadId, value);
+                    break;
+                case TYPE_TOPLEVEL_BEGIN:
+                    natives.recordEarlyToplevelBeginEvent(name, timeNanos, threadId, value);
+                    break;
+                case TYPE_TOPLEVEL_END:
+                    natives.recordEarlyToplevelEndEvent(name, timeNanos, threadId, value);
+                    break;
+                case TYPE_ASYNC_BEGIN:
+                    natives.recordEarlyAsyncBeginEvent(name, value, timeNanos);
+                    break;
+                case TYPE_ASYNC_END:
+                    natives.recordEarlyAsyncEndEvent(name, value, timeNanos);
+                    break;
+                default:
+                    assert false;
             }
         }
     }
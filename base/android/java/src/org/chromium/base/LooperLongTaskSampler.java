@@ -0,0 +1,240 @@
+// Copyright 2025 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.base;
+
+import android.text.TextUtils;
+
+import androidx.annotation.UiThread;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+
+import org.chromium.base.task.PostTask;
+import org.chromium.base.task.TaskTraits;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.annotation.concurrent.GuardedBy;
+
+/**
+ * Always-on sampler of the tasks dispatched by the UI thread's Looper, fed by the Looper monitor of
+ * {@link TraceEvent} without requiring a tracing session.
+ *
+ * Every task adds its duration to a histogram of power-of-two millisecond buckets, which only
+ * costs an atomic increment. Tasks that exceed the smallest budget (16 ms by default) also have
+ * their handler and callback recorded in a bounded ring of recent long tasks, together with the
+ * largest budget they exceeded. {@link #dumpToFile} writes all of it out on demand.
+ *
+ * Sampling makes the UI thread's Looper log every message, so it is off unless
+ * {@link #SAMPLE_LONG_UI_TASKS_SWITCH} is on the command line, see
+ * {@link #maybeEnableFromCommandLine}.
+ */
+public final class LooperLongTaskSampler {
+    /**
+     * Enables sampling. The value, if any, is the path of the file the samples are written to
+     * whenever the application goes to the background.
+     */
+    public static final String SAMPLE_LONG_UI_TASKS_SWITCH = "sample-long-ui-tasks";
+    private static final String DEFAULT_DUMP_FILENAME = "long_ui_tasks.txt";
+    private static final String TAG = "LongTaskSampler";
+
+    /** Buckets are [0, 1), [1, 2), [2, 4), ... [1024, inf) milliseconds. */
+    @VisibleForTesting
+    static final int NUM_BUCKETS = 12;
+    @VisibleForTesting
+    static final int MAX_LONG_TASKS = 64;
+    private static final int[] DEFAULT_BUDGETS_MS = {16, 100};
+
+    /** Budgets in ascending order, with the number of tasks that exceeded each of them. */
+    private static final class Budgets {
+        final int[] mBudgetsMs;
+        final AtomicLongArray mOverBudgetCounts;
+
+        Budgets(int[] budgetsMs) {
+            mBudgetsMs = budgetsMs;
+            mOverBudgetCounts = new AtomicLongArray(budgetsMs.length);
+        }
+    }
+
+    private static volatile boolean sEnabled;
+    // UI thread only.
+    private static boolean sCommandLineChecked;
+    private static volatile Budgets sBudgets = new Budgets(DEFAULT_BUDGETS_MS);
+    private static final AtomicLongArray sHistogram = new AtomicLongArray(NUM_BUCKETS);
+
+    private static final Object sLock = new Object();
+    // Ring of the most recent long tasks.
+    @GuardedBy("sLock")
+    private static final String[] sLongTaskNames = new String[MAX_LONG_TASKS];
+    @GuardedBy("sLock")
+    private static final long[] sLongTaskEndTimesMs = new long[MAX_LONG_TASKS];
+    @GuardedBy("sLock")
+    private static final long[] sLongTaskDurationsMs = new long[MAX_LONG_TASKS];
+    @GuardedBy("sLock")
+    private static final int[] sLongTaskBudgetsMs = new int[MAX_LONG_TASKS];
+    @GuardedBy("sLock")
+    private static int sLongTaskCount;
+
+    private LooperLongTaskSampler() {}
+
+    /**
+     * Starts or stops sampling. Sampling installs the Looper monitor of {@link TraceEvent} if
+     * tracing has not already done so.
+     */
+    @UiThread
+    public static void setEnabled(boolean enabled) {
+        ThreadUtils.assertOnUiThread();
+        if (sEnabled == enabled) return;
+        sEnabled = enabled;
+        TraceEvent.updateLooperMonitor();
+    }
+
+    /**
+     * Starts sampling if {@link #SAMPLE_LONG_UI_TASKS_SWITCH} is present, and dumps the samples
+     * every time all activities are stopped. The dump goes to the file named by the switch, or to
+     * {@link #DEFAULT_DUMP_FILENAME} in the cache directory. Only the first call has any effect,
+     * so every activity can call this.
+     */
+    @UiThread
+    public static void maybeEnableFromCommandLine() {
+        ThreadUtils.assertOnUiThread();
+        if (sCommandLineChecked) return;
+        sCommandLineChecked = true;
+        CommandLine commandLine = CommandLine.getInstance();
+        if (!commandLine.hasSwitch(SAMPLE_LONG_UI_TASKS_SWITCH)) return;
+        String path = commandLine.getSwitchValue(SAMPLE_LONG_UI_TASKS_SWITCH);
+        setEnabled(true);
+        ApplicationStatus.registerApplicationStateListener(newState -> {
+            if (newState != ApplicationState.HAS_STOPPED_ACTIVITIES) return;
+            PostTask.postTask(TaskTraits.BEST_EFFORT_MAY_BLOCK, () -> {
+                File file = TextUtils.isEmpty(path)
+                        ? new File(PathUtils.getCacheDirectory(), DEFAULT_DUMP_FILENAME)
+                        : new File(path);
+                try {
+                    dumpToFile(file);
+                } catch (IOException e) {
+                    Log.w(TAG, "Failed to write %s", file, e);
+                }
+            });
+        });
+    }
+
+    /** @return Whether long task sampling is on. */
+    public static boolean isEnabled() {
+        return sEnabled;
+    }
+
+    /**
+     * Sets the budgets tasks are checked against, and resets the over-budget counts.
+     * @param budgetsMs At least one budget in milliseconds. The smallest one decides which tasks
+     *         are recorded as long tasks.
+     */
+    public static void setBudgetsMs(int... budgetsMs) {
+        assert budgetsMs.length > 0;
+        int[] budgets = budgetsMs.clone();
+        Arrays.sort(budgets);
+        sBudgets = new Budgets(budgets);
+    }
+
+    /**
+     * Records a task dispatched by the Looper.
+     * @param logLine The "<<<<< Finished to" line the Looper logged for the task. Only parsed if
+     *         the task was over budget.
+     * @param durationMs How long the task ran.
+     */
+    static void onTaskFinished(String logLine, long durationMs) {
+        sHistogram.incrementAndGet(bucketFor(durationMs));
+
+        Budgets budgets = sBudgets;
+        if (durationMs <= budgets.mBudgetsMs[0]) return;
+        int exceeded = 0;
+        for (int i = 0; i < budgets.mBudgetsMs.length && durationMs > budgets.mBudgetsMs[i]; i++) {
+            budgets.mOverBudgetCounts.incrementAndGet(i);
+            exceeded = budgets.mBudgetsMs[i];
+        }
+
+        String name = TraceEvent.BasicLooperMonitor.getTaskName(logLine);
+        synchronized (sLock) {
+            int slot = sLongTaskCount % MAX_LONG_TASKS;
+            sLongTaskNames[slot] = name;
+            sLongTaskEndTimesMs[slot] = System.currentTimeMillis();
+            sLongTaskDurationsMs[slot] = durationMs;
+            sLongTaskBudgetsMs[slot] = exceeded;
+            sLongTaskCount++;
+        }
+    }
+
+    @VisibleForTesting
+    static int bucketFor(long durationMs) {
+        if (durationMs <= 0) return 0;
+        int bucket = 64 - Long.numberOfLeadingZeros(durationMs);
+        return Math.min(bucket, NUM_BUCKETS - 1);
+    }
+
+    /** @return The number of tasks per duration bucket. */
+    public static long[] getHistogram() {
+        long[] counts = new long[NUM_BUCKETS];
+        for (int i = 0; i < NUM_BUCKETS; i++) counts[i] = sHistogram.get(i);
+        return counts;
+    }
+
+    /**
+     * Writes the histogram, the over-budget counts and the recent long tasks to {@code file} as
+     * plain text, replacing its content.
+     */
+    @WorkerThread
+    public static void dumpToFile(File file) throws IOException {
+        StringBuilder builder = new StringBuilder();
+        builder.append("histogram_ms:\n");
+        long[] histogram = getHistogram();
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            long lower = i == 0 ? 0 : 1L << (i - 1);
+            String upper = i == NUM_BUCKETS - 1 ? "inf" : Long.toString(1L << i);
+            builder.append(String.format(
+                    Locale.US, "  [%d, %s): %d\n", lower, upper, histogram[i]));
+        }
+
+        Budgets budgets = sBudgets;
+        builder.append("over_budget:\n");
+        for (int i = 0; i < budgets.mBudgetsMs.length; i++) {
+            builder.append(String.format(Locale.US, "  >%dms: %d\n", budgets.mBudgetsMs[i],
+                    budgets.mOverBudgetCounts.get(i)));
+        }
+
+        builder.append("long_tasks:\n");
+        synchronized (sLock) {
+            int first = Math.max(0, sLongTaskCount - MAX_LONG_TASKS);
+            for (int i = first; i < sLongTaskCount; i++) {
+                int slot = i % MAX_LONG_TASKS;
+                builder.append(String.format(Locale.US, "  %d %dms >%dms %s\n",
+                        sLongTaskEndTimesMs[slot], sLongTaskDurationsMs[slot],
+                        sLongTaskBudgetsMs[slot], sLongTaskNames[slot]));
+            }
+        }
+
+        try (Writer writer = new OutputStreamWriter(
+                     new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            writer.write(builder.toString());
+        }
+    }
+
+    @VisibleForTesting
+    static void resetForTesting() {
+        sCommandLineChecked = false;
+        for (int i = 0; i < NUM_BUCKETS; i++) sHistogram.set(i, 0);
+        setBudgetsMs(DEFAULT_BUDGETS_MS);
+        synchronized (sLock) {
+            Arrays.fill(sLongTaskNames, null);
+            sLongTaskCount = 0;
+        }
+    }
+}
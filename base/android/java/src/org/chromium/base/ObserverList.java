@@ -23,6 +23,22 @@ import javax.annotation.concurrent.NotThreadSafe;
  *   - The iterator implements NOTIFY_EXISTING_ONLY.
  *   - The range-based for loop is left to the clients to implement in terms of iterator().
  * <p/>
+ * Hot paths that should not allocate an iterator per notification can use the indexed API
+ * instead:
+ * <pre>
+ *   int end = list.beginIteration();
+ *   try {
+ *       for (int i = 0; i < end; i++) {
+ *           Observer obs = list.getObserverAt(i);
+ *           if (obs != null) obs.onFoo();
+ *       }
+ *   } finally {
+ *       list.endIteration();
+ *   }
+ * </pre>
+ * or {@link #forEachObserver} with a non-capturing callback. For lists that are notified far
+ * more often than they change, see {@link CopyOnWriteObserverList}.
+ * <p/>
  * This class is not threadsafe. Observers MUST be added, removed and will be notified on the same
  * thread this is created.
  *
@@ -158,6 +174,54 @@ public class ObserverList<E> implements Iterable<E> {
         return new ObserverListIterator();
     }
 
+    /**
+     * Starts an indexed iteration. Observers added from now on are not visible to it and observers
+     * removed during it read as null. Every call must be paired with {@link #endIteration()}.
+     *
+     * @return The end index of the iteration, to be used with {@link #getObserverAt(int)}.
+     */
+    public int beginIteration() {
+        if (mEnableThreadAsserts) mThreadChecker.assertOnValidThread();
+
+        incrementIterationDepth();
+        return capacity();
+    }
+
+    /**
+     * @param index An index below the value returned by {@link #beginIteration()}.
+     * @return The observer at {@code index}, or null if it was removed. Only valid between
+     *         {@link #beginIteration()} and {@link #endIteration()}.
+     */
+    public E getObserverAt(int index) {
+        if (mEnableThreadAsserts) mThreadChecker.assertOnValidThread();
+        assert mIterationDepth > 0;
+
+        return mObservers.get(index);
+    }
+
+    /** Ends an iteration started with {@link #beginIteration()}. */
+    public void endIteration() {
+        if (mEnableThreadAsserts) mThreadChecker.assertOnValidThread();
+
+        decrementIterationDepthAndCompactIfNeeded();
+    }
+
+    /**
+     * Notifies every observer with the same semantics as {@link #iterator()}, without allocating
+     * an iterator. The callback itself does not allocate if it captures nothing.
+     */
+    public void forEachObserver(Callback<E> callback) {
+        int end = beginIteration();
+        try {
+            for (int i = 0; i < end; i++) {
+                E obs = mObservers.get(i);
+                if (obs != null) callback.onResult(obs);
+            }
+        } finally {
+            endIteration();
+        }
+    }
+
     /**
      * Returns the number of observers currently registered in the ObserverList.
      * This is equivalent to the number of non-empty spaces in |mObservers|.
@@ -178,17 +242,21 @@ public class ObserverList<E> implements Iterable<E> {
     }
 
     /**
-     * Compact the underlying list be removing null elements.
+     * Compact the underlying list be removing null elements, in a single pass.
      * <p/>
      * Should only be called when mIterationDepth is zero.
      */
     private void compact() {
         assert mIterationDepth == 0;
-        for (int i = mObservers.size() - 1; i >= 0; i--) {
-            if (mObservers.get(i) == null) {
-                mObservers.remove(i);
-            }
+        int size = mObservers.size();
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            E obs = mObservers.get(i);
+            if (obs == null) continue;
+            if (kept != i) mObservers.set(kept, obs);
+            kept++;
         }
+        mObservers.subList(kept, size).clear();
     }
 
     private void incrementIterationDepth() {
@@ -212,10 +280,6 @@ public class ObserverList<E> implements Iterable<E> {
         return mObservers.size();
     }
 
-    private E getObserverAt(int index) {
-        return mObservers.get(index);
-    }
-
     private class ObserverListIterator implements RewindableIterator<E> {
         private int mListEndMarker;
         private int mIndex;
@@ -242,8 +306,7 @@ public class ObserverList<E> implements Iterable<E> {
             if (mEnableThreadAsserts) mThreadChecker.assertOnValidThread();
 
             int lookupIndex = mIndex;
-            while (lookupIndex < mListEndMarker
-                    && ObserverList.this.getObserverAt(lookupIndex) == null) {
+            while (lookupIndex < mListEndMarker && mObservers.get(lookupIndex) == null) {
                 lookupIndex++;
             }
             if (lookupIndex < mListEndMarker) return true;
@@ -258,10 +321,10 @@ public class ObserverList<E> implements Iterable<E> {
             if (mEnableThreadAsserts) mThreadChecker.assertOnValidThread();
 
             // Advance if the current element is null.
-            while (mIndex < mListEndMarker && ObserverList.this.getObserverAt(mIndex) == null) {
+            while (mIndex < mListEndMarker && mObservers.get(mIndex) == null) {
                 mIndex++;
             }
-            if (mIndex < mListEndMarker) return ObserverList.this.getObserverAt(mIndex++);
+            if (mIndex < mListEndMarker) return mObservers.get(mIndex++);
 
             // We have reached the end of the list, allow for compaction.
             compactListIfNeeded();
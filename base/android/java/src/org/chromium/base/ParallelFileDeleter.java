@@ -0,0 +1,279 @@
+// Copyright 2025 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.base;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import javax.annotation.concurrent.GuardedBy;
+
+/**
+ * Deletes file trees on a small fork-join pool. Sibling entries are deleted in parallel, up to
+ * {@link #MAX_PARALLELISM} at a time, which hides most of the per-file latency of slow flash when
+ * clearing large cache or state directories.
+ *
+ * Deletion can be observed and cancelled through a {@link ProgressCallback}. A cancelled deletion
+ * leaves whatever it has not reached yet in place.
+ */
+public class ParallelFileDeleter {
+    private static final String TAG = "FileDeleter";
+
+    /** Upper bound on the number of threads deleting files at the same time. */
+    @VisibleForTesting
+    static final int MAX_PARALLELISM = 4;
+
+    /** Directory entries handled by a single task before it splits in two. */
+    private static final int ENTRIES_PER_TASK = 64;
+
+    /** How many deleted files are reported to a {@link ProgressCallback} at a time. */
+    private static final int PROGRESS_INTERVAL = 256;
+
+    private static final String TRASH_SUFFIX = ".deleting-";
+
+    /** What follows {@link #TRASH_SUFFIX} in the name of a tree moved aside for deletion. */
+    private static final Pattern TRASH_ID = Pattern.compile("-?\\d+");
+
+    private static ForkJoinPool sPool;
+
+    // Paths of moved aside trees that are being deleted by this process.
+    @GuardedBy("sTrashInProgress")
+    private static final Set<String> sTrashInProgress = new HashSet<>();
+
+    /** Receives progress of a deletion and can cancel it. */
+    public interface ProgressCallback {
+        /**
+         * Called on a deleting thread every few hundred files and once more when the deletion
+         * ends.
+         * @param deletedFiles The number of files and directories deleted so far.
+         * @return Whether the deletion should continue.
+         */
+        boolean onProgress(long deletedFiles);
+    }
+
+    private ParallelFileDeleter() {}
+
+    /**
+     * Deletes {@code root} and, if it is a directory, everything within it. Blocks until done.
+     *
+     * @param root The file or directory to delete. Does not need to exist.
+     * @param canDelete Checks whether a path may be deleted; files it rejects are kept, along with
+     *         the directories containing them. Called concurrently from several threads.
+     * @param callback Receives progress and may cancel the deletion.
+     * @return True if the files are deleted, or {@code root} is reserved by {@code canDelete},
+     *         false if failed to delete files or cancelled.
+     */
+    @WorkerThread
+    public static boolean delete(@NonNull File root,
+            @Nullable Function<String, Boolean> canDelete, @Nullable ProgressCallback callback) {
+        Deletion deletion = new Deletion(canDelete, callback);
+        if (deletion.isGone(root) || !deletion.canDelete(root)) return true;
+        boolean deleted = (root.isDirectory() ? getPool().invoke(new DirectoryTask(deletion, root))
+                                              : deletion.deleteEntry(root, true))
+                && !deletion.mCancelled;
+        deletion.finish(root);
+        return deleted;
+    }
+
+    /**
+     * Moves {@code root} out of the way and deletes it in the background. Once this returns, the
+     * path is free to be recreated. Trees of {@code root} that earlier calls moved aside but did
+     * not get to delete, e.g. because the process was killed, are deleted afterwards.
+     *
+     * @param root The file or directory to delete. Does not need to exist.
+     * @param callback Receives progress and may cancel the deletion.
+     * @param onDeleted Receives the result of the deletion on a background thread.
+     */
+    public static void deleteInBackground(@NonNull File root, @Nullable ProgressCallback callback,
+            @Nullable Callback<Boolean> onDeleted) {
+        File target = root;
+        File trash = new File(root.getPath() + TRASH_SUFFIX + System.nanoTime());
+        if (root.exists() && root.renameTo(trash)) {
+            target = trash;
+            claimTrash(trash);
+        } else if (root.exists()) {
+            Log.w(TAG, "Failed to move %s aside, deleting it in place.", root);
+        }
+        final File deleteTarget = target;
+        getPool().execute(() -> {
+            boolean deleted = delete(deleteTarget, null, callback);
+            if (deleteTarget == trash) releaseTrash(trash);
+            if (onDeleted != null) onDeleted.onResult(deleted);
+            deleteLeftoverTrash(root);
+        });
+    }
+
+    /** Deletes the trees of {@code root} that were moved aside and are not being deleted. */
+    @WorkerThread
+    private static void deleteLeftoverTrash(File root) {
+        File parent = root.getAbsoluteFile().getParentFile();
+        if (parent == null) return;
+        String prefix = root.getName() + TRASH_SUFFIX;
+        File[] siblings = parent.listFiles((directory, name) -> name.startsWith(prefix)
+                && TRASH_ID.matcher(name.substring(prefix.length())).matches());
+        if (siblings == null) return;
+        for (File trash : siblings) {
+            if (!claimTrash(trash)) continue;
+            delete(trash, null, null);
+            releaseTrash(trash);
+        }
+    }
+
+    /** @return Whether {@code trash} was not already being deleted. */
+    private static boolean claimTrash(File trash) {
+        synchronized (sTrashInProgress) {
+            return sTrashInProgress.add(trash.getAbsolutePath());
+        }
+    }
+
+    private static void releaseTrash(File trash) {
+        synchronized (sTrashInProgress) {
+            sTrashInProgress.remove(trash.getAbsolutePath());
+        }
+    }
+
+    private static synchronized ForkJoinPool getPool() {
+        if (sPool == null) {
+            sPool = new ForkJoinPool(
+                    Math.min(MAX_PARALLELISM, Runtime.getRuntime().availableProcessors()));
+        }
+        return sPool;
+    }
+
+    /** State shared by all tasks of one deletion. */
+    private static class Deletion {
+        final @Nullable Function<String, Boolean> mCanDelete;
+        final @Nullable ProgressCallback mCallback;
+        final AtomicLong mDeleted = new AtomicLong();
+        final AtomicInteger mFailed = new AtomicInteger();
+        volatile boolean mCancelled;
+
+        Deletion(@Nullable Function<String, Boolean> canDelete,
+                @Nullable ProgressCallback callback) {
+            mCanDelete = canDelete;
+            mCallback = callback;
+        }
+
+        boolean isGone(File file) {
+            if (file.exists()) return false;
+            // This file could be a broken symlink, so try to delete. If we don't delete a broken
+            // symlink, the directory containing it cannot be deleted.
+            file.delete();
+            return true;
+        }
+
+        boolean canDelete(File file) {
+            return mCanDelete == null || mCanDelete.apply(file.getPath());
+        }
+
+        /**
+         * Deletes a file, or a directory whose children have been dealt with.
+         * @param childrenDeleted Whether all children of the directory were deleted.
+         */
+        boolean deleteEntry(File file, boolean childrenDeleted) {
+            if (mCancelled) return false;
+            if (!file.delete()) {
+                // A directory is expected to stay behind if some of its children did.
+                if (childrenDeleted) mFailed.incrementAndGet();
+                return false;
+            }
+            long deleted = mDeleted.incrementAndGet();
+            if (deleted % PROGRESS_INTERVAL == 0) reportProgress(deleted);
+            return true;
+        }
+
+        void reportProgress(long deleted) {
+            if (mCallback != null && !mCallback.onProgress(deleted)) mCancelled = true;
+        }
+
+        void finish(File root) {
+            // Logged once per deletion rather than for every file, as large trees can fail a lot.
+            int failed = mFailed.get();
+            if (failed > 0) Log.e(TAG, "Failed to delete %d files under %s", failed, root);
+            if (mCallback != null) mCallback.onProgress(mDeleted.get());
+        }
+    }
+
+    /** Deletes a range of sibling entries, forking a task per directory. */
+    private static class DeleteTask extends RecursiveTask<Boolean> {
+        private final Deletion mDeletion;
+        private final File[] mFiles;
+        private final int mStart;
+        private final int mEnd;
+
+        DeleteTask(Deletion deletion, File[] files, int start, int end) {
+            mDeletion = deletion;
+            mFiles = files;
+            mStart = start;
+            mEnd = end;
+        }
+
+        @Override
+        protected Boolean compute() {
+            if (mEnd - mStart > ENTRIES_PER_TASK) {
+                int middle = (mStart + mEnd) >>> 1;
+                DeleteTask second = new DeleteTask(mDeletion, mFiles, middle, mEnd);
+                second.fork();
+                boolean firstDeleted = new DeleteTask(mDeletion, mFiles, mStart, middle).compute();
+                return second.join() && firstDeleted;
+            }
+            boolean deleted = true;
+            List<DirectoryTask> directories = null;
+            for (int i = mStart; i < mEnd && !mDeletion.mCancelled; i++) {
+                File file = mFiles[i];
+                if (mDeletion.isGone(file)) continue;
+                if (!mDeletion.canDelete(file)) {
+                    // Kept on purpose, so the containing directory stays as well.
+                    deleted = false;
+                    continue;
+                }
+                if (file.isDirectory()) {
+                    if (directories == null) directories = new ArrayList<>();
+                    DirectoryTask task = new DirectoryTask(mDeletion, file);
+                    task.fork();
+                    directories.add(task);
+                } else {
+                    deleted &= mDeletion.deleteEntry(file, true);
+                }
+            }
+            // Always join, so a deletion only completes once none of its tasks are running.
+            if (directories != null) {
+                for (DirectoryTask task : directories) deleted &= task.join();
+            }
+            return deleted && !mDeletion.mCancelled;
+        }
+    }
+
+    /** Deletes the contents of a directory, then the directory itself. */
+    private static class DirectoryTask extends RecursiveTask<Boolean> {
+        private final Deletion mDeletion;
+        private final File mDirectory;
+
+        DirectoryTask(Deletion deletion, File directory) {
+            mDeletion = deletion;
+            mDirectory = directory;
+        }
+
+        @Override
+        protected Boolean compute() {
+            File[] children = mDirectory.listFiles();
+            boolean childrenDeleted = children == null || children.length == 0
+                    || new DeleteTask(mDeletion, children, 0, children.length).compute();
+            return mDeletion.deleteEntry(mDirectory, childrenDeleted);
+        }
+    }
+}
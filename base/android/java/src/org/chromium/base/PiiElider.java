@@ -16,13 +16,19 @@ import java.util.regex.Pattern;
  * Provides public methods for detecting and eliding sensitive PII.
  */
 public class PiiElider {
-    private static final String EMAIL_ELISION = "XXX@EMAIL.ELIDED";
+    // Same as android.util.Patterns.EMAIL_ADDRESS, shared with SinglePassPiiElider.
+    static final String EMAIL_ADDRESS_REGEX = "[a-zA-Z0-9\\+\\.\\_\\%\\-\\+]{1,256}\\@"
+            + "[a-zA-Z0-9][a-zA-Z0-9\\-]{0,64}(\\.[a-zA-Z0-9][a-zA-Z0-9\\-]{0,25})+";
 
-    private static final String URL_ELISION = "HTTP://WEBADDRESS.ELIDED";
+    private static final Pattern EMAIL_ADDRESS = Pattern.compile(EMAIL_ADDRESS_REGEX);
+
+    static final String EMAIL_ELISION = "XXX@EMAIL.ELIDED";
+
+    static final String URL_ELISION = "HTTP://WEBADDRESS.ELIDED";
 
     private static final String GOOD_IRI_CHAR = "a-zA-Z0-9\u00A0-\uD7FF\uF900-\uFDCF\uFDF0-\uFFEF";
 
-    private static final String IP_ADDRESS =
+    static final String IP_ADDRESS =
             "((25[0-5]|2[0-4][0-9]|[0-1][0-9]{2}|[1-9][0-9]|[1-9])\\.(25[0-5]|2[0-4]"
             + "[0-9]|[0-1][0-9]{2}|[1-9][0-9]|[1-9]|0)\\.(25[0-5]|2[0-4][0-9]|[0-1]"
             + "[0-9]{2}|[1-9][0-9]|[1-9]|0)\\.(25[0-5]|2[0-4][0-9]|[0-1][0-9]{2}"
@@ -63,11 +69,12 @@ public class PiiElider {
     private static final String URL_OR_INTENT =
             "(" + URL_WITH_OPTIONAL_SCHEME_AND_PORT + "|" + INTENT + ")";
 
-    private static final Pattern WEB_URL =
-            Pattern.compile("(\\b|^)" // Always start on a word boundary or start of string.
-                    + "(" + URL_OR_INTENT + ")" // Main URL or Intent scheme/domain/root path.
-                    + "(/" + PATH_CHAR + "*)?" // Rest of the URI path.
-                    + "(\\b|$)"); // Always end on a word boundary or end of string.
+    static final String WEB_URL_REGEX = "(\\b|^)" // Always start on a word boundary or start.
+            + "(" + URL_OR_INTENT + ")" // Main URL or Intent scheme/domain/root path.
+            + "(/" + PATH_CHAR + "*)?" // Rest of the URI path.
+            + "(\\b|$)"; // Always end on a word boundary or end of string.
+
+    private static final Pattern WEB_URL = Pattern.compile(WEB_URL_REGEX);
 
     private static final Pattern LIKELY_EXCEPTION_LOG =
             Pattern.compile("\\sat\\sorg\\.chromium\\.[^ ]+.|"
@@ -76,12 +83,13 @@ public class PiiElider {
                     // check but is still worth noting what it was.
                     + "(ClassNotFoundException|NoClassDefFoundError):");
 
-    private static final String IP_ELISION = "1.2.3.4";
-    private static final String MAC_ELISION = "01:23:45:67:89:AB";
+    static final String IP_ELISION = "1.2.3.4";
+    static final String MAC_ELISION = "01:23:45:67:89:AB";
     private static final String CONSOLE_ELISION = "[ELIDED:CONSOLE(0)] ELIDED CONSOLE MESSAGE";
 
-    private static final Pattern MAC_ADDRESS =
-            Pattern.compile("([0-9a-fA-F]{2}[-:]+){5}[0-9a-fA-F]{2}");
+    static final String MAC_ADDRESS_REGEX = "([0-9a-fA-F]{2}[-:]+){5}[0-9a-fA-F]{2}";
+
+    private static final Pattern MAC_ADDRESS = Pattern.compile(MAC_ADDRESS_REGEX);
 
     private static final Pattern CONSOLE_MSG = Pattern.compile("\\[\\w*:CONSOLE.*\\].*");
 
@@ -110,7 +118,7 @@ public class PiiElider {
      * @return String with elided emails.
      */
     public static String elideEmail(String original) {
-        return Patterns.EMAIL_ADDRESS.matcher(original).replaceAll(EMAIL_ELISION);
+        return EMAIL_ADDRESS.matcher(original).replaceAll(EMAIL_ELISION);
     }
 
     /**
@@ -161,7 +169,7 @@ public class PiiElider {
         return false;
     }
 
-    private static boolean likelyToBeAppNamespace(String url) {
+    static boolean likelyToBeAppNamespace(String url) {
         for (String ns : APP_NAMESPACE) {
             if (url.startsWith(ns)) {
                 return true;
@@ -170,7 +178,7 @@ public class PiiElider {
         return false;
     }
 
-    private static boolean likelyToBeSystemNamespace(String url) {
+    static boolean likelyToBeSystemNamespace(String url) {
         for (String ns : SYSTEM_NAMESPACE) {
             if (url.startsWith(ns)) {
                 return true;
@@ -10,8 +10,13 @@ import androidx.annotation.IntDef;
 
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeoutException;
 
 /**
  * A Promise class to be used as a placeholder for a result that will be provided asynchronously.
@@ -38,6 +43,12 @@ public class Promise<T> {
     private Exception mRejectReason;
     private final List<Callback<Exception>> mRejectCallbacks = new LinkedList<>();
 
+    // Internal callbacks of dependent Promises, run as soon as this Promise settles rather than
+    // on the next iteration of the message loop. The dependent Promise posts its own callbacks,
+    // so chaining through them costs no extra looper hops.
+    private final List<Callback<T>> mSettleFulfillCallbacks = new LinkedList<>();
+    private final List<Callback<Exception>> mSettleRejectCallbacks = new LinkedList<>();
+
     private final Thread mThread = Thread.currentThread();
     private final Handler mHandler = new Handler();
 
@@ -191,6 +202,146 @@ public class Promise<T> {
         return promise;
     }
 
+    /**
+     * Like {@link #then(Function)}, but runs the function on {@code executor}, e.g. a background
+     * task runner. The returned Promise is still settled on this Promise's thread.
+     *
+     * @param executor Runs the function. Rejecting the task rejects the returned Promise.
+     * @param function Applied to the result of this Promise; exceptions reject the returned
+     *         Promise.
+     */
+    public <RT> Promise<RT> thenOn(final Executor executor, final Function<T, RT> function) {
+        checkThread();
+        final Promise<RT> promise = new Promise<>();
+        onSettled(result -> {
+            try {
+                executor.execute(() -> {
+                    try {
+                        RT value = function.apply(result);
+                        mHandler.post(() -> promise.fulfill(value));
+                    } catch (Exception e) {
+                        mHandler.post(() -> promise.reject(e));
+                    }
+                });
+            } catch (Exception e) {
+                promise.reject(e);
+            }
+        }, promise::reject);
+        return promise;
+    }
+
+    /**
+     * Returns a Promise that settles like this one, unless this one is still unfulfilled after
+     * {@code timeoutMs}. In that case the returned Promise is rejected with a {@link
+     * TimeoutException}, and the eventual result of this Promise is ignored.
+     */
+    public Promise<T> withTimeout(long timeoutMs) {
+        checkThread();
+        final Promise<T> promise = new Promise<>();
+        final Runnable timeout = () -> promise.rejectIfUnsettled(
+                new TimeoutException("Promise timed out after " + timeoutMs + "ms"));
+        onSettled(result -> {
+            mHandler.removeCallbacks(timeout);
+            promise.fulfillIfUnsettled(result);
+        }, reason -> {
+            mHandler.removeCallbacks(timeout);
+            promise.rejectIfUnsettled(reason);
+        });
+        if (mState == PromiseState.UNFULFILLED) mHandler.postDelayed(timeout, timeoutMs);
+        return promise;
+    }
+
+    /**
+     * Returns a Promise fulfilled with the results of all {@code promises}, in the same order,
+     * once all of them are fulfilled. It is rejected as soon as any of them is rejected.
+     *
+     * All Promises must belong to the current thread, and must not have had the single argument
+     * {@link #then(Callback)} called on them.
+     */
+    public static <T> Promise<List<T>> all(List<Promise<T>> promises) {
+        final Promise<List<T>> promise = new Promise<>();
+        if (promises.isEmpty()) {
+            promise.fulfill(Collections.emptyList());
+            return promise;
+        }
+        @SuppressWarnings("unchecked")
+        final T[] results = (T[]) new Object[promises.size()];
+        final int[] remaining = {promises.size()};
+        for (int i = 0; i < promises.size(); i++) {
+            final int index = i;
+            promises.get(i).onSettled(result -> {
+                results[index] = result;
+                if (--remaining[0] == 0) promise.fulfillIfUnsettled(Arrays.asList(results));
+            }, promise::rejectIfUnsettled);
+        }
+        return promise;
+    }
+
+    /**
+     * Returns a Promise fulfilled with the result of whichever of {@code promises} is fulfilled
+     * first. It is rejected, with the reason of the last rejection, only if all of them are
+     * rejected.
+     *
+     * All Promises must belong to the current thread, and must not have had the single argument
+     * {@link #then(Callback)} called on them.
+     */
+    public static <T> Promise<T> any(List<Promise<T>> promises) {
+        final Promise<T> promise = new Promise<>();
+        if (promises.isEmpty()) {
+            promise.reject();
+            return promise;
+        }
+        final int[] remaining = {promises.size()};
+        for (Promise<T> input : promises) {
+            input.onSettled(promise::fulfillIfUnsettled, reason -> {
+                if (--remaining[0] == 0) promise.rejectIfUnsettled(reason);
+            });
+        }
+        return promise;
+    }
+
+    /**
+     * Returns a Promise that settles like whichever of {@code promises} settles first. It never
+     * settles if {@code promises} is empty.
+     *
+     * All Promises must belong to the current thread, and must not have had the single argument
+     * {@link #then(Callback)} called on them.
+     */
+    public static <T> Promise<T> race(List<Promise<T>> promises) {
+        final Promise<T> promise = new Promise<>();
+        for (Promise<T> input : promises) {
+            input.onSettled(promise::fulfillIfUnsettled, promise::rejectIfUnsettled);
+        }
+        return promise;
+    }
+
+    /**
+     * Registers internal callbacks that run synchronously when this Promise settles, or right away
+     * if it already has. Only meant for callbacks that settle another Promise.
+     */
+    private void onSettled(Callback<T> onFulfill, Callback<Exception> onReject) {
+        checkThread();
+        assert !mThrowingRejectionHandler : "Do not depend on a Promise you have called the "
+            + "single argument Promise.then(Callback) on.";
+
+        if (mState == PromiseState.FULFILLED) {
+            onFulfill.onResult(mResult);
+        } else if (mState == PromiseState.REJECTED) {
+            onReject.onResult(mRejectReason);
+        } else {
+            mSettleFulfillCallbacks.add(onFulfill);
+            mSettleRejectCallbacks.add(onReject);
+        }
+    }
+
+    private void fulfillIfUnsettled(T result) {
+        if (mState == PromiseState.UNFULFILLED) fulfill(result);
+    }
+
+    private void rejectIfUnsettled(Exception reason) {
+        if (mState == PromiseState.UNFULFILLED) reject(reason);
+    }
+
     /**
      * Fulfills the Promise with the result and passes it to any {@link Callback}s previously queued
      * on the next iteration of the message loop.
@@ -207,6 +358,7 @@ public class Promise<T> {
         }
 
         mFulfillCallbacks.clear();
+        runSettleCallbacks(mSettleFulfillCallbacks, result);
     }
 
     /**
@@ -227,6 +379,7 @@ public class Promise<T> {
             postCallbackToLooper(callback, reason);
         }
         mRejectCallbacks.clear();
+        runSettleCallbacks(mSettleRejectCallbacks, reason);
     }
 
     /**
@@ -280,6 +433,14 @@ public class Promise<T> {
         return promise;
     }
 
+    private <S> void runSettleCallbacks(List<Callback<S>> callbacks, S result) {
+        // Copy first, as the callbacks may settle Promises that depend on this one in turn.
+        List<Callback<S>> toRun = new ArrayList<>(callbacks);
+        mSettleFulfillCallbacks.clear();
+        mSettleRejectCallbacks.clear();
+        for (Callback<S> callback : toRun) callback.onResult(result);
+    }
+
     private void checkThread() {
         assert mThread == Thread.currentThread() : "Promise must only be used on a single Thread.";
     }
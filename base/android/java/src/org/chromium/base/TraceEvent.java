@@ -195,7 +195,7 @@ public class TraceEvent implements AutoCloseable {
                 EarlyTraceEvent.disable();
                 disableNativeATrace();
                 mShouldWriteToSystemTrace = false;
-                ThreadUtils.getUiThreadLooper().setMessageLogging(null);
+                ThreadUtils.getUiThreadLooper().setMessageLogging(looperMonitor(false));
                 return true;
             }
             CategoryConfig config = getCategoryConfigFromATrace();
@@ -386,10 +386,32 @@ public class TraceEvent implements AutoCloseable {
     static class BasicLooperMonitor implements Printer {
         @VisibleForTesting(otherwise = VisibleForTesting.PRIVATE)
         static final String LOOPER_TASK_PREFIX = "Looper.dispatch: ";
+        private static final String FILTERED_TASK_NAME = "EVENT_NAME_FILTERED";
         @VisibleForTesting(otherwise = VisibleForTesting.PRIVATE)
-        static final String FILTERED_EVENT_NAME = LOOPER_TASK_PREFIX + "EVENT_NAME_FILTERED";
+        static final String FILTERED_EVENT_NAME = LOOPER_TASK_PREFIX + FILTERED_TASK_NAME;
         private static final int SHORTEST_LOG_PREFIX_LENGTH = "<<<<< Finished to ".length();
+        private static final int NAME_CACHE_SIZE = 64;
+
+        /** Names parsed from a Looper log line, cached as the same few tasks dominate. */
+        private static final class TaskName {
+            final String mTarget;
+            final String mTargetName;
+            final String mTaskName;
+            final String mEventName;
+
+            TaskName(String target, String targetName) {
+                mTarget = target;
+                mTargetName = targetName;
+                mTaskName = target + "(" + targetName + ")";
+                mEventName = LOOPER_TASK_PREFIX + mTaskName;
+            }
+        }
+
+        // Direct-mapped. Entries are immutable, so a racy read at worst causes a miss.
+        private static final TaskName[] sNameCache = new TaskName[NAME_CACHE_SIZE];
+
         private String mCurrentTarget;
+        private long mTaskStartMillis = -1;
 
         @Override
         public void println(final String line) {
@@ -415,6 +437,8 @@ public class TraceEvent implements AutoCloseable {
                     EarlyTraceEvent.begin(mCurrentTarget, true /*isToplevel*/);
                 }
             }
+            mTaskStartMillis =
+                    LooperLongTaskSampler.isEnabled() ? TimeUtils.uptimeMillis() : -1;
         }
 
         void endHandling(final String line) {
@@ -427,6 +451,11 @@ public class TraceEvent implements AutoCloseable {
                 }
             }
             mCurrentTarget = null;
+            if (mTaskStartMillis >= 0) {
+                LooperLongTaskSampler.onTaskFinished(
+                        line, TimeUtils.uptimeMillis() - mTaskStartMillis);
+                mTaskStartMillis = -1;
+            }
         }
 
         @VisibleForTesting(otherwise = VisibleForTesting.PRIVATE)
@@ -434,7 +463,55 @@ public class TraceEvent implements AutoCloseable {
             if (sEventNameFilteringEnabled) {
                 return FILTERED_EVENT_NAME;
             }
-            return LOOPER_TASK_PREFIX + getTarget(line) + "(" + getTargetName(line) + ")";
+            return lookUpTaskName(line).mEventName;
+        }
+
+        /**
+         * @return "TARGET(TARGET_NAME)" for a Looper log line, see {@link #getTarget}, or a
+         *         placeholder if event names are filtered.
+         */
+        static String getTaskName(String line) {
+            if (sEventNameFilteringEnabled) {
+                return FILTERED_TASK_NAME;
+            }
+            return lookUpTaskName(line).mTaskName;
+        }
+
+        /**
+         * Finds the names of a log line in the cache, comparing them in place so that hits
+         * allocate nothing.
+         */
+        private static TaskName lookUpTaskName(String line) {
+            int targetStart = line.indexOf('(', SHORTEST_LOG_PREFIX_LENGTH);
+            int targetEnd = targetStart == -1 ? -1 : line.indexOf(')', targetStart);
+            int nameStart = line.indexOf('}', SHORTEST_LOG_PREFIX_LENGTH);
+            int nameEnd = nameStart == -1 ? -1 : line.indexOf(':', nameStart);
+            if (nameEnd == -1) nameEnd = line.length();
+            // Fall back to parsing lines that do not have the expected format.
+            if (targetEnd == -1 || nameStart == -1) {
+                return new TaskName(getTarget(line), getTargetName(line));
+            }
+            targetStart++;
+            nameStart = Math.min(nameStart + 2, nameEnd);
+
+            int hash = 0;
+            for (int i = targetStart; i < targetEnd; i++) hash = 31 * hash + line.charAt(i);
+            for (int i = nameStart; i < nameEnd; i++) hash = 31 * hash + line.charAt(i);
+            int slot = (hash ^ (hash >>> 16)) & (NAME_CACHE_SIZE - 1);
+
+            TaskName cached = sNameCache[slot];
+            int targetLength = targetEnd - targetStart;
+            int nameLength = nameEnd - nameStart;
+            if (cached != null && cached.mTarget.length() == targetLength
+                    && cached.mTargetName.length() == nameLength
+                    && line.regionMatches(targetStart, cached.mTarget, 0, targetLength)
+                    && line.regionMatches(nameStart, cached.mTargetName, 0, nameLength)) {
+                return cached;
+            }
+            TaskName name = new TaskName(line.substring(targetStart, targetEnd),
+                    line.substring(nameStart, nameEnd));
+            sNameCache[slot] = name;
+            return name;
         }
 
         /**
@@ -586,6 +663,22 @@ public class TraceEvent implements AutoCloseable {
                 ? new IdleTracingLooperMonitor() : new BasicLooperMonitor();
     }
 
+    /**
+     * @param neededForTracing Whether tracing needs the Looper monitor.
+     * @return The Looper monitor if tracing or {@link LooperLongTaskSampler} need it, else null.
+     */
+    private static Printer looperMonitor(boolean neededForTracing) {
+        return neededForTracing || LooperLongTaskSampler.isEnabled() ? LooperMonitorHolder.sInstance
+                                                                     : null;
+    }
+
+    /** Installs or removes the Looper monitor after {@link LooperLongTaskSampler} was toggled. */
+    @UiThread
+    static void updateLooperMonitor() {
+        ThreadUtils.getUiThreadLooper().setMessageLogging(
+                looperMonitor(sEnabled || EarlyTraceEvent.enabled()));
+    }
+
     private final String mName;
 
     /**
@@ -635,8 +728,7 @@ public class TraceEvent implements AutoCloseable {
             // Android M+ systrace logs this on its own. Only log it if not writing to Android
             // systrace.
             if (sATrace == null || !sATrace.hasActiveSession()) {
-                ThreadUtils.getUiThreadLooper().setMessageLogging(
-                        enabled ? LooperMonitorHolder.sInstance : null);
+                ThreadUtils.getUiThreadLooper().setMessageLogging(looperMonitor(enabled));
             }
         }
         if (sUiThreadReady.get()) {
@@ -6,7 +6,9 @@ package org.chromium.base;
 
 import android.os.Process;
 
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * A class that implements type-safe heterogeneous container. It can associate
@@ -21,6 +23,10 @@ import java.util.HashMap;
  * <p>
  * No operation takes effect once {@link #destroy()} is called.
  * <p>
+ * Every key type is assigned a dense slot index the first time it is used, and a host stores its
+ * objects in an array indexed by slot. Callers on hot paths should hold on to a {@link Key} so
+ * that lookups are a plain array access; the {@link Class} based methods resolve the key first.
+ * <p>
  * Usage:
 
  *
@@ -35,11 +41,13 @@ import java.util.HashMap;
  * }
  *
  * public class FooBar implements UserData {
+ *     private static final UserDataHost.Key<FooBar> USER_DATA_KEY =
+ *             UserDataHost.Key.of(FooBar.class);
  *
  *     public FooBar from(UserDataHost host) {
- *         FooBar foobar = host.getUserData(FooBar.class);
+ *         FooBar foobar = host.getUserData(USER_DATA_KEY);
  *         // Instantiate FooBar upon the first access.
- *         return foobar != null ? foobar : host.setUserData(FooBar.class, new FooBar());
+ *         return foobar != null ? foobar : host.setUserData(USER_DATA_KEY, new FooBar());
  *     }
  * }
  *
@@ -53,9 +61,45 @@ import java.util.HashMap;
  * </code>
  */
 public final class UserDataHost {
+    private static final UserData[] EMPTY = new UserData[0];
+
+    /**
+     * A type token bound to a slot index. There is exactly one key per type, so a {@link Key}
+     * and the {@link Class} it was created from address the same object in every host.
+     * @param <T> The type of the object stored under this key.
+     */
+    public static final class Key<T extends UserData> {
+        // Only consulted when a key is created or a Class based method is used. Writes are
+        // serialized on the map itself so slots stay dense.
+        private static final Map<Class<?>, Key<?>> sKeys = new ConcurrentHashMap<>();
+
+        private final int mSlot;
+
+        private Key(int slot) {
+            mSlot = slot;
+        }
+
+        /** @return The key for {@code type}, assigning it the next free slot on first use. */
+        @SuppressWarnings("unchecked")
+        public static <T extends UserData> Key<T> of(Class<T> type) {
+            checkArgument(type != null);
+            Key<?> key = sKeys.get(type);
+            if (key != null) return (Key<T>) key;
+            synchronized (sKeys) {
+                key = sKeys.get(type);
+                if (key == null) {
+                    key = new Key<T>(sKeys.size());
+                    sKeys.put(type, key);
+                }
+                return (Key<T>) key;
+            }
+        }
+    }
+
     private final long mThreadId = Process.myTid();
 
-    private HashMap<Class<? extends UserData>, UserData> mUserDataMap = new HashMap<>();
+    // Indexed by Key#mSlot, only as long as the highest slot stored so far.
+    private UserData[] mUserData = EMPTY;
 
     private static void checkArgument(boolean condition) {
         if (!condition) {
@@ -68,7 +112,7 @@ public final class UserDataHost {
         if (mThreadId != Process.myTid()) {
             throw new IllegalStateException("UserData must only be used on a single thread.");
         }
-        if (mUserDataMap == null) {
+        if (mUserData == null) {
             throw new IllegalStateException("Operation is not allowed after destroy().");
         }
     }
@@ -80,11 +124,23 @@ public final class UserDataHost {
      * @return the object just stored, or {@code null} if storing the object failed.
      */
     public <T extends UserData> T setUserData(Class<T> key, T object) {
+        checkArgument(key != null);
+        return setUserData(Key.of(key), object);
+    }
+
+    /**
+     * Associates the specified object with the specified key.
+     * @param key Key with which the specified object is to be associated.
+     * @param object Object to be associated with the specified key.
+     * @return the object just stored, or {@code null} if storing the object failed.
+     */
+    public <T extends UserData> T setUserData(Key<T> key, T object) {
         checkThreadAndState();
         checkArgument(key != null && object != null);
 
-        mUserDataMap.put(key, object);
-        return getUserData(key);
+        if (key.mSlot >= mUserData.length) mUserData = Arrays.copyOf(mUserData, key.mSlot + 1);
+        mUserData[key.mSlot] = object;
+        return object;
     }
 
     /**
@@ -95,10 +151,24 @@ public final class UserDataHost {
      *         contains no mapping for {@code key}.
      */
     public <T extends UserData> T getUserData(Class<T> key) {
+        checkArgument(key != null);
+        return getUserData(Key.of(key));
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or null if this map
+     * contains no mapping for the key.
+     * @param key Key for which the specified object is to be returned.
+     * @return the value to which the specified key is mapped, or null if this map
+     *         contains no mapping for {@code key}.
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends UserData> T getUserData(Key<T> key) {
         checkThreadAndState();
         checkArgument(key != null);
 
-        return key.cast(mUserDataMap.get(key));
+        // Only objects of type T are ever stored under Key<T>.
+        return key.mSlot < mUserData.length ? (T) mUserData[key.mSlot] : null;
     }
 
     /**
@@ -108,13 +178,23 @@ public final class UserDataHost {
      * @return The previous value associated with {@code key}.
      */
     public <T extends UserData> T removeUserData(Class<T> key) {
-        checkThreadAndState();
         checkArgument(key != null);
+        return removeUserData(Key.of(key));
+    }
 
-        if (!mUserDataMap.containsKey(key)) {
+    /**
+     * Removes the mapping for a key from this map. Exception will be thrown if
+     * the given key has no mapping.
+     * @param key Key for which the specified object is to be removed.
+     * @return The previous value associated with {@code key}.
+     */
+    public <T extends UserData> T removeUserData(Key<T> key) {
+        T object = getUserData(key);
+        if (object == null) {
             throw new IllegalStateException("UserData for the key is not present.");
         }
-        return key.cast(mUserDataMap.remove(key));
+        mUserData[key.mSlot] = null;
+        return object;
     }
 
     /**
@@ -125,10 +205,12 @@ public final class UserDataHost {
     public void destroy() {
         checkThreadAndState();
 
-        // Nulls out |mUserDataMap| first in order to prevent concurrent modification that
+        // Nulls out |mUserData| first in order to prevent concurrent modification that
         // might happen in the for loop below.
-        HashMap<Class<? extends UserData>, UserData> map = mUserDataMap;
-        mUserDataMap = null;
-        for (UserData userData : map.values()) userData.destroy();
+        UserData[] userDataArray = mUserData;
+        mUserData = null;
+        for (UserData userData : userDataArray) {
+            if (userData != null) userData.destroy();
+        }
     }
 }
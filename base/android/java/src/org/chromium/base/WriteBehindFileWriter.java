@@ -0,0 +1,200 @@
+// Copyright 2025 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.base;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import org.chromium.base.task.PostTask;
+import org.chromium.base.task.SequencedTaskRunner;
+import org.chromium.base.task.TaskTraits;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.annotation.concurrent.GuardedBy;
+
+/**
+ * Write-behind front end for {@link ImportantFileWriterAndroid}.
+ *
+ * Writes are keyed by path and only the latest payload for every path is kept. Pending payloads
+ * are flushed together on a background sequence once the flush delay has passed since the first
+ * write of the batch, so a file that changes many times in quick succession is rewritten (and
+ * synced) once per batch instead of once per change. Batches are flushed right away when the app
+ * stops its last activity or the system reports memory pressure. A write that fails is kept for
+ * the next batch, unless it has already failed {@link #MAX_ATTEMPTS} times or has been replaced.
+ *
+ * Only suited to files that are always rewritten whole and read back through
+ * {@link #getPendingData} until flushed. Files that are appended to, or that have to be written in
+ * order with other files, should keep their own writer.
+ *
+ * The native library must be loaded before the first batch is flushed.
+ */
+public class WriteBehindFileWriter {
+    private static final String TAG = "WriteBehind";
+
+    /** Delay between the first write of a batch and its flush. */
+    private static final long FLUSH_DELAY_MS = 1000;
+
+    /** How many times a payload is written before it is dropped. */
+    @VisibleForTesting
+    static final int MAX_ATTEMPTS = 3;
+
+    private static WriteBehindFileWriter sInstance;
+
+    private final long mFlushDelayMs;
+    private final SequencedTaskRunner mTaskRunner;
+    private final Object mLock = new Object();
+
+    @GuardedBy("mLock")
+    private Map<String, byte[]> mPendingWrites = new LinkedHashMap<>();
+    // The batch being written, so its payloads stay readable until they are on disk.
+    @GuardedBy("mLock")
+    private Map<String, byte[]> mFlushingWrites = new LinkedHashMap<>();
+    @GuardedBy("mLock")
+    private boolean mFlushScheduled;
+    // How many times the pending payload of a file has failed to be written.
+    @GuardedBy("mLock")
+    private final Map<String, Integer> mFailedAttempts = new HashMap<>();
+
+    /** @return The process wide writer. */
+    public static WriteBehindFileWriter getInstance() {
+        synchronized (WriteBehindFileWriter.class) {
+            if (sInstance == null) {
+                sInstance = new WriteBehindFileWriter(FLUSH_DELAY_MS,
+                        PostTask.createSequencedTaskRunner(TaskTraits.USER_VISIBLE_MAY_BLOCK));
+                sInstance.flushOnStopAndMemoryPressure();
+            }
+            return sInstance;
+        }
+    }
+
+    /**
+     * @param flushDelayMs How long writes are held back so later writes to the same files can
+     *         replace them.
+     * @param taskRunner The sequence batches are written on.
+     */
+    private WriteBehindFileWriter(long flushDelayMs, SequencedTaskRunner taskRunner) {
+        mFlushDelayMs = flushDelayMs;
+        mTaskRunner = taskRunner;
+    }
+
+    /**
+     * @return A writer that is not flushed by app state changes or memory pressure. Unlike the
+     *         process wide writer, it can be dropped once the test is done.
+     */
+    @VisibleForTesting
+    static WriteBehindFileWriter createForTesting(
+            long flushDelayMs, SequencedTaskRunner taskRunner) {
+        return new WriteBehindFileWriter(flushDelayMs, taskRunner);
+    }
+
+    private void flushOnStopAndMemoryPressure() {
+        ThreadUtils.runOnUiThread(() -> {
+            ApplicationStatus.registerApplicationStateListener(newState -> {
+                if (newState == ApplicationState.HAS_STOPPED_ACTIVITIES
+                        || newState == ApplicationState.HAS_DESTROYED_ACTIVITIES) {
+                    flush();
+                }
+            });
+            MemoryPressureListener.addCallback(pressure -> flush());
+        });
+    }
+
+    /**
+     * Schedules {@code data} to be written to {@code fileName} atomically. Replaces any payload
+     * for the same file that has not been flushed yet. May be called from any thread.
+     *
+     * @param fileName The complete path of the file to be written.
+     * @param data The data to be written to the file. Must not be modified afterwards.
+     */
+    public void write(String fileName, byte[] data) {
+        synchronized (mLock) {
+            mPendingWrites.put(fileName, data);
+            mFailedAttempts.remove(fileName);
+            if (!scheduleFlushLocked()) return;
+        }
+        mTaskRunner.postDelayedTask(this::flushOnSequence, mFlushDelayMs);
+    }
+
+    /** @return Whether the caller has to post a delayed flush. */
+    @GuardedBy("mLock")
+    private boolean scheduleFlushLocked() {
+        if (mFlushScheduled) return false;
+        mFlushScheduled = true;
+        return true;
+    }
+
+    /**
+     * @return The payload waiting to be written to {@code fileName}, or null if the file is up to
+     *         date. Lets callers read their own writes before they reach the disk.
+     */
+    public @Nullable byte[] getPendingData(String fileName) {
+        synchronized (mLock) {
+            byte[] data = mPendingWrites.get(fileName);
+            return data != null ? data : mFlushingWrites.get(fileName);
+        }
+    }
+
+    /** Flushes all pending writes without waiting for the flush delay. */
+    public void flush() {
+        synchronized (mLock) {
+            if (mPendingWrites.isEmpty()) return;
+        }
+        mTaskRunner.postTask(this::flushOnSequence);
+    }
+
+    private void flushOnSequence() {
+        Map<String, byte[]> batch;
+        synchronized (mLock) {
+            // Writes arriving from now on start a new batch with its own delayed flush.
+            mFlushScheduled = false;
+            if (mPendingWrites.isEmpty()) return;
+            batch = mPendingWrites;
+            mPendingWrites = new LinkedHashMap<>();
+            mFlushingWrites = batch;
+        }
+        Map<String, byte[]> failedWrites = new LinkedHashMap<>();
+        try (TraceEvent e = TraceEvent.scoped("WriteBehindFileWriter.flush")) {
+            for (Map.Entry<String, byte[]> write : batch.entrySet()) {
+                if (!ImportantFileWriterAndroid.writeFileAtomically(
+                            write.getKey(), write.getValue())) {
+                    failedWrites.put(write.getKey(), write.getValue());
+                }
+            }
+        }
+        boolean retry = false;
+        synchronized (mLock) {
+            mFlushingWrites = new LinkedHashMap<>();
+            for (Map.Entry<String, byte[]> write : failedWrites.entrySet()) {
+                String fileName = write.getKey();
+                // A newer payload replaces the failed one and gets its own attempts.
+                if (mPendingWrites.containsKey(fileName)) continue;
+                Integer attempts = mFailedAttempts.get(fileName);
+                attempts = attempts == null ? 1 : attempts + 1;
+                if (attempts >= MAX_ATTEMPTS) {
+                    Log.w(TAG, "Failed to write %s, giving up.", fileName);
+                    mFailedAttempts.remove(fileName);
+                    continue;
+                }
+                Log.w(TAG, "Failed to write %s, retrying.", fileName);
+                mFailedAttempts.put(fileName, attempts);
+                mPendingWrites.put(fileName, write.getValue());
+                retry = true;
+            }
+            for (String fileName : batch.keySet()) {
+                if (!failedWrites.containsKey(fileName)) mFailedAttempts.remove(fileName);
+            }
+            retry = retry && scheduleFlushLocked();
+        }
+        if (retry) mTaskRunner.postDelayedTask(this::flushOnSequence, mFlushDelayMs);
+    }
+
+    @VisibleForTesting
+    public static void setInstanceForTesting(WriteBehindFileWriter writer) {
+        sInstance = writer;
+    }
+}
@@ -0,0 +1,121 @@
+// Copyright 2025 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.base;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import android.graphics.Bitmap;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.annotation.Config;
+
+import org.chromium.base.DiscardableReferencePool.DiscardableReference;
+import org.chromium.base.DiscardableReferencePool.Priority;
+import org.chromium.base.test.BaseRobolectricTestRunner;
+
+/** Unit tests for the memory pressure handling of {@link DiscardableReferencePool}. */
+@RunWith(BaseRobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class DiscardableReferencePoolTest {
+    private static final long KB = 1024;
+
+    private final DiscardableReferencePool mPool = new DiscardableReferencePool(100 * KB);
+
+    @Test
+    public void testTrimToSizeKeepsPoolWithinBudget() {
+        DiscardableReference<Object> first = mPool.put(new Object(), 40 * KB, Priority.NORMAL);
+        DiscardableReference<Object> second = mPool.put(new Object(), 40 * KB, Priority.NORMAL);
+
+        assertEquals(0, mPool.trimToSize(80 * KB));
+        assertNotNull(first.get());
+        assertNotNull(second.get());
+        assertEquals(80 * KB, mPool.getEstimatedSize());
+    }
+
+    @Test
+    public void testTrimToSizeDiscardsLowestPriorityFirst() {
+        DiscardableReference<Object> high = mPool.put(new Object(), 10 * KB, Priority.HIGH);
+        DiscardableReference<Object> low = mPool.put(new Object(), 10 * KB, Priority.LOW);
+        DiscardableReference<Object> normal = mPool.put(new Object(), 10 * KB, Priority.NORMAL);
+
+        assertEquals(10 * KB, mPool.trimToSize(20 * KB));
+        assertNull(low.get());
+        assertNotNull(normal.get());
+        assertNotNull(high.get());
+
+        assertEquals(10 * KB, mPool.trimToSize(10 * KB));
+        assertNull(normal.get());
+        assertNotNull(high.get());
+    }
+
+    @Test
+    public void testTrimToSizeDiscardsLeastRecentlyUsedFirstWithinPriority() {
+        DiscardableReference<Object> first = mPool.put(new Object(), 10 * KB, Priority.NORMAL);
+        DiscardableReference<Object> second = mPool.put(new Object(), 10 * KB, Priority.NORMAL);
+        DiscardableReference<Object> third = mPool.put(new Object(), 10 * KB, Priority.NORMAL);
+        // Using the oldest reference makes the second one the least recently used.
+        assertNotNull(first.get());
+
+        assertEquals(20 * KB, mPool.trimToSize(10 * KB));
+        assertNull(second.get());
+        assertNull(third.get());
+        assertNotNull(first.get());
+    }
+
+    @Test
+    public void testTrimToSizeStopsOnceWithinBudget() {
+        DiscardableReference<Object> large = mPool.put(new Object(), 50 * KB, Priority.LOW);
+        DiscardableReference<Object> small = mPool.put(new Object(), 5 * KB, Priority.LOW);
+
+        // Discarding the large, older reference is enough.
+        assertEquals(50 * KB, mPool.trimToSize(10 * KB));
+        assertNull(large.get());
+        assertNotNull(small.get());
+    }
+
+    @Test
+    public void testModeratePressureTrimsToBudget() {
+        DiscardableReference<Object> low = mPool.put(new Object(), 60 * KB, Priority.LOW);
+        DiscardableReference<Object> high = mPool.put(new Object(), 60 * KB, Priority.HIGH);
+
+        mPool.onMemoryPressure(MemoryPressureLevel.MODERATE);
+        assertNull(low.get());
+        assertNotNull(high.get());
+        assertEquals(60 * KB, mPool.getEstimatedSize());
+    }
+
+    @Test
+    public void testCriticalPressureDrainsPool() {
+        DiscardableReference<Object> high = mPool.put(new Object(), KB, Priority.HIGH);
+
+        mPool.onMemoryPressure(MemoryPressureLevel.CRITICAL);
+        assertNull(high.get());
+        assertEquals(0, mPool.getEstimatedSize());
+    }
+
+    @Test
+    public void testNoPressureKeepsPool() {
+        DiscardableReference<Object> low = mPool.put(new Object(), 200 * KB, Priority.LOW);
+
+        mPool.onMemoryPressure(MemoryPressureLevel.NONE);
+        assertNotNull(low.get());
+    }
+
+    @Test
+    public void testPayloadsWithoutSize() {
+        Bitmap bitmap = Bitmap.createBitmap(100, 100, Bitmap.Config.ARGB_8888);
+        DiscardableReference<Bitmap> bitmapReference = mPool.put(bitmap);
+        DiscardableReference<Object> objectReference = mPool.put(new Object());
+
+        assertEquals(bitmap.getAllocationByteCount()
+                        + DiscardableReferencePool.UNKNOWN_SIZE_ESTIMATE_BYTES,
+                mPool.getEstimatedSize());
+        assertNotNull(bitmapReference.get());
+        assertNotNull(objectReference.get());
+    }
+}
@@ -0,0 +1,175 @@
+// Copyright 2025 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.base;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import android.os.Process;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.annotation.Config;
+
+import org.chromium.base.EarlyTraceEvent.Event;
+import org.chromium.base.test.BaseRobolectricTestRunner;
+import org.chromium.base.test.util.JniMocker;
+
+import java.util.List;
+
+/** Unit tests for {@link EarlyTraceEvent}. */
+@RunWith(BaseRobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class EarlyTraceEventTest {
+    private static final String EVENT_NAME = "MyEvent";
+    private static final String OTHER_EVENT_NAME = "MyOtherEvent";
+    private static final String ASYNC_EVENT_NAME = "MyAsyncEvent";
+
+    @Rule
+    public JniMocker mJniMocker = new JniMocker();
+
+    @Mock
+    private EarlyTraceEvent.Natives mNatives;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        mJniMocker.mock(EarlyTraceEventJni.TEST_HOOKS, mNatives);
+        EarlyTraceEvent.enable();
+    }
+
+    @After
+    public void tearDown() {
+        EarlyTraceEvent.reset();
+    }
+
+    /** Asserts that every begin event of {@code events} is followed by an end event. */
+    private static void assertBalanced(List<Event> events) {
+        int open = 0;
+        for (Event event : events) {
+            open += event.mIsStart ? 1 : -1;
+            assertTrue(open >= 0);
+        }
+        assertEquals(0, open);
+    }
+
+    @Test
+    public void testCanRecordEvents() {
+        EarlyTraceEvent.begin(EVENT_NAME, false /*isToplevel*/);
+        EarlyTraceEvent.end(EVENT_NAME, false /*isToplevel*/);
+
+        List<Event> events = EarlyTraceEvent.getMatchingCompletedEventsForTesting(EVENT_NAME);
+        assertEquals(2, events.size());
+        assertTrue(events.get(0).mIsStart);
+        assertFalse(events.get(1).mIsStart);
+        assertEquals(Process.myTid(), events.get(0).mThreadId);
+        assertTrue(events.get(0).mTimeNanos <= events.get(1).mTimeNanos);
+    }
+
+    @Test
+    public void testIgnoresEventsWhenDisabled() {
+        EarlyTraceEvent.reset();
+        EarlyTraceEvent.begin(EVENT_NAME, false /*isToplevel*/);
+        EarlyTraceEvent.end(EVENT_NAME, false /*isToplevel*/);
+        EarlyTraceEvent.enable();
+
+        assertTrue(EarlyTraceEvent.getMatchingCompletedEventsForTesting(EVENT_NAME).isEmpty());
+    }
+
+    @Test
+    public void testDisableDumpsEventsToNative() {
+        EarlyTraceEvent.begin(EVENT_NAME, false /*isToplevel*/);
+        EarlyTraceEvent.end(EVENT_NAME, false /*isToplevel*/);
+        EarlyTraceEvent.begin(OTHER_EVENT_NAME, true /*isToplevel*/);
+        EarlyTraceEvent.end(OTHER_EVENT_NAME, true /*isToplevel*/);
+        EarlyTraceEvent.startAsync(ASYNC_EVENT_NAME, 42);
+        EarlyTraceEvent.finishAsync(ASYNC_EVENT_NAME, 42);
+
+        EarlyTraceEvent.disable();
+
+        verify(mNatives).recordEarlyBeginEvent(eq(EVENT_NAME), anyLong(), anyInt(), anyLong());
+        verify(mNatives).recordEarlyEndEvent(eq(EVENT_NAME), anyLong(), anyInt(), anyLong());
+        verify(mNatives).recordEarlyToplevelBeginEvent(
+                eq(OTHER_EVENT_NAME), anyLong(), anyInt(), anyLong());
+        verify(mNatives).recordEarlyToplevelEndEvent(
+                eq(OTHER_EVENT_NAME), anyLong(), anyInt(), anyLong());
+        verify(mNatives).recordEarlyAsyncBeginEvent(eq(ASYNC_EVENT_NAME), eq(42L), anyLong());
+        verify(mNatives).recordEarlyAsyncEndEvent(eq(ASYNC_EVENT_NAME), eq(42L), anyLong());
+    }
+
+    @Test
+    public void testDisableReleasesBufferedEvents() {
+        EarlyTraceEvent.begin(EVENT_NAME, false /*isToplevel*/);
+        assertTrue(EarlyTraceEvent.hasThreadBufferStorageForTesting());
+
+        EarlyTraceEvent.disable();
+
+        assertFalse(EarlyTraceEvent.hasThreadBufferStorageForTesting());
+    }
+
+    @Test
+    public void testResetReleasesBufferedEvents() {
+        EarlyTraceEvent.begin(EVENT_NAME, false /*isToplevel*/);
+
+        EarlyTraceEvent.reset();
+
+        assertFalse(EarlyTraceEvent.hasThreadBufferStorageForTesting());
+    }
+
+    @Test
+    public void testFullBufferKeepsOldestEvents() {
+        EarlyTraceEvent.begin(EVENT_NAME, false /*isToplevel*/);
+        EarlyTraceEvent.end(EVENT_NAME, false /*isToplevel*/);
+        for (int i = 0; i < EarlyTraceEvent.THREAD_BUFFER_CAPACITY; i++) {
+            EarlyTraceEvent.begin(OTHER_EVENT_NAME, false /*isToplevel*/);
+            EarlyTraceEvent.end(OTHER_EVENT_NAME, false /*isToplevel*/);
+        }
+
+        assertEquals(2, EarlyTraceEvent.getMatchingCompletedEventsForTesting(EVENT_NAME).size());
+        List<Event> otherEvents =
+                EarlyTraceEvent.getMatchingCompletedEventsForTesting(OTHER_EVENT_NAME);
+        assertEquals(EarlyTraceEvent.THREAD_BUFFER_CAPACITY - 2, otherEvents.size());
+        assertBalanced(otherEvents);
+    }
+
+    @Test
+    public void testFullBufferKeepsEndsOfOpenEvents() {
+        int depth = 10;
+        for (int i = 0; i < depth; i++) EarlyTraceEvent.begin(EVENT_NAME, false /*isToplevel*/);
+        for (int i = 0; i < EarlyTraceEvent.THREAD_BUFFER_CAPACITY; i++) {
+            EarlyTraceEvent.begin(OTHER_EVENT_NAME, false /*isToplevel*/);
+            EarlyTraceEvent.startAsync(ASYNC_EVENT_NAME, i);
+            EarlyTraceEvent.end(OTHER_EVENT_NAME, false /*isToplevel*/);
+        }
+        for (int i = 0; i < depth; i++) EarlyTraceEvent.end(EVENT_NAME, false /*isToplevel*/);
+
+        List<Event> events = EarlyTraceEvent.getMatchingCompletedEventsForTesting(EVENT_NAME);
+        assertEquals(2 * depth, events.size());
+        assertBalanced(events);
+        assertBalanced(EarlyTraceEvent.getMatchingCompletedEventsForTesting(OTHER_EVENT_NAME));
+    }
+
+    @Test
+    public void testEventsAfterDisableAreIgnored() {
+        EarlyTraceEvent.begin(EVENT_NAME, false /*isToplevel*/);
+        EarlyTraceEvent.disable();
+        EarlyTraceEvent.end(EVENT_NAME, false /*isToplevel*/);
+
+        verify(mNatives, never()).recordEarlyEndEvent(any(), anyLong(), anyInt(), anyLong());
+        assertFalse(EarlyTraceEvent.hasThreadBufferStorageForTesting());
+    }
+}
@@ -0,0 +1,144 @@
+// Copyright 2025 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.base;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.annotation.Config;
+
+import org.chromium.base.test.BaseRobolectricTestRunner;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/** Unit tests for {@link LooperLongTaskSampler}. */
+@RunWith(BaseRobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class LooperLongTaskSamplerTest {
+    private static final String FINISHED_LINE =
+            "<<<<< Finished to Handler (android.os.Handler) {1a2b3c} org.chromium.Foo$1";
+    private static final String TASK_NAME = "android.os.Handler(org.chromium.Foo$1)";
+
+    @Rule
+    public TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
+    @Before
+    public void setUp() {
+        LooperLongTaskSampler.resetForTesting();
+    }
+
+    @After
+    public void tearDown() {
+        LooperLongTaskSampler.setEnabled(false);
+        LooperLongTaskSampler.resetForTesting();
+        CommandLine.reset();
+        ApplicationStatus.destroyForJUnitTests();
+    }
+
+    @Test
+    public void testBucketFor() {
+        assertEquals(0, LooperLongTaskSampler.bucketFor(0));
+        assertEquals(1, LooperLongTaskSampler.bucketFor(1));
+        assertEquals(2, LooperLongTaskSampler.bucketFor(2));
+        assertEquals(2, LooperLongTaskSampler.bucketFor(3));
+        assertEquals(5, LooperLongTaskSampler.bucketFor(16));
+        assertEquals(5, LooperLongTaskSampler.bucketFor(31));
+        assertEquals(LooperLongTaskSampler.NUM_BUCKETS - 1,
+                LooperLongTaskSampler.bucketFor(1024));
+        assertEquals(LooperLongTaskSampler.NUM_BUCKETS - 1,
+                LooperLongTaskSampler.bucketFor(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testEveryTaskIsCounted() {
+        LooperLongTaskSampler.onTaskFinished(FINISHED_LINE, 0);
+        LooperLongTaskSampler.onTaskFinished(FINISHED_LINE, 3);
+        LooperLongTaskSampler.onTaskFinished(FINISHED_LINE, 3);
+        LooperLongTaskSampler.onTaskFinished(FINISHED_LINE, 200);
+
+        long[] histogram = LooperLongTaskSampler.getHistogram();
+        assertEquals(1, histogram[0]);
+        assertEquals(2, histogram[2]);
+        assertEquals(1, histogram[LooperLongTaskSampler.bucketFor(200)]);
+    }
+
+    @Test
+    public void testOnlyLongTasksAreRecorded() throws IOException {
+        LooperLongTaskSampler.onTaskFinished(FINISHED_LINE, 16);
+        LooperLongTaskSampler.onTaskFinished(FINISHED_LINE, 17);
+        LooperLongTaskSampler.onTaskFinished(FINISHED_LINE, 150);
+
+        String dump = dump();
+        assertTrue(dump, dump.contains("  >16ms: 2\n"));
+        assertTrue(dump, dump.contains("  >100ms: 1\n"));
+        assertTrue(dump, dump.contains(" 17ms >16ms " + TASK_NAME + "\n"));
+        assertTrue(dump, dump.contains(" 150ms >100ms " + TASK_NAME + "\n"));
+        assertFalse(dump, dump.contains(" 16ms "));
+    }
+
+    @Test
+    public void testBudgetsAreSorted() throws IOException {
+        LooperLongTaskSampler.setBudgetsMs(50, 5);
+        LooperLongTaskSampler.onTaskFinished(FINISHED_LINE, 10);
+
+        String dump = dump();
+        assertTrue(dump, dump.contains("  >5ms: 1\n  >50ms: 0\n"));
+        assertTrue(dump, dump.contains(" 10ms >5ms " + TASK_NAME + "\n"));
+    }
+
+    @Test
+    public void testLongTasksAreBounded() throws IOException {
+        for (int i = 1; i <= LooperLongTaskSampler.MAX_LONG_TASKS + 1; i++) {
+            LooperLongTaskSampler.onTaskFinished(FINISHED_LINE, 1000 + i);
+        }
+
+        String dump = dump();
+        // The oldest long task was overwritten by the newest one.
+        assertFalse(dump, dump.contains(" 1001ms "));
+        assertTrue(dump, dump.contains(" 1002ms "));
+        int newest = 1001 + LooperLongTaskSampler.MAX_LONG_TASKS;
+        assertTrue(dump, dump.contains(" " + newest + "ms "));
+        String longTasks = dump.substring(dump.indexOf("long_tasks:\n"));
+        assertEquals(LooperLongTaskSampler.MAX_LONG_TASKS + 1, longTasks.split("\n").length);
+    }
+
+    @Test
+    public void testCommandLineIsOnlyCheckedOnce() {
+        CommandLine.init(
+                new String[] {"chrome", "--" + LooperLongTaskSampler.SAMPLE_LONG_UI_TASKS_SWITCH});
+
+        LooperLongTaskSampler.maybeEnableFromCommandLine();
+        assertTrue(LooperLongTaskSampler.isEnabled());
+
+        // Later activities do not turn sampling back on, or register another dump listener.
+        LooperLongTaskSampler.setEnabled(false);
+        LooperLongTaskSampler.maybeEnableFromCommandLine();
+        assertFalse(LooperLongTaskSampler.isEnabled());
+    }
+
+    @Test
+    public void testDisabledWithoutSwitch() {
+        CommandLine.init(new String[] {"chrome"});
+
+        LooperLongTaskSampler.maybeEnableFromCommandLine();
+        assertFalse(LooperLongTaskSampler.isEnabled());
+    }
+
+    private String dump() throws IOException {
+        File file = mTemporaryFolder.newFile();
+        LooperLongTaskSampler.dumpToFile(file);
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,88 @@
+// Copyright 2025 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.base;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.annotation.Config;
+
+import org.chromium.base.test.BaseRobolectricTestRunner;
+
+/** Checks that {@link SinglePassPiiElider} elides like the per-kind {@link PiiElider} passes. */
+@RunWith(BaseRobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class PiiEliderTest {
+    @Test
+    public void testSinglePassMatchesEmailElision() {
+        assertSinglePassMatchesEmailElision("Contact me at jane.doe@example.com today");
+        assertSinglePassMatchesEmailElision("a+b@mail.example.org, c_d%e@example.co.uk");
+    }
+
+    @Test
+    public void testSinglePassMatchesUrlElision() {
+        assertSinglePassMatchesChain("Visit https://www.example.com/path?query=1 now");
+        assertSinglePassMatchesChain("www.chromium.org and http://user:pw@example.com:8080/a/b");
+        assertSinglePassMatchesChain("see http://192.168.0.1:8080/x");
+    }
+
+    @Test
+    public void testSinglePassMatchesIpElision() {
+        // A bare IP address is also a URL, and both passes elide it as one.
+        assertSinglePassMatchesChain("host 192.168.0.1 is down");
+        // Not on a word boundary, so only the IP address pattern matches.
+        assertSinglePassMatchesChain("ip=a10.0.0.254");
+    }
+
+    @Test
+    public void testSinglePassMatchesMacElision() {
+        assertSinglePassMatchesChain("mac 12:34:56:78:9a:bc is up");
+        assertSinglePassMatchesChain("mac 00-1A-2B-3C-4D-5E is up");
+    }
+
+    @Test
+    public void testSinglePassMatchesChainOnMixedText() {
+        assertSinglePassMatchesChain("GET https://example.com/ from 10.1.2.3 by 00:11:22:33:44:55");
+        assertSinglePassMatchesChain("nothing to see here");
+        assertSinglePassMatchesChain("");
+    }
+
+    @Test
+    public void testSinglePassPrefersEmailOverUrl() {
+        // The domain of an email address is also a URL. The chained passes elide the email and
+        // then the URL in its elision, the single pass elides the email only.
+        String text = "mail jane@mail.example.org or www.example.org";
+        assertEquals("mail XXX@EMAIL.ELIDED or HTTP://WEBADDRESS.ELIDED",
+                SinglePassPiiElider.elide(text));
+        assertEquals("mail XXX@HTTP://WEBADDRESS.ELIDED or HTTP://WEBADDRESS.ELIDED",
+                chain(text));
+    }
+
+    @Test
+    public void testSinglePassKeepsNamespaces() {
+        String text = "org.chromium.base.Foo threw in android.app.Activity via java.lang.String";
+        assertEquals(text, SinglePassPiiElider.elide(text));
+        assertSinglePassMatchesChain(text);
+        assertSinglePassMatchesChain("com.google.android.gms and com.android.systemui");
+        assertEquals("HTTP://WEBADDRESS.ELIDED and com.google.Foo",
+                SinglePassPiiElider.elide("org.example.Foo and com.google.Foo"));
+    }
+
+    private static void assertSinglePassMatchesEmailElision(String text) {
+        assertEquals(PiiElider.elideEmail(text), SinglePassPiiElider.elide(text));
+    }
+
+    private static void assertSinglePassMatchesChain(String text) {
+        assertEquals(chain(text), SinglePassPiiElider.elide(text));
+    }
+
+    private static String chain(String text) {
+        String elided = PiiElider.elideEmail(text);
+        elided = PiiElider.elideUrl(elided);
+        elided = PiiElider.elideIp(elided);
+        return PiiElider.elideMac(elided);
+    }
+}
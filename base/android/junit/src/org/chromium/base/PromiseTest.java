@@ -0,0 +1,248 @@
+// Copyright 2025 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.base;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import org.chromium.base.test.BaseRobolectricTestRunner;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/** Unit tests for the combinators, timeouts and executor continuations of {@link Promise}. */
+@RunWith(BaseRobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class PromiseTest {
+    /** Records the reason a Promise was rejected with. */
+    private static class RejectionRecorder implements Callback<Exception> {
+        boolean mCalled;
+        Exception mReason;
+
+        @Override
+        public void onResult(Exception reason) {
+            assertFalse(mCalled);
+            mCalled = true;
+            mReason = reason;
+        }
+    }
+
+    @Test
+    public void testAllFulfillsInInputOrder() {
+        Promise<Integer> first = new Promise<>();
+        Promise<Integer> second = new Promise<>();
+        Promise<List<Integer>> all = Promise.all(Arrays.asList(first, second));
+
+        second.fulfill(2);
+        assertFalse(all.isFulfilled());
+        first.fulfill(1);
+        assertTrue(all.isFulfilled());
+        assertEquals(Arrays.asList(1, 2), all.getResult());
+    }
+
+    @Test
+    public void testAllRejectsWithFirstRejection() {
+        Promise<Integer> first = new Promise<>();
+        Promise<Integer> second = new Promise<>();
+        Promise<Integer> third = new Promise<>();
+        Promise<List<Integer>> all = Promise.all(Arrays.asList(first, second, third));
+        RejectionRecorder recorder = new RejectionRecorder();
+        all.except(recorder);
+
+        Exception secondReason = new Exception("second");
+        second.reject(secondReason);
+        assertTrue(all.isRejected());
+
+        // Later rejections and fulfillments are ignored.
+        first.reject(new Exception("first"));
+        third.fulfill(3);
+        ShadowLooper.runUiThreadTasks();
+        assertTrue(recorder.mCalled);
+        assertSame(secondReason, recorder.mReason);
+    }
+
+    @Test
+    public void testAllOfEmptyListIsFulfilled() {
+        Promise<List<Integer>> all = Promise.all(Collections.emptyList());
+
+        assertTrue(all.isFulfilled());
+        assertTrue(all.getResult().isEmpty());
+    }
+
+    @Test
+    public void testAnyRejectsAfterLastRejection() {
+        Promise<Integer> first = new Promise<>();
+        Promise<Integer> second = new Promise<>();
+        Promise<Integer> any = Promise.any(Arrays.asList(first, second));
+        RejectionRecorder recorder = new RejectionRecorder();
+        any.except(recorder);
+
+        second.reject(new Exception("second"));
+        assertFalse(any.isRejected());
+
+        Exception lastReason = new Exception("first");
+        first.reject(lastReason);
+        assertTrue(any.isRejected());
+        ShadowLooper.runUiThreadTasks();
+        assertSame(lastReason, recorder.mReason);
+    }
+
+    @Test
+    public void testAnyFulfillsDespiteEarlierRejection() {
+        Promise<Integer> first = new Promise<>();
+        Promise<Integer> second = new Promise<>();
+        Promise<Integer> any = Promise.any(Arrays.asList(first, second));
+
+        first.reject(new Exception("first"));
+        second.fulfill(2);
+        assertTrue(any.isFulfilled());
+        assertEquals(2, (int) any.getResult());
+    }
+
+    @Test
+    public void testAnyOfEmptyListIsRejected() {
+        Promise<Integer> any = Promise.any(Collections.emptyList());
+
+        assertTrue(any.isRejected());
+    }
+
+    @Test
+    public void testRaceSettlesLikeFirstInput() {
+        Promise<Integer> first = new Promise<>();
+        Promise<Integer> second = new Promise<>();
+        Promise<Integer> race = Promise.race(Arrays.asList(first, second));
+
+        second.reject(new Exception("second"));
+        first.fulfill(1);
+        assertTrue(race.isRejected());
+    }
+
+    @Test
+    public void testRaceOfEmptyListNeverSettles() {
+        Promise<Integer> race = Promise.race(Collections.emptyList());
+
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+        assertFalse(race.isFulfilled());
+        assertFalse(race.isRejected());
+    }
+
+    @Test
+    public void testTimeoutRejectsUnsettledPromise() {
+        Promise<Integer> input = new Promise<>();
+        Promise<Integer> timed = input.withTimeout(100);
+        RejectionRecorder recorder = new RejectionRecorder();
+        timed.except(recorder);
+
+        ShadowLooper.idleMainLooper(99, TimeUnit.MILLISECONDS);
+        assertFalse(timed.isRejected());
+        ShadowLooper.idleMainLooper(1, TimeUnit.MILLISECONDS);
+        assertTrue(timed.isRejected());
+        assertTrue(recorder.mReason instanceof TimeoutException);
+
+        // The late result is ignored.
+        input.fulfill(1);
+        assertTrue(timed.isRejected());
+    }
+
+    @Test
+    public void testSettlingBeforeTimeoutWins() {
+        Promise<Integer> input = new Promise<>();
+        Promise<Integer> timed = input.withTimeout(100);
+
+        ShadowLooper.idleMainLooper(50, TimeUnit.MILLISECONDS);
+        input.fulfill(1);
+        ShadowLooper.idleMainLooper(100, TimeUnit.MILLISECONDS);
+        assertTrue(timed.isFulfilled());
+        assertEquals(1, (int) timed.getResult());
+    }
+
+    @Test
+    public void testTimeoutOfSettledPromise() {
+        Promise<Integer> timed = Promise.fulfilled(1).withTimeout(0);
+
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+        assertTrue(timed.isFulfilled());
+    }
+
+    @Test
+    public void testThenOnRunsFunctionOnExecutor() {
+        int[] executed = {0};
+        Executor executor = task -> {
+            executed[0]++;
+            task.run();
+        };
+        Promise<Integer> input = new Promise<>();
+        Promise<String> output = input.thenOn(executor, value -> Integer.toString(value + 1));
+
+        input.fulfill(1);
+        assertEquals(1, executed[0]);
+        // The result is settled through the looper of the input.
+        assertFalse(output.isFulfilled());
+        ShadowLooper.runUiThreadTasks();
+        assertEquals("2", output.getResult());
+    }
+
+    @Test
+    public void testThenOnRejectedByExecutor() {
+        RejectedExecutionException executorException = new RejectedExecutionException();
+        Executor executor = task -> {
+            throw executorException;
+        };
+        Promise<Integer> input = new Promise<>();
+        Promise<Integer> output = input.thenOn(executor, value -> value);
+        RejectionRecorder recorder = new RejectionRecorder();
+        output.except(recorder);
+
+        input.fulfill(1);
+        assertTrue(output.isRejected());
+        ShadowLooper.runUiThreadTasks();
+        assertSame(executorException, recorder.mReason);
+    }
+
+    @Test
+    public void testThenOnFunctionException() {
+        IllegalStateException functionException = new IllegalStateException();
+        Promise<Integer> input = new Promise<>();
+        Promise<Integer> output = input.thenOn(Runnable::run, value -> {
+            throw functionException;
+        });
+        RejectionRecorder recorder = new RejectionRecorder();
+        output.except(recorder);
+
+        input.fulfill(1);
+        ShadowLooper.runUiThreadTasks();
+        assertTrue(output.isRejected());
+        ShadowLooper.runUiThreadTasks();
+        assertSame(functionException, recorder.mReason);
+    }
+
+    @Test
+    public void testThenOnPassesRejectionThrough() {
+        int[] executed = {0};
+        Promise<Integer> input = new Promise<>();
+        Promise<Integer> output = input.thenOn(task -> executed[0]++, value -> value);
+        RejectionRecorder recorder = new RejectionRecorder();
+        output.except(recorder);
+
+        input.reject();
+        ShadowLooper.runUiThreadTasks();
+        assertEquals(0, executed[0]);
+        assertTrue(recorder.mCalled);
+        assertNull(recorder.mReason);
+    }
+}
@@ -0,0 +1,154 @@
+// Copyright 2025 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.base;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.AdditionalMatchers.aryEq;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.annotation.Config;
+
+import org.chromium.base.task.SequencedTaskRunner;
+import org.chromium.base.test.BaseRobolectricTestRunner;
+import org.chromium.base.test.util.JniMocker;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** Unit tests for {@link WriteBehindFileWriter}. */
+@RunWith(BaseRobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class WriteBehindFileWriterTest {
+    private static final long FLUSH_DELAY_MS = 500;
+    private static final String FILE_A = "/data/a";
+    private static final String FILE_B = "/data/b";
+    private static final byte[] DATA_1 = {1};
+    private static final byte[] DATA_2 = {2};
+    private static final byte[] DATA_3 = {3};
+
+    @Rule
+    public JniMocker mJniMocker = new JniMocker();
+
+    @Mock
+    private ImportantFileWriterAndroid.Natives mNatives;
+    @Mock
+    private SequencedTaskRunner mTaskRunner;
+
+    private final List<Runnable> mPostedTasks = new ArrayList<>();
+    private WriteBehindFileWriter mWriter;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        mJniMocker.mock(ImportantFileWriterAndroidJni.TEST_HOOKS, mNatives);
+        when(mNatives.writeFileAtomically(any(), any())).thenReturn(true);
+        doAnswer(invocation -> mPostedTasks.add(invocation.getArgument(0)))
+                .when(mTaskRunner)
+                .postTask(any());
+        doAnswer(invocation -> mPostedTasks.add(invocation.getArgument(0)))
+                .when(mTaskRunner)
+                .postDelayedTask(any(), anyLong());
+        mWriter = WriteBehindFileWriter.createForTesting(FLUSH_DELAY_MS, mTaskRunner);
+    }
+
+    /** Runs the tasks posted so far, but not the ones they post. */
+    private void runPostedTasks() {
+        List<Runnable> tasks = new ArrayList<>(mPostedTasks);
+        mPostedTasks.clear();
+        for (Runnable task : tasks) task.run();
+    }
+
+    @Test
+    public void testWritesAreCoalescedIntoOneBatch() {
+        mWriter.write(FILE_A, DATA_1);
+        mWriter.write(FILE_A, DATA_2);
+        mWriter.write(FILE_B, DATA_3);
+
+        verify(mTaskRunner, times(1)).postDelayedTask(any(), eq(FLUSH_DELAY_MS));
+        verify(mNatives, never()).writeFileAtomically(any(), any());
+        assertArrayEquals(DATA_2, mWriter.getPendingData(FILE_A));
+
+        runPostedTasks();
+
+        verify(mNatives, never()).writeFileAtomically(eq(FILE_A), aryEq(DATA_1));
+        verify(mNatives).writeFileAtomically(eq(FILE_A), aryEq(DATA_2));
+        verify(mNatives).writeFileAtomically(eq(FILE_B), aryEq(DATA_3));
+        assertNull(mWriter.getPendingData(FILE_A));
+        assertNull(mWriter.getPendingData(FILE_B));
+    }
+
+    @Test
+    public void testFlushDoesNotWaitForDelay() {
+        mWriter.write(FILE_A, DATA_1);
+
+        mWriter.flush();
+
+        verify(mTaskRunner).postTask(any());
+        runPostedTasks();
+        verify(mNatives).writeFileAtomically(eq(FILE_A), aryEq(DATA_1));
+    }
+
+    @Test
+    public void testFailedWriteIsKeptForRetry() {
+        when(mNatives.writeFileAtomically(eq(FILE_A), aryEq(DATA_1)))
+                .thenReturn(false)
+                .thenReturn(true);
+        mWriter.write(FILE_A, DATA_1);
+
+        runPostedTasks();
+
+        assertArrayEquals(DATA_1, mWriter.getPendingData(FILE_A));
+        verify(mTaskRunner, times(2)).postDelayedTask(any(), eq(FLUSH_DELAY_MS));
+
+        runPostedTasks();
+
+        verify(mNatives, times(2)).writeFileAtomically(eq(FILE_A), aryEq(DATA_1));
+        assertNull(mWriter.getPendingData(FILE_A));
+    }
+
+    @Test
+    public void testFailedWriteIsDroppedAfterMaxAttempts() {
+        when(mNatives.writeFileAtomically(any(), any())).thenReturn(false);
+        mWriter.write(FILE_A, DATA_1);
+
+        for (int i = 0; i < WriteBehindFileWriter.MAX_ATTEMPTS + 1; i++) runPostedTasks();
+
+        verify(mNatives, times(WriteBehindFileWriter.MAX_ATTEMPTS))
+                .writeFileAtomically(eq(FILE_A), aryEq(DATA_1));
+        assertNull(mWriter.getPendingData(FILE_A));
+    }
+
+    @Test
+    public void testNewerWriteReplacesFailedOne() {
+        // The file is written again while the failing batch is being flushed.
+        when(mNatives.writeFileAtomically(eq(FILE_A), aryEq(DATA_1))).thenAnswer(invocation -> {
+            mWriter.write(FILE_A, DATA_2);
+            return false;
+        });
+        mWriter.write(FILE_A, DATA_1);
+
+        runPostedTasks();
+        assertArrayEquals(DATA_2, mWriter.getPendingData(FILE_A));
+        runPostedTasks();
+
+        verify(mNatives, times(1)).writeFileAtomically(eq(FILE_A), aryEq(DATA_1));
+        verify(mNatives).writeFileAtomically(eq(FILE_A), aryEq(DATA_2));
+        assertNull(mWriter.getPendingData(FILE_A));
+    }
+}
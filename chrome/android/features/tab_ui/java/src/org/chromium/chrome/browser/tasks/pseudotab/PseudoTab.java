@@ -13,6 +13,9 @@ import androidx.annotation.VisibleForTesting;
 
 import org.chromium.base.Log;
 import org.chromium.base.StreamUtil;
+import org.chromium.base.ThreadUtils;
+import org.chromium.base.task.PostTask;
+import org.chromium.base.task.TaskTraits;
 import org.chromium.chrome.browser.flags.ChromeFeatureList;
 import org.chromium.chrome.browser.tab.Tab;
 import org.chromium.chrome.browser.tab.state.CriticalPersistedTabData;
@@ -39,6 +42,8 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
 import javax.annotation.concurrent.GuardedBy;
 
@@ -57,6 +62,7 @@ public class PseudoTab {
     private static boolean sReadStateFile;
     private static List<PseudoTab> sAllTabsFromStateFile;
     private static PseudoTab sActiveTabFromStateFile;
+    private static FutureTask<StateFileTabs> sStateFileTask;
 
     /**
      * An interface to get the title to be used for a tab.
@@ -253,6 +259,7 @@ public class PseudoTab {
         synchronized (sLock) {
             sAllTabs.clear();
             sReadStateFile = false;
+            sStateFileTask = null;
             sActiveTabFromStateFile = null;
             if (sAllTabsFromStateFile != null) {
                 sAllTabsFromStateFile.clear();
@@ -330,65 +337,129 @@ public class PseudoTab {
         return sActiveTabFromStateFile;
     }
 
+    /**
+     * Starts reading the tabs from the state file in the background, so that {@link
+     * #getAllPseudoTabsFromStateFile} and {@link #getActiveTabFromStateFile} only need to wait for
+     * what is left of it. Does nothing if the file is already being read, or has been read.
+     *
+     * @param context The activity context.
+     */
+    public static void startReadingStateFile(Context context) {
+        ThreadUtils.assertOnUiThread();
+        if (sReadStateFile || sStateFileTask != null) return;
+        boolean isTabGroupsEnabled = TabUiFeatureUtilities.isTabGroupsAndroidEnabled(context);
+        sStateFileTask = new FutureTask<>(() -> readStateFile(isTabGroupsEnabled));
+        PostTask.postTask(TaskTraits.USER_BLOCKING_MAY_BLOCK, sStateFileTask);
+    }
+
     private static void readAllPseudoTabsFromStateFile(Context context) {
         assert ChromeFeatureList.sInstantStart.isEnabled()
                 || ChromeFeatureList.sPaintPreviewShowOnStartup.isEnabled();
         if (sReadStateFile) return;
         sReadStateFile = true;
 
+        StateFileTabs tabs = null;
+        if (sStateFileTask != null) {
+            long startMs = SystemClock.elapsedRealtime();
+            // Reads the file right here if the background task has not started yet.
+            sStateFileTask.run();
+            try {
+                tabs = sStateFileTask.get();
+            } catch (ExecutionException | InterruptedException exception) {
+                Log.e(TAG, "Could not read state file.", exception);
+            }
+            sStateFileTask = null;
+            Log.i(TAG, "Waited %dms for the state file.", SystemClock.elapsedRealtime() - startMs);
+        } else {
+            tabs = readStateFile(TabUiFeatureUtilities.isTabGroupsAndroidEnabled(context));
+        }
+        if (tabs == null) return;
+        // PseudoTabs can wrap real Tabs, so they are only looked up here rather than while reading.
+        sAllTabsFromStateFile = new ArrayList<>();
+        for (int tabId : tabs.mTabIds) {
+            PseudoTab tab = fromTabId(tabId);
+            if (tabs.mShownTabIds.contains(tabId)) sAllTabsFromStateFile.add(tab);
+            if (tabId == tabs.mActiveTabId) sActiveTabFromStateFile = tab;
+        }
+        Log.d(TAG, "All pre-native tabs: " + sAllTabsFromStateFile);
+    }
+
+    /** The IDs of the tabs read from the state file. */
+    private static class StateFileTabs {
+        // Every tab to be restored, in the order of the file.
+        final List<Integer> mTabIds = new ArrayList<>();
+        // The tabs to be shown, which are only one tab of each group if tab groups are enabled.
+        final Set<Integer> mShownTabIds = new HashSet<>();
+        int mActiveTabId = Tab.INVALID_TAB_ID;
+    }
+
+    /**
+     * Reads the tabs from the state file. May be called on any thread, so it only reads the root
+     * IDs of the tabs from {@link TabAttributeCache} and leaves creating PseudoTabs to the caller.
+     * @param isTabGroupsEnabled Whether only one tab of each group should be shown.
+     * @return The tabs, or null if the file doesn't exist or can't be read.
+     */
+    private static @Nullable StateFileTabs readStateFile(boolean isTabGroupsEnabled) {
         long startMs = SystemClock.elapsedRealtime();
         File stateFile = new File(TabStateDirectory.getOrCreateTabbedModeStateDirectory(),
                 TabbedModeTabPersistencePolicy.getStateFileName(0));
         if (!stateFile.exists()) {
             Log.i(TAG, "State file does not exist.");
-            return;
+            return null;
         }
+        StateFileTabs tabs = new StateFileTabs();
+        Set<Integer> seenRootId = new HashSet<>();
+        TabPersistentStore.OnTabStateReadCallback callback =
+                (index, id, url, isIncognito, isStandardActiveIndex, isIncognitoActiveIndex) -> {
+            // Skip restoring of non-selected NTP to match the real restoration logic.
+            if (UrlUtilities.isCanonicalizedNTPUrl(url) && !isStandardActiveIndex) {
+                return;
+            }
+            tabs.mTabIds.add(id);
+            if (isStandardActiveIndex) {
+                assert tabs.mActiveTabId == Tab.INVALID_TAB_ID;
+                tabs.mActiveTabId = id;
+            }
+            int rootId = TabAttributeCache.getRootId(id);
+            if (isTabGroupsEnabled && seenRootId.contains(rootId)) {
+                return;
+            }
+            tabs.mShownTabIds.add(id);
+            seenRootId.add(rootId);
+        };
+        try {
+            TabStateFileReader reader = TabStateFileReader.open(stateFile);
+            if (reader != null) {
+                for (int i = 0; i < reader.getCount(); i++) {
+                    callback.onDetailsRead(i, reader.getTabId(i), reader.getUrl(i),
+                            reader.isIncognito(i), i == reader.getStandardActiveIndex(),
+                            i == reader.getIncognitoActiveIndex());
+                }
+            } else {
+                // Files of older versions are left to TabPersistentStore.
+                readOlderStateFile(stateFile, callback);
+            }
+        } catch (IOException exception) {
+            Log.e(TAG, "Could not read state file.", exception);
+            return null;
+        }
+
+        Log.i(TAG, "readStateFile() took %dms", SystemClock.elapsedRealtime() - startMs);
+        return tabs;
+    }
+
+    private static void readOlderStateFile(
+            File stateFile, TabPersistentStore.OnTabStateReadCallback callback) throws IOException {
         FileInputStream stream = null;
         byte[] data;
         try {
             stream = new FileInputStream(stateFile);
             data = new byte[(int) stateFile.length()];
-            stream.read(data);
-        } catch (IOException exception) {
-            Log.e(TAG, "Could not read state file.", exception);
-            return;
+            new DataInputStream(stream).readFully(data);
         } finally {
             StreamUtil.closeQuietly(stream);
         }
-        Log.i(TAG, "Finished fetching tab list.");
-        DataInputStream dataStream = new DataInputStream(new ByteArrayInputStream(data));
-
-        Set<Integer> seenRootId = new HashSet<>();
-        sAllTabsFromStateFile = new ArrayList<>();
-        try {
-            TabPersistentStore.readSavedStateFile(dataStream,
-                    (index, id, url, isIncognito, isStandardActiveIndex, isIncognitoActiveIndex)
-                            -> {
-                        // Skip restoring of non-selected NTP to match the real restoration logic.
-                        if (UrlUtilities.isCanonicalizedNTPUrl(url) && !isStandardActiveIndex) {
-                            return;
-                        }
-                        PseudoTab tab = PseudoTab.fromTabId(id);
-                        if (isStandardActiveIndex) {
-                            assert sActiveTabFromStateFile == null;
-                            sActiveTabFromStateFile = tab;
-                        }
-                        int rootId = tab.getRootId();
-                        if (TabUiFeatureUtilities.isTabGroupsAndroidEnabled(context)
-                                && seenRootId.contains(rootId)) {
-                            return;
-                        }
-                        sAllTabsFromStateFile.add(tab);
-                        seenRootId.add(rootId);
-                    },
-                    null);
-        } catch (IOException exception) {
-            Log.e(TAG, "Could not read state file.", exception);
-            return;
-        }
-
-        Log.d(TAG, "All pre-native tabs: " + sAllTabsFromStateFile);
-        Log.i(TAG, "readAllPseudoTabsFromStateFile() took %dms",
-                SystemClock.elapsedRealtime() - startMs);
+        TabPersistentStore.readSavedStateFile(
+                new DataInputStream(new ByteArrayInputStream(data)), callback, null);
     }
 }
@@ -20,18 +20,24 @@ import org.chromium.chrome.browser.tabmodel.TabModelObserver;
 import org.chromium.chrome.browser.tabmodel.TabModelSelector;
 import org.chromium.chrome.browser.tabmodel.TabModelSelectorObserver;
 import org.chromium.chrome.browser.tabmodel.TabModelSelectorTabObserver;
+import org.chromium.chrome.browser.tasks.pseudotab.TabAttributeStore.Attribute;
 import org.chromium.components.search_engines.TemplateUrlService;
 import org.chromium.content_public.browser.NavigationController;
 import org.chromium.content_public.browser.NavigationHandle;
 import org.chromium.content_public.browser.NavigationHistory;
 import org.chromium.url.GURL;
 
+import java.io.File;
+import java.util.Map;
+
 /**
  * Cache for attributes of {@link PseudoTab} to be available before native is ready.
  */
 public class TabAttributeCache {
+    // Attributes used to be stored in SharedPreferences under this name.
     private static final String PREFERENCES_NAME = "tab_attribute_cache";
-    private static SharedPreferences sPref;
+    private static final String STORE_FILE_NAME = "tab_attribute_cache.bin";
+    private static TabAttributeStore sStore;
     private final TabModelSelector mTabModelSelector;
     private final TabModelObserver mTabModelObserver;
     private final TabModelSelectorTabObserver mTabModelSelectorTabObserver;
@@ -43,12 +49,60 @@ public class TabAttributeCache {
 
     private static LastSearchTermProvider sLastSearchTermProviderForTests;
 
-    private static SharedPreferences getSharedPreferences() {
-        if (sPref == null) {
-            sPref = ContextUtils.getApplicationContext().getSharedPreferences(
-                    PREFERENCES_NAME, Context.MODE_PRIVATE);
+    private static synchronized TabAttributeStore getStore() {
+        if (sStore == null) {
+            Context context = ContextUtils.getApplicationContext();
+            sStore = new TabAttributeStore(new File(context.getFilesDir(), STORE_FILE_NAME));
+            if (!sStore.existedOnDisk()) migrateFromSharedPreferences(context, sStore);
         }
-        return sPref;
+        return sStore;
+    }
+
+    /**
+     * Moves the attributes stored in SharedPreferences by earlier versions into {@code store}, so
+     * that Instant Start has them before the tab state is initialized.
+     */
+    private static void migrateFromSharedPreferences(Context context, TabAttributeStore store) {
+        SharedPreferences pref =
+                context.getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE);
+        Map<String, ?> all = pref.getAll();
+        if (all.isEmpty()) return;
+        for (Map.Entry<String, ?> entry : all.entrySet()) {
+            // Keys are the tab ID followed by a suffix naming the attribute.
+            String key = entry.getKey();
+            Object value = entry.getValue();
+            int separator = key.indexOf('_');
+            if (separator <= 0) continue;
+            int id;
+            try {
+                id = Integer.parseInt(key.substring(0, separator));
+            } catch (NumberFormatException e) {
+                continue;
+            }
+            switch (key.substring(separator)) {
+                case "_title":
+                    store.putString(id, Attribute.TITLE, (String) value);
+                    break;
+                case "_gurl":
+                    store.putString(id, Attribute.URL, (String) value);
+                    break;
+                case "_rootID":
+                    store.putInt(id, Attribute.ROOT_ID, (Integer) value);
+                    break;
+                case "_timestampMillis":
+                    store.putLong(id, Attribute.TIMESTAMP_MILLIS, (Long) value);
+                    break;
+                case "_last_search_term":
+                    store.putString(id, Attribute.LAST_SEARCH_TERM, (String) value);
+                    break;
+                default:
+                    // Raw URLs from before GURL serialization can't be converted without native.
+                    break;
+            }
+        }
+        // Keep the preferences until the attributes are safely on disk; the migration runs again
+        // for as long as the store has no file.
+        if (store.flushSynchronously()) pref.edit().clear().apply();
     }
 
     /**
@@ -103,16 +157,7 @@ public class TabAttributeCache {
         mTabModelObserver = new TabModelObserver() {
             @Override
             public void tabClosureCommitted(Tab tab) {
-                int id = tab.getId();
-                getSharedPreferences()
-                        .edit()
-                        .remove(getDeprecatedUrlKey(id))
-                        .remove(getUrlKey(id))
-                        .remove(getTitleKey(id))
-                        .remove(getRootIdKey(id))
-                        .remove(getTimestampMillisKey(id))
-                        .remove(getLastSearchTermKey(id))
-                        .apply();
+                getStore().remove(tab.getId());
             }
         };
 
@@ -121,7 +166,7 @@ public class TabAttributeCache {
             public void onTabStateInitialized() {
                 // TODO(wychen): after this cache is enabled by default, we only need to populate it
                 //  once.
-                getSharedPreferences().edit().clear().apply();
+                getStore().clear();
                 TabModelFilter filter =
                         mTabModelSelector.getTabModelFilterProvider().getTabModelFilter(false);
                 for (int i = 0; i < filter.getCount(); i++) {
@@ -140,21 +185,18 @@ public class TabAttributeCache {
         mTabModelSelector.addObserver(mTabModelSelectorObserver);
     }
 
-    private static String getTitleKey(int id) {
-        return id + "_title";
-    }
-
     /**
      * Get the title of a {@link PseudoTab}.
      * @param id The ID of the {@link PseudoTab}.
      * @return The title
      */
     public static String getTitle(int id) {
-        return getSharedPreferences().getString(getTitleKey(id), "");
+        String title = getStore().getString(id, Attribute.TITLE);
+        return title == null ? "" : title;
     }
 
     private static void cacheTitle(int id, String title) {
-        getSharedPreferences().edit().putString(getTitleKey(id), title).apply();
+        getStore().putString(id, Attribute.TITLE, title);
     }
 
     /**
@@ -167,30 +209,21 @@ public class TabAttributeCache {
         cacheTitle(id, title);
     }
 
-    private static String getUrlKey(int id) {
-        return id + "_gurl";
-    }
-
-    // Legacy from when URL was serialized as raw string.
-    private static String getDeprecatedUrlKey(int id) {
-        return id + "_url";
-    }
-
     /**
      * Get the URL of a {@link PseudoTab}.
      * @param id The ID of the {@link PseudoTab}.
      * @return The URL
      */
     public static GURL getUrl(int id) {
-        String url = getSharedPreferences().getString(getUrlKey(id), "");
-        if (!url.isEmpty()) {
+        String url = getStore().getString(id, Attribute.URL);
+        if (url != null && !url.isEmpty()) {
             return GURL.deserialize(url);
         }
-        return new GURL(getSharedPreferences().getString(getDeprecatedUrlKey(id), ""));
+        return new GURL("");
     }
 
     private static void cacheUrl(int id, GURL url) {
-        getSharedPreferences().edit().putString(getUrlKey(id), url.serialize()).apply();
+        getStore().putString(id, Attribute.URL, url.serialize());
     }
 
     /**
@@ -202,21 +235,17 @@ public class TabAttributeCache {
         cacheUrl(id, url);
     }
 
-    private static String getRootIdKey(int id) {
-        return id + "_rootID";
-    }
-
     /**
      * Get the root ID of a {@link PseudoTab}.
      * @param id The ID of the {@link PseudoTab}.
      * @return The root ID
      */
     public static int getRootId(int id) {
-        return getSharedPreferences().getInt(getRootIdKey(id), Tab.INVALID_TAB_ID);
+        return getStore().getInt(id, Attribute.ROOT_ID, Tab.INVALID_TAB_ID);
     }
 
     private static void cacheRootId(int id, int rootId) {
-        getSharedPreferences().edit().putInt(getRootIdKey(id), rootId).apply();
+        getStore().putInt(id, Attribute.ROOT_ID, rootId);
     }
 
     /**
@@ -229,22 +258,18 @@ public class TabAttributeCache {
         cacheRootId(id, rootId);
     }
 
-    private static String getTimestampMillisKey(int id) {
-        return id + "_timestampMillis";
-    }
-
     /**
      * Get the timestamp of a {@link PseudoTab}.
      * @param id The ID of the {@link PseudoTab}.
      * @return The timestamp
      */
     public static long getTimestampMillis(int id) {
-        return getSharedPreferences().getLong(
-                getTimestampMillisKey(id), CriticalPersistedTabData.INVALID_TIMESTAMP);
+        return getStore().getLong(
+                id, Attribute.TIMESTAMP_MILLIS, CriticalPersistedTabData.INVALID_TIMESTAMP);
     }
 
     private static void cacheTimestampMillis(int id, long timestampMillis) {
-        getSharedPreferences().edit().putLong(getTimestampMillisKey(id), timestampMillis).apply();
+        getStore().putLong(id, Attribute.TIMESTAMP_MILLIS, timestampMillis);
     }
 
     /**
@@ -257,10 +282,6 @@ public class TabAttributeCache {
         cacheTimestampMillis(id, timestampMillis);
     }
 
-    private static String getLastSearchTermKey(int id) {
-        return id + "_last_search_term";
-    }
-
     /**
      * Get the last search term of the default search engine of a {@link PseudoTab} in the
      * navigation stack.
@@ -269,7 +290,7 @@ public class TabAttributeCache {
      * @return The last search term. Null if none.
      */
     public static @Nullable String getLastSearchTerm(int id) {
-        return getSharedPreferences().getString(getLastSearchTermKey(id), null);
+        return getStore().getString(id, Attribute.LAST_SEARCH_TERM);
     }
 
     private static void cacheLastSearchTerm(Tab tab) {
@@ -278,7 +299,7 @@ public class TabAttributeCache {
     }
 
     private static void cacheLastSearchTerm(int id, String searchTerm) {
-        getSharedPreferences().edit().putString(getLastSearchTermKey(id), searchTerm).apply();
+        getStore().putString(id, Attribute.LAST_SEARCH_TERM, searchTerm);
     }
 
     /**
@@ -361,7 +382,7 @@ public class TabAttributeCache {
      */
     @VisibleForTesting
     public static void clearAllForTesting() {
-        getSharedPreferences().edit().clear().apply();
+        getStore().clear();
     }
 
     /**
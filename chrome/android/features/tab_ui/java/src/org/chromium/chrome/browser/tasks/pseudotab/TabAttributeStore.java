@@ -0,0 +1,492 @@
+// Copyright 2025 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.chrome.browser.tasks.pseudotab;
+
+import android.util.AtomicFile;
+
+import androidx.annotation.IntDef;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import org.chromium.base.ApplicationState;
+import org.chromium.base.ApplicationStatus;
+import org.chromium.base.Log;
+import org.chromium.base.StreamUtil;
+import org.chromium.base.ThreadUtils;
+import org.chromium.base.task.PostTask;
+import org.chromium.base.task.SequencedTaskRunner;
+import org.chromium.base.task.TaskTraits;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import javax.annotation.concurrent.GuardedBy;
+
+/**
+ * Binary, journaled storage for the attributes kept by {@link TabAttributeCache}.
+ *
+ * All attributes are held in memory and read from a single file the first time the store is
+ * created, without going through SharedPreferences. Changes are applied to memory right away and
+ * remembered per tab and attribute, so an attribute that changes many times in a row, like the
+ * title of a loading page, is written once. Changed attributes are appended to the file as a batch
+ * on a background sequence, a short while after the first change or as soon as the app goes to
+ * the background. Once the appended records outgrow the live ones, the file is rewritten
+ * atomically with only the latest values.
+ *
+ * Every record starts with the length and CRC32 of its payload. A record cut short by a crash, or
+ * the zeros a file system may leave after the last complete write, fails that check and is
+ * dropped together with anything after it when the file is read. This class is thread-safe.
+ */
+class TabAttributeStore {
+    private static final String TAG = "TabAttributeStore";
+
+    /** The attributes that can be stored for a tab. */
+    @IntDef({Attribute.TITLE, Attribute.URL, Attribute.ROOT_ID, Attribute.TIMESTAMP_MILLIS,
+            Attribute.LAST_SEARCH_TERM})
+    @Retention(RetentionPolicy.SOURCE)
+    @interface Attribute {
+        // These values are persisted to disk. Entries should not be renumbered and numeric values
+        // should never be reused.
+        int TITLE = 0;
+        int URL = 1;
+        int ROOT_ID = 2;
+        int TIMESTAMP_MILLIS = 3;
+        int LAST_SEARCH_TERM = 4;
+        int NUM_ENTRIES = 5;
+    }
+
+    private static final int MAGIC = 0x54414331; // "TAC1"
+    private static final int VERSION = 2;
+
+    /** Payload length and checksum. */
+    private static final int RECORD_HEADER_BYTES = 8;
+
+    /** Tab ID and record type. */
+    private static final int MIN_PAYLOAD_BYTES = 5;
+
+    /** Record type that removes all attributes of a tab. */
+    private static final byte REMOVE_TAB = -1;
+
+    /** Set in a dirty mask when a tab was removed before its dirty attributes were set. */
+    private static final int REMOVED_BIT = 1 << Attribute.NUM_ENTRIES;
+
+    /** Delay between the first change of a batch and its flush. */
+    private static final long FLUSH_DELAY_MS = 1000;
+
+    /** Appended records may take this many bytes beyond the live ones before a compaction. */
+    private static final long MIN_JOURNAL_BYTES = 64 * 1024;
+
+    private final File mFile;
+    private final SequencedTaskRunner mTaskRunner =
+            PostTask.createSequencedTaskRunner(TaskTraits.USER_VISIBLE_MAY_BLOCK);
+    private final Object mLock = new Object();
+    // Held while the file is written, which happens on |mTaskRunner| or in flushSynchronously().
+    private final Object mWriteLock = new Object();
+    private final boolean mExistedOnDisk;
+
+    @GuardedBy("mLock")
+    private final Map<Integer, Object[]> mAttributes = new HashMap<>();
+    // Tab ID to a mask of attributes changed since the last flush, see REMOVED_BIT.
+    @GuardedBy("mLock")
+    private final Map<Integer, Integer> mDirtyTabs = new LinkedHashMap<>();
+    @GuardedBy("mLock")
+    private boolean mNeedsCompaction;
+    @GuardedBy("mLock")
+    private boolean mFlushScheduled;
+    @GuardedBy("mLock")
+    private long mFileBytes;
+    @GuardedBy("mLock")
+    private long mCompactedBytes;
+
+    /**
+     * Creates a store and reads its file, if any. Blocks on disk I/O.
+     * @param file The file holding the attributes.
+     */
+    TabAttributeStore(File file) {
+        mFile = file;
+        synchronized (mLock) {
+            mExistedOnDisk = read();
+        }
+        ThreadUtils.runOnUiThread(() -> {
+            ApplicationStatus.registerApplicationStateListener(newState -> {
+                if (newState == ApplicationState.HAS_STOPPED_ACTIVITIES
+                        || newState == ApplicationState.HAS_DESTROYED_ACTIVITIES) {
+                    flush();
+                }
+            });
+        });
+    }
+
+    /** @return Whether the file of this store existed when it was created. */
+    boolean existedOnDisk() {
+        return mExistedOnDisk;
+    }
+
+    @Nullable
+    String getString(int tabId, @Attribute int attribute) {
+        return (String) get(tabId, attribute);
+    }
+
+    int getInt(int tabId, @Attribute int attribute, int defaultValue) {
+        Integer value = (Integer) get(tabId, attribute);
+        return value == null ? defaultValue : value;
+    }
+
+    long getLong(int tabId, @Attribute int attribute, long defaultValue) {
+        Long value = (Long) get(tabId, attribute);
+        return value == null ? defaultValue : value;
+    }
+
+    /** Sets a string attribute; null unsets it. */
+    void putString(int tabId, @Attribute int attribute, @Nullable String value) {
+        assert getType(attribute) == String.class;
+        put(tabId, attribute, value);
+    }
+
+    void putInt(int tabId, @Attribute int attribute, int value) {
+        assert getType(attribute) == Integer.class;
+        put(tabId, attribute, value);
+    }
+
+    void putLong(int tabId, @Attribute int attribute, long value) {
+        assert getType(attribute) == Long.class;
+        put(tabId, attribute, value);
+    }
+
+    /** Removes all attributes of a tab. */
+    void remove(int tabId) {
+        synchronized (mLock) {
+            if (mAttributes.remove(tabId) == null && !mDirtyTabs.containsKey(tabId)) return;
+            mDirtyTabs.put(tabId, REMOVED_BIT);
+            scheduleFlush();
+        }
+    }
+
+    /** Removes all attributes of all tabs. */
+    void clear() {
+        synchronized (mLock) {
+            mAttributes.clear();
+            mDirtyTabs.clear();
+            mNeedsCompaction = true;
+            scheduleFlush();
+        }
+    }
+
+    /** Writes all changes without waiting for the flush delay. */
+    void flush() {
+        synchronized (mLock) {
+            if (mDirtyTabs.isEmpty() && !mNeedsCompaction) return;
+        }
+        mTaskRunner.postTask(this::writeChanges);
+    }
+
+    /**
+     * Writes all changes on the calling thread. Blocks on disk I/O.
+     * @return Whether the file matches memory afterwards.
+     */
+    boolean flushSynchronously() {
+        return writeChanges();
+    }
+
+    private @Nullable Object get(int tabId, @Attribute int attribute) {
+        synchronized (mLock) {
+            Object[] values = mAttributes.get(tabId);
+            return values == null ? null : values[attribute];
+        }
+    }
+
+    private void put(int tabId, @Attribute int attribute, @Nullable Object value) {
+        synchronized (mLock) {
+            Object[] values = mAttributes.get(tabId);
+            if (values == null) {
+                if (value == null) return;
+                values = new Object[Attribute.NUM_ENTRIES];
+                mAttributes.put(tabId, values);
+            } else if (value == null ? values[attribute] == null
+                                     : value.equals(values[attribute])) {
+                return;
+            }
+            values[attribute] = value;
+            Integer mask = mDirtyTabs.get(tabId);
+            mDirtyTabs.put(tabId, (mask == null ? 0 : mask) | (1 << attribute));
+            scheduleFlush();
+        }
+    }
+
+    @GuardedBy("mLock")
+    private void scheduleFlush() {
+        if (mFlushScheduled) return;
+        mFlushScheduled = true;
+        mTaskRunner.postDelayedTask(this::writeChanges, FLUSH_DELAY_MS);
+    }
+
+    /** @return Whether the file matches memory afterwards. */
+    private boolean writeChanges() {
+        synchronized (mWriteLock) {
+            byte[] data;
+            boolean compact;
+            synchronized (mLock) {
+                // Changes made from now on start a new batch with its own delayed flush.
+                mFlushScheduled = false;
+                if (mDirtyTabs.isEmpty() && !mNeedsCompaction) return true;
+                data = mNeedsCompaction || mFileBytes == 0 ? null : encodeDirtyTabs();
+                compact = data == null
+                        || mFileBytes + data.length > 2 * mCompactedBytes + MIN_JOURNAL_BYTES;
+                if (compact) data = encodeAll();
+                mDirtyTabs.clear();
+                mNeedsCompaction = false;
+            }
+            boolean written = compact ? writeAtomically(data) : append(data);
+            synchronized (mLock) {
+                if (!written) {
+                    // The file no longer matches memory; rewrite it with the next flush.
+                    mNeedsCompaction = true;
+                } else if (compact) {
+                    mFileBytes = data.length;
+                    mCompactedBytes = data.length;
+                } else {
+                    mFileBytes += data.length;
+                }
+            }
+            return written;
+        }
+    }
+
+    private boolean writeAtomically(byte[] data) {
+        AtomicFile file = new AtomicFile(mFile);
+        FileOutputStream stream = null;
+        try {
+            stream = file.startWrite();
+            stream.write(data);
+            file.finishWrite(stream);
+            return true;
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to write %s", mFile, e);
+            if (stream != null) file.failWrite(stream);
+            return false;
+        }
+    }
+
+    private boolean append(byte[] data) {
+        FileOutputStream stream = null;
+        try {
+            stream = new FileOutputStream(mFile, true);
+            stream.write(data);
+            return true;
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to append to %s", mFile, e);
+            return false;
+        } finally {
+            StreamUtil.closeQuietly(stream);
+        }
+    }
+
+    /** @return Whether the file exists. */
+    @GuardedBy("mLock")
+    private boolean read() {
+        // Reads through AtomicFile, which recovers from a compaction that was cut short.
+        AtomicFile file = new AtomicFile(mFile);
+        DataInputStream stream = null;
+        long validBytes = 0;
+        try {
+            FileInputStream fileStream = file.openRead();
+            stream = new DataInputStream(new BufferedInputStream(fileStream));
+            if (stream.readInt() != MAGIC || stream.readInt() != VERSION) {
+                Log.w(TAG, "Discarding %s of an unknown format.", mFile);
+                mNeedsCompaction = true;
+                return true;
+            }
+            validBytes = 8;
+            long length = fileStream.getChannel().size();
+            while (validBytes < length) {
+                int size = readRecord(stream, length - validBytes);
+                if (size < 0) {
+                    // The tail is not a complete record. Drop it along with anything after it.
+                    mNeedsCompaction = true;
+                    break;
+                }
+                validBytes += size;
+            }
+        } catch (FileNotFoundException e) {
+            return false;
+        } catch (IOException | RuntimeException e) {
+            Log.e(TAG, "Failed to read %s", mFile, e);
+            mNeedsCompaction = true;
+        } finally {
+            StreamUtil.closeQuietly(stream);
+        }
+        mFileBytes = validBytes;
+        mCompactedBytes = validBytes;
+        return true;
+    }
+
+    /**
+     * Reads a record into memory.
+     * @param remainingBytes How many bytes of the file are left, starting with the record.
+     * @return The size of the record in bytes, or -1 if what is left is not a complete record.
+     */
+    @GuardedBy("mLock")
+    private int readRecord(DataInputStream stream, long remainingBytes) throws IOException {
+        if (remainingBytes < RECORD_HEADER_BYTES + MIN_PAYLOAD_BYTES) return -1;
+        int length = stream.readInt();
+        int checksum = stream.readInt();
+        if (length < MIN_PAYLOAD_BYTES || length > remainingBytes - RECORD_HEADER_BYTES) return -1;
+        byte[] payload = new byte[length];
+        stream.readFully(payload);
+        if (checksum != checksum(payload)) return -1;
+
+        DataInputStream payloadStream =
+                new DataInputStream(new ByteArrayInputStream(payload, 0, length));
+        int tabId = payloadStream.readInt();
+        byte type = payloadStream.readByte();
+        if (type == REMOVE_TAB) {
+            mAttributes.remove(tabId);
+            return RECORD_HEADER_BYTES + length;
+        }
+        if (type < 0 || type >= Attribute.NUM_ENTRIES) {
+            throw new IOException("Unknown record type " + type);
+        }
+        Object value;
+        Class<?> valueType = getType(type);
+        if (valueType == Integer.class) {
+            value = payloadStream.readInt();
+        } else if (valueType == Long.class) {
+            value = payloadStream.readLong();
+        } else {
+            int stringLength = payloadStream.readInt();
+            if (stringLength < 0) {
+                value = null;
+            } else {
+                if (stringLength > payloadStream.available()) {
+                    throw new IOException("Invalid string length " + stringLength);
+                }
+                byte[] bytes = new byte[stringLength];
+                payloadStream.readFully(bytes);
+                value = new String(bytes, StandardCharsets.UTF_8);
+            }
+        }
+        Object[] values = mAttributes.get(tabId);
+        if (values == null) {
+            values = new Object[Attribute.NUM_ENTRIES];
+            mAttributes.put(tabId, values);
+        }
+        values[type] = value;
+        return RECORD_HEADER_BYTES + length;
+    }
+
+    @GuardedBy("mLock")
+    private byte[] encodeDirtyTabs() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream stream = new DataOutputStream(bytes);
+        try {
+            for (Map.Entry<Integer, Integer> dirtyTab : mDirtyTabs.entrySet()) {
+                int tabId = dirtyTab.getKey();
+                int mask = dirtyTab.getValue();
+                if ((mask & REMOVED_BIT) != 0) writeRecord(stream, tabId, REMOVE_TAB, null);
+                Object[] values = mAttributes.get(tabId);
+                if (values == null) continue;
+                for (int attribute = 0; attribute < Attribute.NUM_ENTRIES; attribute++) {
+                    if ((mask & (1 << attribute)) != 0) {
+                        writeRecord(stream, tabId, attribute, values[attribute]);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    @GuardedBy("mLock")
+    private byte[] encodeAll() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream stream = new DataOutputStream(bytes);
+        try {
+            stream.writeInt(MAGIC);
+            stream.writeInt(VERSION);
+            for (Map.Entry<Integer, Object[]> tab : mAttributes.entrySet()) {
+                Object[] values = tab.getValue();
+                for (int attribute = 0; attribute < Attribute.NUM_ENTRIES; attribute++) {
+                    if (values[attribute] != null) {
+                        writeRecord(stream, tab.getKey(), attribute, values[attribute]);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Writes a record: the length and checksum of the payload, then the payload itself.
+     * @param type An {@link Attribute} or {@link #REMOVE_TAB}.
+     */
+    private static void writeRecord(DataOutputStream stream, int tabId, int type,
+            @Nullable Object value) throws IOException {
+        ByteArrayOutputStream payloadBytes = new ByteArrayOutputStream();
+        DataOutputStream payload = new DataOutputStream(payloadBytes);
+        payload.writeInt(tabId);
+        payload.writeByte(type);
+        if (type != REMOVE_TAB) {
+            Class<?> valueType = getType(type);
+            if (valueType == Integer.class) {
+                payload.writeInt(value == null ? 0 : (Integer) value);
+            } else if (valueType == Long.class) {
+                payload.writeLong(value == null ? 0 : (Long) value);
+            } else if (value == null) {
+                payload.writeInt(-1);
+            } else {
+                byte[] utf8 = ((String) value).getBytes(StandardCharsets.UTF_8);
+                payload.writeInt(utf8.length);
+                payload.write(utf8);
+            }
+        }
+        byte[] bytes = payloadBytes.toByteArray();
+        stream.writeInt(bytes.length);
+        stream.writeInt(checksum(bytes));
+        stream.write(bytes);
+    }
+
+    private static int checksum(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+        return (int) crc.getValue();
+    }
+
+    private static Class<?> getType(@Attribute int attribute) {
+        switch (attribute) {
+            case Attribute.ROOT_ID:
+                return Integer.class;
+            case Attribute.TIMESTAMP_MILLIS:
+                return Long.class;
+            default:
+                return String.class;
+        }
+    }
+
+    /** @return The size of the file as of the last flush. */
+    @VisibleForTesting
+    long getFileBytesForTesting() {
+        synchronized (mLock) {
+            return mFileBytes;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+// Copyright 2025 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.chrome.browser.tasks.pseudotab;
+
+import androidx.annotation.Nullable;
+
+import org.chromium.chrome.browser.tabmodel.TabPersistentStore;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads the tab list out of a tab state file written by {@link TabPersistentStore}, in place.
+ *
+ * The file is memory mapped rather than copied onto the heap. Opening a reader only checks the
+ * layout of the file and notes where each tab starts; tab IDs are read from the mapping when
+ * asked for, and URLs are only decoded when asked for.
+ *
+ * Only the current version of the file is understood. {@link #open} returns null for other
+ * versions, which {@link TabPersistentStore#readSavedStateFile} can still read.
+ */
+class TabStateFileReader {
+    // Must match TabPersistentStore#SAVED_STATE_VERSION.
+    private static final int SAVED_STATE_VERSION = 5;
+
+    /** Version, tab count, incognito tab count and the two active indexes. */
+    private static final int HEADER_BYTES = 5 * 4;
+
+    private final ByteBuffer mBuffer;
+    private final int mIncognitoCount;
+    private final int mIncognitoActiveIndex;
+    private final int mStandardActiveIndex;
+    // Where each tab starts: its ID, followed by its URL as written by DataOutput#writeUTF().
+    private final int[] mTabOffsets;
+
+    /**
+     * @param file The tab state file.
+     * @return A reader for the file, or null if the file is of another version.
+     * @throws IOException If the file can't be mapped, or is not a valid tab state file.
+     */
+    static @Nullable TabStateFileReader open(File file) throws IOException {
+        ByteBuffer buffer;
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+                FileChannel channel = randomAccessFile.getChannel()) {
+            // The mapping stays valid after the channel is closed.
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.remaining() < HEADER_BYTES) throw new IOException("Truncated header");
+        if (buffer.getInt(0) != SAVED_STATE_VERSION) return null;
+        return new TabStateFileReader(buffer);
+    }
+
+    private TabStateFileReader(ByteBuffer buffer) throws IOException {
+        mBuffer = buffer;
+        int count = buffer.getInt(4);
+        mIncognitoCount = buffer.getInt(8);
+        mIncognitoActiveIndex = buffer.getInt(12);
+        mStandardActiveIndex = buffer.getInt(16);
+        if (count < 0 || mIncognitoActiveIndex >= count || mStandardActiveIndex >= count) {
+            throw new IOException("Invalid tab count or active index");
+        }
+        // Every tab takes at least 6 bytes; don't trust a count the file can't hold.
+        if (count > (buffer.limit() - HEADER_BYTES) / 6) throw new IOException("Truncated tabs");
+        mTabOffsets = new int[count];
+        int offset = HEADER_BYTES;
+        for (int i = 0; i < count; i++) {
+            if (offset + 6 > buffer.limit()) throw new IOException("Truncated tab " + i);
+            mTabOffsets[i] = offset;
+            offset += 6 + getUrlLength(offset);
+        }
+        if (offset > buffer.limit()) throw new IOException("Truncated URL");
+    }
+
+    /** @return The number of tabs, regular and incognito. */
+    int getCount() {
+        return mTabOffsets.length;
+    }
+
+    /** @return The index of the active regular tab, or a negative value if there is none. */
+    int getStandardActiveIndex() {
+        return mStandardActiveIndex;
+    }
+
+    /** @return The index of the active incognito tab, or a negative value if there is none. */
+    int getIncognitoActiveIndex() {
+        return mIncognitoActiveIndex;
+    }
+
+    /**
+     * @return Whether the tab at {@code index} is incognito, or null if the file doesn't say.
+     *         Incognito tabs come first.
+     */
+    @Nullable
+    Boolean isIncognito(int index) {
+        return mIncognitoCount < 0 ? null : index < mIncognitoCount;
+    }
+
+    /** @return The ID of the tab at {@code index}. */
+    int getTabId(int index) {
+        return mBuffer.getInt(mTabOffsets[index]);
+    }
+
+    /** @return The URL of the tab at {@code index}, decoded from the mapping. */
+    String getUrl(int index) {
+        int offset = mTabOffsets[index] + 4;
+        int length = getUrlLength(mTabOffsets[index]);
+        // URLs are nearly always ASCII, which modified UTF-8 stores as is.
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            byte b = mBuffer.get(offset + 2 + i);
+            if (b < 0) return decodeModifiedUtf8(offset, length);
+            chars[i] = (char) b;
+        }
+        return new String(chars);
+    }
+
+    private int getUrlLength(int tabOffset) {
+        return mBuffer.getShort(tabOffset + 4) & 0xFFFF;
+    }
+
+    private String decodeModifiedUtf8(int offset, int length) {
+        byte[] bytes = new byte[length + 2];
+        for (int i = 0; i < bytes.length; i++) bytes[i] = mBuffer.get(offset + i);
+        try {
+            return DataInputStream.readUTF(new DataInputStream(new ByteArrayInputStream(bytes)));
+        } catch (IOException e) {
+            // Malformed input; the bytes were bounds-checked when the reader was opened.
+            return "";
+        }
+    }
+}
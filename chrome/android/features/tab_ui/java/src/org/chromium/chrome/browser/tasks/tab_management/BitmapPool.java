@@ -0,0 +1,101 @@
+// Copyright 2025 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.chrome.browser.tasks.tab_management;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+
+import androidx.annotation.VisibleForTesting;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A pool of mutable bitmaps keyed by size and {@link Bitmap.Config}, so that bitmaps that are
+ * redrawn often, such as tab group thumbnails, can reuse the memory of ones no longer shown
+ * instead of churning the heap.
+ *
+ * The pool holds at most a fixed number of bytes; bitmaps released beyond that are left to the
+ * garbage collector. This class is thread-safe.
+ */
+class BitmapPool {
+    private static class Key {
+        final int mWidth;
+        final int mHeight;
+        final Bitmap.Config mConfig;
+
+        Key(int width, int height, Bitmap.Config config) {
+            mWidth = width;
+            mHeight = height;
+            mConfig = config;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key)) return false;
+            Key key = (Key) other;
+            return mWidth == key.mWidth && mHeight == key.mHeight && mConfig == key.mConfig;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(mWidth, mHeight, mConfig);
+        }
+    }
+
+    private final long mMaxBytes;
+    private final Map<Key, ArrayDeque<Bitmap>> mBitmaps = new HashMap<>();
+    private long mBytes;
+
+    /** @param maxBytes How many bytes of bitmaps the pool may keep for reuse. */
+    BitmapPool(long maxBytes) {
+        mMaxBytes = maxBytes;
+    }
+
+    /**
+     * @return A mutable bitmap of the given size and config, cleared to transparent. It is reused
+     *         from the pool if possible, and newly allocated otherwise.
+     */
+    synchronized Bitmap acquire(int width, int height, Bitmap.Config config) {
+        ArrayDeque<Bitmap> bitmaps = mBitmaps.get(new Key(width, height, config));
+        Bitmap bitmap = bitmaps == null ? null : bitmaps.poll();
+        if (bitmap == null) return Bitmap.createBitmap(width, height, config);
+        mBytes -= bitmap.getAllocationByteCount();
+        bitmap.eraseColor(Color.TRANSPARENT);
+        return bitmap;
+    }
+
+    /**
+     * Makes {@code bitmap} available for reuse. It must not be used by the caller, or drawn by
+     * any view, afterwards.
+     */
+    synchronized void release(Bitmap bitmap) {
+        if (bitmap.isRecycled() || !bitmap.isMutable()) return;
+        int bytes = bitmap.getAllocationByteCount();
+        if (mBytes + bytes > mMaxBytes) return;
+        Key key = new Key(bitmap.getWidth(), bitmap.getHeight(), bitmap.getConfig());
+        ArrayDeque<Bitmap> bitmaps = mBitmaps.get(key);
+        if (bitmaps == null) {
+            bitmaps = new ArrayDeque<>();
+            mBitmaps.put(key, bitmaps);
+        }
+        bitmaps.add(bitmap);
+        mBytes += bytes;
+    }
+
+    /** Drops all pooled bitmaps. */
+    synchronized void clear() {
+        mBitmaps.clear();
+        mBytes = 0;
+    }
+
+    /** @return How many bytes of bitmaps are waiting to be reused. */
+    @VisibleForTesting
+    synchronized long getSizeBytesForTesting() {
+        return mBytes;
+    }
+}
@@ -0,0 +1,113 @@
+// Copyright 2025 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.chrome.browser.tasks.tab_management;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+
+import androidx.annotation.Nullable;
+
+/**
+ * A thumbnail that is drawn on a background sequence and shown by a view on the UI thread, with
+ * its bitmaps taken from a {@link BitmapPool}.
+ *
+ * A bitmap is never drawn again once it has been delivered: drawing after a delivery goes to a
+ * pooled copy, which is delivered in turn. A delivered bitmap only goes back to the pool once the
+ * view has stopped showing it. If that was the latest bitmap delivered, the thumbnail is finished
+ * and its remaining drawing is dropped.
+ *
+ * Methods are documented with the thread they must be called on; the caller passes the results
+ * between the two.
+ */
+class ComposedThumbnail {
+    private final BitmapPool mBitmapPool;
+    private final int mWidth;
+    private final int mHeight;
+    private final Bitmap.Config mConfig;
+
+    // Only accessed on the composition sequence.
+    private Bitmap mBitmap;
+    private boolean mDelivered;
+    private boolean mReleased;
+
+    // Only accessed on the UI thread.
+    private Bitmap mLastShownBitmap;
+    private boolean mFinished;
+
+    ComposedThumbnail(BitmapPool bitmapPool, int width, int height, Bitmap.Config config) {
+        mBitmapPool = bitmapPool;
+        mWidth = width;
+        mHeight = height;
+        mConfig = config;
+    }
+
+    /**
+     * Called on the composition sequence.
+     * @return The bitmap to draw into, or null if the thumbnail is finished. If the current bitmap
+     *         was delivered, a copy of it from the pool.
+     */
+    @Nullable
+    Bitmap getBitmapForDrawing() {
+        if (mReleased) return null;
+        if (mBitmap == null) {
+            mBitmap = mBitmapPool.acquire(mWidth, mHeight, mConfig);
+        } else if (mDelivered) {
+            Bitmap copy = mBitmapPool.acquire(mWidth, mHeight, mConfig);
+            new Canvas(copy).drawBitmap(mBitmap, 0, 0, null);
+            mBitmap = copy;
+            mDelivered = false;
+        }
+        return mBitmap;
+    }
+
+    /**
+     * Called on the composition sequence.
+     * @return The bitmap drawn so far, which must be passed to {@link #show} on the UI thread, or
+     *         null if the thumbnail is finished or nothing was drawn since the last delivery.
+     */
+    @Nullable
+    Bitmap deliver() {
+        if (mReleased || mBitmap == null || mDelivered) return null;
+        mDelivered = true;
+        return mBitmap;
+    }
+
+    /**
+     * Called on the UI thread, before a delivered bitmap is handed to the view.
+     * @return Whether the bitmap may be shown. If not, the thumbnail is finished and the bitmap
+     *         must be passed to {@link #recycle}.
+     */
+    boolean show(Bitmap bitmap) {
+        if (mFinished) return false;
+        mLastShownBitmap = bitmap;
+        return true;
+    }
+
+    /**
+     * Called on the UI thread once the view stopped showing {@code bitmap}.
+     * @return Whether this finished the thumbnail. To be passed to {@link #recycle} along with the
+     *         bitmap.
+     */
+    boolean hide(Bitmap bitmap) {
+        if (bitmap != mLastShownBitmap) return false;
+        mLastShownBitmap = null;
+        mFinished = true;
+        return true;
+    }
+
+    /**
+     * Called on the composition sequence to return a bitmap that is no longer shown to the pool.
+     * @param finished Whether the thumbnail is finished, as returned by {@link #hide}.
+     */
+    void recycle(Bitmap bitmap, boolean finished) {
+        mBitmapPool.release(bitmap);
+        if (!finished) return;
+        mReleased = true;
+        // A delivered bitmap that isn't the one recycled is still on its way to the view, where
+        // show() turns it away.
+        if (mBitmap != null && mBitmap != bitmap && !mDelivered) mBitmapPool.release(mBitmap);
+        mBitmap = null;
+    }
+}
@@ -18,13 +18,20 @@ import android.graphics.drawable.Drawable;
 import android.util.Size;
 
 import org.chromium.base.Callback;
+import org.chromium.base.MemoryPressureListener;
+import org.chromium.base.memory.MemoryPressureCallback;
 import org.chromium.base.task.PostTask;
+import org.chromium.base.task.SequencedTaskRunner;
+import org.chromium.base.task.TaskTraits;
 import org.chromium.chrome.browser.compositor.layouts.content.TabContentManager;
 import org.chromium.chrome.browser.profiles.Profile;
+import org.chromium.chrome.browser.tab.Tab;
 import org.chromium.chrome.browser.tab.TabUtils;
 import org.chromium.chrome.browser.tabmodel.TabModel;
 import org.chromium.chrome.browser.tabmodel.TabModelSelector;
 import org.chromium.chrome.browser.tabmodel.TabModelSelectorObserver;
+import org.chromium.chrome.browser.tabmodel.TabModelSelectorTabModelObserver;
+import org.chromium.chrome.browser.tabmodel.TabModelSelectorTabObserver;
 import org.chromium.chrome.browser.tasks.pseudotab.PseudoTab;
 import org.chromium.chrome.tab_ui.R;
 import org.chromium.components.browser_ui.styles.SemanticColorUtils;
@@ -32,24 +39,47 @@ import org.chromium.content_public.browser.UiThreadTaskTraits;
 import org.chromium.url.GURL;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * A {@link TabListMediator.ThumbnailProvider} that will create a single Bitmap Thumbnail for all
  * the related tabs for the given tabs.
+ *
+ * Group thumbnails are composed on a background sequence, into bitmaps taken from a pool. A
+ * bitmap goes back to the pool once the view showing it reports it hidden, see
+ * {@link ComposedThumbnail}.
  */
 public class MultiThumbnailCardProvider implements TabListMediator.ThumbnailProvider {
-    private final TabContentManager mTabContentManager;
+    /** Roughly the group thumbnails of a screenful of cards. */
+    private static final long BITMAP_POOL_MAX_BYTES = 8 * 1024 * 1024;
+
+    private final TabThumbnailCache mThumbnailCache;
+    private final BitmapPool mBitmapPool = new BitmapPool(BITMAP_POOL_MAX_BYTES);
+    private final MemoryPressureCallback mMemoryPressureCallback = pressure -> mBitmapPool.clear();
+    private final SequencedTaskRunner mCompositionTaskRunner =
+            PostTask.createSequencedTaskRunner(TaskTraits.USER_VISIBLE);
+    // Only used on |mCompositionTaskRunner|, pointed at the bitmap of the fetcher drawing.
+    private final Canvas mCompositionCanvas = new Canvas();
+    // The thumbnail each delivered bitmap belongs to, until the view showing it hides it.
+    private final Map<Bitmap, ComposedThumbnail> mShownThumbnails = new HashMap<>();
     private final TabModelSelector mTabModelSelector;
     private final TabModelSelectorObserver mTabModelSelectorObserver;
+    private final TabModelSelectorTabModelObserver mTabModelObserver;
+    private final TabModelSelectorTabObserver mTabObserver;
 
     private final float mRadius;
     private final float mFaviconFrameCornerRadius;
     private final Paint mEmptyThumbnailPaint;
     private final Paint mThumbnailFramePaint;
     private final Paint mThumbnailBasePaint;
+    private final PorterDuffXfermode mSrcOverXfermode =
+            new PorterDuffXfermode(PorterDuff.Mode.SRC_OVER);
+    private final PorterDuffXfermode mSrcInXfermode =
+            new PorterDuffXfermode(PorterDuff.Mode.SRC_IN);
     private final Paint mTextPaint;
     private final Paint mFaviconBackgroundPaint;
     private final Paint mSelectedEmptyThumbnailPaint;
@@ -67,8 +97,7 @@ public class MultiThumbnailCardProvider implements TabListMediator.ThumbnailProv
         private final List<PseudoTab> mTabs = new ArrayList<>(4);
         private final AtomicInteger mThumbnailsToFetch = new AtomicInteger();
 
-        private Canvas mCanvas;
-        private Bitmap mMultiThumbnailBitmap;
+        private ComposedThumbnail mThumbnail;
         private String mText;
 
         private final List<Rect> mFaviconRects = new ArrayList<>(4);
@@ -156,11 +185,22 @@ public class MultiThumbnailCardProvider implements TabListMediator.ThumbnailProv
         }
 
         private void initializeAndStartFetching(PseudoTab tab) {
-            // Initialize mMultiThumbnailBitmap.
-            mMultiThumbnailBitmap =
-                    Bitmap.createBitmap(mThumbnailWidth, mThumbnailHeight, Bitmap.Config.ARGB_8888);
-            mCanvas = new Canvas(mMultiThumbnailBitmap);
-            mCanvas.drawColor(Color.TRANSPARENT);
+            // Initialize mThumbnail.
+            final Bitmap.Config config =
+                    TabUiFeatureUtilities.LOW_PRECISION_GROUP_THUMBNAILS.getValue()
+                    ? Bitmap.Config.RGB_565
+                    : Bitmap.Config.ARGB_8888;
+            // Without an alpha channel, the space around the rounded mini thumbnails cannot be
+            // transparent, so fill it with the color of the card instead.
+            final int backgroundColor = config == Bitmap.Config.ARGB_8888
+                    ? Color.TRANSPARENT
+                    : TabUiThemeProvider.getCardViewBackgroundColor(
+                            mContext, tab.isIncognito(), mIsTabSelected);
+            mThumbnail =
+                    new ComposedThumbnail(mBitmapPool, mThumbnailWidth, mThumbnailHeight, config);
+            if (backgroundColor != Color.TRANSPARENT) {
+                compose(() -> mCompositionCanvas.drawColor(backgroundColor, PorterDuff.Mode.SRC));
+            }
 
             // Initialize Tabs.
             List<PseudoTab> relatedTabList =
@@ -194,44 +234,62 @@ public class MultiThumbnailCardProvider implements TabListMediator.ThumbnailProv
                     final boolean isIncognito = mTabs.get(i).isIncognito();
                     final Size tabThumbnailSize = new Size((int) mThumbnailRects.get(i).width(),
                             (int) mThumbnailRects.get(i).height());
-                    // getTabThumbnailWithCallback() might call the callback up to twice,
-                    // so use |lastFavicon| to avoid fetching the favicon the second time.
-                    // Fetching the favicon after getting the live thumbnail would lead to
-                    // visible flicker.
+                    // getTabThumbnailWithCallback() might call the callback up to twice, e.g.
+                    // with a downsampled thumbnail from the cache and then the full one, so use
+                    // |lastFavicon| to avoid fetching the favicon the second time. Fetching the
+                    // favicon after getting the live thumbnail would lead to visible flicker.
                     final AtomicReference<Drawable> lastFavicon = new AtomicReference<>();
-                    mTabContentManager.getTabThumbnailWithCallback(
+                    // Only the first tab can be captured again, but the cached thumbnails of the
+                    // others may be older than the ones stored by now.
+                    if (mForceUpdate && i != 0) mThumbnailCache.invalidate(mTabs.get(i).getId());
+                    mThumbnailCache.getTabThumbnailWithCallback(
                             mTabs.get(i).getId(), tabThumbnailSize, thumbnail -> {
-                                drawThumbnailBitmapOnCanvasWithFrame(thumbnail, index);
+                                compose(() -> {
+                                    drawThumbnailBitmapOnCanvasWithFrame(thumbnail, index);
+                                });
                                 if (lastFavicon.get() != null) {
-                                    drawFaviconThenMaybeSendBack(lastFavicon.get(), index);
+                                    final Drawable favicon = lastFavicon.get();
+                                    compose(() -> redrawFaviconThenMaybeResend(favicon, index));
                                 } else {
                                     mTabListFaviconProvider.getFaviconDrawableForUrlAsync(
                                             url, isIncognito, (Drawable favicon) -> {
-                                                lastFavicon.set(favicon);
-                                                drawFaviconThenMaybeSendBack(favicon, index);
+                                                onFaviconFetched(favicon, index, lastFavicon);
                                             });
                                 }
                             }, mForceUpdate && i == 0, mWriteToCache && i == 0);
                 } else {
-                    drawThumbnailBitmapOnCanvasWithFrame(null, i);
-                    if (mText != null && i == 3) {
-                        // Draw the text exactly centered on the thumbnail rect.
-                        Paint textPaint = mIsTabSelected ? mSelectedTextPaint : mTextPaint;
-                        mCanvas.drawText(mText,
-                                (mThumbnailRects.get(i).left + mThumbnailRects.get(i).right) / 2,
-                                (mThumbnailRects.get(i).top + mThumbnailRects.get(i).bottom) / 2
-                                        - ((mTextPaint.descent() + mTextPaint.ascent()) / 2),
-                                textPaint);
-                    }
+                    final int index = i;
+                    compose(() -> {
+                        drawThumbnailBitmapOnCanvasWithFrame(null, index);
+                        if (mText != null && index == 3) drawText(index);
+                    });
                 }
             }
         }
 
+        private void onFaviconFetched(
+                Drawable favicon, int index, AtomicReference<Drawable> lastFavicon) {
+            final Drawable copy = copyForComposition(favicon);
+            lastFavicon.set(copy);
+            compose(() -> drawFaviconThenMaybeSendBack(copy, index));
+        }
+
+        /** Runs {@code drawing} on the composition sequence, unless the thumbnail is finished. */
+        private void compose(Runnable drawing) {
+            mCompositionTaskRunner.postTask(() -> {
+                Bitmap bitmap = mThumbnail.getBitmapForDrawing();
+                if (bitmap == null) return;
+                mCompositionCanvas.setBitmap(bitmap);
+                drawing.run();
+                mCompositionCanvas.setBitmap(null);
+            });
+        }
+
         private void drawThumbnailBitmapOnCanvasWithFrame(Bitmap thumbnail, int index) {
             if (thumbnail == null) {
                 Paint emptyThumbnailPaint =
                         mIsTabSelected ? mSelectedEmptyThumbnailPaint : mEmptyThumbnailPaint;
-                mCanvas.drawRoundRect(
+                mCompositionCanvas.drawRoundRect(
                         mThumbnailRects.get(index), mRadius, mRadius, emptyThumbnailPaint);
                 return;
             }
@@ -239,33 +297,58 @@ public class MultiThumbnailCardProvider implements TabListMediator.ThumbnailProv
             // Draw the base paint first and set the base for thumbnail to draw. Setting the xfer
             // mode as SRC_OVER so the thumbnail can be drawn on top of this paint. See
             // https://crbug.com/1227619.
-            mThumbnailBasePaint.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.SRC_OVER));
-            mCanvas.drawRoundRect(
+            mThumbnailBasePaint.setXfermode(mSrcOverXfermode);
+            mCompositionCanvas.drawRoundRect(
                     mThumbnailRects.get(index), mRadius, mRadius, mThumbnailBasePaint);
 
-            thumbnail =
-                    Bitmap.createScaledBitmap(thumbnail, (int) mThumbnailRects.get(index).width(),
-                            (int) mThumbnailRects.get(index).height(), true);
-            mThumbnailBasePaint.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.SRC_IN));
-            mCanvas.drawBitmap(thumbnail,
-                    new Rect(0, 0, thumbnail.getWidth(), thumbnail.getHeight()),
-                    mThumbnailRects.get(index), mThumbnailBasePaint);
-            thumbnail.recycle();
+            // The canvas scales the thumbnail into place, so no scaled copy is allocated.
+            mThumbnailBasePaint.setXfermode(mSrcInXfermode);
+            mCompositionCanvas.drawBitmap(
+                    thumbnail, null, mThumbnailRects.get(index), mThumbnailBasePaint);
+        }
+
+        private void drawText(int index) {
+            // Draw the text exactly centered on the thumbnail rect.
+            Paint textPaint = mIsTabSelected ? mSelectedTextPaint : mTextPaint;
+            mCompositionCanvas.drawText(mText,
+                    (mThumbnailRects.get(index).left + mThumbnailRects.get(index).right) / 2,
+                    (mThumbnailRects.get(index).top + mThumbnailRects.get(index).bottom) / 2
+                            - ((mTextPaint.descent() + mTextPaint.ascent()) / 2),
+                    textPaint);
         }
 
         private void drawFaviconDrawableOnCanvasWithFrame(Drawable favicon, int index) {
-            mCanvas.drawRoundRect(mFaviconBackgroundRects.get(index), mFaviconFrameCornerRadius,
-                    mFaviconFrameCornerRadius, mFaviconBackgroundPaint);
+            mCompositionCanvas.drawRoundRect(mFaviconBackgroundRects.get(index),
+                    mFaviconFrameCornerRadius, mFaviconFrameCornerRadius, mFaviconBackgroundPaint);
             favicon.setBounds(mFaviconRects.get(index));
-            favicon.draw(mCanvas);
+            favicon.draw(mCompositionCanvas);
         }
 
         private void drawFaviconThenMaybeSendBack(Drawable favicon, int index) {
             drawFaviconDrawableOnCanvasWithFrame(favicon, index);
-            if (mThumbnailsToFetch.decrementAndGet() == 0) {
-                PostTask.postTask(UiThreadTaskTraits.USER_VISIBLE,
-                        mFinalCallback.bind(mMultiThumbnailBitmap));
-            }
+            if (mThumbnailsToFetch.decrementAndGet() == 0) sendBack();
+        }
+
+        /**
+         * Like {@link #drawFaviconThenMaybeSendBack}, for a thumbnail delivered a second time. The
+         * thumbnail is only counted once, but sent back again if it already was.
+         */
+        private void redrawFaviconThenMaybeResend(Drawable favicon, int index) {
+            drawFaviconDrawableOnCanvasWithFrame(favicon, index);
+            if (mThumbnailsToFetch.get() == 0) sendBack();
+        }
+
+        private void sendBack() {
+            final Bitmap bitmap = mThumbnail.deliver();
+            if (bitmap == null) return;
+            PostTask.postTask(UiThreadTaskTraits.USER_VISIBLE, () -> {
+                if (!mThumbnail.show(bitmap)) {
+                    mCompositionTaskRunner.postTask(() -> mThumbnail.recycle(bitmap, false));
+                    return;
+                }
+                mShownThumbnails.put(bitmap, mThumbnail);
+                mFinalCallback.onResult(bitmap);
+            });
         }
 
         private void fetch() {
@@ -279,7 +362,7 @@ public class MultiThumbnailCardProvider implements TabListMediator.ThumbnailProv
         mContext = context;
         Resources resource = context.getResources();
 
-        mTabContentManager = tabContentManager;
+        mThumbnailCache = new TabThumbnailCache(tabContentManager::getTabThumbnailWithCallback);
         mTabModelSelector = tabModelSelector;
         mRadius = resource.getDimension(R.dimen.tab_list_mini_card_radius);
         mFaviconFrameCornerRadius =
@@ -301,7 +384,8 @@ public class MultiThumbnailCardProvider implements TabListMediator.ThumbnailProv
         // Paint used to set base for thumbnails, in case mEmptyThumbnailPaint has transparency.
         mThumbnailBasePaint = new Paint(mEmptyThumbnailPaint);
         mThumbnailBasePaint.setColor(Color.BLACK);
-        mThumbnailBasePaint.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.SRC_IN));
+        mThumbnailBasePaint.setFilterBitmap(true);
+        mThumbnailBasePaint.setXfermode(mSrcInXfermode);
 
         mThumbnailFramePaint = new Paint();
         mThumbnailFramePaint.setStyle(Paint.Style.STROKE);
@@ -354,6 +438,46 @@ public class MultiThumbnailCardProvider implements TabListMediator.ThumbnailProv
             }
         };
         mTabModelSelector.addObserver(mTabModelSelectorObserver);
+
+        mTabModelObserver = new TabModelSelectorTabModelObserver(mTabModelSelector) {
+            @Override
+            public void didCloseTab(Tab tab) {
+                mThumbnailCache.invalidate(tab.getId());
+            }
+
+            @Override
+            public void didSelectTab(Tab tab, int type, int lastId) {
+                // The current tab is captured when the tab switcher is shown, so the stored
+                // thumbnails of both tabs may be newer than the cached ones.
+                mThumbnailCache.invalidate(tab.getId());
+                mThumbnailCache.invalidate(lastId);
+            }
+        };
+        mTabObserver = new TabModelSelectorTabObserver(mTabModelSelector) {
+            @Override
+            public void onPageLoadFinished(Tab tab, GURL url) {
+                mThumbnailCache.invalidate(tab.getId());
+            }
+        };
+        MemoryPressureListener.addCallback(mMemoryPressureCallback);
+    }
+
+    /**
+     * Copies a favicon so the composition sequence can set its bounds and draw it while the UI
+     * thread uses the original.
+     */
+    private static Drawable copyForComposition(Drawable favicon) {
+        Drawable.ConstantState state = favicon.getConstantState();
+        return state == null ? favicon : state.newDrawable().mutate();
+    }
+
+    @Override
+    public void onThumbnailHidden(Bitmap bitmap) {
+        ComposedThumbnail thumbnail = mShownThumbnails.remove(bitmap);
+        // Not a group thumbnail.
+        if (thumbnail == null) return;
+        boolean finished = thumbnail.hide(bitmap);
+        mCompositionTaskRunner.postTask(() -> thumbnail.recycle(bitmap, finished));
     }
 
     public void initWithNative() {
@@ -368,6 +492,12 @@ public class MultiThumbnailCardProvider implements TabListMediator.ThumbnailProv
      */
     public void destroy() {
         mTabModelSelector.removeObserver(mTabModelSelectorObserver);
+        mTabModelObserver.destroy();
+        mTabObserver.destroy();
+        mThumbnailCache.destroy();
+        MemoryPressureListener.removeCallback(mMemoryPressureCallback);
+        mShownThumbnails.clear();
+        mBitmapPool.clear();
     }
 
     @Override
@@ -375,7 +505,7 @@ public class MultiThumbnailCardProvider implements TabListMediator.ThumbnailProv
             Callback<Bitmap> finalCallback, boolean forceUpdate, boolean writeToCache) {
         PseudoTab tab = PseudoTab.fromTabId(tabId);
         if (tab == null || PseudoTab.getRelatedTabs(mContext, tab, mTabModelSelector).size() == 1) {
-            mTabContentManager.getTabThumbnailWithCallback(
+            mThumbnailCache.getTabThumbnailWithCallback(
                     tabId, thumbnailSize, finalCallback, forceUpdate, writeToCache);
             return;
         }
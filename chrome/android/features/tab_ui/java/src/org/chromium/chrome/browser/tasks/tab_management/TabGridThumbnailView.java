@@ -5,9 +5,14 @@
 package org.chromium.chrome.browser.tasks.tab_management;
 
 import android.content.Context;
+import android.graphics.Bitmap;
 import android.graphics.drawable.ColorDrawable;
+import android.graphics.drawable.Drawable;
 import android.util.AttributeSet;
 
+import androidx.annotation.Nullable;
+
+import org.chromium.base.Callback;
 import org.chromium.chrome.browser.tab.TabUtils;
 import org.chromium.chrome.browser.tasks.ReturnToChromeUtil;
 import org.chromium.components.browser_ui.widget.RoundedCornerImageView;
@@ -19,10 +24,35 @@ import org.chromium.components.browser_ui.widget.RoundedCornerImageView;
  * behavior of this Class is the same as the RoundedCornerImageView.
  */
 public class TabGridThumbnailView extends RoundedCornerImageView {
+    // The bitmap set through setImageBitmap(Bitmap, Callback), while it is shown.
+    private Bitmap mShownBitmap;
+    private Callback<Bitmap> mOnShownBitmapHidden;
+
     public TabGridThumbnailView(Context context, AttributeSet attrs) {
         super(context, attrs);
     }
 
+    /**
+     * Shows {@code bitmap}, and calls {@code onHidden} with it once the view no longer shows it,
+     * because another image was set, or the view was rebound or recycled.
+     */
+    void setImageBitmap(Bitmap bitmap, Callback<Bitmap> onHidden) {
+        if (bitmap == mShownBitmap) return;
+        setImageBitmap(bitmap);
+        mShownBitmap = bitmap;
+        mOnShownBitmapHidden = onHidden;
+    }
+
+    @Override
+    public void setImageDrawable(@Nullable Drawable drawable) {
+        Bitmap hiddenBitmap = mShownBitmap;
+        Callback<Bitmap> onHidden = mOnShownBitmapHidden;
+        mShownBitmap = null;
+        mOnShownBitmapHidden = null;
+        super.setImageDrawable(drawable);
+        if (onHidden != null) onHidden.onResult(hiddenBitmap);
+    }
+
     @Override
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
         super.onMeasure(widthMeasureSpec, heightMeasureSpec);
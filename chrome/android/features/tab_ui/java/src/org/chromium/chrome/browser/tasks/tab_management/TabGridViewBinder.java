@@ -373,6 +373,10 @@ class TabGridViewBinder {
                         && cardSize != null
                 ? TabUtils.deriveThumbnailSize(cardSize, view.getContext())
                 : null;
+        final TabListMediator.ThumbnailFetcher activeFetcher =
+                TabUiFeatureUtilities.isLaunchPolishEnabled() && sThumbnailFetcherForTesting != null
+                ? sThumbnailFetcherForTesting
+                : fetcher;
         Callback<Bitmap> callback = result -> {
             if (result != null) {
                 if (TabUiFeatureUtilities.isTabletGridTabSwitcherPolishEnabled(view.getContext())
@@ -385,14 +389,10 @@ class TabGridViewBinder {
                     thumbnail.setScaleType(ScaleType.FIT_CENTER);
                     thumbnail.setAdjustViewBounds(true);
                 }
-                thumbnail.setImageBitmap(result);
+                thumbnail.setImageBitmap(result, activeFetcher::onThumbnailHidden);
             }
         };
-        if (TabUiFeatureUtilities.isLaunchPolishEnabled() && sThumbnailFetcherForTesting != null) {
-            sThumbnailFetcherForTesting.fetch(callback, thumbnailSize);
-        } else {
-            fetcher.fetch(callback, thumbnailSize);
-        }
+        activeFetcher.fetch(callback, thumbnailSize);
     }
 
     /**
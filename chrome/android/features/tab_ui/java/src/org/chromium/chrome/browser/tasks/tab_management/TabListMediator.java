@@ -18,6 +18,7 @@ import android.content.res.Configuration;
 import android.graphics.Bitmap;
 import android.os.Bundle;
 import android.os.Handler;
+import android.os.SystemClock;
 import android.text.TextUtils;
 import android.util.Pair;
 import android.util.Size;
@@ -128,6 +129,12 @@ class TabListMediator {
          */
         void getTabThumbnailWithCallback(int tabId, Size thumbnailSize, Callback<Bitmap> callback,
                 boolean forceUpdate, boolean writeToCache);
+
+        /**
+         * Called once a view no longer shows a bitmap this provider delivered, so that its memory
+         * can be reused.
+         */
+        default void onThumbnailHidden(Bitmap bitmap) {}
     }
 
     /**
@@ -300,6 +307,11 @@ class TabListMediator {
             mThumbnailProvider.getTabThumbnailWithCallback(
                     mId, thumbnailSize, forking, mForceUpdate, mWriteToCache);
         }
+
+        /** @see ThumbnailProvider#onThumbnailHidden */
+        void onThumbnailHidden(Bitmap bitmap) {
+            mThumbnailProvider.onThumbnailHidden(bitmap);
+        }
     }
 
     /**
@@ -1197,20 +1209,117 @@ class TabListMediator {
             }
             return true;
         }
-        mModel.set(new ArrayList<>());
         mLastSelectedTabListModelIndex = TabList.INVALID_TAB_INDEX;
 
         if (tabsList == null) {
+            mModel.set(new ArrayList<>());
             return true;
         }
-        int currentTabId = mTabModelSelector.getCurrentTabId();
+        long startTimeMs = SystemClock.elapsedRealtime();
+        updateModelWithListOfTabs(tabsList, quickMode);
+        RecordHistogram.recordTimesHistogram("Tabs.ResetTabList.Duration." + mComponentName,
+                SystemClock.elapsedRealtime() - startTimeMs);
 
-        for (int i = 0; i < tabsList.size(); i++) {
-            PseudoTab tab = tabsList.get(i);
-            addTabInfoToModel(tab, i, isSelectedTab(tab, currentTabId));
+        return false;
+    }
+
+    /**
+     * Brings the TAB cards in {@link #mModel} in line with {@code tabs}, matching them by tab id.
+     * Cards of tabs that are still in the list keep their {@link PropertyModel}; they are updated
+     * and, if needed, moved, with as few moves as possible. Only tabs new to the list get a new
+     * card. Cards of other types are removed, just like when the model is rebuilt.
+     */
+    private void updateModelWithListOfTabs(List<PseudoTab> tabs, boolean quickMode) {
+        Map<Integer, Integer> newPositions = new HashMap<>();
+        for (int i = 0; i < tabs.size(); i++) newPositions.put(tabs.get(i).getId(), i);
+
+        // Drop everything but the cards of tabs that stay, which are left in their old order.
+        int keptCount = 0;
+        for (int i = 0; i < mModel.size(); i++) {
+            PropertyModel model = mModel.get(i).model;
+            if (model.get(CARD_TYPE) == TAB
+                    && newPositions.containsKey(model.get(TabProperties.TAB_ID))) {
+                keptCount++;
+            }
+        }
+        if (keptCount == 0) {
+            mModel.set(new ArrayList<>());
+        } else {
+            for (int i = mModel.size() - 1; i >= 0; i--) {
+                PropertyModel model = mModel.get(i).model;
+                if (model.get(CARD_TYPE) != TAB
+                        || !newPositions.containsKey(model.get(TabProperties.TAB_ID))) {
+                    mModel.removeAt(i);
+                }
+            }
         }
 
-        return false;
+        // Kept cards whose new positions form the longest increasing run stay where they are;
+        // every other kept card is moved once, right behind the card that precedes it in the list.
+        boolean[] isKept = new boolean[tabs.size()];
+        int[] keptPositions = new int[mModel.size()];
+        for (int i = 0; i < mModel.size(); i++) {
+            keptPositions[i] = newPositions.get(mModel.get(i).model.get(TabProperties.TAB_ID));
+            isKept[keptPositions[i]] = true;
+        }
+        boolean[] isStable = getLongestIncreasingSubsequence(keptPositions, tabs.size());
+
+        int currentTabId = mTabModelSelector.getCurrentTabId();
+        int nextIndex = 0;
+        for (int i = 0; i < tabs.size(); i++) {
+            PseudoTab tab = tabs.get(i);
+            boolean isSelected = isSelectedTab(tab, currentTabId);
+            if (!isKept[i]) {
+                addTabInfoToModel(tab, nextIndex++, isSelected);
+                continue;
+            }
+            int index;
+            if (isStable[i]) {
+                index = nextIndex;
+                while (mModel.get(index).model.get(TabProperties.TAB_ID) != tab.getId()) index++;
+            } else {
+                int currentIndex = mModel.indexFromId(tab.getId());
+                index = currentIndex < nextIndex ? nextIndex - 1 : nextIndex;
+                if (currentIndex != index) mModel.move(currentIndex, index);
+            }
+            mModel.get(index).model.set(CARD_ALPHA, 1f);
+            updateTab(index, tab, isSelected, false, quickMode);
+            nextIndex = index + 1;
+        }
+    }
+
+    /**
+     * @param sequence Distinct values in {@code [0, range)}.
+     * @param range The upper bound of the values in {@code sequence}.
+     * @return Which values in {@code [0, range)} are part of a longest increasing subsequence of
+     *         {@code sequence}.
+     */
+    private static boolean[] getLongestIncreasingSubsequence(int[] sequence, int range) {
+        // tails[k] is the index of the smallest value ending an increasing subsequence of length
+        // k + 1, and predecessors[i] the index of the value before sequence[i] in its subsequence.
+        int[] tails = new int[sequence.length];
+        int[] predecessors = new int[sequence.length];
+        int length = 0;
+        for (int i = 0; i < sequence.length; i++) {
+            int low = 0;
+            int high = length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (sequence[tails[middle]] < sequence[i]) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            predecessors[i] = low > 0 ? tails[low - 1] : -1;
+            tails[low] = i;
+            if (low == length) length++;
+        }
+        boolean[] result = new boolean[range];
+        for (int i = length > 0 ? tails[length - 1] : -1; i >= 0; i = predecessors[i]) {
+            result[sequence[i]] = true;
+        }
+        return result;
     }
 
     void postHiding() {
@@ -1249,6 +1358,11 @@ class TabListMediator {
 
         // TODO(wychen): refactor this.
         boolean isRealTab = pseudoTab.hasRealTab();
+        // Only cards made before the tab was restored have no domain. Give them what
+        // addTabInfoToModel() only gives to cards of real tabs.
+        if (isRealTab && mModel.get(index).model.get(TabProperties.URL_DOMAIN) == null) {
+            upgradeToRealTab(mModel.get(index).model, pseudoTab);
+        }
         TabActionListener tabSelectedListener;
         if (!isRealTab) {
             tabSelectedListener = null;
@@ -1306,6 +1420,18 @@ class TabListMediator {
         }
     }
 
+    private void upgradeToRealTab(PropertyModel model, PseudoTab pseudoTab) {
+        assert pseudoTab.hasRealTab();
+        model.set(TabProperties.TAB_SELECTION_DELEGATE, getTabSelectionDelegate());
+        if (shouldShowIPH(pseudoTab)) model.set(TabProperties.IPH_PROVIDER, mIphProvider);
+        pseudoTab.getTab().addObserver(mTabObserver);
+    }
+
+    private boolean shouldShowIPH(PseudoTab pseudoTab) {
+        return mActionsOnAllRelatedTabs && !mShownIPH && pseudoTab.hasRealTab()
+                && getRelatedTabsForId(pseudoTab.getId()).size() > 1;
+    }
+
     @VisibleForTesting
     public boolean isUngroupedTab(int tabId) {
         return getRelatedTabsForId(tabId).size() == 1;
@@ -1480,11 +1606,8 @@ class TabListMediator {
                 return;
             }
         }
-        boolean showIPH = false;
+        boolean showIPH = shouldShowIPH(pseudoTab);
         boolean isRealTab = pseudoTab.hasRealTab();
-        if (mActionsOnAllRelatedTabs && !mShownIPH && isRealTab) {
-            showIPH = getRelatedTabsForId(pseudoTab.getId()).size() > 1;
-        }
         TabActionListener tabSelectedListener;
         if (!isRealTab) {
             tabSelectedListener = null;
@@ -360,6 +360,12 @@ public class TabSwitcherCoordinator
                 mTabAttributeCache = new TabAttributeCache(mTabModelSelector);
             }
 
+            if (ChromeFeatureList.sInstantStart.isEnabled()
+                    && !mTabModelSelector.isTabStateInitialized()) {
+                // The grid joins this when it is first shown before the tab state is initialized.
+                PseudoTab.startReadingStateFile(activity);
+            }
+
             mMenuOrKeyboardActionController = menuOrKeyboardActionController;
             mMenuOrKeyboardActionController.registerMenuOrKeyboardActionHandler(
                     mTabSwitcherMenuActionHandler);
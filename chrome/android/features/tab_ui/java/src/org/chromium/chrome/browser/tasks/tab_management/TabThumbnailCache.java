@@ -0,0 +1,234 @@
+// Copyright 2025 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.chrome.browser.tasks.tab_management;
+
+import android.graphics.Bitmap;
+import android.os.SystemClock;
+import android.util.LruCache;
+import android.util.Size;
+
+import androidx.annotation.IntDef;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import org.chromium.base.Callback;
+import org.chromium.base.MemoryPressureLevel;
+import org.chromium.base.MemoryPressureListener;
+import org.chromium.base.ThreadUtils;
+import org.chromium.base.memory.MemoryPressureCallback;
+import org.chromium.base.metrics.RecordHistogram;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.Objects;
+
+/**
+ * A {@link TabListMediator.ThumbnailProvider} that keeps recently fetched tab thumbnails in memory,
+ * so that binding the same card again does not make the underlying provider decode the thumbnail
+ * again.
+ *
+ * Thumbnails live in two tiers that share a byte budget. Full resolution thumbnails are kept in an
+ * LRU tier, which in practice holds the cards on or near the screen. Thumbnails falling out of it
+ * are downsampled into a second, smaller LRU tier; a card bound from that tier gets the
+ * downsampled thumbnail right away as a placeholder, followed by the full resolution one from the
+ * underlying provider. Moderate memory pressure moves half of the full resolution tier into the
+ * downsampled tier, critical memory pressure empties both.
+ *
+ * Cached thumbnails are not checked against the underlying provider, so the owner invalidates
+ * a tab whenever its thumbnail may have been captured again. Bitmaps are shared with the views
+ * that show them, so they are never recycled by the cache.
+ */
+class TabThumbnailCache implements TabListMediator.ThumbnailProvider {
+    // These values are persisted to logs. Entries should not be renumbered and numeric values
+    // should never be reused.
+    @IntDef({LookupResult.HIT, LookupResult.DOWNSAMPLED_HIT, LookupResult.MISS,
+            LookupResult.FORCED_UPDATE})
+    @Retention(RetentionPolicy.SOURCE)
+    @interface LookupResult {
+        int HIT = 0;
+        int DOWNSAMPLED_HIT = 1;
+        int MISS = 2;
+        int FORCED_UPDATE = 3;
+        int NUM_ENTRIES = 4;
+    }
+
+    /** Upper bound of the byte budget; smaller heaps get an eighth of their size. */
+    @VisibleForTesting
+    static final long MAX_BUDGET_BYTES = 32 * 1024 * 1024;
+
+    /** Share of the byte budget given to the downsampled tier. */
+    private static final float DOWNSAMPLED_SHARE = 0.25f;
+
+    /** Downsampled thumbnails are this many times smaller in each dimension. */
+    private static final int DOWNSAMPLE_FACTOR = 2;
+
+    private static final String LOOKUP_HISTOGRAM = "Android.TabSwitcher.ThumbnailCache.Lookup";
+    private static final String FETCH_TIME_HISTOGRAM =
+            "Android.TabSwitcher.ThumbnailCache.FetchTime";
+
+    private static class Entry {
+        final Bitmap mBitmap;
+        final @Nullable Size mSize;
+
+        Entry(Bitmap bitmap, @Nullable Size size) {
+            mBitmap = bitmap;
+            mSize = size;
+        }
+    }
+
+    private final TabListMediator.ThumbnailProvider mSource;
+    private final LruCache<Integer, Entry> mFullTier;
+    private final LruCache<Integer, Bitmap> mDownsampledTier;
+    private final MemoryPressureCallback mMemoryPressureCallback = this::onMemoryPressure;
+
+    private final int[] mLookupCounts = new int[LookupResult.NUM_ENTRIES];
+    private long mTotalFetchTimeMs;
+    private int mFetchCount;
+
+    // Set while both tiers are emptied, so evicted thumbnails are not downsampled for nothing.
+    private boolean mClearing;
+
+    /**
+     * @param source The provider that decodes thumbnails on a cache miss.
+     */
+    TabThumbnailCache(TabListMediator.ThumbnailProvider source) {
+        this(source, Math.min(MAX_BUDGET_BYTES, Runtime.getRuntime().maxMemory() / 8));
+    }
+
+    /**
+     * @param source The provider that decodes thumbnails on a cache miss.
+     * @param budgetBytes How many bytes of bitmaps both tiers together may hold on to.
+     */
+    @VisibleForTesting
+    TabThumbnailCache(TabListMediator.ThumbnailProvider source, long budgetBytes) {
+        mSource = source;
+        int downsampledBytes = (int) (budgetBytes * DOWNSAMPLED_SHARE);
+        mDownsampledTier = new LruCache<Integer, Bitmap>(downsampledBytes) {
+            @Override
+            protected int sizeOf(Integer tabId, Bitmap bitmap) {
+                return bitmap.getAllocationByteCount();
+            }
+        };
+        mFullTier = new LruCache<Integer, Entry>((int) (budgetBytes - downsampledBytes)) {
+            @Override
+            protected int sizeOf(Integer tabId, Entry entry) {
+                return entry.mBitmap.getAllocationByteCount();
+            }
+
+            @Override
+            protected void entryRemoved(
+                    boolean evicted, Integer tabId, Entry oldEntry, Entry newEntry) {
+                if (evicted && !mClearing) putDownsampled(tabId, oldEntry.mBitmap);
+            }
+        };
+        MemoryPressureListener.addCallback(mMemoryPressureCallback);
+    }
+
+    @Override
+    public void getTabThumbnailWithCallback(int tabId, Size thumbnailSize,
+            Callback<Bitmap> callback, boolean forceUpdate, boolean writeToCache) {
+        ThreadUtils.assertOnUiThread();
+        if (forceUpdate) {
+            recordLookup(LookupResult.FORCED_UPDATE);
+        } else {
+            Entry entry = mFullTier.get(tabId);
+            if (entry != null && Objects.equals(entry.mSize, thumbnailSize)) {
+                recordLookup(LookupResult.HIT);
+                callback.onResult(entry.mBitmap);
+                return;
+            }
+            Bitmap downsampled = mDownsampledTier.get(tabId);
+            if (downsampled != null) {
+                recordLookup(LookupResult.DOWNSAMPLED_HIT);
+                callback.onResult(downsampled);
+            } else {
+                recordLookup(LookupResult.MISS);
+            }
+        }
+
+        final long startTimeMs = SystemClock.elapsedRealtime();
+        final boolean[] timed = {false};
+        // The source may call back twice: once with the stored thumbnail and once with a freshly
+        // captured one. Both replace the cached thumbnail; only the first one is timed.
+        mSource.getTabThumbnailWithCallback(tabId, thumbnailSize, bitmap -> {
+            if (!timed[0]) {
+                timed[0] = true;
+                recordFetchTime(SystemClock.elapsedRealtime() - startTimeMs);
+            }
+            if (bitmap != null) {
+                mDownsampledTier.remove(tabId);
+                mFullTier.put(tabId, new Entry(bitmap, thumbnailSize));
+            }
+            callback.onResult(bitmap);
+        }, forceUpdate, writeToCache);
+    }
+
+    /**
+     * Drops the thumbnails of a tab, e.g. once it is closed, or once its thumbnail may have been
+     * captured again.
+     */
+    void invalidate(int tabId) {
+        mFullTier.remove(tabId);
+        mDownsampledTier.remove(tabId);
+    }
+
+    /** Drops all thumbnails and stops listening to memory pressure. */
+    void destroy() {
+        MemoryPressureListener.removeCallback(mMemoryPressureCallback);
+        clear();
+    }
+
+    private void clear() {
+        mClearing = true;
+        mFullTier.evictAll();
+        mClearing = false;
+        mDownsampledTier.evictAll();
+    }
+
+    private void onMemoryPressure(@MemoryPressureLevel int pressure) {
+        if (pressure == MemoryPressureLevel.CRITICAL) {
+            clear();
+        } else if (pressure == MemoryPressureLevel.MODERATE) {
+            mFullTier.trimToSize(mFullTier.maxSize() / 2);
+        }
+    }
+
+    private void putDownsampled(int tabId, Bitmap bitmap) {
+        int width = bitmap.getWidth() / DOWNSAMPLE_FACTOR;
+        int height = bitmap.getHeight() / DOWNSAMPLE_FACTOR;
+        if (width == 0 || height == 0 || bitmap.isRecycled()) return;
+        mDownsampledTier.put(tabId, Bitmap.createScaledBitmap(bitmap, width, height, true));
+    }
+
+    private void recordLookup(@LookupResult int result) {
+        mLookupCounts[result]++;
+        RecordHistogram.recordEnumeratedHistogram(
+                LOOKUP_HISTOGRAM, result, LookupResult.NUM_ENTRIES);
+    }
+
+    private void recordFetchTime(long fetchTimeMs) {
+        mFetchCount++;
+        mTotalFetchTimeMs += fetchTimeMs;
+        RecordHistogram.recordTimesHistogram(FETCH_TIME_HISTOGRAM, fetchTimeMs);
+    }
+
+    /** @return How many lookups ended with {@code result}. */
+    @VisibleForTesting
+    int getLookupCountForTesting(@LookupResult int result) {
+        return mLookupCounts[result];
+    }
+
+    /** @return The average time the underlying provider took to deliver a thumbnail. */
+    @VisibleForTesting
+    long getAverageFetchTimeMsForTesting() {
+        return mFetchCount == 0 ? 0 : mTotalFetchTimeMs / mFetchCount;
+    }
+
+    /** @return How many bytes of bitmaps both tiers hold right now. */
+    @VisibleForTesting
+    long getSizeBytesForTesting() {
+        return (long) mFullTier.size() + mDownsampledTier.size();
+    }
+}
@@ -62,6 +62,14 @@ public class TabUiFeatureUtilities {
             new BooleanCachedFieldTrialParameter(
                     ChromeFeatureList.TAB_GROUPS_CONTINUATION_ANDROID, LAUNCH_POLISH_PARAM, false);
 
+    // Field trial parameter for composing tab group thumbnails in RGB_565 rather than ARGB_8888,
+    // halving their memory.
+    private static final String LOW_PRECISION_GROUP_THUMBNAILS_PARAM =
+            "low_precision_group_thumbnails";
+    public static final BooleanCachedFieldTrialParameter LOW_PRECISION_GROUP_THUMBNAILS =
+            new BooleanCachedFieldTrialParameter(ChromeFeatureList.TAB_GRID_LAYOUT_ANDROID,
+                    LOW_PRECISION_GROUP_THUMBNAILS_PARAM, false);
+
     // Field trial parameter for the minimum Android SDK version to enable zooming animation.
     private static final String MIN_SDK_PARAM = "zooming-min-sdk-version";
     public static final IntCachedFieldTrialParameter ZOOMING_MIN_SDK =
@@ -0,0 +1,178 @@
+// Copyright 2025 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.chrome.browser.tasks.pseudotab;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.annotation.Config;
+
+import org.chromium.base.test.BaseRobolectricTestRunner;
+import org.chromium.chrome.browser.tasks.pseudotab.TabAttributeStore.Attribute;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+/** Unit tests for {@link TabAttributeStore}. */
+@RunWith(BaseRobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class TabAttributeStoreUnitTest {
+    private static final int TAB_ID = 42;
+    private static final int OTHER_TAB_ID = 43;
+
+    @Rule
+    public TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
+    private File mFile;
+
+    @Before
+    public void setUp() {
+        mFile = new File(mTemporaryFolder.getRoot(), "tab_attributes.bin");
+    }
+
+    private TabAttributeStore createStoreWithOneTab() {
+        TabAttributeStore store = new TabAttributeStore(mFile);
+        store.putString(TAB_ID, Attribute.TITLE, "Title");
+        store.putString(TAB_ID, Attribute.URL, "https://example.com/");
+        store.putInt(TAB_ID, Attribute.ROOT_ID, 7);
+        store.putLong(TAB_ID, Attribute.TIMESTAMP_MILLIS, 123456789L);
+        assertTrue(store.flushSynchronously());
+        return store;
+    }
+
+    private void assertHasOneTab(TabAttributeStore store) {
+        assertEquals("Title", store.getString(TAB_ID, Attribute.TITLE));
+        assertEquals("https://example.com/", store.getString(TAB_ID, Attribute.URL));
+        assertEquals(7, store.getInt(TAB_ID, Attribute.ROOT_ID, -1));
+        assertEquals(123456789L, store.getLong(TAB_ID, Attribute.TIMESTAMP_MILLIS, -1));
+        assertNull(store.getString(TAB_ID, Attribute.LAST_SEARCH_TERM));
+    }
+
+    private void appendToFile(byte[] bytes) throws IOException {
+        try (FileOutputStream stream = new FileOutputStream(mFile, true)) {
+            stream.write(bytes);
+        }
+    }
+
+    @Test
+    public void testAttributesSurviveReopening() {
+        assertFalse(new TabAttributeStore(mFile).existedOnDisk());
+        createStoreWithOneTab();
+
+        TabAttributeStore reopened = new TabAttributeStore(mFile);
+
+        assertTrue(reopened.existedOnDisk());
+        assertHasOneTab(reopened);
+    }
+
+    @Test
+    public void testChangesAreAppended() {
+        TabAttributeStore store = createStoreWithOneTab();
+        long compactedBytes = store.getFileBytesForTesting();
+        assertEquals(mFile.length(), compactedBytes);
+
+        store.putString(TAB_ID, Attribute.TITLE, "First");
+        store.putString(TAB_ID, Attribute.TITLE, "New title");
+        assertTrue(store.flushSynchronously());
+
+        // Only the latest title was appended: header, tab ID, type, length and the string.
+        assertEquals(compactedBytes + 8 + 4 + 1 + 4 + "New title".length(),
+                store.getFileBytesForTesting());
+        assertEquals(mFile.length(), store.getFileBytesForTesting());
+        assertEquals("New title", new TabAttributeStore(mFile).getString(TAB_ID, Attribute.TITLE));
+    }
+
+    @Test
+    public void testRemoveAndClear() {
+        TabAttributeStore store = createStoreWithOneTab();
+        store.putString(OTHER_TAB_ID, Attribute.TITLE, "Other");
+        store.remove(TAB_ID);
+        assertTrue(store.flushSynchronously());
+
+        TabAttributeStore reopened = new TabAttributeStore(mFile);
+        assertNull(reopened.getString(TAB_ID, Attribute.TITLE));
+        assertEquals("Other", reopened.getString(OTHER_TAB_ID, Attribute.TITLE));
+
+        reopened.clear();
+        assertTrue(reopened.flushSynchronously());
+        assertNull(new TabAttributeStore(mFile).getString(OTHER_TAB_ID, Attribute.TITLE));
+    }
+
+    @Test
+    public void testTornRecordIsDropped() throws IOException {
+        TabAttributeStore store = createStoreWithOneTab();
+        long validBytes = store.getFileBytesForTesting();
+        store.putString(TAB_ID, Attribute.TITLE, "Lost title");
+        assertTrue(store.flushSynchronously());
+        // Cut the last record short, as a crash while appending would.
+        try (RandomAccessFile file = new RandomAccessFile(mFile, "rw")) {
+            file.setLength(mFile.length() - 3);
+        }
+
+        TabAttributeStore reopened = new TabAttributeStore(mFile);
+
+        assertHasOneTab(reopened);
+        assertEquals(validBytes, reopened.getFileBytesForTesting());
+        // The next flush rewrites the file without the torn record.
+        assertTrue(reopened.flushSynchronously());
+        assertEquals(mFile.length(), reopened.getFileBytesForTesting());
+    }
+
+    @Test
+    public void testZeroFilledTailIsDropped() throws IOException {
+        long validBytes = createStoreWithOneTab().getFileBytesForTesting();
+        appendToFile(new byte[64]);
+
+        TabAttributeStore reopened = new TabAttributeStore(mFile);
+
+        assertHasOneTab(reopened);
+        assertNull(reopened.getString(0, Attribute.TITLE));
+        assertEquals(validBytes, reopened.getFileBytesForTesting());
+    }
+
+    @Test
+    public void testRecordWithCorruptPayloadIsDropped() throws IOException {
+        long validBytes = createStoreWithOneTab().getFileBytesForTesting();
+        TabAttributeStore store = new TabAttributeStore(mFile);
+        store.putString(TAB_ID, Attribute.TITLE, "Corrupt title");
+        assertTrue(store.flushSynchronously());
+        try (RandomAccessFile file = new RandomAccessFile(mFile, "rw")) {
+            file.seek(mFile.length() - 1);
+            file.write('!');
+        }
+
+        TabAttributeStore reopened = new TabAttributeStore(mFile);
+
+        assertHasOneTab(reopened);
+        assertEquals(validBytes, reopened.getFileBytesForTesting());
+    }
+
+    @Test
+    public void testHugeRecordLengthIsTreatedAsTruncation() throws IOException {
+        long validBytes = createStoreWithOneTab().getFileBytesForTesting();
+        try (DataOutputStream stream =
+                        new DataOutputStream(new FileOutputStream(mFile, true))) {
+            stream.writeInt(Integer.MAX_VALUE);
+            stream.writeInt(0);
+            stream.writeInt(TAB_ID);
+            stream.writeByte(Attribute.TITLE);
+        }
+
+        TabAttributeStore reopened = new TabAttributeStore(mFile);
+
+        assertHasOneTab(reopened);
+        assertEquals(validBytes, reopened.getFileBytesForTesting());
+    }
+}
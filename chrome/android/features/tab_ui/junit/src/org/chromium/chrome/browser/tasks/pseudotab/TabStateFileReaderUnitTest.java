@@ -0,0 +1,152 @@
+// Copyright 2025 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.chrome.browser.tasks.pseudotab;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.annotation.Config;
+
+import org.chromium.base.test.BaseRobolectricTestRunner;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/** Unit tests for {@link TabStateFileReader}. */
+@RunWith(BaseRobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class TabStateFileReaderUnitTest {
+    private static final int VERSION = 5;
+    private static final int HEADER_BYTES = 5 * 4;
+
+    @Rule
+    public TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
+    private File mFile;
+
+    @Before
+    public void setUp() {
+        mFile = new File(mTemporaryFolder.getRoot(), "tab_state0");
+    }
+
+    /** @return A state file as written by TabPersistentStore, with the first tab incognito. */
+    private static byte[] createStateFile(int version, int[] ids, String[] urls)
+            throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream stream = new DataOutputStream(bytes);
+        stream.writeInt(version);
+        stream.writeInt(ids.length);
+        stream.writeInt(1);
+        stream.writeInt(0);
+        stream.writeInt(ids.length - 1);
+        for (int i = 0; i < ids.length; i++) {
+            stream.writeInt(ids[i]);
+            stream.writeUTF(urls[i]);
+        }
+        stream.close();
+        return bytes.toByteArray();
+    }
+
+    private void writeFile(byte[] bytes) throws IOException {
+        try (FileOutputStream stream = new FileOutputStream(mFile)) {
+            stream.write(bytes);
+        }
+    }
+
+    private void assertOpenFails() {
+        try {
+            TabStateFileReader.open(mFile);
+            fail("Expected an IOException");
+        } catch (IOException expected) {
+        }
+    }
+
+    @Test
+    public void testReadsValidFile() throws IOException {
+        writeFile(createStateFile(VERSION, new int[] {3, 1, 2},
+                new String[] {"https://incognito.com/", "chrome-native://newtab/", ""}));
+
+        TabStateFileReader reader = TabStateFileReader.open(mFile);
+        assertEquals(3, reader.getCount());
+        assertEquals(0, reader.getIncognitoActiveIndex());
+        assertEquals(2, reader.getStandardActiveIndex());
+        assertEquals(3, reader.getTabId(0));
+        assertEquals(1, reader.getTabId(1));
+        assertEquals(2, reader.getTabId(2));
+        assertEquals("https://incognito.com/", reader.getUrl(0));
+        assertEquals("chrome-native://newtab/", reader.getUrl(1));
+        assertEquals("", reader.getUrl(2));
+        assertTrue(reader.isIncognito(0));
+        assertFalse(reader.isIncognito(1));
+    }
+
+    @Test
+    public void testReadsNonAsciiUrls() throws IOException {
+        String[] urls = new String[] {"https://\u4f8b\u3048.\u30c6\u30b9\u30c8/\u00e4",
+                "https://example.com/\u0000", "https://a/"};
+        writeFile(createStateFile(VERSION, new int[] {1, 2, 3}, urls));
+
+        TabStateFileReader reader = TabStateFileReader.open(mFile);
+        for (int i = 0; i < urls.length; i++) {
+            assertEquals(i + 1, reader.getTabId(i));
+            assertEquals(urls[i], reader.getUrl(i));
+        }
+    }
+
+    @Test
+    public void testOlderVersionIsLeftToTabPersistentStore() throws IOException {
+        writeFile(createStateFile(VERSION - 1, new int[] {1}, new String[] {"https://a/"}));
+
+        assertNull(TabStateFileReader.open(mFile));
+    }
+
+    @Test
+    public void testTruncatedHeader() throws IOException {
+        byte[] file = createStateFile(VERSION, new int[] {1}, new String[] {"https://a/"});
+        writeFile(Arrays.copyOf(file, HEADER_BYTES - 1));
+
+        assertOpenFails();
+    }
+
+    @Test
+    public void testTruncatedTab() throws IOException {
+        byte[] file = createStateFile(
+                VERSION, new int[] {1, 2}, new String[] {"https://example.com/", "https://a/"});
+        // Keeps the first tab and the ID of the second.
+        writeFile(Arrays.copyOf(file, HEADER_BYTES + 6 + "https://example.com/".length() + 4));
+
+        assertOpenFails();
+    }
+
+    @Test
+    public void testTruncatedUrl() throws IOException {
+        byte[] file = createStateFile(VERSION, new int[] {1}, new String[] {"https://a.com/"});
+        writeFile(Arrays.copyOf(file, file.length - 1));
+
+        assertOpenFails();
+    }
+
+    @Test
+    public void testInvalidActiveIndex() throws IOException {
+        byte[] file = createStateFile(VERSION, new int[] {1}, new String[] {"https://a/"});
+        // The standard active index is past the only tab.
+        file[HEADER_BYTES - 1] = 1;
+        writeFile(file);
+
+        assertOpenFails();
+    }
+}
@@ -0,0 +1,88 @@
+// Copyright 2025 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.chrome.browser.tasks.tab_management;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.annotation.Config;
+
+import org.chromium.base.test.BaseRobolectricTestRunner;
+
+/** Unit tests for {@link BitmapPool}. */
+@RunWith(BaseRobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class BitmapPoolUnitTest {
+    private static final int WIDTH = 16;
+    private static final int HEIGHT = 12;
+
+    @Test
+    public void testReleasedBitmapIsReusedCleared() {
+        BitmapPool pool = new BitmapPool(Long.MAX_VALUE);
+        Bitmap bitmap = pool.acquire(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888);
+        bitmap.eraseColor(Color.RED);
+
+        pool.release(bitmap);
+        assertEquals(bitmap.getAllocationByteCount(), pool.getSizeBytesForTesting());
+
+        assertSame(bitmap, pool.acquire(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888));
+        assertEquals(Color.TRANSPARENT, bitmap.getPixel(0, 0));
+        assertEquals(0, pool.getSizeBytesForTesting());
+    }
+
+    @Test
+    public void testBitmapOfOtherSizeOrConfigIsNotReused() {
+        BitmapPool pool = new BitmapPool(Long.MAX_VALUE);
+        Bitmap bitmap = pool.acquire(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888);
+        pool.release(bitmap);
+
+        assertNotSame(bitmap, pool.acquire(WIDTH, HEIGHT + 1, Bitmap.Config.ARGB_8888));
+        assertNotSame(bitmap, pool.acquire(WIDTH, HEIGHT, Bitmap.Config.RGB_565));
+        assertSame(bitmap, pool.acquire(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888));
+    }
+
+    @Test
+    public void testPoolKeepsAtMostMaxBytes() {
+        Bitmap first = Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888);
+        Bitmap second = Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888);
+        BitmapPool pool = new BitmapPool(first.getAllocationByteCount());
+
+        pool.release(first);
+        pool.release(second);
+
+        assertEquals(first.getAllocationByteCount(), pool.getSizeBytesForTesting());
+        assertSame(first, pool.acquire(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888));
+        assertNotSame(second, pool.acquire(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888));
+    }
+
+    @Test
+    public void testImmutableBitmapIsNotPooled() {
+        BitmapPool pool = new BitmapPool(Long.MAX_VALUE);
+        Bitmap bitmap = Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888)
+                                .copy(Bitmap.Config.ARGB_8888, false);
+
+        pool.release(bitmap);
+
+        assertEquals(0, pool.getSizeBytesForTesting());
+    }
+
+    @Test
+    public void testClear() {
+        BitmapPool pool = new BitmapPool(Long.MAX_VALUE);
+        Bitmap bitmap = pool.acquire(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888);
+        pool.release(bitmap);
+
+        pool.clear();
+
+        assertEquals(0, pool.getSizeBytesForTesting());
+        assertNotSame(bitmap, pool.acquire(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888));
+    }
+}
@@ -0,0 +1,132 @@
+// Copyright 2025 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.chrome.browser.tasks.tab_management;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import android.graphics.Bitmap;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.annotation.Config;
+
+import org.chromium.base.test.BaseRobolectricTestRunner;
+
+/**
+ * Unit tests for {@link ComposedThumbnail}, covering how a group thumbnail is recomposed after it
+ * was delivered and when its bitmaps go back to the pool.
+ */
+@RunWith(BaseRobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class ComposedThumbnailUnitTest {
+    private static final int WIDTH = 16;
+    private static final int HEIGHT = 12;
+
+    private BitmapPool mPool;
+    private ComposedThumbnail mThumbnail;
+    private long mBitmapBytes;
+
+    @Before
+    public void setUp() {
+        mPool = new BitmapPool(Long.MAX_VALUE);
+        mThumbnail = new ComposedThumbnail(mPool, WIDTH, HEIGHT, Bitmap.Config.ARGB_8888);
+        Bitmap bitmap = Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888);
+        mBitmapBytes = bitmap.getAllocationByteCount();
+    }
+
+    /** Draws, delivers and shows a bitmap, as one pass of the card provider would. */
+    private Bitmap drawAndShow() {
+        Bitmap drawn = mThumbnail.getBitmapForDrawing();
+        Bitmap delivered = mThumbnail.deliver();
+        assertSame(drawn, delivered);
+        assertTrue(mThumbnail.show(delivered));
+        return delivered;
+    }
+
+    @Test
+    public void testNothingIsDeliveredWithoutNewDrawing() {
+        assertNull(mThumbnail.deliver());
+
+        assertNotNull(mThumbnail.getBitmapForDrawing());
+        assertNotNull(mThumbnail.deliver());
+        assertNull(mThumbnail.deliver());
+    }
+
+    @Test
+    public void testRecompositionDrawsIntoCopyOfDeliveredBitmap() {
+        Bitmap first = drawAndShow();
+
+        Bitmap second = mThumbnail.getBitmapForDrawing();
+
+        assertNotSame(first, second);
+        // Further drawing before the next delivery stays in the copy.
+        assertSame(second, mThumbnail.getBitmapForDrawing());
+        assertSame(second, mThumbnail.deliver());
+        assertEquals(0, mPool.getSizeBytesForTesting());
+    }
+
+    @Test
+    public void testReplacedBitmapIsPooledOnlyOnceHidden() {
+        Bitmap first = drawAndShow();
+        Bitmap second = drawAndShow();
+        assertEquals(0, mPool.getSizeBytesForTesting());
+
+        // The view replaced the first bitmap with the second one.
+        assertFalse(mThumbnail.hide(first));
+        mThumbnail.recycle(first, false);
+
+        assertEquals(mBitmapBytes, mPool.getSizeBytesForTesting());
+        // The thumbnail can still be recomposed.
+        Bitmap third = mThumbnail.getBitmapForDrawing();
+        assertNotNull(third);
+        assertNotSame(second, third);
+    }
+
+    @Test
+    public void testHidingLatestBitmapFinishesThumbnail() {
+        Bitmap bitmap = drawAndShow();
+
+        assertTrue(mThumbnail.hide(bitmap));
+        mThumbnail.recycle(bitmap, true);
+
+        assertEquals(mBitmapBytes, mPool.getSizeBytesForTesting());
+        assertNull(mThumbnail.getBitmapForDrawing());
+        assertNull(mThumbnail.deliver());
+    }
+
+    @Test
+    public void testUndeliveredCopyIsPooledWhenFinished() {
+        Bitmap shown = drawAndShow();
+        assertNotNull(mThumbnail.getBitmapForDrawing());
+
+        assertTrue(mThumbnail.hide(shown));
+        mThumbnail.recycle(shown, true);
+
+        assertEquals(2 * mBitmapBytes, mPool.getSizeBytesForTesting());
+    }
+
+    @Test
+    public void testBitmapDeliveredAfterFinishIsTurnedAway() {
+        Bitmap shown = drawAndShow();
+        mThumbnail.getBitmapForDrawing();
+        Bitmap inFlight = mThumbnail.deliver();
+
+        // The view is rebound while the new bitmap is on its way to the UI thread.
+        assertTrue(mThumbnail.hide(shown));
+        mThumbnail.recycle(shown, true);
+        assertEquals(mBitmapBytes, mPool.getSizeBytesForTesting());
+
+        assertFalse(mThumbnail.show(inFlight));
+        mThumbnail.recycle(inFlight, false);
+        assertEquals(2 * mBitmapBytes, mPool.getSizeBytesForTesting());
+    }
+}
@@ -0,0 +1,273 @@
+// Copyright 2025 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.chrome.browser.tasks.tab_management;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import org.chromium.base.Log;
+import org.chromium.base.test.BaseRobolectricTestRunner;
+import org.chromium.chrome.browser.tab.Tab;
+import org.chromium.chrome.browser.tab.TabObserver;
+import org.chromium.chrome.browser.tabmodel.TabModelFilter;
+import org.chromium.chrome.browser.tabmodel.TabModelFilterProvider;
+import org.chromium.chrome.browser.tabmodel.TabModelSelector;
+import org.chromium.chrome.browser.tasks.pseudotab.PseudoTab;
+import org.chromium.chrome.browser.tasks.pseudotab.TabAttributeCache;
+import org.chromium.chrome.browser.tasks.tab_management.TabListCoordinator.TabListMode;
+import org.chromium.chrome.browser.tasks.tab_management.TabProperties.UiType;
+import org.chromium.components.browser_ui.widget.selectable_list.SelectionDelegate;
+import org.chromium.ui.modelutil.ListObservable;
+import org.chromium.ui.modelutil.PropertyModel;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/** Unit tests for how {@link TabListMediator} brings its cards in line with a list of tabs. */
+@RunWith(BaseRobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class TabListMediatorUnitTest {
+    private static final String TAG = "TabListMediatorTest";
+
+    @Mock
+    private TabModelSelector mTabModelSelector;
+    @Mock
+    private TabModelFilterProvider mTabModelFilterProvider;
+    @Mock
+    private TabModelFilter mTabModelFilter;
+    @Mock
+    private TabListFaviconProvider mTabListFaviconProvider;
+    @Mock
+    private SelectionDelegate<Integer> mSelectionDelegate;
+
+    private final Map<Integer, Tab> mTabs = new HashMap<>();
+    private final TabListModel mModel = new TabListModel();
+    private SelectionDelegate<Integer> mProvidedSelectionDelegate;
+    private int mMoveCount;
+    private TabListMediator mMediator;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        when(mTabModelSelector.getTabModelFilterProvider()).thenReturn(mTabModelFilterProvider);
+        when(mTabModelFilterProvider.getCurrentTabModelFilter()).thenReturn(mTabModelFilter);
+        mMediator = new TabListMediator(RuntimeEnvironment.application, mModel, TabListMode.LIST,
+                mTabModelSelector, null, null, mTabListFaviconProvider, false,
+                () -> mProvidedSelectionDelegate, null, null, null, TAG, UiType.CLOSABLE);
+        mModel.addObserver(new ListObservable.ListObserver<Void>() {
+            @Override
+            public void onItemMoved(ListObservable source, int curIndex, int newIndex) {
+                mMoveCount++;
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        PseudoTab.clearForTesting();
+        TabAttributeCache.clearAllForTesting();
+    }
+
+    @Test
+    public void testResetInsertsNewTabs() {
+        reset(1, 2, 3);
+        List<PropertyModel> before = getCards();
+
+        reset(4, 1, 5, 2, 3, 6);
+        assertCardIds(4, 1, 5, 2, 3, 6);
+        assertSame(before.get(0), getCard(1));
+        assertSame(before.get(1), getCard(3));
+        assertSame(before.get(2), getCard(4));
+        assertEquals(0, mMoveCount);
+    }
+
+    @Test
+    public void testResetRemovesTabs() {
+        reset(1, 2, 3, 4, 5);
+        List<PropertyModel> before = getCards();
+
+        reset(2, 4);
+        assertCardIds(2, 4);
+        assertSame(before.get(1), getCard(0));
+        assertSame(before.get(3), getCard(1));
+
+        reset();
+        assertCardIds();
+    }
+
+    @Test
+    public void testResetMovesTabs() {
+        reset(1, 2, 3, 4, 5);
+        List<PropertyModel> before = getCards();
+
+        // Only the last card is out of place.
+        reset(5, 1, 2, 3, 4);
+        assertCardIds(5, 1, 2, 3, 4);
+        assertEquals(1, mMoveCount);
+        for (int i = 0; i < 5; i++) assertSame(before.get((i + 4) % 5), getCard(i));
+
+        // Only one card can stay when the order is reversed.
+        mMoveCount = 0;
+        reset(4, 3, 2, 1, 5);
+        assertCardIds(4, 3, 2, 1, 5);
+        assertEquals(4, mMoveCount);
+    }
+
+    @Test
+    public void testResetMovesAndReplacesTabs() {
+        reset(1, 2, 3, 4);
+        List<PropertyModel> before = getCards();
+
+        reset(3, 5, 1, 4);
+        assertCardIds(3, 5, 1, 4);
+        assertSame(before.get(2), getCard(0));
+        assertSame(before.get(0), getCard(2));
+        assertSame(before.get(3), getCard(3));
+        assertEquals(1, mMoveCount);
+    }
+
+    @Test
+    public void testResetUpdatesSelection() {
+        when(mTabModelSelector.getCurrentTabId()).thenReturn(1);
+        reset(1, 2, 3);
+        assertTrue(getCard(0).get(TabProperties.IS_SELECTED));
+        assertFalse(getCard(2).get(TabProperties.IS_SELECTED));
+
+        when(mTabModelSelector.getCurrentTabId()).thenReturn(3);
+        reset(3, 2, 1);
+        assertTrue(getCard(0).get(TabProperties.IS_SELECTED));
+        assertFalse(getCard(2).get(TabProperties.IS_SELECTED));
+
+        // The same tabs in the same order only have their cards updated.
+        when(mTabModelSelector.getCurrentTabId()).thenReturn(2);
+        reset(3, 2, 1);
+        assertFalse(getCard(0).get(TabProperties.IS_SELECTED));
+        assertTrue(getCard(1).get(TabProperties.IS_SELECTED));
+    }
+
+    @Test
+    public void testRestoredTabsUpgradeCardsOfSameTabs() {
+        mProvidedSelectionDelegate = mSelectionDelegate;
+        resetWithPreNativeTabs(1, 2);
+        PropertyModel card = getCard(0);
+        assertNull(card.get(TabProperties.TAB_SELECTION_DELEGATE));
+        assertNull(card.get(TabProperties.TAB_CLOSED_LISTENER));
+
+        reset(1, 2);
+        assertSame(card, getCard(0));
+        assertSame(mSelectionDelegate, card.get(TabProperties.TAB_SELECTION_DELEGATE));
+        assertNotNull(card.get(TabProperties.TAB_CLOSED_LISTENER));
+        verify(mTabs.get(1)).addObserver(any(TabObserver.class));
+        verify(mTabs.get(2)).addObserver(any(TabObserver.class));
+    }
+
+    @Test
+    public void testRestoredTabsUpgradeKeptCards() {
+        mProvidedSelectionDelegate = mSelectionDelegate;
+        resetWithPreNativeTabs(1, 2);
+        PropertyModel card = getCard(0);
+
+        reset(2, 3, 1);
+        assertCardIds(2, 3, 1);
+        assertSame(card, getCard(2));
+        assertSame(mSelectionDelegate, card.get(TabProperties.TAB_SELECTION_DELEGATE));
+        verify(mTabs.get(1)).addObserver(any(TabObserver.class));
+        verify(mTabs.get(2)).addObserver(any(TabObserver.class));
+        assertNotSame(card, getCard(1));
+        assertSame(mSelectionDelegate, getCard(1).get(TabProperties.TAB_SELECTION_DELEGATE));
+    }
+
+    @Test
+    public void testResetTiming() {
+        for (int count : new int[] {50, 500, 2000}) {
+            mModel.set(new ArrayList<>());
+            int[] ids = new int[count];
+            for (int i = 0; i < count; i++) ids[i] = i;
+            reset(ids);
+            mMoveCount = 0;
+
+            // Close every tenth tab, open as many new ones, and move the last tenth to the front.
+            List<Integer> expected = new ArrayList<>();
+            int moved = count / 10;
+            for (int i = count - moved; i < count; i++) {
+                if (i % 10 != 0) expected.add(i);
+            }
+            for (int i = 0; i < count - moved; i++) {
+                if (i % 10 != 0) expected.add(i);
+                if (i % 10 == 5) expected.add(count + i);
+            }
+            int[] newIds = new int[expected.size()];
+            for (int i = 0; i < newIds.length; i++) newIds[i] = expected.get(i);
+
+            long startNs = System.nanoTime();
+            reset(newIds);
+            long elapsedMs = (System.nanoTime() - startNs) / 1000000;
+            Log.i(TAG, "Updated %d cards in %dms.", count, elapsedMs);
+
+            assertCardIds(newIds);
+            assertTrue(mMoveCount <= moved);
+        }
+    }
+
+    private Tab getTab(int id) {
+        Tab tab = mTabs.get(id);
+        if (tab != null) return tab;
+        tab = mock(Tab.class);
+        when(tab.getId()).thenReturn(id);
+        when(tab.isInitialized()).thenReturn(true);
+        when(tab.getTitle()).thenReturn("Tab " + id);
+        mTabs.put(id, tab);
+        return tab;
+    }
+
+    private void reset(int... ids) {
+        List<PseudoTab> tabs = new ArrayList<>();
+        for (int id : ids) tabs.add(PseudoTab.fromTab(getTab(id)));
+        mMediator.resetWithListOfTabs(tabs, false, false);
+    }
+
+    private void resetWithPreNativeTabs(int... ids) {
+        List<PseudoTab> tabs = new ArrayList<>();
+        for (int id : ids) tabs.add(PseudoTab.fromTabId(id));
+        mMediator.resetWithListOfTabs(tabs, false, false);
+    }
+
+    private PropertyModel getCard(int index) {
+        return mModel.get(index).model;
+    }
+
+    private List<PropertyModel> getCards() {
+        List<PropertyModel> cards = new ArrayList<>();
+        for (int i = 0; i < mModel.size(); i++) cards.add(getCard(i));
+        return cards;
+    }
+
+    private void assertCardIds(int... ids) {
+        assertEquals(ids.length, mModel.size());
+        for (int i = 0; i < ids.length; i++) {
+            assertEquals(ids[i], getCard(i).get(TabProperties.TAB_ID));
+        }
+    }
+}
@@ -0,0 +1,198 @@
+// Copyright 2025 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.chrome.browser.tasks.tab_management;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import android.graphics.Bitmap;
+import android.os.SystemClock;
+import android.util.Size;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.annotation.Config;
+
+import org.chromium.base.Callback;
+import org.chromium.base.MemoryPressureLevel;
+import org.chromium.base.MemoryPressureListener;
+import org.chromium.base.test.BaseRobolectricTestRunner;
+import org.chromium.chrome.browser.tasks.tab_management.TabThumbnailCache.LookupResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** Unit tests for {@link TabThumbnailCache}. */
+@RunWith(BaseRobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class TabThumbnailCacheUnitTest {
+    private static final int WIDTH = 16;
+    private static final int HEIGHT = 12;
+    private static final Size SIZE = new Size(WIDTH, HEIGHT);
+    private static final int BITMAP_BYTES = WIDTH * HEIGHT * 4;
+    private static final int DOWNSAMPLED_BYTES = BITMAP_BYTES / 4;
+    /** The full resolution tier holds three thumbnails, the downsampled tier four. */
+    private static final long BUDGET_BYTES = 4 * BITMAP_BYTES;
+
+    /** Answers requests with a new bitmap when told to. */
+    private static class FakeSource implements TabListMediator.ThumbnailProvider {
+        final List<Callback<Bitmap>> mCallbacks = new ArrayList<>();
+
+        @Override
+        public void getTabThumbnailWithCallback(int tabId, Size thumbnailSize,
+                Callback<Bitmap> callback, boolean forceUpdate, boolean writeToCache) {
+            mCallbacks.add(callback);
+        }
+
+        Bitmap answer() {
+            Bitmap bitmap = Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888);
+            mCallbacks.remove(0).onResult(bitmap);
+            return bitmap;
+        }
+    }
+
+    private final FakeSource mSource = new FakeSource();
+    private final List<Bitmap> mResults = new ArrayList<>();
+    private TabThumbnailCache mCache;
+
+    @Before
+    public void setUp() {
+        mCache = new TabThumbnailCache(mSource, BUDGET_BYTES);
+    }
+
+    @After
+    public void tearDown() {
+        mCache.destroy();
+    }
+
+    @Test
+    public void testMissThenHit() {
+        Bitmap bitmap = fetch(1);
+        assertEquals(1, mCache.getLookupCountForTesting(LookupResult.MISS));
+        assertSame(bitmap, mResults.get(0));
+
+        lookUp(1);
+        assertEquals(1, mCache.getLookupCountForTesting(LookupResult.HIT));
+        assertEquals(0, mSource.mCallbacks.size());
+        assertSame(bitmap, mResults.get(1));
+        assertEquals(BITMAP_BYTES, mCache.getSizeBytesForTesting());
+    }
+
+    @Test
+    public void testOtherSizeIsNotHit() {
+        fetch(1);
+
+        mCache.getTabThumbnailWithCallback(
+                1, new Size(WIDTH * 2, HEIGHT * 2), mResults::add, false, false);
+        assertEquals(0, mCache.getLookupCountForTesting(LookupResult.HIT));
+        assertEquals(2, mCache.getLookupCountForTesting(LookupResult.MISS));
+        assertEquals(1, mSource.mCallbacks.size());
+    }
+
+    @Test
+    public void testForcedUpdateSkipsCache() {
+        fetch(1);
+
+        mCache.getTabThumbnailWithCallback(1, SIZE, mResults::add, true, false);
+        assertEquals(1, mCache.getLookupCountForTesting(LookupResult.FORCED_UPDATE));
+        assertEquals(1, mResults.size());
+        Bitmap updated = mSource.answer();
+
+        lookUp(1);
+        assertSame(updated, mResults.get(2));
+    }
+
+    @Test
+    public void testEvictedThumbnailIsDownsampled() {
+        Bitmap oldest = fetch(1);
+        fetch(2);
+        fetch(3);
+        fetch(4);
+        assertEquals(3 * BITMAP_BYTES + DOWNSAMPLED_BYTES, mCache.getSizeBytesForTesting());
+
+        lookUp(1);
+        assertEquals(1, mCache.getLookupCountForTesting(LookupResult.DOWNSAMPLED_HIT));
+        Bitmap placeholder = mResults.get(mResults.size() - 1);
+        assertNotSame(oldest, placeholder);
+        assertEquals(WIDTH / 2, placeholder.getWidth());
+        assertEquals(HEIGHT / 2, placeholder.getHeight());
+
+        // The full resolution thumbnail follows the placeholder, and replaces it in the cache.
+        Bitmap full = mSource.answer();
+        assertSame(full, mResults.get(mResults.size() - 1));
+        lookUp(1);
+        assertEquals(1, mCache.getLookupCountForTesting(LookupResult.HIT));
+    }
+
+    @Test
+    public void testModerateMemoryPressureDownsamplesHalf() {
+        fetch(1);
+        fetch(2);
+        fetch(3);
+
+        MemoryPressureListener.notifyMemoryPressure(MemoryPressureLevel.MODERATE);
+        assertEquals(BITMAP_BYTES + 2 * DOWNSAMPLED_BYTES, mCache.getSizeBytesForTesting());
+
+        lookUp(1);
+        lookUp(3);
+        assertEquals(1, mCache.getLookupCountForTesting(LookupResult.DOWNSAMPLED_HIT));
+        assertEquals(1, mCache.getLookupCountForTesting(LookupResult.HIT));
+    }
+
+    @Test
+    public void testCriticalMemoryPressureEmptiesCache() {
+        fetch(1);
+        fetch(2);
+        fetch(3);
+        fetch(4);
+
+        MemoryPressureListener.notifyMemoryPressure(MemoryPressureLevel.CRITICAL);
+        assertEquals(0, mCache.getSizeBytesForTesting());
+
+        lookUp(1);
+        assertEquals(5, mCache.getLookupCountForTesting(LookupResult.MISS));
+    }
+
+    @Test
+    public void testInvalidate() {
+        fetch(1);
+        fetch(2);
+        fetch(3);
+        fetch(4);
+
+        mCache.invalidate(1);
+        mCache.invalidate(4);
+        assertEquals(2 * BITMAP_BYTES, mCache.getSizeBytesForTesting());
+
+        lookUp(1);
+        lookUp(4);
+        assertEquals(6, mCache.getLookupCountForTesting(LookupResult.MISS));
+    }
+
+    @Test
+    public void testAverageFetchTime() {
+        lookUp(1);
+        SystemClock.sleep(10);
+        mSource.answer();
+        lookUp(2);
+        SystemClock.sleep(30);
+        mSource.answer();
+
+        assertEquals(20, mCache.getAverageFetchTimeMsForTesting());
+    }
+
+    /** Looks up a thumbnail that is not cached and lets the source deliver it. */
+    private Bitmap fetch(int tabId) {
+        lookUp(tabId);
+        return mSource.answer();
+    }
+
+    private void lookUp(int tabId) {
+        mCache.getTabThumbnailWithCallback(tabId, SIZE, mResults::add, false, false);
+    }
+}
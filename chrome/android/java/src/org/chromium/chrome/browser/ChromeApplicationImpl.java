@@ -12,6 +12,8 @@ import android.os.Bundle;
 import androidx.annotation.Nullable;
 
 import org.chromium.base.ApplicationStatus;
+import org.chromium.base.DiscardableReferencePool;
+import org.chromium.base.MemoryPressureLevel;
 import org.chromium.base.library_loader.LibraryLoader;
 import org.chromium.chrome.browser.app.notifications.ContextualNotificationPermissionRequesterImpl;
 import org.chromium.chrome.browser.background_task_scheduler.ChromeBackgroundTaskFactory;
@@ -99,9 +101,15 @@ public class ChromeApplicationImpl extends SplitCompatApplication.Impl {
     @Override
     public void onTrimMemory(int level) {
         super.onTrimMemory(level);
-        if (isSevereMemorySignal(level)
-                && GlobalDiscardableReferencePool.getReferencePool() != null) {
-            GlobalDiscardableReferencePool.getReferencePool().drain();
+        // Moderate signals only trim cached images down to the pool's budget; severe signals drop
+        // all of them.
+        DiscardableReferencePool pool = GlobalDiscardableReferencePool.getReferencePool();
+        if (pool != null) {
+            if (isSevereMemorySignal(level)) {
+                pool.onMemoryPressure(MemoryPressureLevel.CRITICAL);
+            } else if (isModerateMemorySignal(level)) {
+                pool.onMemoryPressure(MemoryPressureLevel.MODERATE);
+            }
         }
         CustomTabsConnection.onTrimMemory(level);
     }
@@ -149,6 +157,13 @@ public class ChromeApplicationImpl extends SplitCompatApplication.Impl {
                 || level >= Application.TRIM_MEMORY_MODERATE;
     }
 
+    private static boolean isModerateMemorySignal(int level) {
+        return (level >= Application.TRIM_MEMORY_RUNNING_MODERATE
+                       && level < Application.TRIM_MEMORY_RUNNING_LOW)
+                || (level >= Application.TRIM_MEMORY_BACKGROUND
+                        && level < Application.TRIM_MEMORY_MODERATE);
+    }
+
     /** Returns the application-scoped component. */
     public static ChromeAppComponent getComponent() {
         if (sComponent == null) {
@@ -821,7 +821,7 @@ public class ChromeTabbedActivity extends ChromeActivity<ChromeActivityComponent
             mUndoBarPopupController.initialize();
 
             if (mWikiController == null) {
-                mWikiController = new WikiController(this);
+                mWikiController = new WikiController(this, mSavedInstanceStateSupplier.get());
                 mWikiController.addObserver(
                         isRunning -> getToolbarManager().setWikiAssistantActive(isRunning));
             }
@@ -2655,6 +2655,7 @@ public class ChromeTabbedActivity extends ChromeActivity<ChromeActivityComponent
             AndroidSessionDurationsServiceState.serializeFromNative(
                     outState, getCurrentTabModel().getProfile());
         }
+        if (mWikiController != null) mWikiController.onSaveInstanceState(outState);
     }
 
     @Override
@@ -2731,6 +2732,8 @@ public class ChromeTabbedActivity extends ChromeActivity<ChromeActivityComponent
         mAppLaunchDrawBlocker.destroy();
 
         if (mWikiController != null) {
+            // A recreated activity picks the session up again, a finishing one ends it.
+            if (isFinishing()) mWikiController.endSession();
             mWikiController.destroy();
             mWikiController = null;
         }
@@ -6,24 +6,74 @@ package org.chromium.chrome.browser;
 
 import android.os.Handler;
 import android.os.Looper;
+import android.os.SystemClock;
+
+import androidx.annotation.IntDef;
+import androidx.annotation.VisibleForTesting;
 
 import org.chromium.base.ThreadUtils;
+import org.chromium.base.TraceEvent;
+import org.chromium.base.task.PostTask;
+import org.chromium.base.task.TaskTraits;
+import org.chromium.content_public.browser.UiThreadTaskTraits;
 
-import java.util.LinkedList;
-import java.util.Queue;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.ArrayDeque;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
 /**
  * Handler for application level tasks to be completed on deferred startup.
+ *
+ * Tasks are run in priority order, FIFO within a priority. Every time the UI thread goes idle the
+ * handler runs as many tasks as fit in {@link #IDLE_SLOT_BUDGET_MS}, and at least one, before
+ * yielding back to the Looper. Tasks added with {@link #addBackgroundSafeDeferredTask} are handed
+ * to the thread pool instead of running on the UI thread when their turn comes.
  */
 public class DeferredStartupHandler {
+    /** Priority classes for deferred tasks, from most to least urgent. */
+    @IntDef({Priority.HIGH, Priority.NORMAL, Priority.LOW})
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface Priority {
+        int HIGH = 0;
+        int NORMAL = 1;
+        int LOW = 2;
+        int NUM_ENTRIES = 3;
+    }
+
+    /**
+     * How long deferred tasks may keep the UI thread busy per idle slot. Half a 60Hz frame, so an
+     * idle slot never costs a frame on its own.
+     */
+    @VisibleForTesting
+    static final long IDLE_SLOT_BUDGET_MS = 8;
+
+    private static final String TRACE_EVENT_NAME = "DeferredStartupHandler.runTask";
+
     private static DeferredStartupHandler sInstance;
 
-    private final Queue<Runnable> mDeferredTasks = new LinkedList<>();
+    @SuppressWarnings("unchecked")
+    private final ArrayDeque<DeferredTask>[] mDeferredTasks = new ArrayDeque[Priority.NUM_ENTRIES];
 
+    private int mPendingBackgroundTasks;
     private CountDownLatch mLatchForTesting;
 
+    private static class DeferredTask {
+        final Runnable mRunnable;
+        final boolean mBackgroundSafe;
+
+        DeferredTask(Runnable runnable, boolean backgroundSafe) {
+            mRunnable = runnable;
+            mBackgroundSafe = backgroundSafe;
+        }
+
+        /** @return A name for trace events; lambdas only have their synthetic class name. */
+        String getName() {
+            return mRunnable.getClass().getName();
+        }
+    }
+
     /**
      * This class is an application specific object that handles the deferred startup.
      * @return The singleton instance of {@link DeferredStartupHandler}.
@@ -38,7 +88,9 @@ public class DeferredStartupHandler {
         sInstance = handler;
     }
 
-    protected DeferredStartupHandler() {}
+    protected DeferredStartupHandler() {
+        for (int i = 0; i < Priority.NUM_ENTRIES; i++) mDeferredTasks[i] = new ArrayDeque<>();
+    }
 
     /**
      * Add the idle handler which will run deferred startup tasks in sequence when idle. This can
@@ -49,11 +101,9 @@ public class DeferredStartupHandler {
         ThreadUtils.assertOnUiThread();
         // Adding multiple IdleHandlers is okay - they'll remove themselves once the queue is empty.
         Looper.myQueue().addIdleHandler(() -> {
-            Runnable currentTask = mDeferredTasks.poll();
-            if (currentTask != null) currentTask.run();
-            if (mDeferredTasks.isEmpty()) {
-                if (mLatchForTesting != null) mLatchForTesting.countDown();
-                if (sInstance == DeferredStartupHandler.this) sInstance = null;
+            runTasksForIdleSlot();
+            if (isQueueEmpty()) {
+                maybeSignalComplete();
                 return false;
             }
             // Pump the queue so we get called back if the queue is still idle.
@@ -65,14 +115,95 @@ public class DeferredStartupHandler {
     }
 
     /**
-     * Adds a single deferred task to the queue. The caller is responsible for calling
-     * queueDeferredTasksOnIdleHandler after adding tasks.
+     * Adds a single deferred task to the queue with {@link Priority#NORMAL}. The caller is
+     * responsible for calling queueDeferredTasksOnIdleHandler after adding tasks.
      *
      * @param deferredTask The tasks to be run.
      */
     public void addDeferredTask(Runnable deferredTask) {
+        addDeferredTask(deferredTask, Priority.NORMAL);
+    }
+
+    /**
+     * Adds a single deferred task to the queue. The caller is responsible for calling
+     * queueDeferredTasksOnIdleHandler after adding tasks.
+     *
+     * @param deferredTask The tasks to be run on the UI thread.
+     * @param priority The priority class the task is run in.
+     */
+    public void addDeferredTask(Runnable deferredTask, @Priority int priority) {
         ThreadUtils.assertOnUiThread();
-        mDeferredTasks.add(deferredTask);
+        mDeferredTasks[priority].add(new DeferredTask(deferredTask, false));
+    }
+
+    /**
+     * Adds a deferred task that does not need the UI thread. It is still started in priority order
+     * once startup is idle, but runs on the thread pool so it does not use up the idle budget.
+     *
+     * @param deferredTask The task to be run on a background thread.
+     * @param priority The priority class the task is dispatched in.
+     */
+    public void addBackgroundSafeDeferredTask(Runnable deferredTask, @Priority int priority) {
+        ThreadUtils.assertOnUiThread();
+        mDeferredTasks[priority].add(new DeferredTask(deferredTask, true));
+    }
+
+    private void runTasksForIdleSlot() {
+        long deadline = SystemClock.uptimeMillis() + IDLE_SLOT_BUDGET_MS;
+        DeferredTask task;
+        while ((task = pollNextTask()) != null) {
+            if (task.mBackgroundSafe) {
+                postBackgroundTask(task);
+                continue;
+            }
+            runTask(task);
+            if (SystemClock.uptimeMillis() >= deadline) return;
+        }
+    }
+
+    private DeferredTask pollNextTask() {
+        for (ArrayDeque<DeferredTask> queue : mDeferredTasks) {
+            DeferredTask task = queue.poll();
+            if (task != null) return task;
+        }
+        return null;
+    }
+
+    private boolean isQueueEmpty() {
+        for (ArrayDeque<DeferredTask> queue : mDeferredTasks) {
+            if (!queue.isEmpty()) return false;
+        }
+        return true;
+    }
+
+    private static void runTask(DeferredTask task) {
+        String name = task.getName();
+        TraceEvent.begin(TRACE_EVENT_NAME, name);
+        try {
+            task.mRunnable.run();
+        } finally {
+            TraceEvent.end(TRACE_EVENT_NAME, name);
+        }
+    }
+
+    private void postBackgroundTask(DeferredTask task) {
+        mPendingBackgroundTasks++;
+        PostTask.postTask(TaskTraits.BEST_EFFORT_MAY_BLOCK, () -> {
+            try {
+                runTask(task);
+            } finally {
+                PostTask.postTask(UiThreadTaskTraits.DEFAULT, () -> {
+                    mPendingBackgroundTasks--;
+                    if (isQueueEmpty()) maybeSignalComplete();
+                });
+            }
+        });
+    }
+
+    private void maybeSignalComplete() {
+        if (mPendingBackgroundTasks > 0) return;
+        if (mLatchForTesting != null) mLatchForTesting.countDown();
+        if (sInstance == DeferredStartupHandler.this) sInstance = null;
     }
 
     /**
@@ -14,6 +14,7 @@ import androidx.annotation.Nullable;
 
 import org.chromium.base.ThreadUtils;
 import org.chromium.base.TraceEvent;
+import org.chromium.base.UserDataHost;
 import org.chromium.base.metrics.RecordUserAction;
 import org.chromium.base.task.PostTask;
 import org.chromium.chrome.R;
@@ -39,7 +40,8 @@ import org.chromium.base.ContextUtils;
  */
 public class SwipeRefreshHandler
         extends TabWebContentsUserData implements OverscrollRefreshHandler {
-    private static final Class<SwipeRefreshHandler> USER_DATA_KEY = SwipeRefreshHandler.class;
+    private static final UserDataHost.Key<SwipeRefreshHandler> USER_DATA_KEY =
+            UserDataHost.Key.of(SwipeRefreshHandler.class);
 
     // Synthetic delay between the {@link #didStopRefreshing()} signal and the
     // call to stop the refresh animation.
@@ -43,6 +43,7 @@ import org.chromium.base.Callback;
 import org.chromium.base.CommandLine;
 import org.chromium.base.ContextUtils;
 import org.chromium.base.Log;
+import org.chromium.base.LooperLongTaskSampler;
 import org.chromium.base.PowerMonitor;
 import org.chromium.base.StrictModeContext;
 import org.chromium.base.SysUtils;
@@ -1360,21 +1361,32 @@ public abstract class ChromeActivity<C extends ChromeActivityComponent>
             }
 
             recordDisplayDimensions();
-            int playServicesVersion = PlayServicesVersionInfo.getApkVersionNumber(this);
+            FontSizePrefs.getInstance(Profile.getLastUsedRegularProfile())
+                    .recordUserFontPrefOnStartup();
+        });
+
+        // Looking up the Play Services package is a binder call to the package manager, so keep
+        // it off the UI thread.
+        DeferredStartupHandler.getInstance().addBackgroundSafeDeferredTask(() -> {
+            int playServicesVersion = PlayServicesVersionInfo.getApkVersionNumber(
+                    ContextUtils.getApplicationContext());
             RecordHistogram.recordBooleanHistogram(
                     "Android.PlayServices.Installed", playServicesVersion > 0);
             RecordHistogram.recordSparseHistogram(
                     "Android.PlayServices.Version", playServicesVersion);
-
-            FontSizePrefs.getInstance(Profile.getLastUsedRegularProfile())
-                    .recordUserFontPrefOnStartup();
-        });
+        }, DeferredStartupHandler.Priority.NORMAL);
 
         DeferredStartupHandler.getInstance().addDeferredTask(() -> {
             if (isActivityFinishingOrDestroyed()) return;
             ForcedSigninProcessor.checkCanSignIn(ChromeActivity.this);
         });
 
+        // If asked to on the command line, keep an eye on UI thread jank for the rest of the
+        // process lifetime, including the remaining deferred tasks.
+        DeferredStartupHandler.getInstance().addDeferredTask(
+                LooperLongTaskSampler::maybeEnableFromCommandLine,
+                DeferredStartupHandler.Priority.HIGH);
+
         // GSA connection is not needed on low-end devices because Icing is disabled.
         if (!SysUtils.isLowEndDevice()) {
             if (isActivityFinishingOrDestroyed()) return;
@@ -1390,7 +1402,7 @@ public abstract class ChromeActivity<C extends ChromeActivityComponent>
                 }
                 mGSAAccountChangeListener.connect();
                 createContextReporterIfNeeded();
-            });
+            }, DeferredStartupHandler.Priority.LOW);
         }
     }
 
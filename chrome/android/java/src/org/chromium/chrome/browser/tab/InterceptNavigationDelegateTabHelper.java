@@ -5,14 +5,15 @@
 package org.chromium.chrome.browser.tab;
 
 import org.chromium.base.UserData;
+import org.chromium.base.UserDataHost;
 import org.chromium.components.external_intents.InterceptNavigationDelegateImpl;
 
 /**
  * Class that glues InterceptNavigationDelegateImpl objects to Tabs.
  */
 public class InterceptNavigationDelegateTabHelper implements UserData {
-    private static final Class<InterceptNavigationDelegateTabHelper> USER_DATA_KEY =
-            InterceptNavigationDelegateTabHelper.class;
+    private static final UserDataHost.Key<InterceptNavigationDelegateTabHelper> USER_DATA_KEY =
+            UserDataHost.Key.of(InterceptNavigationDelegateTabHelper.class);
 
     private final InterceptNavigationDelegateImpl mInterceptNavigationDelegate;
     private final InterceptNavigationDelegateClientImpl mInterceptNavigationDelegateClient;
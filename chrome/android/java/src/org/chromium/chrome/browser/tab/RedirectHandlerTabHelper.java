@@ -22,8 +22,8 @@ import org.chromium.ui.base.WindowAndroid;
  * This class glues RedirectHandler instances to Tabs.
  */
 public class RedirectHandlerTabHelper extends EmptyTabObserver implements UserData {
-    private static final Class<RedirectHandlerTabHelper> USER_DATA_KEY =
-            RedirectHandlerTabHelper.class;
+    private static final UserDataHost.Key<RedirectHandlerTabHelper> USER_DATA_KEY =
+            UserDataHost.Key.of(RedirectHandlerTabHelper.class);
 
     private Tab mTab;
     private RedirectHandler mRedirectHandler;
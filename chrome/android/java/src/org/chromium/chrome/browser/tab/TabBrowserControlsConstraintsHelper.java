@@ -9,6 +9,7 @@ import androidx.annotation.VisibleForTesting;
 
 import org.chromium.base.Callback;
 import org.chromium.base.UserData;
+import org.chromium.base.UserDataHost;
 import org.chromium.base.annotations.NativeMethods;
 import org.chromium.cc.input.BrowserControlsState;
 import org.chromium.components.browser_ui.util.BrowserControlsVisibilityDelegate;
@@ -20,8 +21,8 @@ import org.chromium.ui.base.WindowAndroid;
  * Manages the state of tab browser controls.
  */
 public class TabBrowserControlsConstraintsHelper implements UserData {
-    private static final Class<TabBrowserControlsConstraintsHelper> USER_DATA_KEY =
-            TabBrowserControlsConstraintsHelper.class;
+    private static final UserDataHost.Key<TabBrowserControlsConstraintsHelper> USER_DATA_KEY =
+            UserDataHost.Key.of(TabBrowserControlsConstraintsHelper.class);
 
     private final TabImpl mTab;
     private final Callback<Integer> mConstraintsChangedCallback;
@@ -9,14 +9,15 @@ import androidx.annotation.Nullable;
 
 import org.chromium.base.ObserverList.RewindableIterator;
 import org.chromium.base.UserData;
+import org.chromium.base.UserDataHost;
 import org.chromium.ui.base.WindowAndroid;
 
 /**
  * Helper that coordinates the browser controls offsets from the perspective of a particular Tab.
  */
 public class TabBrowserControlsOffsetHelper extends EmptyTabObserver implements UserData {
-    private static final Class<TabBrowserControlsOffsetHelper> USER_DATA_KEY =
-            TabBrowserControlsOffsetHelper.class;
+    private static final UserDataHost.Key<TabBrowserControlsOffsetHelper> USER_DATA_KEY =
+            UserDataHost.Key.of(TabBrowserControlsOffsetHelper.class);
 
     private TabImpl mTab;
 
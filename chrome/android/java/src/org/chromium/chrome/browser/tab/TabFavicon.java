@@ -8,6 +8,7 @@ import android.content.res.Resources;
 import android.graphics.Bitmap;
 
 import org.chromium.base.ObserverList.RewindableIterator;
+import org.chromium.base.UserDataHost;
 import org.chromium.base.annotations.CalledByNative;
 import org.chromium.base.annotations.NativeMethods;
 import org.chromium.chrome.R;
@@ -19,7 +20,8 @@ import org.chromium.url.GURL;
  * Fetches a favicon for active WebContents in a Tab.
  */
 public class TabFavicon extends TabWebContentsUserData {
-    private static final Class<TabFavicon> USER_DATA_KEY = TabFavicon.class;
+    private static final UserDataHost.Key<TabFavicon> USER_DATA_KEY =
+            UserDataHost.Key.of(TabFavicon.class);
 
     private final TabImpl mTab;
     private final long mNativeTabFavicon;
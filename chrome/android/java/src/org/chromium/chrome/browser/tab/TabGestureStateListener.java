@@ -5,6 +5,7 @@
 package org.chromium.chrome.browser.tab;
 
 import org.chromium.base.ObserverList.RewindableIterator;
+import org.chromium.base.UserDataHost;
 import org.chromium.content_public.browser.GestureListenerManager;
 import org.chromium.content_public.browser.GestureStateListener;
 import org.chromium.content_public.browser.WebContents;
@@ -15,8 +16,8 @@ import org.chromium.content_public.browser.WebContents;
  * UserData for the Tab, with WebContents updated as the active one changes over time.
  */
 public final class TabGestureStateListener extends TabWebContentsUserData {
-    private static final Class<TabGestureStateListener> USER_DATA_KEY =
-            TabGestureStateListener.class;
+    private static final UserDataHost.Key<TabGestureStateListener> USER_DATA_KEY =
+            UserDataHost.Key.of(TabGestureStateListener.class);
 
     private final Tab mTab;
     private GestureStateListener mGestureListener;
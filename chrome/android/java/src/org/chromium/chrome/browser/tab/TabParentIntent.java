@@ -15,7 +15,8 @@ import org.chromium.base.supplier.Supplier;
  * from which the associated tab was opened.
  */
 public final class TabParentIntent extends EmptyTabObserver implements UserData {
-    private static final Class<TabParentIntent> USER_DATA_KEY = TabParentIntent.class;
+    private static final UserDataHost.Key<TabParentIntent> USER_DATA_KEY =
+            UserDataHost.Key.of(TabParentIntent.class);
 
     private final Tab mTab;
 
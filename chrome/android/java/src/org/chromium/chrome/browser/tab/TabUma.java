@@ -10,6 +10,7 @@ import android.text.format.DateUtils;
 import androidx.annotation.Nullable;
 
 import org.chromium.base.UserData;
+import org.chromium.base.UserDataHost;
 import org.chromium.base.metrics.RecordHistogram;
 import org.chromium.chrome.browser.tab.state.CriticalPersistedTabData;
 import org.chromium.chrome.browser.tabmodel.TabModelSelector;
@@ -24,7 +25,7 @@ import org.chromium.url.GURL;
  * All calls must be made from the UI thread.
  */
 public class TabUma extends EmptyTabObserver implements UserData {
-    private static final Class<TabUma> USER_DATA_KEY = TabUma.class;
+    private static final UserDataHost.Key<TabUma> USER_DATA_KEY = UserDataHost.Key.of(TabUma.class);
 
     // TabStatus defined in tools/metrics/histograms/histograms.xml.
     static final int TAB_STATUS_MEMORY_RESIDENT = 0;
@@ -16,6 +16,7 @@ import org.chromium.base.ContextUtils;
 import org.chromium.base.Log;
 import org.chromium.base.ObserverList;
 import org.chromium.base.ObserverList.RewindableIterator;
+import org.chromium.base.UserDataHost;
 import org.chromium.base.metrics.RecordHistogram;
 import org.chromium.chrome.R;
 import org.chromium.chrome.browser.AppHooks;
@@ -46,7 +47,8 @@ public class TabWebContentsObserver extends TabWebContentsUserData {
     // URL didFailLoad error code. Should match the value in net_error_list.h.
     public static final int BLOCKED_BY_ADMINISTRATOR = -22;
 
-    private static final Class<TabWebContentsObserver> USER_DATA_KEY = TabWebContentsObserver.class;
+    private static final UserDataHost.Key<TabWebContentsObserver> USER_DATA_KEY =
+            UserDataHost.Key.of(TabWebContentsObserver.class);
 
     /** Used for logging. */
     private static final String TAG = "TabWebContentsObs";
@@ -0,0 +1,141 @@
+// Copyright 2025 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.chrome.browser.wiki;
+
+import org.chromium.base.supplier.Supplier;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+
+/**
+ * Decorator that answers {@link #plan} from a {@link WikiModelResponseCache}. Observations may be
+ * deltas against the previous one, so the key chains every observation of the run rather than only
+ * the latest. Cached responses replay their streamed text as a single token. Runs that touched
+ * incognito content bypass the cache, so none of it reaches the disk tier or other sessions.
+ */
+class CachingWikiAgentBackend implements WikiAgentBackend {
+    private final WikiAgentBackend mDelegate;
+    private final WikiModelResponseCache mCache;
+    private final String mModelSettings;
+    private final Supplier<Boolean> mOffTheRecordSupplier;
+    private WikiRunTimeline mTimeline;
+    private byte[] mObservationChain;
+    private volatile boolean mCancelled;
+
+    /**
+     * @param delegate Backend that talks to the model.
+     * @param cache Cache shared with other sessions.
+     * @param modelSettings Identifies the model and its sampling settings. Responses are only
+     *         shared between backends with equal settings.
+     * @param offTheRecordSupplier Whether the current run has seen incognito content.
+     */
+    CachingWikiAgentBackend(WikiAgentBackend delegate, WikiModelResponseCache cache,
+            String modelSettings, Supplier<Boolean> offTheRecordSupplier) {
+        mDelegate = delegate;
+        mCache = cache;
+        mModelSettings = modelSettings;
+        mOffTheRecordSupplier = offTheRecordSupplier;
+    }
+
+    @Override
+    public void onRunStarted(WikiRunTimeline timeline) {
+        mTimeline = timeline;
+        mObservationChain = null;
+        mDelegate.onRunStarted(timeline);
+    }
+
+    @Override
+    public String observe() {
+        return mDelegate.observe();
+    }
+
+    @Override
+    public WikiAgentStep plan(String task, String observation, List<String> history,
+            TokenSink sink) throws IOException {
+        mCancelled = false;
+        MessageDigest digest = newDigest();
+        if (mObservationChain != null) digest.update(mObservationChain);
+        update(digest, observation);
+        mObservationChain = digest.digest();
+        if (mOffTheRecordSupplier.get()) return load(task, observation, history, sink).mStep;
+
+        digest.update(mObservationChain);
+        update(digest, mModelSettings);
+        update(digest, task);
+        for (String outcome : history) update(digest, outcome);
+        String key = toHex(digest.digest());
+
+        boolean[] loaded = new boolean[1];
+        WikiModelResponseCache.Entry entry = mCache.get(key, () -> {
+            loaded[0] = true;
+            return load(task, observation, history, sink);
+        }, () -> mCancelled);
+
+        if (!loaded[0] && !entry.mStreamedText.isEmpty()) sink.onToken(entry.mStreamedText);
+        return entry.mStep;
+    }
+
+    /** Asks the model, forwarding its tokens to {@code sink}. */
+    private WikiModelResponseCache.Entry load(String task, String observation,
+            List<String> history, TokenSink sink) throws IOException {
+        StringBuilder streamed = new StringBuilder();
+        WikiAgentStep step;
+        mTimeline.beginModelRoundTrip();
+        try {
+            step = mDelegate.plan(task, observation, history, delta -> {
+                streamed.append(delta);
+                sink.onToken(delta);
+            });
+        } finally {
+            mTimeline.endModelRoundTrip();
+        }
+        return new WikiModelResponseCache.Entry(streamed.toString(), step);
+    }
+
+    @Override
+    public String act(WikiAgentStep step) throws IOException {
+        return mDelegate.act(step);
+    }
+
+    @Override
+    public void settle() throws IOException {
+        mDelegate.settle();
+    }
+
+    @Override
+    public void cancel() {
+        mCancelled = true;
+        mDelegate.cancel();
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Length-prefixes {@code value} so adjacent fields cannot run into each other. */
+    private static void update(MessageDigest digest, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int length = bytes.length;
+        digest.update(new byte[] {(byte) (length >>> 24), (byte) (length >>> 16),
+                (byte) (length >>> 8), (byte) length});
+        digest.update(bytes);
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16));
+            hex.append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
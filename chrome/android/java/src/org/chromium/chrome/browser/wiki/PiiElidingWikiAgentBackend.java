@@ -0,0 +1,58 @@
+// Copyright 2025 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.chrome.browser.wiki;
+
+import org.chromium.base.SinglePassPiiElider;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decorator that scrubs emails, URLs, IP and MAC addresses from everything sent to the model. It
+ * runs on the automation sequence as part of the plan phase, so large page observations are
+ * elided off the UI thread.
+ */
+class PiiElidingWikiAgentBackend implements WikiAgentBackend {
+    private final WikiAgentBackend mDelegate;
+
+    PiiElidingWikiAgentBackend(WikiAgentBackend delegate) {
+        mDelegate = delegate;
+    }
+
+    @Override
+    public void onRunStarted(WikiRunTimeline timeline) {
+        mDelegate.onRunStarted(timeline);
+    }
+
+    @Override
+    public String observe() {
+        return mDelegate.observe();
+    }
+
+    @Override
+    public WikiAgentStep plan(String task, String observation, List<String> history,
+            TokenSink sink) throws IOException {
+        List<String> elidedHistory = new ArrayList<>(history.size());
+        for (String outcome : history) elidedHistory.add(SinglePassPiiElider.elide(outcome));
+        return mDelegate.plan(SinglePassPiiElider.elide(task),
+                SinglePassPiiElider.elide(observation), elidedHistory, sink);
+    }
+
+    @Override
+    public String act(WikiAgentStep step) throws IOException {
+        return mDelegate.act(step);
+    }
+
+    @Override
+    public void settle() throws IOException {
+        mDelegate.settle();
+    }
+
+    @Override
+    public void cancel() {
+        mDelegate.cancel();
+    }
+}
@@ -0,0 +1,99 @@
+// Copyright 2025 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.chrome.browser.wiki;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Backend that replays a scripted plan with token-by-token streaming. Used until a model
+ * transport is wired up so the agent loop, streaming and throttling paths can be exercised. Page
+ * observations are real so their cost can be measured.
+ */
+class SimulatedWikiAgentBackend implements WikiAgentBackend {
+    private static final long TOKEN_DELAY_MS = 40L;
+    private static final long ACTION_DELAY_MS = 1000L;
+    private static final long SETTLE_DELAY_MS = 500L;
+    private static final List<String> STEPS = Arrays.asList(
+            "Analyzing \"%s\" in the active context\u2026",
+            "Composing a deterministic navigation plan\u2026",
+            "Executing scripted page interactions\u2026",
+            "Capturing a verifiable activity log\u2026");
+
+    private final WikiPageObserver mPageObserver;
+    /** Released by {@link #cancel}, which ends the waits of the current run right away. */
+    private volatile CountDownLatch mCancelSignal = new CountDownLatch(1);
+
+    SimulatedWikiAgentBackend(WikiPageObserver pageObserver) {
+        mPageObserver = pageObserver;
+    }
+
+    @Override
+    public void onRunStarted(WikiRunTimeline timeline) {
+        mCancelSignal = new CountDownLatch(1);
+        mPageObserver.reset();
+    }
+
+    @Override
+    public String observe() {
+        return mPageObserver.observe();
+    }
+
+    @Override
+    public WikiAgentStep plan(String task, String observation, List<String> history,
+            TokenSink sink) throws IOException {
+        int stepIndex = history.size();
+        if (stepIndex >= STEPS.size()) {
+            String summary = String.format(Locale.getDefault(),
+                    "Wiki just finished \"%s\" and documented the outcome for review.", task);
+            streamWords(summary, sink);
+            return new WikiAgentStep(
+                    "Automation is complete. Feel free to launch another task.", null, true);
+        }
+
+        String description = String.format(Locale.getDefault(), STEPS.get(stepIndex), task);
+        return new WikiAgentStep(description, "noop", false);
+    }
+
+    @Override
+    public String act(WikiAgentStep step) throws IOException {
+        sleep(ACTION_DELAY_MS);
+        return "done";
+    }
+
+    @Override
+    public void settle() throws IOException {
+        sleep(SETTLE_DELAY_MS);
+    }
+
+    @Override
+    public void cancel() {
+        mCancelSignal.countDown();
+    }
+
+    private void streamWords(String text, TokenSink sink) throws IOException {
+        for (String word : text.split("(?<= )")) {
+            sink.onToken(word);
+            sleep(TOKEN_DELAY_MS);
+        }
+    }
+
+    /** Waits for {@code delayMs}, or until the run is cancelled. */
+    private void sleep(long delayMs) throws IOException {
+        boolean cancelled;
+        try {
+            cancelled = mCancelSignal.await(delayMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+        if (cancelled) throw new InterruptedIOException("Run cancelled.");
+    }
+}
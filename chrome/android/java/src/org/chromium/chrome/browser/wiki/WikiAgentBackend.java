@@ -0,0 +1,52 @@
+// Copyright 2025 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.chrome.browser.wiki;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Model and browser bindings driven by {@link WikiAgentLoopClient}. Every method is invoked on the
+ * automation sequence and may block; implementations hop to the UI thread themselves when they
+ * need to touch tabs.
+ */
+interface WikiAgentBackend {
+    /** Receives incremental model output while a plan is being produced. */
+    interface TokenSink {
+        void onToken(String delta);
+    }
+
+    /**
+     * Called before the first step of a run, so per-run state can be reset.
+     * @param timeline Timeline of the run, for phases the backend can break down further.
+     */
+    void onRunStarted(WikiRunTimeline timeline);
+
+    /** Captures the state of the active page for the next plan phase. */
+    String observe();
+
+    /**
+     * Asks the model for the next step.
+     * @param task The user supplied task.
+     * @param observation Output of the preceding {@link #observe()} call.
+     * @param history Outcomes of the steps already executed during this run, oldest first.
+     * @param sink Receives model tokens as they arrive.
+     * @return The step chosen by the model.
+     */
+    WikiAgentStep plan(String task, String observation, List<String> history,
+            TokenSink sink) throws IOException;
+
+    /**
+     * Executes the action of a non-final step.
+     * @return A short description of the outcome that is fed back into the next plan.
+     */
+    String act(WikiAgentStep step) throws IOException;
+
+    /** Waits for navigations and layout triggered by the preceding {@link #act} to finish. */
+    void settle() throws IOException;
+
+    /** Aborts any in-flight model request. May be called from any thread. */
+    void cancel();
+}
@@ -0,0 +1,202 @@
+// Copyright 2025 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.chrome.browser.wiki;
+
+import android.os.SystemClock;
+
+import androidx.annotation.VisibleForTesting;
+
+import org.chromium.base.Log;
+import org.chromium.base.PathUtils;
+import org.chromium.base.ThreadUtils;
+import org.chromium.base.metrics.RecordHistogram;
+import org.chromium.base.task.PostTask;
+import org.chromium.base.task.SequencedTaskRunner;
+import org.chromium.base.task.TaskTraits;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Production automation client that runs the observe/plan/act loop of the Wiki agent on a
+ * background sequence. Each iteration is posted as its own task so pausing and cancelling take
+ * effect between steps, and observer updates are funneled through a {@link WikiObserverDispatcher}
+ * so the UI thread sees at most one batch of updates per frame. Every run is traced through a
+ * {@link WikiRunTimeline}, and navigations named by a plan are warmed up by a
+ * {@link WikiNavigationPrefetcher} while the plan is still streaming.
+ */
+class WikiAgentLoopClient implements WikiAutomationClient {
+    private static final String TAG = "WikiAgentLoop";
+    @VisibleForTesting
+    static final int MAX_STEPS = 32;
+    private static final String TIMELINE_DIRECTORY = "wiki_timelines";
+
+    private final WikiAgentBackend mBackend;
+    private final WikiNavigationPrefetcher mPrefetcher;
+    private final SequencedTaskRunner mTaskRunner;
+
+    private WikiObserverDispatcher mDispatcher;
+    private boolean mDeliveryThrottled;
+
+    // Run state. Written on the UI thread and read on the automation sequence.
+    private volatile int mRunId;
+    private volatile boolean mPaused;
+
+    // Owned by the automation sequence.
+    private final List<String> mHistory = new ArrayList<>();
+    private String mTask;
+    private boolean mStepPending;
+    private WikiRunTimeline mTimeline;
+
+    WikiAgentLoopClient(WikiAgentBackend backend, WikiNavigationPrefetcher prefetcher) {
+        mBackend = backend;
+        mPrefetcher = prefetcher;
+        mTaskRunner = PostTask.createSequencedTaskRunner(TaskTraits.USER_VISIBLE_MAY_BLOCK);
+    }
+
+    @Override
+    public void startAutomation(String prompt, Observer observer) {
+        ThreadUtils.assertOnUiThread();
+        cancel();
+        final int runId = mRunId;
+        mDispatcher = new WikiObserverDispatcher(observer, mDeliveryThrottled);
+        mPaused = false;
+        final WikiObserverDispatcher dispatcher = mDispatcher;
+        mTaskRunner.postTask(() -> {
+            mTask = prompt;
+            mHistory.clear();
+            mStepPending = false;
+            mTimeline = new WikiRunTimeline(
+                    new File(PathUtils.getDataDirectory(), TIMELINE_DIRECTORY));
+            mBackend.onRunStarted(mTimeline);
+            runStep(runId, dispatcher);
+        });
+    }
+
+    @Override
+    public void pause() {
+        ThreadUtils.assertOnUiThread();
+        mPaused = true;
+    }
+
+    @Override
+    public void resume() {
+        ThreadUtils.assertOnUiThread();
+        if (!mPaused || mDispatcher == null) return;
+        mPaused = false;
+        final int runId = mRunId;
+        final WikiObserverDispatcher dispatcher = mDispatcher;
+        mTaskRunner.postTask(() -> {
+            // Only restart the loop if the step in flight when we paused has already returned.
+            if (mStepPending) runStep(runId, dispatcher);
+        });
+    }
+
+    @Override
+    public void cancel() {
+        ThreadUtils.assertOnUiThread();
+        mRunId++;
+        mPaused = false;
+        mBackend.cancel();
+        mPrefetcher.cancel();
+        mTaskRunner.postTask(() -> finishTimeline(WikiRunTimeline.OUTCOME_CANCELLED));
+        if (mDispatcher != null) {
+            mDispatcher.detach();
+            mDispatcher = null;
+        }
+    }
+
+    @Override
+    public void setDeliveryThrottled(boolean throttled) {
+        ThreadUtils.assertOnUiThread();
+        mDeliveryThrottled = throttled;
+        if (mDispatcher != null) mDispatcher.setThrottled(throttled);
+    }
+
+    @Override
+    public void destroy() {
+        cancel();
+    }
+
+    private void runStep(int runId, WikiObserverDispatcher dispatcher) {
+        mStepPending = false;
+        if (runId != mRunId) return;
+        if (mPaused) {
+            mStepPending = true;
+            return;
+        }
+        if (mHistory.size() >= MAX_STEPS) {
+            finishTimeline(WikiRunTimeline.OUTCOME_STEP_LIMIT);
+            dispatcher.postError("Wiki stopped after " + MAX_STEPS + " steps without finishing.");
+            return;
+        }
+
+        long stepStartMs = SystemClock.elapsedRealtime();
+        WikiRunTimeline timeline = mTimeline;
+        timeline.setStep(mHistory.size());
+        try {
+            timeline.beginPhase(WikiRunTimeline.Phase.OBSERVE);
+            String observation = mBackend.observe();
+            if (runId != mRunId) return;
+
+            timeline.beginPhase(WikiRunTimeline.Phase.PLAN);
+            mPrefetcher.onPlanStarted();
+            WikiAgentStep step = mBackend.plan(mTask, observation, mHistory, delta -> {
+                dispatcher.appendStreamDelta(delta);
+                if (runId == mRunId) mPrefetcher.onPlanToken(delta);
+            });
+            if (runId != mRunId) return;
+            timeline.endPhase();
+            mPrefetcher.onPlanFinished(step);
+            dispatcher.finishStream();
+
+            if (step.isFinal()) {
+                recordStepLatency(stepStartMs);
+                finishTimeline(WikiRunTimeline.OUTCOME_COMPLETED);
+                dispatcher.postCompleted(step.getDescription());
+                return;
+            }
+
+            dispatcher.postStatus(step.getDescription());
+            timeline.beginPhase(WikiRunTimeline.Phase.ACT);
+            String outcome = mBackend.act(step);
+            if (runId != mRunId) return;
+            timeline.beginPhase(WikiRunTimeline.Phase.SETTLE);
+            mBackend.settle();
+            if (runId != mRunId) return;
+            timeline.endPhase();
+            mPrefetcher.onStepFinished();
+            mHistory.add(step.getDescription() + ": " + outcome);
+            recordStepLatency(stepStartMs);
+        } catch (IOException e) {
+            if (runId != mRunId) return;
+            Log.w(TAG, "Automation step failed.", e);
+            finishTimeline(WikiRunTimeline.OUTCOME_FAILED);
+            mPrefetcher.cancel();
+            dispatcher.finishStream();
+            dispatcher.postError(e.getMessage());
+            return;
+        } finally {
+            // Closes the phase a cancelled or failed step was interrupted in.
+            timeline.endPhase();
+        }
+
+        mTaskRunner.postTask(() -> runStep(runId, dispatcher));
+    }
+
+    /** Exports the timeline of the current run, if it has not ended yet. */
+    private void finishTimeline(String outcome) {
+        if (mTimeline == null) return;
+        mTimeline.finish(outcome);
+        mTimeline = null;
+    }
+
+    private static void recordStepLatency(long stepStartMs) {
+        RecordHistogram.recordMediumTimesHistogram(
+                "Android.Wiki.Automation.StepLatency", SystemClock.elapsedRealtime() - stepStartMs);
+    }
+}
@@ -0,0 +1,56 @@
+// Copyright 2025 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.chrome.browser.wiki;
+
+import androidx.annotation.Nullable;
+
+/** Immutable result of a single plan phase of the Wiki agent loop. */
+class WikiAgentStep {
+    private final String mDescription;
+    private final @Nullable String mAction;
+    private final @Nullable String mTargetUrl;
+    private final boolean mFinal;
+
+    /**
+     * @param description Human readable summary of what the agent decided to do.
+     * @param action Serialized browser action to execute, or null when the step is final.
+     * @param isFinal Whether the agent considers the task complete after this step.
+     */
+    WikiAgentStep(String description, @Nullable String action, boolean isFinal) {
+        this(description, action, null, isFinal);
+    }
+
+    /**
+     * @param description Human readable summary of what the agent decided to do.
+     * @param action Serialized browser action to execute, or null when the step is final.
+     * @param targetUrl URL the action navigates to, or null if it does not navigate.
+     * @param isFinal Whether the agent considers the task complete after this step.
+     */
+    WikiAgentStep(String description, @Nullable String action, @Nullable String targetUrl,
+            boolean isFinal) {
+        mDescription = description;
+        mAction = action;
+        mTargetUrl = targetUrl;
+        mFinal = isFinal;
+    }
+
+    String getDescription() {
+        return mDescription;
+    }
+
+    @Nullable
+    String getAction() {
+        return mAction;
+    }
+
+    @Nullable
+    String getTargetUrl() {
+        return mTargetUrl;
+    }
+
+    boolean isFinal() {
+        return mFinal;
+    }
+}
@@ -14,7 +14,10 @@ import androidx.annotation.Nullable;
 
 import org.chromium.chrome.R;
 
-/** Full-screen overlay that blocks user interaction while the AI agent is executing. */
+/**
+ * Full-screen overlay that blocks user interaction while the AI agent is executing. The overlay
+ * itself draws nothing; the edge glow is a {@link WikiGlowView}.
+ */
 public class WikiAiOverlayView extends FrameLayout {
     private ImageButton mPauseButton;
     private Runnable mPauseListener;
@@ -28,7 +31,7 @@ public class WikiAiOverlayView extends FrameLayout {
     @Override
     protected void onFinishInflate() {
         super.onFinishInflate();
-        mPauseButton = findViewById(R.id/wiki_pause_button);
+        mPauseButton = findViewById(R.id.wiki_pause_button);
         mPauseButton.setOnClickListener(v -> {
             if (mPauseListener != null) {
                 mPauseListener.run();
@@ -8,6 +8,12 @@ interface WikiAutomationClient {
 
         void onAgentMessage(String messageCopy);
 
+        /**
+         * Called with the full text of an agent message that is still being streamed. The message
+         * is finalized by a later {@link #onAgentMessage(String)} call carrying the same text.
+         */
+        void onAgentMessageStreaming(String partialCopy);
+
         void onCompleted(String finalSummary);
 
         void onError(String errorCopy);
@@ -25,6 +31,12 @@ interface WikiAutomationClient {
     /** Cancels any pending work. */
     void cancel();
 
+    /**
+     * Defers non-terminal observer updates while the transcript is not visible. Deferred updates
+     * are delivered in one batch once delivery is unthrottled.
+     */
+    void setDeliveryThrottled(boolean throttled);
+
     /** Releases resources when the controller is destroyed. */
     void destroy();
 }
@@ -0,0 +1,342 @@
+// Copyright 2025 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.chrome.browser.wiki;
+
+import androidx.annotation.IntDef;
+import androidx.annotation.Nullable;
+
+import org.chromium.base.ThreadUtils;
+import org.chromium.base.supplier.Supplier;
+import org.chromium.chrome.browser.tab.Tab;
+import org.chromium.chrome.browser.tab.TabLaunchType;
+import org.chromium.chrome.browser.tabmodel.TabModelSelector;
+import org.chromium.content_public.browser.LoadUrlParams;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+import javax.annotation.concurrent.GuardedBy;
+
+/**
+ * Runs Wiki automation sessions concurrently, each in its own background tab of the regular
+ * profile, so that an automation never carries incognito state into disk-backed storage. At most
+ * {@link #getMaxConcurrentSessions()} sessions run at once and the rest wait in FIFO order. Model
+ * requests of all sessions share a fair gate, so a session that just got an answer queues behind
+ * the others before it can ask again.
+ */
+class WikiAutomationScheduler {
+    /** Creates the backend driving a single session. */
+    interface BackendFactory {
+        WikiAgentBackend create(WikiPageObserver pageObserver);
+    }
+
+    @IntDef({SessionState.QUEUED, SessionState.RUNNING, SessionState.PAUSED,
+            SessionState.RESUME_QUEUED, SessionState.FINISHED})
+    @Retention(RetentionPolicy.SOURCE)
+    @interface SessionState {
+        int QUEUED = 0;
+        int RUNNING = 1;
+        int PAUSED = 2;
+        int RESUME_QUEUED = 3;
+        int FINISHED = 4;
+    }
+
+    /** A single automation run and the background tab it drives. */
+    static class Session {
+        final int mId;
+        final String mPrompt;
+        final String mStartUrl;
+        @Nullable
+        final Tab mParentTab;
+        final WikiAutomationClient.Observer mObserver;
+        @SessionState
+        int mState = SessionState.QUEUED;
+        @Nullable
+        Tab mTab;
+        @Nullable
+        WikiAgentLoopClient mClient;
+
+        Session(int id, String prompt, String startUrl, @Nullable Tab parentTab,
+                WikiAutomationClient.Observer observer) {
+            mId = id;
+            mPrompt = prompt;
+            mStartUrl = startUrl;
+            mParentTab = parentTab;
+            mObserver = observer;
+        }
+    }
+
+    static final int DEFAULT_MAX_CONCURRENT_SESSIONS = 3;
+    /** Model requests allowed in flight at once, across all sessions. */
+    private static final int MAX_CONCURRENT_MODEL_REQUESTS = 2;
+    private static final String BLANK_URL = "about:blank";
+
+    private final TabModelSelector mTabModelSelector;
+    private final BackendFactory mBackendFactory;
+    private final Semaphore mModelGate = new Semaphore(MAX_CONCURRENT_MODEL_REQUESTS, true);
+    private final Map<Integer, Session> mSessions = new LinkedHashMap<>();
+    private final ArrayDeque<Session> mWaitingSessions = new ArrayDeque<>();
+
+    private int mMaxConcurrentSessions = DEFAULT_MAX_CONCURRENT_SESSIONS;
+    private int mRunningSessions;
+    private int mNextSessionId = 1;
+
+    WikiAutomationScheduler(TabModelSelector tabModelSelector, BackendFactory backendFactory) {
+        mTabModelSelector = tabModelSelector;
+        mBackendFactory = backendFactory;
+    }
+
+    /**
+     * Queues a session that starts from the URL of the current tab, or a blank page if that tab is
+     * incognito.
+     * @param observer Receives the updates of this session. Delivery is throttled, so only the
+     *         final outcome arrives while the session runs in the background.
+     * @return The id of the new session.
+     */
+    int startSession(String prompt, WikiAutomationClient.Observer observer) {
+        ThreadUtils.assertOnUiThread();
+        Tab currentTab = mTabModelSelector.getCurrentTab();
+        if (currentTab != null && currentTab.isIncognito()) currentTab = null;
+        String startUrl = currentTab != null ? currentTab.getUrl().getSpec() : BLANK_URL;
+        Session session = new Session(mNextSessionId++, prompt, startUrl, currentTab, observer);
+        mSessions.put(session.mId, session);
+        mWaitingSessions.add(session);
+        pumpQueue();
+        return session.mId;
+    }
+
+    /** Pauses a session and hands its slot to the next waiting one. */
+    void pauseSession(int sessionId) {
+        ThreadUtils.assertOnUiThread();
+        Session session = mSessions.get(sessionId);
+        if (session == null) return;
+        if (session.mState == SessionState.RESUME_QUEUED) {
+            mWaitingSessions.remove(session);
+            session.mState = SessionState.PAUSED;
+            return;
+        }
+        if (session.mState != SessionState.RUNNING) return;
+        session.mClient.pause();
+        session.mState = SessionState.PAUSED;
+        mRunningSessions--;
+        pumpQueue();
+    }
+
+    /** Resumes a paused session as soon as a slot is free. */
+    void resumeSession(int sessionId) {
+        ThreadUtils.assertOnUiThread();
+        Session session = mSessions.get(sessionId);
+        if (session == null || session.mState != SessionState.PAUSED) return;
+        session.mState = SessionState.RESUME_QUEUED;
+        mWaitingSessions.add(session);
+        pumpQueue();
+    }
+
+    /** Cancels a session and closes its tab. */
+    void cancelSession(int sessionId) {
+        ThreadUtils.assertOnUiThread();
+        Session session = mSessions.get(sessionId);
+        if (session == null) return;
+        Tab tab = session.mTab;
+        finishSession(session);
+        if (tab != null && !tab.isDestroyed()) {
+            mTabModelSelector.getModelForTabId(tab.getId())
+                    .closeTab(tab, false /* animate */, false /* uponExit */, false /* canUndo */);
+        }
+    }
+
+    /** Changes the concurrency limit. Sessions already running above a lower limit keep going. */
+    void setMaxConcurrentSessions(int maxConcurrentSessions) {
+        ThreadUtils.assertOnUiThread();
+        assert maxConcurrentSessions > 0;
+        mMaxConcurrentSessions = maxConcurrentSessions;
+        pumpQueue();
+    }
+
+    int getMaxConcurrentSessions() {
+        return mMaxConcurrentSessions;
+    }
+
+    @SessionState
+    int getSessionState(int sessionId) {
+        Session session = mSessions.get(sessionId);
+        return session != null ? session.mState : SessionState.FINISHED;
+    }
+
+    /** Cancels every session. Their tabs are left open, as the tab models may be going away. */
+    void destroy() {
+        ThreadUtils.assertOnUiThread();
+        for (Session session : mSessions.values().toArray(new Session[0])) {
+            finishSession(session);
+        }
+    }
+
+    private void pumpQueue() {
+        while (mRunningSessions < mMaxConcurrentSessions && !mWaitingSessions.isEmpty()) {
+            Session session = mWaitingSessions.poll();
+            mRunningSessions++;
+            if (session.mState == SessionState.RESUME_QUEUED) {
+                session.mState = SessionState.RUNNING;
+                session.mClient.resume();
+            } else {
+                launchSession(session);
+            }
+        }
+    }
+
+    private void launchSession(Session session) {
+        session.mState = SessionState.RUNNING;
+        // Tabs are only opened once a slot is free, so queued sessions do not load pages.
+        Tab parentTab = session.mParentTab;
+        if (parentTab != null && parentTab.isDestroyed()) parentTab = null;
+        session.mTab = mTabModelSelector.openNewTab(new LoadUrlParams(session.mStartUrl),
+                TabLaunchType.FROM_LONGPRESS_BACKGROUND, parentTab, false /* incognito */);
+        Supplier<Tab> tabSupplier = () -> {
+            Tab tab = session.mTab;
+            return tab == null || tab.isDestroyed() ? null : tab;
+        };
+        session.mClient = new WikiAgentLoopClient(
+                new FairShareBackend(
+                        mBackendFactory.create(new WikiPageObserver(tabSupplier)), mModelGate),
+                new WikiNavigationPrefetcher(tabSupplier));
+        session.mClient.setDeliveryThrottled(true);
+        session.mClient.startAutomation(session.mPrompt, new WikiAutomationClient.Observer() {
+            @Override
+            public void onStatusUpdated(String statusCopy) {
+                session.mObserver.onStatusUpdated(statusCopy);
+            }
+
+            @Override
+            public void onAgentMessage(String messageCopy) {
+                session.mObserver.onAgentMessage(messageCopy);
+            }
+
+            @Override
+            public void onAgentMessageStreaming(String partialCopy) {
+                session.mObserver.onAgentMessageStreaming(partialCopy);
+            }
+
+            @Override
+            public void onCompleted(String finalSummary) {
+                finishSession(session);
+                session.mObserver.onCompleted(finalSummary);
+            }
+
+            @Override
+            public void onError(String errorCopy) {
+                finishSession(session);
+                session.mObserver.onError(errorCopy);
+            }
+        });
+    }
+
+    private void finishSession(Session session) {
+        if (session.mState == SessionState.FINISHED) return;
+        if (session.mState == SessionState.RUNNING) mRunningSessions--;
+        mWaitingSessions.remove(session);
+        session.mState = SessionState.FINISHED;
+        mSessions.remove(session.mId);
+        if (session.mClient != null) session.mClient.destroy();
+        session.mTab = null;
+        pumpQueue();
+    }
+
+    /**
+     * Makes model requests of all sessions take turns through a fair semaphore. Observing and
+     * acting are left unrestricted since they mostly wait on their own tab. A session waiting for
+     * its turn blocks until it gets one or is cancelled, which interrupts the wait.
+     */
+    private static class FairShareBackend implements WikiAgentBackend {
+        private final WikiAgentBackend mDelegate;
+        private final Semaphore mGate;
+        private final Object mLock = new Object();
+        @GuardedBy("mLock")
+        private boolean mCancelled;
+        /** The thread waiting for the gate, to be interrupted by {@link #cancel}. */
+        @GuardedBy("mLock")
+        private Thread mWaitingThread;
+
+        FairShareBackend(WikiAgentBackend delegate, Semaphore gate) {
+            mDelegate = delegate;
+            mGate = gate;
+        }
+
+        @Override
+        public void onRunStarted(WikiRunTimeline timeline) {
+            synchronized (mLock) {
+                mCancelled = false;
+            }
+            mDelegate.onRunStarted(timeline);
+        }
+
+        @Override
+        public String observe() {
+            return mDelegate.observe();
+        }
+
+        @Override
+        public WikiAgentStep plan(String task, String observation, List<String> history,
+                TokenSink sink) throws IOException {
+            acquireGate();
+            try {
+                return mDelegate.plan(task, observation, history, sink);
+            } finally {
+                mGate.release();
+            }
+        }
+
+        private void acquireGate() throws InterruptedIOException {
+            synchronized (mLock) {
+                if (mCancelled) throw new InterruptedIOException("Session cancelled.");
+                mWaitingThread = Thread.currentThread();
+            }
+            boolean acquired = false;
+            try {
+                mGate.acquire();
+                acquired = true;
+            } catch (InterruptedException e) {
+                // Interrupted by cancel(), which is checked below.
+            } finally {
+                synchronized (mLock) {
+                    mWaitingThread = null;
+                }
+                // Clears an interrupt that raced with getting the gate, so it does not leak into
+                // later tasks of the pooled thread.
+                Thread.interrupted();
+            }
+            synchronized (mLock) {
+                if (!mCancelled) return;
+            }
+            if (acquired) mGate.release();
+            throw new InterruptedIOException("Session cancelled.");
+        }
+
+        @Override
+        public String act(WikiAgentStep step) throws IOException {
+            return mDelegate.act(step);
+        }
+
+        @Override
+        public void settle() throws IOException {
+            mDelegate.settle();
+        }
+
+        @Override
+        public void cancel() {
+            synchronized (mLock) {
+                mCancelled = true;
+                if (mWaitingThread != null) mWaitingThread.interrupt();
+            }
+            mDelegate.cancel();
+        }
+    }
+}
@@ -1,19 +1,35 @@
 package org.chromium.chrome.browser.wiki;
 
+import android.os.Bundle;
 import android.text.TextUtils;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 
+import androidx.annotation.Nullable;
+
+import org.chromium.base.PathUtils;
 import org.chromium.base.metrics.RecordUserAction;
 import org.chromium.chrome.R;
 import org.chromium.chrome.browser.ChromeActivity;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
 
 /** Coordinates the in-browser Wiki assistant experience. */
 public class WikiController {
+    private static final String TRANSCRIPT_DIRECTORY = "wiki_transcripts";
+    /** Saved instance state key of the session id, which names the transcript files. */
+    private static final String SESSION_ID_KEY = "wiki_session_id";
+    private static final String MODEL_CACHE_DIRECTORY = "wiki_model_cache";
+    /** Model settings of {@link SimulatedWikiAgentBackend}, used to key cached responses. */
+    private static final String SIMULATED_MODEL_SETTINGS = "simulated";
+    private static final int TRANSCRIPT_PAGE_SIZE = 50;
+    /** Upper bound on messages bound to the panel at once, independent of transcript length. */
+    private static final int MAX_BOUND_MESSAGES = 4 * TRANSCRIPT_PAGE_SIZE;
+
     /** Observer for toolbar/UI integrations. */
     public interface WikiStateObserver {
         void onWikiExecutionStateChanged(boolean isRunning);
@@ -26,21 +42,51 @@ public class WikiController {
     private final WikiAutomationClient mAutomationClient;
     private final WikiAutomationClient.Observer mAutomationObserver;
     private final List<WikiStateObserver> mObservers = new ArrayList<>();
-    private final List<WikiMessage> mMessages = new ArrayList<>();
+    private final String mSessionId;
+    private final WikiTranscriptStore mTranscriptStore;
+    private final WikiModelResponseCache mModelCache;
+    /** Runs background sessions next to the foreground run. Created on first use. */
+    private WikiAutomationScheduler mScheduler;
+    private int mMaxBackgroundSessions = WikiAutomationScheduler.DEFAULT_MAX_CONCURRENT_SESSIONS;
+    /**
+     * Messages that arrived while an agent message was streaming. They are appended after it so
+     * transcript positions stay in commit order.
+     */
+    private final List<WikiMessage> mDeferredMessages = new ArrayList<>();
 
     private boolean mPanelVisible;
     private boolean mAiExecuting;
     private boolean mAutomationPaused;
     private String mActivePrompt;
+    /** Agent message that is being streamed and has not been persisted yet. */
+    private WikiMessage mStreamingMessage;
+    /** Transcript position of the oldest message bound to the panel. */
+    private int mWindowStart;
+    /** Transcript position one past the newest persisted message bound to the panel. */
+    private int mWindowEnd;
+    private boolean mPageLoadPending;
+    /** Bumped whenever the bound window is reset, invalidating page reads in flight. */
+    private int mWindowGeneration;
+    private boolean mDestroyed;
 
-    public WikiController(ChromeActivity activity) {
+    /**
+     * @param savedInstanceState The state saved by {@link #onSaveInstanceState}, if any. Its
+     *         transcript is reopened instead of starting a new session.
+     */
+    public WikiController(ChromeActivity activity, @Nullable Bundle savedInstanceState) {
         mActivity = activity;
         mRootView = activity.findViewById(android.R.id.content);
         LayoutInflater inflater = LayoutInflater.from(activity);
         mOverlayView =
                 (WikiAiOverlayView) inflater.inflate(R.layout.wiki_ai_overlay, mRootView, false);
         mPanelView = (WikiPanelView) inflater.inflate(R.layout.wiki_panel_view, mRootView, false);
-        mAutomationClient = new SimulatedWikiAutomationClient();
+        mModelCache = new WikiModelResponseCache(
+                new File(PathUtils.getCacheDirectory(), MODEL_CACHE_DIRECTORY));
+        mAutomationClient = new WikiAgentLoopClient(
+                createBackend(new WikiPageObserver(activity.getActivityTabProvider())),
+                new WikiNavigationPrefetcher(activity.getActivityTabProvider()));
+        // The panel starts hidden, so there is no transcript to keep up to date yet.
+        mAutomationClient.setDeliveryThrottled(true);
         mAutomationObserver = new WikiAutomationClient.Observer() {
             @Override
             public void onStatusUpdated(String statusCopy) {
@@ -49,7 +95,12 @@ public class WikiController {
 
             @Override
             public void onAgentMessage(String messageCopy) {
-                appendMessage(WikiMessage.Role.WIKI, messageCopy);
+                commitAgentMessage(messageCopy);
+            }
+
+            @Override
+            public void onAgentMessageStreaming(String partialCopy) {
+                updateStreamingMessage(partialCopy);
             }
 
             @Override
@@ -82,11 +133,34 @@ public class WikiController {
             public void onResumeRequested() {
                 resumeAutomation();
             }
+
+            @Override
+            public void onClearRequested() {
+                clearTranscript();
+            }
+
+            @Override
+            public void onOlderMessagesRequested() {
+                loadOlderMessages();
+            }
+
+            @Override
+            public void onNewerMessagesRequested() {
+                loadNewerMessages();
+            }
         });
 
-        mPanelView.bindMessages(mMessages);
         mPanelView.setAutomationState(
                 WikiAutomationState.IDLE, activity.getString(R.string.wiki_panel_status_idle), false);
+        // Prompts are accepted once the persisted transcript is known, so new messages are
+        // numbered after it.
+        mPanelView.setInputEnabled(false);
+        String sessionId =
+                savedInstanceState != null ? savedInstanceState.getString(SESSION_ID_KEY) : null;
+        mSessionId = sessionId != null ? sessionId : UUID.randomUUID().toString();
+        mTranscriptStore = new WikiTranscriptStore(
+                new File(PathUtils.getDataDirectory(), TRANSCRIPT_DIRECTORY), mSessionId);
+        mTranscriptStore.open(this::onTranscriptOpened);
     }
 
     /** Toggles the visibility of the Wiki panel. */
@@ -102,12 +176,14 @@ public class WikiController {
         if (mPanelVisible) return;
         mPanelVisible = true;
         mPanelView.animateIn();
+        mAutomationClient.setDeliveryThrottled(false);
     }
 
     public void hidePanel() {
         if (!mPanelVisible) return;
         mPanelVisible = false;
         mPanelView.animateOut(null);
+        mAutomationClient.setDeliveryThrottled(true);
     }
 
     public boolean onBackPressed() {
@@ -118,13 +194,102 @@ public class WikiController {
         return false;
     }
 
+    /** Saves the session id, so the transcript is reopened if the activity is recreated. */
+    public void onSaveInstanceState(Bundle outState) {
+        outState.putString(SESSION_ID_KEY, mSessionId);
+    }
+
+    /**
+     * Deletes the transcript of this session, e.g. because its window is closed for good. Must be
+     * followed by {@link #destroy}.
+     */
+    public void endSession() {
+        mTranscriptStore.delete();
+    }
+
+    /** Tears down the UI. The transcript is kept for a recreated activity. */
     public void destroy() {
+        mDestroyed = true;
         mAutomationClient.destroy();
+        if (mScheduler != null) mScheduler.destroy();
+        mTranscriptStore.close();
         mRootView.removeView(mPanelView);
         mRootView.removeView(mOverlayView);
         mObservers.clear();
     }
 
+    /**
+     * Runs {@code prompt} in a new background tab. Unlike prompts typed into the panel, these can
+     * be started while another automation is running; they wait for a free slot if too many are
+     * already running. Their outcome is added to the transcript.
+     * @return An id for {@link #pauseBackgroundAutomation}, {@link #resumeBackgroundAutomation}
+     *         and {@link #cancelBackgroundAutomation}.
+     */
+    public int startBackgroundAutomation(String prompt) {
+        if (mScheduler == null) {
+            mScheduler = new WikiAutomationScheduler(
+                    mActivity.getTabModelSelector(), this::createBackend);
+            mScheduler.setMaxConcurrentSessions(mMaxBackgroundSessions);
+        }
+        RecordUserAction.record("MobileWikiBackgroundAutomationStarted");
+        return mScheduler.startSession(prompt, new WikiAutomationClient.Observer() {
+            @Override
+            public void onStatusUpdated(String statusCopy) {}
+
+            @Override
+            public void onAgentMessage(String messageCopy) {}
+
+            @Override
+            public void onAgentMessageStreaming(String partialCopy) {}
+
+            @Override
+            public void onCompleted(String finalSummary) {
+                onBackgroundAutomationFinished(
+                        R.string.wiki_background_task_completed, prompt, finalSummary);
+            }
+
+            @Override
+            public void onError(String errorCopy) {
+                onBackgroundAutomationFinished(
+                        R.string.wiki_background_task_failed, prompt, errorCopy);
+            }
+        });
+    }
+
+    public void pauseBackgroundAutomation(int sessionId) {
+        if (mScheduler != null) mScheduler.pauseSession(sessionId);
+    }
+
+    public void resumeBackgroundAutomation(int sessionId) {
+        if (mScheduler != null) mScheduler.resumeSession(sessionId);
+    }
+
+    public void cancelBackgroundAutomation(int sessionId) {
+        if (mScheduler != null) mScheduler.cancelSession(sessionId);
+    }
+
+    /** Sets how many background sessions may run at once. */
+    public void setMaxConcurrentBackgroundAutomations(int maxSessions) {
+        mMaxBackgroundSessions = maxSessions;
+        if (mScheduler != null) mScheduler.setMaxConcurrentSessions(maxSessions);
+    }
+
+    /**
+     * Creates a model backend whose responses are shared through {@link #mModelCache}, unless the
+     * run observes an incognito tab. PII is elided from requests that miss the cache.
+     */
+    private WikiAgentBackend createBackend(WikiPageObserver pageObserver) {
+        return new CachingWikiAgentBackend(
+                new PiiElidingWikiAgentBackend(new SimulatedWikiAgentBackend(pageObserver)),
+                mModelCache, SIMULATED_MODEL_SETTINGS, pageObserver::hasObservedIncognito);
+    }
+
+    private void onBackgroundAutomationFinished(int messageRes, String prompt, String outcome) {
+        if (mDestroyed || !mTranscriptStore.isOpen()) return;
+        appendMessage(WikiMessage.Role.SYSTEM,
+                mActivity.getString(messageRes, prompt, outcome != null ? outcome : ""));
+    }
+
     public void addObserver(WikiStateObserver observer) {
         if (!mObservers.contains(observer)) {
             mObservers.add(observer);
@@ -138,9 +303,17 @@ public class WikiController {
     }
 
     private void handlePrompt(String prompt) {
-        if (TextUtils.isEmpty(prompt)) return;
+        if (TextUtils.isEmpty(prompt) || !mTranscriptStore.isOpen()) return;
+        if (mWindowEnd != mTranscriptStore.getMessageCount()) showLatestMessages();
         appendMessage(WikiMessage.Role.USER, prompt);
         mPanelView.clearPromptField();
+        if (mAiExecuting || mAutomationPaused) {
+            // The foreground run is busy, so this prompt gets a tab of its own.
+            startBackgroundAutomation(prompt);
+            appendMessage(WikiMessage.Role.SYSTEM,
+                    mActivity.getString(R.string.wiki_background_task_started, prompt));
+            return;
+        }
         beginAutomation(prompt);
     }
 
@@ -148,6 +321,8 @@ public class WikiController {
         if (mAiExecuting) return;
         mActivePrompt = prompt;
         mAutomationPaused = false;
+        mStreamingMessage = null;
+        flushDeferredMessages();
         mAutomationClient.startAutomation(prompt, mAutomationObserver);
         mAiExecuting = true;
         RecordUserAction.record("MobileWikiAutomationStarted");
@@ -167,6 +342,9 @@ public class WikiController {
         hideOverlay();
         mAiExecuting = false;
         mAutomationPaused = false;
+        // Keeps whatever was streamed, so the summary is not deferred behind a message that will
+        // never finish.
+        if (mStreamingMessage != null) commitAgentMessage(mStreamingMessage.getText());
         if (!TextUtils.isEmpty(summaryCopy)) {
             appendMessage(finalState == WikiAutomationState.ERROR ? WikiMessage.Role.SYSTEM
                                                                   : WikiMessage.Role.WIKI,
@@ -230,9 +408,136 @@ public class WikiController {
                 .start();
     }
 
+    private void onTranscriptOpened(int messageCount) {
+        if (mDestroyed) return;
+        mWindowStart = messageCount;
+        mWindowEnd = messageCount;
+        loadOlderMessages();
+        mPanelView.setInputEnabled(true);
+    }
+
+    private void loadOlderMessages() {
+        if (mPageLoadPending || mWindowStart == 0) return;
+        mPageLoadPending = true;
+        int from = Math.max(0, mWindowStart - TRANSCRIPT_PAGE_SIZE);
+        int generation = mWindowGeneration;
+        mTranscriptStore.readPage(from, mWindowStart, page -> {
+            if (mDestroyed || generation != mWindowGeneration) return;
+            mPageLoadPending = false;
+            mWindowStart = from;
+            mPanelView.prependMessages(page);
+            // Never unbind the message that is still being streamed.
+            int excess = mWindowEnd - mWindowStart - MAX_BOUND_MESSAGES;
+            if (excess > 0 && mStreamingMessage == null) {
+                mPanelView.trimNewestMessages(excess);
+                mWindowEnd -= excess;
+            }
+        });
+    }
+
+    private void loadNewerMessages() {
+        if (mPageLoadPending || !mTranscriptStore.isOpen()) return;
+        if (mWindowEnd >= mTranscriptStore.getMessageCount()) return;
+        mPageLoadPending = true;
+        int from = mWindowEnd;
+        int to = Math.min(mTranscriptStore.getMessageCount(), from + TRANSCRIPT_PAGE_SIZE);
+        int generation = mWindowGeneration;
+        mTranscriptStore.readPage(from, to, page -> {
+            if (mDestroyed || generation != mWindowGeneration) return;
+            mPageLoadPending = false;
+            mWindowEnd += page.size();
+            mPanelView.appendMessages(page);
+            trimOldestMessagesIfNeeded();
+        });
+    }
+
+    /** Deletes the transcript, unless an agent message is still being streamed into it. */
+    private void clearTranscript() {
+        if (!mTranscriptStore.isOpen() || mStreamingMessage != null) return;
+        mTranscriptStore.clear();
+        showLatestMessages();
+    }
+
+    /** Rebinds the panel to the newest page of the transcript. */
+    private void showLatestMessages() {
+        int count = mTranscriptStore.getMessageCount();
+        mPanelView.bindMessages(null);
+        mWindowStart = count;
+        mWindowEnd = count;
+        mWindowGeneration++;
+        mPageLoadPending = false;
+        loadOlderMessages();
+    }
+
+    private void trimOldestMessagesIfNeeded() {
+        int excess = mWindowEnd - mWindowStart - MAX_BOUND_MESSAGES;
+        if (excess <= 0) return;
+        mPanelView.trimOldestMessages(excess);
+        mWindowStart += excess;
+    }
+
+    private boolean isShowingLatestMessages() {
+        return mWindowEnd == mTranscriptStore.getMessageCount();
+    }
+
+    private void updateStreamingMessage(String partialCopy) {
+        if (TextUtils.isEmpty(partialCopy)) return;
+        if (mStreamingMessage == null) {
+            mStreamingMessage = new WikiMessage(mTranscriptStore.getMessageCount(),
+                    WikiMessage.Role.WIKI, partialCopy, System.currentTimeMillis());
+            if (isShowingLatestMessages()) mPanelView.appendMessage(mStreamingMessage);
+            return;
+        }
+        mStreamingMessage = mStreamingMessage.withText(partialCopy);
+        if (isShowingLatestMessages()) mPanelView.updateMessage(mStreamingMessage);
+    }
+
+    private void commitAgentMessage(String messageCopy) {
+        if (mStreamingMessage == null) {
+            appendMessage(WikiMessage.Role.WIKI, messageCopy);
+            return;
+        }
+        WikiMessage message = mStreamingMessage.withText(messageCopy);
+        mStreamingMessage = null;
+        boolean bound = isShowingLatestMessages();
+        addToTranscript(message);
+        if (bound) {
+            mPanelView.updateMessage(message);
+            mWindowEnd++;
+            trimOldestMessagesIfNeeded();
+        }
+        flushDeferredMessages();
+    }
+
+    private void flushDeferredMessages() {
+        for (WikiMessage deferred : mDeferredMessages) {
+            appendMessage(deferred.getRole(), deferred.getText());
+        }
+        mDeferredMessages.clear();
+    }
+
     private void appendMessage(WikiMessage.Role role, String text) {
         if (TextUtils.isEmpty(text)) return;
-        mMessages.add(new WikiMessage(role, text, System.currentTimeMillis()));
-        mPanelView.bindMessages(mMessages);
+        if (mStreamingMessage != null) {
+            mDeferredMessages.add(new WikiMessage(-1, role, text, System.currentTimeMillis()));
+            return;
+        }
+        WikiMessage message = new WikiMessage(mTranscriptStore.getMessageCount(), role, text,
+                System.currentTimeMillis());
+        boolean bound = isShowingLatestMessages();
+        addToTranscript(message);
+        if (!bound) return;
+        mPanelView.appendMessage(message);
+        mWindowEnd++;
+        trimOldestMessagesIfNeeded();
+    }
+
+    /**
+     * Appends {@code message} to the transcript. Nothing is written to disk anymore once the
+     * session touched an incognito tab.
+     */
+    private void addToTranscript(WikiMessage message) {
+        if (mActivity.getTabModelSelector().isIncognitoSelected()) mTranscriptStore.keepInMemory();
+        mTranscriptStore.append(message);
     }
 }
@@ -0,0 +1,174 @@
+// Copyright 2025 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.chrome.browser.wiki;
+
+import androidx.annotation.Nullable;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tree of the interactive elements of a page, as captured by {@link WikiPageObserver}. Every node
+ * carries a hash of its own description and a hash of its whole subtree, so two snapshots of the
+ * same document can be compared without walking unchanged subtrees.
+ */
+class WikiDomSnapshot {
+    /** One interactive element. Ids are stable for the lifetime of the captured document. */
+    static class Node {
+        final int mId;
+        final String mLabel;
+        final List<Node> mChildren = new ArrayList<>();
+        @Nullable
+        Node mParent;
+        long mSelfHash;
+        long mSubtreeHash;
+
+        Node(int id, String label) {
+            mId = id;
+            mLabel = label;
+        }
+    }
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final String mUrl;
+    private final String mDocumentId;
+    private final List<Node> mRoots;
+    private final Map<Integer, Node> mNodesById;
+
+    private WikiDomSnapshot(
+            String url, String documentId, List<Node> roots, Map<Integer, Node> nodesById) {
+        mUrl = url;
+        mDocumentId = documentId;
+        mRoots = roots;
+        mNodesById = nodesById;
+    }
+
+    /**
+     * Parses the output of the capture script. Nodes are listed in document order as
+     * {@code [id, parentId, tag, role, text]} tuples, where a parent id of 0 denotes a root.
+     * @return The snapshot, or null if the payload is malformed.
+     */
+    @Nullable
+    static WikiDomSnapshot fromJson(String json) {
+        try {
+            JSONObject object = new JSONObject(json);
+            JSONArray tuples = object.getJSONArray("nodes");
+            List<Node> roots = new ArrayList<>();
+            Map<Integer, Node> nodesById = new HashMap<>(tuples.length() * 2);
+            for (int i = 0; i < tuples.length(); i++) {
+                JSONArray tuple = tuples.getJSONArray(i);
+                Node node = new Node(tuple.getInt(0),
+                        buildLabel(tuple.getString(2), tuple.optString(3), tuple.optString(4)));
+                Node parent = nodesById.get(tuple.getInt(1));
+                if (parent == null) {
+                    roots.add(node);
+                } else {
+                    node.mParent = parent;
+                    parent.mChildren.add(node);
+                }
+                nodesById.put(node.mId, node);
+            }
+            for (Node root : roots) computeHashes(root);
+            return new WikiDomSnapshot(object.optString("url"), object.optString("doc"),
+                    Collections.unmodifiableList(roots), nodesById);
+        } catch (JSONException e) {
+            return null;
+        }
+    }
+
+    String getUrl() {
+        return mUrl;
+    }
+
+    /** @return A token that changes whenever the page loads a new document. */
+    String getDocumentId() {
+        return mDocumentId;
+    }
+
+    List<Node> getRoots() {
+        return mRoots;
+    }
+
+    @Nullable
+    Node getNode(int id) {
+        return mNodesById.get(id);
+    }
+
+    int getNodeCount() {
+        return mNodesById.size();
+    }
+
+    /** Serializes the whole tree, one indented node per line. */
+    String serialize() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("url ").append(mUrl).append('\n');
+        for (Node root : mRoots) appendSubtree(builder, root, 0);
+        return builder.toString();
+    }
+
+    /** Appends a single node as {@code [id] label}. */
+    static void appendNode(StringBuilder builder, Node node) {
+        builder.append('[').append(node.mId).append("] ").append(node.mLabel);
+    }
+
+    private static void appendSubtree(StringBuilder builder, Node node, int depth) {
+        for (int i = 0; i < depth; i++) builder.append(' ');
+        appendNode(builder, node);
+        builder.append('\n');
+        for (Node child : node.mChildren) appendSubtree(builder, child, depth + 1);
+    }
+
+    private static String buildLabel(String tag, String role, String text) {
+        StringBuilder label = new StringBuilder(tag);
+        if (!role.isEmpty()) label.append(" role=").append(role);
+        if (!text.isEmpty()) label.append(" \"").append(text).append('"');
+        return label.toString();
+    }
+
+    private static void computeHashes(Node node) {
+        // Children are hashed first; iterate explicitly to survive very deep documents.
+        List<Node> postOrder = new ArrayList<>();
+        List<Node> stack = new ArrayList<>();
+        stack.add(node);
+        while (!stack.isEmpty()) {
+            Node current = stack.remove(stack.size() - 1);
+            postOrder.add(current);
+            stack.addAll(current.mChildren);
+        }
+        for (int i = postOrder.size() - 1; i >= 0; i--) {
+            Node current = postOrder.get(i);
+            current.mSelfHash = hash(FNV_OFFSET_BASIS, current.mLabel);
+            long subtreeHash = current.mSelfHash;
+            for (Node child : current.mChildren) subtreeHash = mix(subtreeHash, child.mSubtreeHash);
+            current.mSubtreeHash = mix(subtreeHash, current.mChildren.size());
+        }
+    }
+
+    private static long hash(long seed, String value) {
+        long hash = seed;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, long value) {
+        for (int i = 0; i < 8; i++) {
+            hash ^= (value >>> (i * 8)) & 0xff;
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,199 @@
+// Copyright 2025 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.chrome.browser.wiki;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.LinearGradient;
+import android.graphics.Paint;
+import android.graphics.Shader;
+import android.util.AttributeSet;
+import android.view.Choreographer;
+import android.view.Display;
+import android.view.Gravity;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
+
+import org.chromium.chrome.R;
+import org.chromium.chrome.browser.night_mode.PowerSavingModeMonitor;
+
+/**
+ * Pulsing glow along the edges of the {@link WikiAiOverlayView}. Each edge is a strip-sized child
+ * that draws its gradient once per size, and the pulse is applied through the alpha of the strips'
+ * RenderNodes, so frames of the animation never re-record a display list and only damage the
+ * border. The container itself draws nothing. Pulse updates are capped at the display refresh
+ * rate, and the glow holds a static frame while power saving mode is on.
+ */
+public class WikiGlowView extends FrameLayout implements Choreographer.FrameCallback {
+    private static final long PULSE_PERIOD_MS = 2400L;
+    private static final float MIN_PULSE_ALPHA = 0.45f;
+    /** The pulse is slow, so it gains nothing from running faster than this. */
+    private static final float MAX_FRAME_RATE = 60f;
+
+    private static final int[] EDGES = {Gravity.TOP, Gravity.BOTTOM, Gravity.LEFT, Gravity.RIGHT};
+
+    private final GlowStrip[] mStrips = new GlowStrip[EDGES.length];
+    private final Runnable mPowerSavingObserver = this::updatePulse;
+
+    private long mMinFrameIntervalNanos;
+    private long mLastFrameNanos;
+    private long mPulseStartNanos;
+    private boolean mPulsing;
+
+    /** One edge of the glow, fading out towards the center of the screen. */
+    private static class GlowStrip extends View {
+        private final Paint mPaint = new Paint();
+        private final int mEdge;
+        private final int mGlowColor;
+
+        GlowStrip(Context context, int edge, int glowColor) {
+            super(context);
+            mEdge = edge;
+            mGlowColor = glowColor;
+        }
+
+        @Override
+        public boolean hasOverlappingRendering() {
+            // A single rect, so the pulse never needs an offscreen layer.
+            return false;
+        }
+
+        @Override
+        protected void onSizeChanged(int width, int height, int oldWidth, int oldHeight) {
+            super.onSizeChanged(width, height, oldWidth, oldHeight);
+            float x0 = 0;
+            float y0 = 0;
+            float x1 = 0;
+            float y1 = 0;
+            switch (mEdge) {
+                case Gravity.TOP:
+                    y1 = height;
+                    break;
+                case Gravity.BOTTOM:
+                    y0 = height;
+                    break;
+                case Gravity.LEFT:
+                    x1 = width;
+                    break;
+                default:
+                    x0 = width;
+                    break;
+            }
+            mPaint.setShader(new LinearGradient(x0, y0, x1, y1, mGlowColor,
+                    mGlowColor & 0x00FFFFFF, Shader.TileMode.CLAMP));
+        }
+
+        @Override
+        protected void onDraw(Canvas canvas) {
+            canvas.drawRect(0, 0, getWidth(), getHeight(), mPaint);
+        }
+    }
+
+    public WikiGlowView(Context context, @Nullable AttributeSet attrs) {
+        super(context, attrs);
+        int glowColor = ContextCompat.getColor(context, R.color.wiki_overlay_glow);
+        int glowWidth = getResources().getDimensionPixelSize(R.dimen.wiki_glow_width);
+        for (int i = 0; i < EDGES.length; i++) {
+            int edge = EDGES[i];
+            boolean horizontal = edge == Gravity.TOP || edge == Gravity.BOTTOM;
+            mStrips[i] = new GlowStrip(context, edge, glowColor);
+            // The corners overlap, but blending them twice is fine.
+            addView(mStrips[i],
+                    new LayoutParams(horizontal ? LayoutParams.MATCH_PARENT : glowWidth,
+                            horizontal ? glowWidth : LayoutParams.MATCH_PARENT, edge));
+        }
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        Display display = getDisplay();
+        float refreshRate = display != null ? display.getRefreshRate() : MAX_FRAME_RATE;
+        mMinFrameIntervalNanos =
+                (long) (1_000_000_000L / Math.min(Math.max(refreshRate, 1f), MAX_FRAME_RATE));
+        PowerSavingModeMonitor.getInstance().addObserver(mPowerSavingObserver);
+        updatePulse();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        PowerSavingModeMonitor.getInstance().removeObserver(mPowerSavingObserver);
+        stopPulse();
+        super.onDetachedFromWindow();
+    }
+
+    @Override
+    protected void onVisibilityChanged(View changedView, int visibility) {
+        super.onVisibilityChanged(changedView, visibility);
+        updatePulse();
+    }
+
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        updatePulse();
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!mPulsing) return;
+        // Only keep asking for frames while the pulse can be seen.
+        if (!shouldPulse()) {
+            stopPulse();
+            return;
+        }
+        // Vsync can be faster than the frame budget, e.g. on 120Hz displays. Allow a little
+        // jitter so a frame that arrives just early is not skipped, and sleep through the vsyncs
+        // that would be skipped instead of waking up for each of them.
+        long waitNanos = mMinFrameIntervalNanos * 9 / 10 - (frameTimeNanos - mLastFrameNanos);
+        if (waitNanos > 0) {
+            Choreographer.getInstance().postFrameCallbackDelayed(
+                    this, (waitNanos + 999_999L) / 1_000_000L);
+            return;
+        }
+        mLastFrameNanos = frameTimeNanos;
+        setStripAlpha(pulseAlpha(frameTimeNanos - mPulseStartNanos));
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    private static float pulseAlpha(long elapsedNanos) {
+        double phase = (elapsedNanos / 1_000_000L % PULSE_PERIOD_MS) / (double) PULSE_PERIOD_MS;
+        float wave = (float) (0.5 - 0.5 * Math.cos(2 * Math.PI * phase));
+        return 1f - (1f - MIN_PULSE_ALPHA) * wave;
+    }
+
+    /** Starts or stops the pulse depending on visibility and power saving mode. */
+    private void updatePulse() {
+        boolean shouldPulse = shouldPulse();
+        if (shouldPulse == mPulsing) return;
+        if (shouldPulse) {
+            mPulsing = true;
+            mPulseStartNanos = System.nanoTime();
+            mLastFrameNanos = 0;
+            Choreographer.getInstance().postFrameCallback(this);
+        } else {
+            stopPulse();
+        }
+    }
+
+    private boolean shouldPulse() {
+        return isAttachedToWindow() && isShown() && getWindowVisibility() == VISIBLE
+                && !PowerSavingModeMonitor.getInstance().powerSavingIsOn();
+    }
+
+    private void stopPulse() {
+        mPulsing = false;
+        Choreographer.getInstance().removeFrameCallback(this);
+        // Rest on the brightest frame.
+        setStripAlpha(1f);
+    }
+
+    private void setStripAlpha(float alpha) {
+        for (GlowStrip strip : mStrips) strip.setAlpha(alpha);
+    }
+}
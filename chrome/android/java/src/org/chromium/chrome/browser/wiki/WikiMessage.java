@@ -9,16 +9,31 @@ class WikiMessage {
         SYSTEM
     }
 
+    private final long mId;
     private final Role mRole;
     private final String mText;
     private final long mTimestamp;
 
-    WikiMessage(Role role, String text, long timestamp) {
+    /**
+     * @param id Identifier that is unique within a conversation and stays the same while a
+     *         streamed message is being updated.
+     */
+    WikiMessage(long id, Role role, String text, long timestamp) {
+        mId = id;
         mRole = role;
         mText = text;
         mTimestamp = timestamp;
     }
 
+    /** @return A copy of this message with the same id and role but different text. */
+    WikiMessage withText(String text) {
+        return new WikiMessage(mId, mRole, text, mTimestamp);
+    }
+
+    long getId() {
+        return mId;
+    }
+
     Role getRole() {
         return mRole;
     }
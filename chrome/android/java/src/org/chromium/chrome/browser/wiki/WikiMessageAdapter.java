@@ -10,6 +10,7 @@ import android.widget.TextView;
 
 import androidx.annotation.NonNull;
 import androidx.core.content.ContextCompat;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import org.chromium.chrome.R;
@@ -17,25 +18,86 @@ import org.chromium.chrome.R;
 import java.util.ArrayList;
 import java.util.List;
 
-/** RecyclerView adapter that renders the Wiki conversation transcript. */
+/**
+ * RecyclerView adapter that renders the Wiki conversation transcript. Appends and streamed text
+ * updates are published as single item changes, so their cost does not grow with the transcript.
+ */
 class WikiMessageAdapter extends RecyclerView.Adapter<WikiMessageAdapter.MessageViewHolder> {
     private static final int VIEW_TYPE_USER = 0;
     private static final int VIEW_TYPE_WIKI = 1;
     private static final int VIEW_TYPE_SYSTEM = 2;
 
+    /** Change payload signalling that only the text of a message changed. */
+    private static final Object PAYLOAD_TEXT = new Object();
+
     private final LayoutInflater mInflater;
     private final List<WikiMessage> mMessages = new ArrayList<>();
 
     WikiMessageAdapter(Context context) {
         mInflater = LayoutInflater.from(context);
+        setHasStableIds(true);
     }
 
+    /** Replaces the transcript, dispatching the minimal set of changes against the current one. */
     void setMessages(List<WikiMessage> messages) {
+        List<WikiMessage> newMessages = messages != null ? messages : new ArrayList<>();
+        DiffUtil.DiffResult diff =
+                DiffUtil.calculateDiff(new MessageDiffCallback(mMessages, newMessages));
         mMessages.clear();
-        if (messages != null) {
-            mMessages.addAll(messages);
+        mMessages.addAll(newMessages);
+        diff.dispatchUpdatesTo(this);
+    }
+
+    /** Adds a message to the end of the transcript. */
+    void appendMessage(WikiMessage message) {
+        mMessages.add(message);
+        notifyItemInserted(mMessages.size() - 1);
+    }
+
+    /** Adds a page of older messages in front of the transcript. */
+    void prependMessages(List<WikiMessage> messages) {
+        if (messages.isEmpty()) return;
+        mMessages.addAll(0, messages);
+        notifyItemRangeInserted(0, messages.size());
+    }
+
+    /** Adds a page of newer messages to the end of the transcript. */
+    void appendMessages(List<WikiMessage> messages) {
+        if (messages.isEmpty()) return;
+        int start = mMessages.size();
+        mMessages.addAll(messages);
+        notifyItemRangeInserted(start, messages.size());
+    }
+
+    /** Unbinds the {@code count} oldest messages. */
+    void trimOldest(int count) {
+        count = Math.min(count, mMessages.size());
+        if (count <= 0) return;
+        mMessages.subList(0, count).clear();
+        notifyItemRangeRemoved(0, count);
+    }
+
+    /** Unbinds the {@code count} newest messages. */
+    void trimNewest(int count) {
+        count = Math.min(count, mMessages.size());
+        if (count <= 0) return;
+        int start = mMessages.size() - count;
+        mMessages.subList(start, mMessages.size()).clear();
+        notifyItemRangeRemoved(start, count);
+    }
+
+    /**
+     * Replaces the message with the same id in place. Streamed messages are always near the end,
+     * so the lookup walks backwards.
+     */
+    void updateMessage(WikiMessage message) {
+        for (int i = mMessages.size() - 1; i >= 0; i--) {
+            if (mMessages.get(i).getId() != message.getId()) continue;
+            WikiMessage previous = mMessages.set(i, message);
+            notifyItemChanged(i, previous.getRole() == message.getRole() ? PAYLOAD_TEXT : null);
+            return;
         }
-        notifyDataSetChanged();
+        appendMessage(message);
     }
 
     @NonNull
@@ -51,6 +113,21 @@ class WikiMessageAdapter extends RecyclerView.Adapter<WikiMessageAdapter.Message
         holder.bind(message);
     }
 
+    @Override
+    public void onBindViewHolder(
+            @NonNull MessageViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.isEmpty() || payloads.contains(null)) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+        holder.bindText(mMessages.get(position));
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return mMessages.get(position).getId();
+    }
+
     @Override
     public int getItemCount() {
         return mMessages.size();
@@ -72,8 +149,12 @@ class WikiMessageAdapter extends RecyclerView.Adapter<WikiMessageAdapter.Message
             mMessageView = itemView.findViewById(R.id.wiki_message_text);
         }
 
-        void bind(WikiMessage message) {
+        void bindText(WikiMessage message) {
             mMessageView.setText(message.getText());
+        }
+
+        void bind(WikiMessage message) {
+            bindText(message);
             FrameLayout.LayoutParams params =
                     (FrameLayout.LayoutParams) mMessageView.getLayoutParams();
             params.setMarginStart(dp(8));
@@ -111,4 +192,45 @@ class WikiMessageAdapter extends RecyclerView.Adapter<WikiMessageAdapter.Message
             return Math.round(value * density);
         }
     }
+
+    private static class MessageDiffCallback extends DiffUtil.Callback {
+        private final List<WikiMessage> mOldMessages;
+        private final List<WikiMessage> mNewMessages;
+
+        MessageDiffCallback(List<WikiMessage> oldMessages, List<WikiMessage> newMessages) {
+            mOldMessages = oldMessages;
+            mNewMessages = newMessages;
+        }
+
+        @Override
+        public int getOldListSize() {
+            return mOldMessages.size();
+        }
+
+        @Override
+        public int getNewListSize() {
+            return mNewMessages.size();
+        }
+
+        @Override
+        public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+            return mOldMessages.get(oldItemPosition).getId()
+                    == mNewMessages.get(newItemPosition).getId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+            WikiMessage oldMessage = mOldMessages.get(oldItemPosition);
+            WikiMessage newMessage = mNewMessages.get(newItemPosition);
+            return oldMessage.getRole() == newMessage.getRole()
+                    && oldMessage.getText().equals(newMessage.getText());
+        }
+
+        @Override
+        public Object getChangePayload(int oldItemPosition, int newItemPosition) {
+            boolean sameRole = mOldMessages.get(oldItemPosition).getRole()
+                    == mNewMessages.get(newItemPosition).getRole();
+            return sameRole ? PAYLOAD_TEXT : null;
+        }
+    }
 }
@@ -0,0 +1,308 @@
+// Copyright 2025 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.chrome.browser.wiki;
+
+import android.util.LruCache;
+
+import androidx.annotation.IntDef;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import org.chromium.base.Log;
+import org.chromium.base.StreamUtil;
+import org.chromium.base.metrics.RecordHistogram;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.concurrent.GuardedBy;
+
+/**
+ * Content-addressed cache of model responses for the Wiki agent, shared by every session of a
+ * controller. Lookups go through an LRU memory tier, then a size-capped disk tier, and finally the
+ * model. Concurrent requests for the same key wait for the first one instead of issuing their own.
+ * Every method may block and must only be called from automation sequences.
+ */
+class WikiModelResponseCache {
+    private static final String TAG = "WikiModelCache";
+
+    /** A model response, i.e. the planned step and the text that was streamed to produce it. */
+    static class Entry {
+        final String mStreamedText;
+        final WikiAgentStep mStep;
+
+        Entry(String streamedText, WikiAgentStep step) {
+            mStreamedText = streamedText;
+            mStep = step;
+        }
+
+        int estimateSize() {
+            String action = mStep.getAction();
+            String targetUrl = mStep.getTargetUrl();
+            return 2
+                    * (mStreamedText.length() + mStep.getDescription().length()
+                            + (action != null ? action.length() : 0)
+                            + (targetUrl != null ? targetUrl.length() : 0));
+        }
+    }
+
+    /** Produces an entry on a cache miss. */
+    interface Loader {
+        Entry load() throws IOException;
+    }
+
+    /** Lets callers abandon a wait on another caller's in-flight request. */
+    interface CancellationSignal {
+        boolean isCanceled();
+    }
+
+    // These values are persisted to logs. Entries should not be renumbered and
+    // numeric values should never be reused.
+    @IntDef({LookupResult.MEMORY_HIT, LookupResult.DISK_HIT, LookupResult.DEDUPLICATED,
+            LookupResult.MISS})
+    @Retention(RetentionPolicy.SOURCE)
+    @interface LookupResult {
+        int MEMORY_HIT = 0;
+        int DISK_HIT = 1;
+        int DEDUPLICATED = 2;
+        int MISS = 3;
+        int NUM_ENTRIES = 4;
+    }
+
+    /** A request that is being answered by the model. */
+    private static class InFlight {
+        final CountDownLatch mDone = new CountDownLatch(1);
+        volatile Entry mEntry;
+    }
+
+    private static final int FORMAT_VERSION = 2;
+    private static final int MEMORY_CAPACITY_BYTES = 1024 * 1024;
+    private static final long DISK_CAPACITY_BYTES = 8 * 1024 * 1024;
+    /** Fraction of the disk capacity the disk tier is trimmed down to once it overflows. */
+    private static final float DISK_TRIM_RATIO = 0.8f;
+    private static final long WAIT_POLL_MS = 100L;
+
+    private final File mDirectory;
+    private final LruCache<String, Entry> mMemoryCache =
+            new LruCache<String, Entry>(MEMORY_CAPACITY_BYTES) {
+                @Override
+                protected int sizeOf(String key, Entry entry) {
+                    return entry.estimateSize();
+                }
+            };
+    private final Object mInFlightLock = new Object();
+    @GuardedBy("mInFlightLock")
+    private final Map<String, InFlight> mInFlight = new HashMap<>();
+    private final Object mDiskLock = new Object();
+    @GuardedBy("mDiskLock")
+    private long mDiskBytes = -1;
+
+    /** @param directory Directory of the disk tier. Created on demand. */
+    WikiModelResponseCache(File directory) {
+        mDirectory = directory;
+    }
+
+    /**
+     * Returns the entry cached for {@code key}, waiting for an identical in-flight request or
+     * calling {@code loader} if there is none.
+     * @param key Content hash of everything that influences the response.
+     * @param signal Checked while waiting for another caller's request, and after {@code loader}
+     *         returns. A response loaded for a cancelled request is not cached.
+     */
+    @WorkerThread
+    Entry get(String key, Loader loader, CancellationSignal signal) throws IOException {
+        while (true) {
+            Entry entry = mMemoryCache.get(key);
+            if (entry != null) {
+                recordLookup(LookupResult.MEMORY_HIT);
+                return entry;
+            }
+
+            InFlight inFlight;
+            boolean leader = false;
+            synchronized (mInFlightLock) {
+                inFlight = mInFlight.get(key);
+                if (inFlight == null) {
+                    inFlight = new InFlight();
+                    mInFlight.put(key, inFlight);
+                    leader = true;
+                }
+            }
+
+            if (leader) return loadAsLeader(key, loader, signal, inFlight);
+
+            entry = await(inFlight, signal);
+            if (entry != null) {
+                recordLookup(LookupResult.DEDUPLICATED);
+                return entry;
+            }
+            // The request we waited for failed or was cancelled; try again on our own.
+        }
+    }
+
+    private Entry loadAsLeader(String key, Loader loader, CancellationSignal signal,
+            InFlight inFlight) throws IOException {
+        try {
+            Entry entry = readFromDisk(key);
+            if (entry != null) {
+                recordLookup(LookupResult.DISK_HIT);
+            } else {
+                recordLookup(LookupResult.MISS);
+                entry = loader.load();
+                // The response may have been cut short. Waiting callers load on their own.
+                if (signal.isCanceled()) throw new InterruptedIOException("Request cancelled.");
+                writeToDisk(key, entry);
+            }
+            mMemoryCache.put(key, entry);
+            inFlight.mEntry = entry;
+            return entry;
+        } finally {
+            synchronized (mInFlightLock) {
+                mInFlight.remove(key);
+            }
+            inFlight.mDone.countDown();
+        }
+    }
+
+    @Nullable
+    private static Entry await(InFlight inFlight, CancellationSignal signal)
+            throws InterruptedIOException {
+        try {
+            while (!inFlight.mDone.await(WAIT_POLL_MS, TimeUnit.MILLISECONDS)) {
+                if (signal.isCanceled()) throw new InterruptedIOException("Request cancelled.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+        return inFlight.mEntry;
+    }
+
+    @Nullable
+    private Entry readFromDisk(String key) {
+        File file = new File(mDirectory, key);
+        DataInputStream in = null;
+        synchronized (mDiskLock) {
+            if (!file.exists()) return null;
+            try {
+                in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+                if (in.readInt() != FORMAT_VERSION) return null;
+                String streamedText = readString(in);
+                String description = readString(in);
+                String action = in.readBoolean() ? readString(in) : null;
+                String targetUrl = in.readBoolean() ? readString(in) : null;
+                boolean isFinal = in.readBoolean();
+                // Keep recently used entries away from the trimming end.
+                file.setLastModified(System.currentTimeMillis());
+                return new Entry(streamedText,
+                        new WikiAgentStep(description, action, targetUrl, isFinal));
+            } catch (IOException e) {
+                Log.w(TAG, "Dropping unreadable cache entry.", e);
+                deleteLocked(file);
+                return null;
+            } finally {
+                StreamUtil.closeQuietly(in);
+            }
+        }
+    }
+
+    private void writeToDisk(String key, Entry entry) {
+        File file = new File(mDirectory, key);
+        DataOutputStream out = null;
+        synchronized (mDiskLock) {
+            try {
+                ensureDiskBytesLocked();
+                long previousLength = file.length();
+                out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+                out.writeInt(FORMAT_VERSION);
+                writeString(out, entry.mStreamedText);
+                writeString(out, entry.mStep.getDescription());
+                String action = entry.mStep.getAction();
+                out.writeBoolean(action != null);
+                if (action != null) writeString(out, action);
+                String targetUrl = entry.mStep.getTargetUrl();
+                out.writeBoolean(targetUrl != null);
+                if (targetUrl != null) writeString(out, targetUrl);
+                out.writeBoolean(entry.mStep.isFinal());
+                out.close();
+                out = null;
+                mDiskBytes += file.length() - previousLength;
+                if (mDiskBytes > DISK_CAPACITY_BYTES) trimDiskLocked();
+            } catch (IOException e) {
+                Log.w(TAG, "Failed to persist cache entry.", e);
+                StreamUtil.closeQuietly(out);
+                deleteLocked(file);
+            }
+        }
+    }
+
+    @GuardedBy("mDiskLock")
+    private void ensureDiskBytesLocked() {
+        if (mDiskBytes >= 0) return;
+        if (!mDirectory.exists() && !mDirectory.mkdirs()) {
+            Log.w(TAG, "Failed to create %s", mDirectory);
+        }
+        mDiskBytes = 0;
+        File[] files = mDirectory.listFiles();
+        if (files == null) return;
+        for (File file : files) mDiskBytes += file.length();
+    }
+
+    /** Deletes least recently used entries until the disk tier is well under its capacity. */
+    @GuardedBy("mDiskLock")
+    private void trimDiskLocked() {
+        File[] files = mDirectory.listFiles();
+        if (files == null) return;
+        long[] lastModified = new long[files.length];
+        Integer[] order = new Integer[files.length];
+        for (int i = 0; i < files.length; i++) {
+            lastModified[i] = files[i].lastModified();
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(lastModified[a], lastModified[b]));
+        long target = (long) (DISK_CAPACITY_BYTES * DISK_TRIM_RATIO);
+        for (int i = 0; i < order.length && mDiskBytes > target; i++) {
+            deleteLocked(files[order[i]]);
+        }
+    }
+
+    @GuardedBy("mDiskLock")
+    private void deleteLocked(File file) {
+        long length = file.length();
+        if (file.delete() && mDiskBytes >= 0) mDiskBytes -= length;
+    }
+
+    private static void recordLookup(@LookupResult int result) {
+        RecordHistogram.recordEnumeratedHistogram(
+                "Android.Wiki.ModelCache.LookupResult", result, LookupResult.NUM_ENTRIES);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,143 @@
+// Copyright 2025 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.chrome.browser.wiki;
+
+import androidx.annotation.AnyThread;
+import androidx.annotation.Nullable;
+import androidx.annotation.UiThread;
+import androidx.annotation.WorkerThread;
+
+import org.chromium.base.ThreadUtils;
+import org.chromium.base.metrics.RecordHistogram;
+import org.chromium.base.supplier.Supplier;
+import org.chromium.base.task.PostTask;
+import org.chromium.chrome.browser.WarmupManager;
+import org.chromium.chrome.browser.profiles.Profile;
+import org.chromium.chrome.browser.tab.Tab;
+import org.chromium.content_public.browser.UiThreadTaskTraits;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Warms up the network for the navigation a plan is about to make while the model is still
+ * streaming it. The first complete URL in the streamed plan is preconnected through {@link
+ * WarmupManager}. If the finished step navigates somewhere else, that target is preconnected
+ * instead.
+ *
+ * No spare WebContents is created: the automation navigates inside its existing tab, which never
+ * takes one, so a spare renderer would only be started to be destroyed again.
+ *
+ * Plan callbacks come from the automation sequence; WarmupManager is driven on the UI thread.
+ */
+class WikiNavigationPrefetcher {
+    /** A URL followed by a character that cannot be part of it, so partial URLs are ignored. */
+    private static final Pattern URL_PATTERN =
+            Pattern.compile("https?://[^\\s\"'<>()\\[\\]]+(?=[\\s\"'<>()\\[\\]])");
+
+    private final Supplier<Tab> mTabSupplier;
+    /** Bumped by {@link #cancel()}, so speculations posted before it are dropped. */
+    private final AtomicInteger mGeneration = new AtomicInteger();
+
+    // Owned by the automation sequence.
+    private final StringBuilder mPlanText = new StringBuilder();
+    private int mScanStart;
+    private boolean mSpeculated;
+
+    // UI thread state.
+    private @Nullable String mSpeculatedUrl;
+
+    /** @param tabSupplier Supplies the automation's tab. Only queried on the UI thread. */
+    WikiNavigationPrefetcher(Supplier<Tab> tabSupplier) {
+        mTabSupplier = tabSupplier;
+    }
+
+    /** Starts scanning the output of a new plan phase. */
+    @WorkerThread
+    void onPlanStarted() {
+        mPlanText.setLength(0);
+        mScanStart = 0;
+        mSpeculated = false;
+    }
+
+    /** Scans the newly streamed plan text for the first navigation target. */
+    @WorkerThread
+    void onPlanToken(String delta) {
+        if (mSpeculated) return;
+        mPlanText.append(delta);
+        Matcher matcher = URL_PATTERN.matcher(mPlanText);
+        if (matcher.find(mScanStart)) {
+            mSpeculated = true;
+            postSpeculation(matcher.group());
+            return;
+        }
+        // URLs contain no whitespace, so one that is still streaming starts after the last one.
+        for (int i = mPlanText.length() - 1; i >= mScanStart; i--) {
+            if (Character.isWhitespace(mPlanText.charAt(i))) {
+                mScanStart = i + 1;
+                break;
+            }
+        }
+    }
+
+    /**
+     * Preconnects the target of the planned step if the speculation missed it. Whether the
+     * speculation hit is only recorded for steps that navigate.
+     */
+    @WorkerThread
+    void onPlanFinished(WikiAgentStep step) {
+        mPlanText.setLength(0);
+        String targetUrl = step.getTargetUrl();
+        if (targetUrl == null) return;
+        int generation = mGeneration.get();
+        PostTask.postTask(UiThreadTaskTraits.USER_BLOCKING, () -> {
+            if (generation != mGeneration.get()) return;
+            RecordHistogram.recordBooleanHistogram(
+                    "Android.Wiki.Prefetch.Hit", targetUrl.equals(mSpeculatedUrl));
+            speculate(targetUrl);
+        });
+    }
+
+    /** Drops the current speculation once its step has been acted upon. */
+    @AnyThread
+    void onStepFinished() {
+        cancel();
+    }
+
+    /** Drops the current speculation, including speculations that are still being posted. */
+    @AnyThread
+    void cancel() {
+        mGeneration.incrementAndGet();
+        PostTask.runOrPostTask(UiThreadTaskTraits.USER_BLOCKING, this::cancelOnUiThread);
+    }
+
+    private void postSpeculation(String url) {
+        int generation = mGeneration.get();
+        PostTask.postTask(UiThreadTaskTraits.USER_BLOCKING, () -> {
+            if (generation != mGeneration.get()) return;
+            speculate(url);
+        });
+    }
+
+    @UiThread
+    private void speculate(String url) {
+        ThreadUtils.assertOnUiThread();
+        if (url.equals(mSpeculatedUrl)) return;
+        // Speculating in the regular profile would leak incognito navigations.
+        Tab tab = mTabSupplier.get();
+        if (tab == null || tab.isIncognito()) return;
+
+        mSpeculatedUrl = url;
+        WarmupManager.getInstance().maybePreconnectUrlAndSubResources(
+                Profile.getLastUsedRegularProfile(), url);
+    }
+
+    @UiThread
+    private void cancelOnUiThread() {
+        // Preconnected sockets cannot be taken back, they are left to idle out.
+        mSpeculatedUrl = null;
+    }
+}
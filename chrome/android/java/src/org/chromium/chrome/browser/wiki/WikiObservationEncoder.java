@@ -0,0 +1,152 @@
+// Copyright 2025 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.chrome.browser.wiki;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Turns consecutive {@link WikiDomSnapshot}s of a page into the text sent to the model. The first
+ * snapshot of a document is sent in full; later ones only list what changed since the previous
+ * step:
+ * <pre>
+ * + [id] label &lt; [parentId] @i   node added at child index i, or its description changed
+ * ~ [id] order [a] [b] ...       children that were already present were reordered
+ * - [id]                          node and its subtree were removed
+ * </pre>
+ * Subtrees whose hash did not change are skipped without being visited.
+ */
+class WikiObservationEncoder {
+    private @Nullable WikiDomSnapshot mPrevious;
+    private int mLastFullBytes;
+    private int mLastEncodedBytes;
+    private boolean mLastWasDelta;
+
+    /** Encodes {@code snapshot} relative to the one passed to the previous call. */
+    String encode(WikiDomSnapshot snapshot) {
+        String full = snapshot.serialize();
+        String encoded = full;
+        mLastWasDelta = false;
+        if (mPrevious != null && mPrevious.getDocumentId().equals(snapshot.getDocumentId())) {
+            String delta = buildDelta(mPrevious, snapshot);
+            // A delta is only worth it while it is smaller than the page it describes.
+            if (delta.length() < full.length()) {
+                encoded = delta;
+                mLastWasDelta = true;
+            }
+        }
+        mPrevious = snapshot;
+        mLastFullBytes = utf8Length(full);
+        mLastEncodedBytes = mLastWasDelta ? utf8Length(encoded) : mLastFullBytes;
+        return encoded;
+    }
+
+    /** Forgets the previous snapshot so the next one is sent in full. */
+    void reset() {
+        mPrevious = null;
+    }
+
+    /** @return UTF-8 size of the full serialization of the last encoded snapshot. */
+    int getLastFullBytes() {
+        return mLastFullBytes;
+    }
+
+    /** @return UTF-8 size of what was actually returned for the last snapshot. */
+    int getLastEncodedBytes() {
+        return mLastEncodedBytes;
+    }
+
+    boolean wasLastDelta() {
+        return mLastWasDelta;
+    }
+
+    private static String buildDelta(WikiDomSnapshot previous, WikiDomSnapshot current) {
+        StringBuilder delta = new StringBuilder();
+        delta.append("delta url ").append(current.getUrl()).append('\n');
+
+        List<WikiDomSnapshot.Node> stack = new ArrayList<>(current.getRoots());
+        while (!stack.isEmpty()) {
+            WikiDomSnapshot.Node node = stack.remove(stack.size() - 1);
+            WikiDomSnapshot.Node old = previous.getNode(node.mId);
+            boolean sameParent = old != null && parentId(old) == parentId(node);
+            if (sameParent && old.mSubtreeHash == node.mSubtreeHash) continue;
+
+            if (!sameParent || old.mSelfHash != node.mSelfHash) {
+                delta.append("+ ");
+                WikiDomSnapshot.appendNode(delta, node);
+                if (node.mParent != null) {
+                    delta.append(" < [").append(node.mParent.mId).append("] @")
+                            .append(node.mParent.mChildren.indexOf(node));
+                }
+                delta.append('\n');
+            }
+            if (old != null && !sameRetainedChildOrder(previous, old, node)) {
+                delta.append("~ [").append(node.mId).append("] order");
+                for (WikiDomSnapshot.Node child : node.mChildren) {
+                    delta.append(" [").append(child.mId).append(']');
+                }
+                delta.append('\n');
+            }
+            stack.addAll(node.mChildren);
+        }
+
+        stack.addAll(previous.getRoots());
+        while (!stack.isEmpty()) {
+            WikiDomSnapshot.Node old = stack.remove(stack.size() - 1);
+            if (current.getNode(old.mId) == null) {
+                // Removing a node implies removing its subtree.
+                delta.append("- [").append(old.mId).append("]\n");
+                continue;
+            }
+            stack.addAll(old.mChildren);
+        }
+        return delta.toString();
+    }
+
+    private static int utf8Length(String value) {
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c)) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    private static int parentId(WikiDomSnapshot.Node node) {
+        return node.mParent == null ? 0 : node.mParent.mId;
+    }
+
+    /**
+     * @return Whether the children present both in {@code old} and {@code node} appear in the same
+     *         relative order. Added and removed children are described by their own lines.
+     */
+    private static boolean sameRetainedChildOrder(
+            WikiDomSnapshot previous, WikiDomSnapshot.Node old, WikiDomSnapshot.Node node) {
+        int oldIndex = 0;
+        for (WikiDomSnapshot.Node child : node.mChildren) {
+            WikiDomSnapshot.Node oldChild = previous.getNode(child.mId);
+            if (oldChild == null || oldChild.mParent != old) continue;
+            while (oldIndex < old.mChildren.size()
+                    && old.mChildren.get(oldIndex).mId != child.mId) {
+                oldIndex++;
+            }
+            if (oldIndex == old.mChildren.size()) return false;
+            oldIndex++;
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,227 @@
+// Copyright 2025 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.chrome.browser.wiki;
+
+import android.view.Choreographer;
+
+import androidx.annotation.AnyThread;
+import androidx.annotation.UiThread;
+
+import org.chromium.base.ThreadUtils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.concurrent.GuardedBy;
+
+/**
+ * Forwards events produced on the automation sequence to a {@link WikiAutomationClient.Observer}
+ * on the UI thread. Events are batched into at most one delivery per display frame and streamed
+ * model output is coalesced into a single partial message, so a chatty model cannot flood the main
+ * looper. Terminal events commit any streamed text first. While throttled, nothing but terminal
+ * events is delivered, consecutive status updates are coalesced into the latest one, and at most
+ * {@link #MAX_PENDING_EVENTS} events are kept, so a long run with a hidden transcript cannot grow
+ * the queue without bound.
+ */
+class WikiObserverDispatcher implements Choreographer.FrameCallback {
+    private static final int EVENT_STATUS = 0;
+    private static final int EVENT_MESSAGE = 1;
+    private static final int EVENT_COMPLETED = 2;
+    private static final int EVENT_ERROR = 3;
+    /** Beyond this, the oldest pending events are dropped. */
+    private static final int MAX_PENDING_EVENTS = 64;
+
+    private static class Event {
+        final int mType;
+        final String mCopy;
+
+        Event(int type, String copy) {
+            mType = type;
+            mCopy = copy;
+        }
+    }
+
+    private final Object mLock = new Object();
+    private final Choreographer mChoreographer;
+    private final WikiAutomationClient.Observer mObserver;
+
+    @GuardedBy("mLock")
+    private final ArrayDeque<Event> mPendingEvents = new ArrayDeque<>();
+    @GuardedBy("mLock")
+    private final StringBuilder mStreamText = new StringBuilder();
+    @GuardedBy("mLock")
+    private boolean mStreamDirty;
+    @GuardedBy("mLock")
+    private boolean mTerminalPending;
+    @GuardedBy("mLock")
+    private boolean mFrameScheduled;
+    @GuardedBy("mLock")
+    private boolean mThrottled;
+    @GuardedBy("mLock")
+    private boolean mDetached;
+
+    @UiThread
+    WikiObserverDispatcher(WikiAutomationClient.Observer observer, boolean throttled) {
+        ThreadUtils.assertOnUiThread();
+        mChoreographer = Choreographer.getInstance();
+        mObserver = observer;
+        mThrottled = throttled;
+    }
+
+    /** Appends model output to the message currently being streamed. */
+    @AnyThread
+    void appendStreamDelta(String delta) {
+        synchronized (mLock) {
+            mStreamText.append(delta);
+            mStreamDirty = true;
+            maybeScheduleFrameLocked();
+        }
+    }
+
+    /** Turns the streamed text, if any, into a finished agent message. */
+    @AnyThread
+    void finishStream() {
+        synchronized (mLock) {
+            finishStreamLocked();
+            maybeScheduleFrameLocked();
+        }
+    }
+
+    @AnyThread
+    void postStatus(String statusCopy) {
+        enqueue(new Event(EVENT_STATUS, statusCopy));
+    }
+
+    @AnyThread
+    void postAgentMessage(String messageCopy) {
+        enqueue(new Event(EVENT_MESSAGE, messageCopy));
+    }
+
+    @AnyThread
+    void postCompleted(String finalSummary) {
+        enqueue(new Event(EVENT_COMPLETED, finalSummary));
+    }
+
+    @AnyThread
+    void postError(String errorCopy) {
+        enqueue(new Event(EVENT_ERROR, errorCopy));
+    }
+
+    /**
+     * Throttled dispatchers keep accumulating events without waking the UI thread until they are
+     * unthrottled or the run ends.
+     */
+    @UiThread
+    void setThrottled(boolean throttled) {
+        synchronized (mLock) {
+            mThrottled = throttled;
+            maybeScheduleFrameLocked();
+        }
+    }
+
+    /** Drops pending events; the observer will not be called again. */
+    @UiThread
+    void detach() {
+        synchronized (mLock) {
+            mDetached = true;
+            mPendingEvents.clear();
+            mStreamText.setLength(0);
+            if (mFrameScheduled) {
+                mChoreographer.removeFrameCallback(this);
+                mFrameScheduled = false;
+            }
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        List<Event> events;
+        String partialCopy = null;
+        synchronized (mLock) {
+            mFrameScheduled = false;
+            if (mDetached) return;
+            events = new ArrayList<>(mPendingEvents);
+            mPendingEvents.clear();
+            mTerminalPending = false;
+            if (mStreamDirty) {
+                partialCopy = mStreamText.toString();
+                mStreamDirty = false;
+            }
+        }
+
+        for (Event event : events) {
+            if (isDetached()) return;
+            switch (event.mType) {
+                case EVENT_STATUS:
+                    mObserver.onStatusUpdated(event.mCopy);
+                    break;
+                case EVENT_MESSAGE:
+                    mObserver.onAgentMessage(event.mCopy);
+                    break;
+                case EVENT_COMPLETED:
+                    mObserver.onCompleted(event.mCopy);
+                    break;
+                case EVENT_ERROR:
+                    mObserver.onError(event.mCopy);
+                    break;
+                default:
+                    assert false : "Unknown event type " + event.mType;
+            }
+        }
+        if (partialCopy != null && !isDetached()) mObserver.onAgentMessageStreaming(partialCopy);
+    }
+
+    private void enqueue(Event event) {
+        synchronized (mLock) {
+            if (mDetached) return;
+            if (event.mType == EVENT_COMPLETED || event.mType == EVENT_ERROR) {
+                // A run that fails mid-stream still commits what it streamed, ahead of the end of
+                // the run, so no partial message is delivered after it.
+                finishStreamLocked();
+                mTerminalPending = true;
+            }
+            addPendingEventLocked(event);
+            maybeScheduleFrameLocked();
+        }
+    }
+
+    @GuardedBy("mLock")
+    private void finishStreamLocked() {
+        if (mStreamText.length() == 0) return;
+        addPendingEventLocked(new Event(EVENT_MESSAGE, mStreamText.toString()));
+        mStreamText.setLength(0);
+        mStreamDirty = false;
+    }
+
+    @GuardedBy("mLock")
+    private void addPendingEventLocked(Event event) {
+        if (mThrottled && event.mType == EVENT_STATUS && !mPendingEvents.isEmpty()
+                && mPendingEvents.peekLast().mType == EVENT_STATUS) {
+            // Nobody saw the previous status, and this one supersedes it.
+            mPendingEvents.pollLast();
+        }
+        mPendingEvents.add(event);
+        // Terminal events end the run, so they are always last and never dropped.
+        while (mPendingEvents.size() > MAX_PENDING_EVENTS) mPendingEvents.poll();
+    }
+
+    private boolean isDetached() {
+        synchronized (mLock) {
+            return mDetached;
+        }
+    }
+
+    @GuardedBy("mLock")
+    private void maybeScheduleFrameLocked() {
+        if (mFrameScheduled || mDetached) return;
+        if (mThrottled && !mTerminalPending) return;
+        if (mPendingEvents.isEmpty() && !mStreamDirty) return;
+        mFrameScheduled = true;
+        // Choreographer synchronizes internally, so this is safe to call off the UI thread and
+        // only costs the UI thread a single vsync-aligned callback no matter how many events land.
+        mChoreographer.postFrameCallback(this);
+    }
+}
@@ -0,0 +1,152 @@
+// Copyright 2025 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.chrome.browser.wiki;
+
+import android.os.SystemClock;
+
+import androidx.annotation.UiThread;
+import androidx.annotation.WorkerThread;
+
+import org.chromium.base.Callback;
+import org.chromium.base.metrics.RecordHistogram;
+import org.chromium.base.supplier.Supplier;
+import org.chromium.base.task.PostTask;
+import org.chromium.chrome.browser.tab.Tab;
+import org.chromium.content_public.browser.UiThreadTaskTraits;
+import org.chromium.content_public.browser.WebContents;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Captures the interactive elements of a tab for each step of the Wiki agent loop and encodes
+ * them with {@link WikiObservationEncoder}, so only what changed since the previous step is sent
+ * to the model.
+ */
+class WikiPageObserver {
+    static final String NO_PAGE_OBSERVATION = "no page";
+
+    private static final long CAPTURE_TIMEOUT_MS = 3000L;
+    private static final int MAX_CAPTURED_NODES = 1500;
+    private static final int MAX_LABEL_CHARS = 80;
+
+    /**
+     * Lists visible interactive elements in document order. Ids live in a WeakMap on the page so
+     * they stay stable across captures of the same document, and a fresh document gets a fresh
+     * document token.
+     */
+    private static final String CAPTURE_SCRIPT = "(function() {"
+            + "var w = window;"
+            + "var ids = w.__wikiNodeIds || (w.__wikiNodeIds = new WeakMap());"
+            + "if (!w.__wikiDocId) w.__wikiDocId = Date.now().toString(36) +"
+            + "    Math.random().toString(36).slice(2);"
+            + "var sel = 'a[href],button,input,select,textarea,summary,label,[role],[onclick],"
+            + "[contenteditable],[tabindex],h1,h2,h3';"
+            + "var nodes = [];"
+            + "var els = document.querySelectorAll(sel);"
+            + "for (var i = 0; i < els.length && nodes.length < " + MAX_CAPTURED_NODES + "; i++) {"
+            + "  var el = els[i];"
+            + "  if (el.getClientRects().length === 0) continue;"
+            + "  var id = ids.get(el);"
+            + "  if (!id) {"
+            + "    id = w.__wikiNextNodeId = (w.__wikiNextNodeId || 0) + 1;"
+            + "    ids.set(el, id);"
+            + "  }"
+            + "  var p = el.parentElement && el.parentElement.closest(sel);"
+            + "  var tag = el.tagName.toLowerCase();"
+            + "  if (tag === 'input') tag += ':' + (el.type || 'text');"
+            + "  var text = el.getAttribute('aria-label') || el.innerText || el.value ||"
+            + "      el.placeholder || el.title || '';"
+            + "  text = String(text).replace(/\\s+/g, ' ').trim();"
+            + "  text = text.slice(0, " + MAX_LABEL_CHARS + ");"
+            + "  var role = el.getAttribute('role') || '';"
+            + "  nodes.push([id, (p && ids.get(p)) || 0, tag, role, text]);"
+            + "}"
+            + "return {url: location.href, doc: w.__wikiDocId, nodes: nodes};"
+            + "})();";
+
+    private final Supplier<Tab> mTabSupplier;
+    private final WikiObservationEncoder mEncoder = new WikiObservationEncoder();
+    /** Whether a tab observed since the last {@link #reset} was incognito. */
+    private volatile boolean mObservedIncognito;
+
+    /** @param tabSupplier Supplies the tab to observe. Only queried on the UI thread. */
+    WikiPageObserver(Supplier<Tab> tabSupplier) {
+        mTabSupplier = tabSupplier;
+    }
+
+    /**
+     * Captures the current page and encodes it relative to the previous capture. Blocks the
+     * calling thread until the page answers or {@link #CAPTURE_TIMEOUT_MS} elapses.
+     * @return The encoded observation, or {@link #NO_PAGE_OBSERVATION} if none could be captured.
+     */
+    @WorkerThread
+    String observe() {
+        long startMs = SystemClock.elapsedRealtime();
+        AtomicReference<String> result = new AtomicReference<>();
+        CountDownLatch latch = new CountDownLatch(1);
+        PostTask.postTask(UiThreadTaskTraits.USER_BLOCKING, () -> capture(json -> {
+            result.set(json);
+            latch.countDown();
+        }));
+        try {
+            if (!latch.await(CAPTURE_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                return onCaptureFailed();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return onCaptureFailed();
+        }
+        RecordHistogram.recordTimesHistogram("Android.Wiki.Observation.CaptureLatency",
+                SystemClock.elapsedRealtime() - startMs);
+
+        String json = result.get();
+        WikiDomSnapshot snapshot = json == null ? null : WikiDomSnapshot.fromJson(json);
+        if (snapshot == null) return onCaptureFailed();
+
+        String encoded = mEncoder.encode(snapshot);
+        RecordHistogram.recordCustomCountHistogram("Android.Wiki.Observation.FullBytes",
+                mEncoder.getLastFullBytes(), 1, 10_000_000, 50);
+        RecordHistogram.recordCustomCountHistogram("Android.Wiki.Observation.EncodedBytes",
+                mEncoder.getLastEncodedBytes(), 1, 10_000_000, 50);
+        RecordHistogram.recordBooleanHistogram(
+                "Android.Wiki.Observation.IsDelta", mEncoder.wasLastDelta());
+        return encoded;
+    }
+
+    /** Makes the next observation a full snapshot, e.g. when a new run starts. */
+    @WorkerThread
+    void reset() {
+        mEncoder.reset();
+        mObservedIncognito = false;
+    }
+
+    /**
+     * @return Whether an incognito tab was observed since the last {@link #reset}. Everything the
+     *         model answers from then on may echo incognito content.
+     */
+    @WorkerThread
+    boolean hasObservedIncognito() {
+        return mObservedIncognito;
+    }
+
+    private String onCaptureFailed() {
+        mEncoder.reset();
+        return NO_PAGE_OBSERVATION;
+    }
+
+    @UiThread
+    private void capture(Callback<String> callback) {
+        Tab tab = mTabSupplier.get();
+        if (tab != null && tab.isIncognito()) mObservedIncognito = true;
+        WebContents webContents = tab == null || tab.isNativePage() ? null : tab.getWebContents();
+        if (webContents == null) {
+            callback.onResult(null);
+            return;
+        }
+        webContents.evaluateJavaScript(CAPTURE_SCRIPT, callback::onResult);
+    }
+}
@@ -14,6 +14,7 @@ import android.widget.ImageButton;
 import android.widget.LinearLayout;
 import android.widget.TextView;
 
+import androidx.annotation.NonNull;
 import androidx.appcompat.widget.AppCompatEditText;
 import androidx.core.content.ContextCompat;
 import androidx.core.graphics.drawable.DrawableCompat;
@@ -34,10 +35,23 @@ public class WikiPanelView extends FrameLayout {
         void onPromptSubmitted(String prompt);
 
         void onResumeRequested();
+
+        /** Called when the user asks to delete the conversation. */
+        void onClearRequested();
+
+        /** Called when the transcript is scrolled close to its oldest bound message. */
+        void onOlderMessagesRequested();
+
+        /** Called when the transcript is scrolled close to its newest bound message. */
+        void onNewerMessagesRequested();
     }
 
+    /** How close to either end of the bound transcript scrolling triggers a page load. */
+    private static final int PAGE_PREFETCH_DISTANCE = 10;
+
     private LinearLayout mCard;
     private ImageButton mCloseButton;
+    private ImageButton mClearButton;
     private ImageButton mSendButton;
     private Button mResumeButton;
     private TextView mStatusChip;
@@ -55,8 +69,9 @@ public class WikiPanelView extends FrameLayout {
     @Override
     protected void onFinishInflate() {
         super.onFinishInflate();
-        mCard = findViewById(R.id/wiki_panel_card);
+        mCard = findViewById(R.id.wiki_panel_card);
         mCloseButton = findViewById(R.id.wiki_close_button);
+        mClearButton = findViewById(R.id.wiki_clear_button);
         mSendButton = findViewById(R.id.wiki_send_button);
         mResumeButton = findViewById(R.id.wiki_resume_button);
         mStatusChip = findViewById(R.id.wiki_status_chip);
@@ -65,12 +80,31 @@ public class WikiPanelView extends FrameLayout {
         mMessageList = findViewById(R.id.wiki_message_list);
 
         mAdapter = new WikiMessageAdapter(getContext());
-        mMessageList.setLayoutManager(new LinearLayoutManager(getContext()));
+        LinearLayoutManager layoutManager = new LinearLayoutManager(getContext());
+        mMessageList.setLayoutManager(layoutManager);
         mMessageList.setAdapter(mAdapter);
+        mMessageList.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (mCallback == null || dy == 0) return;
+                if (dy < 0
+                        && layoutManager.findFirstVisibleItemPosition()
+                                <= PAGE_PREFETCH_DISTANCE) {
+                    mCallback.onOlderMessagesRequested();
+                } else if (dy > 0
+                        && layoutManager.findLastVisibleItemPosition()
+                                >= mAdapter.getItemCount() - 1 - PAGE_PREFETCH_DISTANCE) {
+                    mCallback.onNewerMessagesRequested();
+                }
+            }
+        });
 
         mCloseButton.setOnClickListener(v -> {
             if (mCallback != null) mCallback.onDismissRequested();
         });
+        mClearButton.setOnClickListener(v -> {
+            if (mCallback != null) mCallback.onClearRequested();
+        });
         mSendButton.setOnClickListener(v -> emitPromptIfNeeded());
         mResumeButton.setOnClickListener(v -> {
             if (mCallback != null) mCallback.onResumeRequested();
@@ -92,7 +126,44 @@ public class WikiPanelView extends FrameLayout {
     void bindMessages(List<WikiMessage> messages) {
         List<WikiMessage> safeList = messages != null ? messages : Collections.emptyList();
         mAdapter.setMessages(safeList);
-        boolean hasMessages = !safeList.isEmpty();
+        onTranscriptGrew();
+    }
+
+    /** Appends a single message without rebinding the rest of the transcript. */
+    void appendMessage(WikiMessage message) {
+        mAdapter.appendMessage(message);
+        onTranscriptGrew();
+    }
+
+    /** Binds a page of older messages in front of the transcript. */
+    void prependMessages(List<WikiMessage> messages) {
+        mAdapter.prependMessages(messages);
+        mEmptyState.setVisibility(mAdapter.getItemCount() > 0 ? GONE : VISIBLE);
+    }
+
+    /** Binds a page of newer messages after the transcript without scrolling to it. */
+    void appendMessages(List<WikiMessage> messages) {
+        mAdapter.appendMessages(messages);
+        mEmptyState.setVisibility(mAdapter.getItemCount() > 0 ? GONE : VISIBLE);
+    }
+
+    /** Unbinds the oldest messages to keep the bound transcript bounded. */
+    void trimOldestMessages(int count) {
+        mAdapter.trimOldest(count);
+    }
+
+    /** Unbinds the newest messages to keep the bound transcript bounded. */
+    void trimNewestMessages(int count) {
+        mAdapter.trimNewest(count);
+    }
+
+    /** Updates the text of an already bound message, e.g. one that is being streamed. */
+    void updateMessage(WikiMessage message) {
+        mAdapter.updateMessage(message);
+    }
+
+    private void onTranscriptGrew() {
+        boolean hasMessages = mAdapter.getItemCount() > 0;
         mEmptyState.setVisibility(hasMessages ? GONE : VISIBLE);
         if (hasMessages) {
             mMessageList.scrollToPosition(mAdapter.getItemCount() - 1);
@@ -109,8 +180,7 @@ public class WikiPanelView extends FrameLayout {
             mStatusChip.setBackground(tinted);
         }
         mResumeButton.setVisibility(showResume ? VISIBLE : GONE);
-        setInputEnabled(state == WikiAutomationState.IDLE || state == WikiAutomationState.COMPLETED
-                || state == WikiAutomationState.ERROR);
+        // Prompts stay enabled while a run is active; the controller runs them in the background.
     }
 
     void setInputEnabled(boolean enabled) {
@@ -0,0 +1,206 @@
+// Copyright 2025 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.chrome.browser.wiki;
+
+import android.os.SystemClock;
+
+import androidx.annotation.IntDef;
+import androidx.annotation.VisibleForTesting;
+
+import org.chromium.base.Log;
+import org.chromium.base.TraceEvent;
+import org.chromium.base.WriteBehindFileWriter;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Traces the phases of a single Wiki automation run and exports them as a compact JSON timeline
+ * once the run ends. The run and every model round-trip are async trace events, the other phases
+ * are begin/end pairs on the automation sequence. All methods must be called on that sequence.
+ *
+ * Timelines are kept in one file per run, written through {@link WriteBehindFileWriter} and named
+ * after the start time so the oldest ones can be pruned by name, in the following format:
+ * <pre>
+ * {"version": 1, "start_time_ms": ..., "duration_ms": ..., "outcome": "completed", "steps": 4,
+ *  "totals_ms": {"observe": ..., ...},
+ *  "phases": [["observe", step, start offset in ms, duration in ms], ...]}
+ * </pre>
+ */
+class WikiRunTimeline {
+    private static final String TAG = "WikiRunTimeline";
+
+    @IntDef({Phase.OBSERVE, Phase.PLAN, Phase.MODEL_ROUND_TRIP, Phase.ACT, Phase.SETTLE})
+    @Retention(RetentionPolicy.SOURCE)
+    @interface Phase {
+        int OBSERVE = 0;
+        int PLAN = 1;
+        int MODEL_ROUND_TRIP = 2;
+        int ACT = 3;
+        int SETTLE = 4;
+        int NUM_ENTRIES = 5;
+    }
+
+    /** How a run ended. Written verbatim to the timeline. */
+    static final String OUTCOME_COMPLETED = "completed";
+    static final String OUTCOME_FAILED = "failed";
+    static final String OUTCOME_STEP_LIMIT = "step_limit";
+    static final String OUTCOME_CANCELLED = "cancelled";
+
+    private static final int VERSION = 1;
+    private static final String RUN_TRACE_NAME = "WikiAutomation.Run";
+    private static final String[] PHASE_NAMES = {"observe", "plan", "model", "act", "settle"};
+    private static final String[] PHASE_TRACE_NAMES = {"WikiAutomation.Observe",
+            "WikiAutomation.Plan", "WikiAutomation.ModelRoundTrip", "WikiAutomation.Act",
+            "WikiAutomation.Settle"};
+    private static final String FILE_SUFFIX = ".json";
+    @VisibleForTesting
+    static final int MAX_TIMELINE_FILES = 500;
+    private static final int NO_PHASE = -1;
+
+    /** Async trace ids must be unique across the concurrently running sessions. */
+    private static final AtomicLong sNextTraceId = new AtomicLong();
+
+    private final File mDirectory;
+    private final long mRunTraceId = sNextTraceId.incrementAndGet();
+    private final long mStartWallMs = System.currentTimeMillis();
+    private final long mStartMs = SystemClock.elapsedRealtime();
+    /** Recorded phases as {phase, step, start offset, duration}. */
+    private final List<long[]> mPhases = new ArrayList<>();
+
+    private int mStep;
+    private @Phase int mOpenPhase = NO_PHASE;
+    private long mOpenPhaseStartMs;
+    private long mModelTraceId;
+    private long mModelStartMs;
+    private boolean mFinished;
+
+    /**
+     * Starts the run span.
+     * @param directory Directory the timeline is written to. Created on demand.
+     */
+    WikiRunTimeline(File directory) {
+        mDirectory = directory;
+        TraceEvent.startAsync(RUN_TRACE_NAME, mRunTraceId);
+    }
+
+    /** Attributes the phases that follow to step {@code step}. */
+    void setStep(int step) {
+        mStep = step;
+    }
+
+    /**
+     * Begins a synchronous phase, ending the one that is currently open.
+     * @param phase Any phase but {@link Phase#MODEL_ROUND_TRIP}.
+     */
+    void beginPhase(@Phase int phase) {
+        assert phase != Phase.MODEL_ROUND_TRIP;
+        endPhase();
+        TraceEvent.begin(PHASE_TRACE_NAMES[phase]);
+        mOpenPhase = phase;
+        mOpenPhaseStartMs = SystemClock.elapsedRealtime();
+    }
+
+    /** Ends the open synchronous phase, if any. */
+    void endPhase() {
+        if (mOpenPhase == NO_PHASE) return;
+        TraceEvent.end(PHASE_TRACE_NAMES[mOpenPhase]);
+        addPhase(mOpenPhase, mOpenPhaseStartMs);
+        mOpenPhase = NO_PHASE;
+    }
+
+    /** Starts the async span of a request that reaches the model. */
+    void beginModelRoundTrip() {
+        assert mModelTraceId == 0;
+        mModelTraceId = sNextTraceId.incrementAndGet();
+        mModelStartMs = SystemClock.elapsedRealtime();
+        TraceEvent.startAsync(PHASE_TRACE_NAMES[Phase.MODEL_ROUND_TRIP], mModelTraceId);
+    }
+
+    /** Ends the span started by {@link #beginModelRoundTrip}. */
+    void endModelRoundTrip() {
+        if (mModelTraceId == 0) return;
+        TraceEvent.finishAsync(PHASE_TRACE_NAMES[Phase.MODEL_ROUND_TRIP], mModelTraceId);
+        addPhase(Phase.MODEL_ROUND_TRIP, mModelStartMs);
+        mModelTraceId = 0;
+    }
+
+    /**
+     * Ends the run span and writes the timeline. Later calls are ignored.
+     * @param outcome One of the {@code OUTCOME_*} constants.
+     */
+    void finish(String outcome) {
+        if (mFinished) return;
+        mFinished = true;
+        endModelRoundTrip();
+        endPhase();
+        TraceEvent.finishAsync(RUN_TRACE_NAME, mRunTraceId);
+
+        if (!mDirectory.exists() && !mDirectory.mkdirs()) {
+            Log.w(TAG, "Failed to create %s", mDirectory);
+            return;
+        }
+        String name = String.format(Locale.US, "%013d-%d%s", mStartWallMs, mRunTraceId,
+                FILE_SUFFIX);
+        try {
+            // Written atomically off the automation sequence, which can move on to the next run.
+            WriteBehindFileWriter.getInstance().write(new File(mDirectory, name).getPath(),
+                    toJson(outcome).toString().getBytes(StandardCharsets.UTF_8));
+        } catch (JSONException e) {
+            Log.w(TAG, "Failed to write the run timeline.", e);
+        }
+        pruneOldTimelines();
+    }
+
+    @VisibleForTesting
+    JSONObject toJson(String outcome) throws JSONException {
+        long[] totals = new long[Phase.NUM_ENTRIES];
+        JSONArray phases = new JSONArray();
+        for (long[] phase : mPhases) {
+            totals[(int) phase[0]] += phase[3];
+            phases.put(new JSONArray()
+                               .put(PHASE_NAMES[(int) phase[0]])
+                               .put(phase[1])
+                               .put(phase[2])
+                               .put(phase[3]));
+        }
+        JSONObject totalsJson = new JSONObject();
+        for (int i = 0; i < Phase.NUM_ENTRIES; i++) totalsJson.put(PHASE_NAMES[i], totals[i]);
+
+        return new JSONObject()
+                .put("version", VERSION)
+                .put("start_time_ms", mStartWallMs)
+                .put("duration_ms", SystemClock.elapsedRealtime() - mStartMs)
+                .put("outcome", outcome)
+                .put("steps", mStep + 1)
+                .put("totals_ms", totalsJson)
+                .put("phases", phases);
+    }
+
+    private void addPhase(@Phase int phase, long startMs) {
+        long now = SystemClock.elapsedRealtime();
+        mPhases.add(new long[] {phase, mStep, startMs - mStartMs, now - startMs});
+    }
+
+    private void pruneOldTimelines() {
+        String[] names = mDirectory.list((dir, name) -> name.endsWith(FILE_SUFFIX));
+        if (names == null || names.length <= MAX_TIMELINE_FILES) return;
+        Arrays.sort(names);
+        for (int i = 0; i < names.length - MAX_TIMELINE_FILES; i++) {
+            new File(mDirectory, names[i]).delete();
+        }
+    }
+}
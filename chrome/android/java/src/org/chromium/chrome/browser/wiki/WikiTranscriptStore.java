@@ -0,0 +1,322 @@
+// Copyright 2025 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.chrome.browser.wiki;
+
+import org.chromium.base.Callback;
+import org.chromium.base.Log;
+import org.chromium.base.StreamUtil;
+import org.chromium.base.ThreadUtils;
+import org.chromium.base.task.PostTask;
+import org.chromium.base.task.SequencedTaskRunner;
+import org.chromium.base.task.TaskTraits;
+import org.chromium.content_public.browser.UiThreadTaskTraits;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only on-disk transcript of a single Wiki conversation session. Messages are written to a
+ * log file on a background sequence and a companion index file stores the fixed-width offset of
+ * every record, so any page of the transcript can be read without loading the rest of it.
+ *
+ * Files are named after a session id that outlives the activity, so a recreated activity or a
+ * restarted process reopens the same transcript. They are only deleted when the transcript is
+ * cleared or the session ends, and files of sessions that were abandoned without ending are
+ * deleted once they went untouched for {@link #ABANDONED_AGE_MS}.
+ *
+ * Messages are addressed by their position in the transcript, which is also the id the controller
+ * assigns to them. A message that cannot be written is kept in memory, along with the ones after
+ * it, and written again with the next append, so a failed write never shifts later positions.
+ * Once {@link #keepInMemory} was called, new messages are no longer written to disk.
+ */
+class WikiTranscriptStore {
+    private static final String TAG = "WikiTranscript";
+    private static final String LOG_SUFFIX = ".log";
+    private static final String INDEX_SUFFIX = ".idx";
+    private static final int INDEX_ENTRY_BYTES = 8;
+    private static final WikiMessage.Role[] ROLES = WikiMessage.Role.values();
+
+    /** Files of other sessions that were not written for this long are deleted. */
+    private static final long ABANDONED_AGE_MS = TimeUnit.DAYS.toMillis(30);
+
+    private final SequencedTaskRunner mTaskRunner;
+    private final File mLogFile;
+    private final File mIndexFile;
+
+    // UI thread state.
+    private int mMessageCount = -1;
+    /** Position of the first message kept in memory, or -1 while all messages go to disk. */
+    private int mMemoryStart = -1;
+    private final List<WikiMessage> mMemoryMessages = new ArrayList<>();
+
+    // Owned by mTaskRunner.
+    private FileOutputStream mLogFileStream;
+    private DataOutputStream mLogStream;
+    private DataOutputStream mIndexStream;
+    /** Number of records in the index file. */
+    private int mDiskCount;
+    /** Messages after the last record on disk, in transcript order. */
+    private final List<WikiMessage> mUnwrittenMessages = new ArrayList<>();
+
+    /**
+     * @param directory Directory holding all transcripts. Created on demand.
+     * @param sessionId Names the files of the transcript, so a store for the same session reads
+     *         the messages written by an earlier one.
+     */
+    WikiTranscriptStore(File directory, String sessionId) {
+        ThreadUtils.assertOnUiThread();
+        mTaskRunner = PostTask.createSequencedTaskRunner(TaskTraits.USER_VISIBLE_MAY_BLOCK);
+        mLogFile = new File(directory, sessionId + LOG_SUFFIX);
+        mIndexFile = new File(directory, sessionId + INDEX_SUFFIX);
+    }
+
+    /**
+     * Opens the transcript files in the background.
+     * @param callback Receives the number of persisted messages on the UI thread.
+     */
+    void open(Callback<Integer> callback) {
+        ThreadUtils.assertOnUiThread();
+        mTaskRunner.postTask(() -> {
+            int count = openOnSequence();
+            PostTask.postTask(UiThreadTaskTraits.DEFAULT, () -> {
+                mMessageCount = count;
+                callback.onResult(count);
+            });
+        });
+    }
+
+    /** @return Whether {@link #open} has completed. */
+    boolean isOpen() {
+        return mMessageCount >= 0;
+    }
+
+    /** @return The number of messages in the transcript, including ones still being written. */
+    int getMessageCount() {
+        assert isOpen();
+        return mMessageCount;
+    }
+
+    /**
+     * Keeps all messages appended from now on in memory only, e.g. because they may contain
+     * incognito content. Messages that were already written stay on disk until the session ends.
+     */
+    void keepInMemory() {
+        ThreadUtils.assertOnUiThread();
+        assert isOpen();
+        if (mMemoryStart < 0) mMemoryStart = mMessageCount;
+    }
+
+    /** Appends a message whose id must equal {@link #getMessageCount()}. */
+    void append(WikiMessage message) {
+        ThreadUtils.assertOnUiThread();
+        assert isOpen();
+        assert message.getId() == mMessageCount;
+        mMessageCount++;
+        if (mMemoryStart >= 0) {
+            mMemoryMessages.add(message);
+            return;
+        }
+        mTaskRunner.postTask(() -> appendOnSequence(message));
+    }
+
+    /**
+     * Reads the messages in [{@code from}, {@code to}) in transcript order.
+     * @param callback Receives the page on the UI thread. The page is truncated if some of the
+     *         records could not be read.
+     */
+    void readPage(int from, int to, Callback<List<WikiMessage>> callback) {
+        ThreadUtils.assertOnUiThread();
+        int persistedTo = mMemoryStart < 0 ? to : Math.min(to, mMemoryStart);
+        List<WikiMessage> memoryPage = mMemoryStart < 0 || to <= mMemoryStart
+                ? Collections.emptyList()
+                : new ArrayList<>(mMemoryMessages.subList(
+                        Math.max(from, mMemoryStart) - mMemoryStart, to - mMemoryStart));
+        mTaskRunner.postTask(() -> {
+            List<WikiMessage> page = readPageOnSequence(from, persistedTo);
+            // Only extend a page that was read in full, so it stays contiguous.
+            if (page.size() == Math.max(0, persistedTo - from)) page.addAll(memoryPage);
+            PostTask.postTask(UiThreadTaskTraits.DEFAULT, () -> callback.onResult(page));
+        });
+    }
+
+    /** Deletes the transcript. The store stays open and empty. */
+    void clear() {
+        ThreadUtils.assertOnUiThread();
+        mMessageCount = 0;
+        if (mMemoryStart >= 0) mMemoryStart = 0;
+        mMemoryMessages.clear();
+        mTaskRunner.postTask(this::deleteFilesOnSequence);
+    }
+
+    /** Closes the files once pending writes are done. The transcript stays on disk. */
+    void close() {
+        ThreadUtils.assertOnUiThread();
+        mMemoryMessages.clear();
+        mTaskRunner.postTask(this::closeStreams);
+    }
+
+    /** Ends the session: pending writes are dropped along with the files. */
+    void delete() {
+        ThreadUtils.assertOnUiThread();
+        mMemoryMessages.clear();
+        mTaskRunner.postTask(this::deleteFilesOnSequence);
+    }
+
+    private int openOnSequence() {
+        File directory = mLogFile.getParentFile();
+        if (directory != null && !directory.exists() && !directory.mkdirs()) {
+            Log.w(TAG, "Failed to create %s", directory);
+        }
+        deleteAbandonedFiles(directory);
+        long now = System.currentTimeMillis();
+        if (mLogFile.exists()) mLogFile.setLastModified(now);
+        if (mIndexFile.exists()) mIndexFile.setLastModified(now);
+        long indexLength = mIndexFile.length();
+        // A torn trailing index entry means the last append never completed; ignore it.
+        int count = (int) (indexLength / INDEX_ENTRY_BYTES);
+        if (indexLength % INDEX_ENTRY_BYTES != 0) {
+            try (RandomAccessFile index = new RandomAccessFile(mIndexFile, "rw")) {
+                index.setLength((long) count * INDEX_ENTRY_BYTES);
+            } catch (IOException e) {
+                Log.w(TAG, "Failed to repair transcript index.", e);
+            }
+        }
+        mDiskCount = count;
+        return count;
+    }
+
+    /**
+     * Deletes the transcripts of sessions that never ended, e.g. because their task was removed
+     * while the process was dead. Sessions that are still restorable keep writing their files, or
+     * touch them when they are reopened.
+     */
+    private void deleteAbandonedFiles(File directory) {
+        File[] files = directory == null ? null : directory.listFiles();
+        if (files == null) return;
+        long cutoff = System.currentTimeMillis() - ABANDONED_AGE_MS;
+        for (File file : files) {
+            if (file.equals(mLogFile) || file.equals(mIndexFile)) continue;
+            if (file.lastModified() >= cutoff) continue;
+            if (!file.delete()) Log.w(TAG, "Failed to delete %s", file);
+        }
+    }
+
+    private void appendOnSequence(WikiMessage message) {
+        mUnwrittenMessages.add(message);
+        int written = 0;
+        try {
+            ensureStreams();
+            for (; written < mUnwrittenMessages.size(); written++) {
+                writeRecord(mUnwrittenMessages.get(written));
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to append to transcript, %d messages kept in memory.",
+                    mUnwrittenMessages.size() - written, e);
+            closeStreams();
+            // Drops a torn index entry, so the next record is indexed at the right position. The
+            // log needs no repair, as records start wherever it ends.
+            try (RandomAccessFile index = new RandomAccessFile(mIndexFile, "rw")) {
+                index.setLength((long) mDiskCount * INDEX_ENTRY_BYTES);
+            } catch (IOException repairException) {
+                Log.w(TAG, "Failed to repair transcript index.", repairException);
+            }
+        } finally {
+            mUnwrittenMessages.subList(0, written).clear();
+        }
+    }
+
+    private void writeRecord(WikiMessage message) throws IOException {
+        assert message.getId() == mDiskCount;
+        byte[] text = message.getText().getBytes(StandardCharsets.UTF_8);
+        // Everything written so far was flushed, so this is where the record starts even if
+        // an earlier append failed halfway.
+        long offset = mLogFileStream.getChannel().size();
+        mLogStream.writeLong(message.getId());
+        mLogStream.writeByte(message.getRole().ordinal());
+        mLogStream.writeLong(message.getTimestamp());
+        mLogStream.writeInt(text.length);
+        mLogStream.write(text);
+        mLogStream.flush();
+        // The index entry is written last so a crash never exposes a partial record.
+        mIndexStream.writeLong(offset);
+        mIndexStream.flush();
+        mDiskCount++;
+    }
+
+    private List<WikiMessage> readPageOnSequence(int from, int to) {
+        int diskTo = Math.min(to, mDiskCount);
+        List<WikiMessage> page = readRecordsOnSequence(from, diskTo);
+        if (page.size() < diskTo - from) return page;
+        for (int i = Math.max(from, mDiskCount); i < to; i++) {
+            if (i - mDiskCount >= mUnwrittenMessages.size()) break;
+            page.add(mUnwrittenMessages.get(i - mDiskCount));
+        }
+        return page;
+    }
+
+    private List<WikiMessage> readRecordsOnSequence(int from, int to) {
+        List<WikiMessage> page = new ArrayList<>(Math.max(0, to - from));
+        if (from >= to) return page;
+        RandomAccessFile index = null;
+        RandomAccessFile log = null;
+        try {
+            index = new RandomAccessFile(mIndexFile, "r");
+            log = new RandomAccessFile(mLogFile, "r");
+            index.seek((long) from * INDEX_ENTRY_BYTES);
+            for (int i = from; i < to; i++) {
+                log.seek(index.readLong());
+                long id = log.readLong();
+                int role = log.readUnsignedByte();
+                long timestamp = log.readLong();
+                byte[] text = new byte[log.readInt()];
+                log.readFully(text);
+                if (role >= ROLES.length) break;
+                page.add(new WikiMessage(
+                        id, ROLES[role], new String(text, StandardCharsets.UTF_8), timestamp));
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to read transcript page [%d, %d).", from, to, e);
+        } finally {
+            StreamUtil.closeQuietly(index);
+            StreamUtil.closeQuietly(log);
+        }
+        return page;
+    }
+
+    private void ensureStreams() throws IOException {
+        if (mLogStream != null) return;
+        mLogFileStream = new FileOutputStream(mLogFile, true);
+        mLogStream = new DataOutputStream(new BufferedOutputStream(mLogFileStream));
+        mIndexStream = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(mIndexFile, true)));
+    }
+
+    private void closeStreams() {
+        StreamUtil.closeQuietly(mLogStream);
+        StreamUtil.closeQuietly(mIndexStream);
+        mLogFileStream = null;
+        mLogStream = null;
+        mIndexStream = null;
+    }
+
+    private void deleteFilesOnSequence() {
+        closeStreams();
+        mDiskCount = 0;
+        mUnwrittenMessages.clear();
+        if ((mLogFile.exists() && !mLogFile.delete())
+                || (mIndexFile.exists() && !mIndexFile.delete())) {
+            Log.w(TAG, "Failed to delete transcript files.");
+        }
+    }
+}
@@ -0,0 +1,114 @@
+// Copyright 2025 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.chrome.browser.wiki;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+
+import org.chromium.base.test.BaseRobolectricTestRunner;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+/** Unit tests for {@link CachingWikiAgentBackend}. */
+@RunWith(BaseRobolectricTestRunner.class)
+public class CachingWikiAgentBackendTest {
+    private static final String TASK = "Find the cart";
+    private static final String OBSERVATION = "[12] button Cart";
+
+    @Rule
+    public TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
+    private final StringBuilder mStreamed = new StringBuilder();
+    private File mCacheDirectory;
+    private WikiModelResponseCache mCache;
+    private int mPlans;
+    private boolean mOffTheRecord;
+
+    /** Answers every plan with the same streamed step. */
+    private class FakeBackend implements WikiAgentBackend {
+        @Override
+        public void onRunStarted(WikiRunTimeline timeline) {}
+
+        @Override
+        public String observe() {
+            return OBSERVATION;
+        }
+
+        @Override
+        public WikiAgentStep plan(String task, String observation, List<String> history,
+                TokenSink sink) {
+            mPlans++;
+            sink.onToken("Opening the cart");
+            return new WikiAgentStep("Open cart", "click [12]", false);
+        }
+
+        @Override
+        public String act(WikiAgentStep step) {
+            return "done";
+        }
+
+        @Override
+        public void settle() {}
+
+        @Override
+        public void cancel() {}
+    }
+
+    @Before
+    public void setUp() {
+        mCacheDirectory = new File(mTemporaryFolder.getRoot(), "cache");
+        mCache = new WikiModelResponseCache(mCacheDirectory);
+    }
+
+    @Test
+    public void testRepeatedPlanIsCached() throws IOException {
+        planInNewRun();
+        planInNewRun();
+
+        assertEquals(1, mPlans);
+        assertEquals("Opening the cartOpening the cart", mStreamed.toString());
+        assertTrue(hasDiskEntries());
+    }
+
+    @Test
+    public void testIncognitoPlanBypassesCache() throws IOException {
+        mOffTheRecord = true;
+
+        planInNewRun();
+        planInNewRun();
+
+        // Every plan reached the model, and nothing was persisted.
+        assertEquals(2, mPlans);
+        assertEquals("Opening the cartOpening the cart", mStreamed.toString());
+        assertFalse(hasDiskEntries());
+
+        // Regular runs do not get the incognito responses either.
+        mOffTheRecord = false;
+        planInNewRun();
+        assertEquals(3, mPlans);
+    }
+
+    private void planInNewRun() throws IOException {
+        CachingWikiAgentBackend backend = new CachingWikiAgentBackend(
+                new FakeBackend(), mCache, "fake", () -> mOffTheRecord);
+        backend.onRunStarted(new WikiRunTimeline(new File(mTemporaryFolder.getRoot(), "runs")));
+        backend.plan(TASK, OBSERVATION, Collections.emptyList(), mStreamed::append);
+    }
+
+    private boolean hasDiskEntries() {
+        String[] files = mCacheDirectory.list();
+        return files != null && files.length > 0;
+    }
+}
@@ -0,0 +1,109 @@
+// Copyright 2025 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.chrome.browser.wiki;
+
+import static org.junit.Assert.assertEquals;
+
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import org.chromium.base.test.BaseRobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** Unit tests for {@link WikiMessageAdapter}. */
+@RunWith(BaseRobolectricTestRunner.class)
+public class WikiMessageAdapterTest {
+    private static final int LONG_SESSION_SIZE = 5000;
+
+    /** Counts how many items each kind of notification invalidated. */
+    private static class CountingObserver extends RecyclerView.AdapterDataObserver {
+        int mFullRebinds;
+        int mInsertedItems;
+        int mChangedItems;
+
+        @Override
+        public void onChanged() {
+            mFullRebinds++;
+        }
+
+        @Override
+        public void onItemRangeInserted(int positionStart, int itemCount) {
+            mInsertedItems += itemCount;
+        }
+
+        @Override
+        public void onItemRangeChanged(int positionStart, int itemCount, Object payload) {
+            mChangedItems += itemCount;
+        }
+    }
+
+    private WikiMessageAdapter mAdapter;
+    private CountingObserver mObserver;
+
+    @Before
+    public void setUp() {
+        mAdapter = new WikiMessageAdapter(ApplicationProvider.getApplicationContext());
+        mObserver = new CountingObserver();
+        mAdapter.registerAdapterDataObserver(mObserver);
+    }
+
+    @Test
+    public void testAppendInvalidatesOnlyNewItem() {
+        for (int i = 0; i < LONG_SESSION_SIZE; i++) {
+            mAdapter.appendMessage(message(i, WikiMessage.Role.SYSTEM, "Step " + i));
+        }
+
+        // Appending n messages must touch n items in total, not n * (n + 1) / 2.
+        assertEquals(LONG_SESSION_SIZE, mAdapter.getItemCount());
+        assertEquals(LONG_SESSION_SIZE, mObserver.mInsertedItems);
+        assertEquals(0, mObserver.mChangedItems);
+        assertEquals(0, mObserver.mFullRebinds);
+    }
+
+    @Test
+    public void testStreamingUpdateIsInPlace() {
+        for (int i = 0; i < LONG_SESSION_SIZE; i++) {
+            mAdapter.appendMessage(message(i, WikiMessage.Role.SYSTEM, "Step " + i));
+        }
+        WikiMessage streamed = message(LONG_SESSION_SIZE, WikiMessage.Role.WIKI, "Wiki");
+        mAdapter.appendMessage(streamed);
+        mAdapter.updateMessage(streamed.withText("Wiki is"));
+        mAdapter.updateMessage(streamed.withText("Wiki is done"));
+
+        assertEquals(LONG_SESSION_SIZE + 1, mAdapter.getItemCount());
+        assertEquals(2, mObserver.mChangedItems);
+        assertEquals(0, mObserver.mFullRebinds);
+        assertEquals(LONG_SESSION_SIZE, mAdapter.getItemId(LONG_SESSION_SIZE));
+    }
+
+    @Test
+    public void testSetMessagesDispatchesOnlyTheDifference() {
+        List<WikiMessage> messages = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            messages.add(message(i, WikiMessage.Role.WIKI, "Message " + i));
+        }
+        mAdapter.setMessages(messages);
+        mObserver.mInsertedItems = 0;
+
+        List<WikiMessage> updated = new ArrayList<>(messages);
+        updated.set(99, messages.get(99).withText("Edited"));
+        updated.add(message(100, WikiMessage.Role.USER, "New"));
+        mAdapter.setMessages(updated);
+
+        assertEquals(1, mObserver.mInsertedItems);
+        assertEquals(1, mObserver.mChangedItems);
+        assertEquals(0, mObserver.mFullRebinds);
+    }
+
+    private static WikiMessage message(long id, WikiMessage.Role role, String text) {
+        return new WikiMessage(id, role, text, 0L);
+    }
+}
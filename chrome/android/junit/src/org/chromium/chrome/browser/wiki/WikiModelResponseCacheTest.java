@@ -0,0 +1,143 @@
+// Copyright 2025 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.chrome.browser.wiki;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+
+import org.chromium.base.test.BaseRobolectricTestRunner;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** Unit tests for {@link WikiModelResponseCache}. */
+@RunWith(BaseRobolectricTestRunner.class)
+public class WikiModelResponseCacheTest {
+    private static final String KEY = "0123abcd";
+
+    @Rule
+    public TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
+    private final AtomicInteger mLoads = new AtomicInteger();
+    private File mDirectory;
+
+    @Before
+    public void setUp() {
+        mDirectory = new File(mTemporaryFolder.getRoot(), "cache");
+    }
+
+    @Test
+    public void testRepeatedRequestIsServedFromMemory() throws IOException {
+        WikiModelResponseCache cache = new WikiModelResponseCache(mDirectory);
+
+        WikiModelResponseCache.Entry first = cache.get(KEY, this::load, () -> false);
+        WikiModelResponseCache.Entry second = cache.get(KEY, this::load, () -> false);
+
+        assertEquals(1, mLoads.get());
+        assertSame(first, second);
+    }
+
+    @Test
+    public void testResponseSurvivesRestartOnDisk() throws IOException {
+        new WikiModelResponseCache(mDirectory).get(KEY, this::load, () -> false);
+
+        WikiModelResponseCache.Entry entry =
+                new WikiModelResponseCache(mDirectory).get(KEY, this::load, () -> false);
+
+        assertEquals(1, mLoads.get());
+        assertEquals("Opening the cart", entry.mStreamedText);
+        assertEquals("Open cart", entry.mStep.getDescription());
+        assertEquals("click [12]", entry.mStep.getAction());
+    }
+
+    @Test
+    public void testConcurrentIdenticalRequestsLoadOnce() throws Exception {
+        WikiModelResponseCache cache = new WikiModelResponseCache(mDirectory);
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        // The signal is only checked while waiting for another request, so the follower counting
+        // it down proves it is waiting for the leader.
+        CountDownLatch followerWaiting = new CountDownLatch(1);
+        WikiModelResponseCache.Entry[] results = new WikiModelResponseCache.Entry[2];
+
+        Thread leader = new Thread(() -> results[0] = getQuietly(cache, () -> {
+            loadStarted.countDown();
+            assertTrue(followerWaiting.await(5, TimeUnit.SECONDS));
+            return load();
+        }, () -> false));
+        leader.start();
+        assertTrue(loadStarted.await(5, TimeUnit.SECONDS));
+        Thread follower = new Thread(() -> results[1] = getQuietly(cache, this::load, () -> {
+            followerWaiting.countDown();
+            return false;
+        }));
+        follower.start();
+        leader.join();
+        follower.join();
+
+        assertEquals(1, mLoads.get());
+        assertNotNull(results[0]);
+        assertSame(results[0], results[1]);
+    }
+
+    @Test
+    public void testResponseOfCancelledRequestIsNotCached() throws IOException {
+        WikiModelResponseCache cache = new WikiModelResponseCache(mDirectory);
+        AtomicBoolean cancelled = new AtomicBoolean();
+
+        try {
+            cache.get(KEY, () -> {
+                cancelled.set(true);
+                return load();
+            }, cancelled::get);
+            fail("A cancelled request should throw.");
+        } catch (InterruptedIOException e) {
+            // Expected.
+        }
+        cache.get(KEY, this::load, () -> false);
+        new WikiModelResponseCache(mDirectory).get(KEY, this::load, () -> false);
+
+        // Neither the memory nor the disk tier kept the cancelled response.
+        assertEquals(2, mLoads.get());
+    }
+
+    private WikiModelResponseCache.Entry load() {
+        mLoads.incrementAndGet();
+        return new WikiModelResponseCache.Entry(
+                "Opening the cart", new WikiAgentStep("Open cart", "click [12]", false));
+    }
+
+    private interface InterruptibleLoader {
+        WikiModelResponseCache.Entry load() throws InterruptedException;
+    }
+
+    private static WikiModelResponseCache.Entry getQuietly(WikiModelResponseCache cache,
+            InterruptibleLoader loader, WikiModelResponseCache.CancellationSignal signal) {
+        try {
+            return cache.get(KEY, () -> {
+                try {
+                    return loader.load();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+            }, signal);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
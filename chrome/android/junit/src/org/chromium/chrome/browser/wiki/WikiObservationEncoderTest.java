@@ -0,0 +1,91 @@
+// Copyright 2025 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.chrome.browser.wiki;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import org.chromium.base.test.BaseRobolectricTestRunner;
+
+/** Unit tests for {@link WikiObservationEncoder}. */
+@RunWith(BaseRobolectricTestRunner.class)
+public class WikiObservationEncoderTest {
+    private static final int LIST_SIZE = 500;
+
+    private final WikiObservationEncoder mEncoder = new WikiObservationEncoder();
+
+    @Test
+    public void testFirstSnapshotIsSentInFull() {
+        String encoded = mEncoder.encode(listPage("doc", LIST_SIZE, -1, null));
+
+        assertFalse(mEncoder.wasLastDelta());
+        assertTrue(encoded.startsWith("url https://example.com\n"));
+        assertEquals(mEncoder.getLastFullBytes(), mEncoder.getLastEncodedBytes());
+    }
+
+    @Test
+    public void testUnchangedPageProducesEmptyDelta() {
+        mEncoder.encode(listPage("doc", LIST_SIZE, -1, null));
+        String encoded = mEncoder.encode(listPage("doc", LIST_SIZE, -1, null));
+
+        assertTrue(mEncoder.wasLastDelta());
+        assertEquals("delta url https://example.com\n", encoded);
+    }
+
+    @Test
+    public void testDeltaOnlyDescribesChangedNodes() {
+        mEncoder.encode(listPage("doc", LIST_SIZE, -1, null));
+        String encoded = mEncoder.encode(listPage("doc", LIST_SIZE, 42, "Added to cart"));
+
+        assertTrue(mEncoder.wasLastDelta());
+        assertEquals("delta url https://example.com\n"
+                        + "+ [44] button \"Added to cart\" < [1] @42\n",
+                encoded);
+        assertTrue(mEncoder.getLastEncodedBytes() * 100 < mEncoder.getLastFullBytes());
+    }
+
+    @Test
+    public void testRemovedSubtreeIsReportedOnce() {
+        mEncoder.encode(listPage("doc", LIST_SIZE, -1, null));
+        String encoded = mEncoder.encode(listPage("doc", LIST_SIZE - 5, -1, null));
+
+        // Buttons 497 to 501 disappeared, their list did not.
+        assertTrue(mEncoder.wasLastDelta());
+        assertTrue(encoded.contains("- [497]\n"));
+        assertTrue(encoded.contains("- [501]\n"));
+        assertFalse(encoded.contains("- [496]\n"));
+        assertFalse(encoded.contains("- [1]\n"));
+    }
+
+    @Test
+    public void testNewDocumentIsSentInFull() {
+        mEncoder.encode(listPage("doc", LIST_SIZE, -1, null));
+        mEncoder.encode(listPage("other-doc", LIST_SIZE, -1, null));
+
+        assertFalse(mEncoder.wasLastDelta());
+    }
+
+    /**
+     * Builds a snapshot of a list container with {@code size} buttons, optionally relabelling the
+     * button at {@code changedIndex}.
+     */
+    private static WikiDomSnapshot listPage(
+            String documentId, int size, int changedIndex, String changedLabel) {
+        StringBuilder json = new StringBuilder();
+        json.append("{\"url\":\"https://example.com\",\"doc\":\"").append(documentId);
+        json.append("\",\"nodes\":[[1,0,\"ul\",\"list\",\"\"]");
+        for (int i = 0; i < size; i++) {
+            String label = i == changedIndex ? changedLabel : "Add item " + i;
+            json.append(",[").append(i + 2).append(",1,\"button\",\"\",\"").append(label);
+            json.append("\"]");
+        }
+        json.append("]}");
+        return WikiDomSnapshot.fromJson(json.toString());
+    }
+}